@@ -0,0 +1,40 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.stockmetrics.JavaMetricProvider;
+
+import java.util.List;
+
+final class Benchmarks {
+
+    private Benchmarks() {}
+
+    static List<Metric> getAllMetrics() {
+        return new JavaMetricProvider().getMetrics();
+    }
+
+    static Metric findMetric(String id) {
+        for (Metric metric : getAllMetrics()) {
+            if (metric.getID().equals(id)) {
+                return metric;
+            }
+        }
+        throw new IllegalArgumentException("Unknown metric: " + id);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.metricModel.MetricsRunImpl;
+import com.sixrr.stockmetrics.JavaMetricProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of a single calculator over a generated project, including the shared indexes it needs. Select other
+ * metrics with {@code -p metric=<id>,<id>}, using the ids of the metrics in {@link JavaMetricProvider}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    @Param("classes:200")
+    public String shape;
+
+    @Param({"LinesOfCodeMethod", "CommentLinesOfCodeClass", "HalsteadVolumeMethod", "CyclomaticComplexity",
+            "NumDependenciesClass", "LevelOrderClass", "NumTimesCalled", "DepthOfInheritance"})
+    public String metric;
+
+    private LightJavaProject project;
+    private Metric calculatedMetric;
+
+    @Setup
+    public void setUp() {
+        project = new LightJavaProject(new SyntheticSourceGenerator(ProjectShape.parse(shape), 1L).generate());
+        calculatedMetric = Benchmarks.findMetric(metric);
+    }
+
+    @TearDown
+    public void tearDown() {
+        project.dispose();
+    }
+
+    @Benchmark
+    public MetricsRunImpl calculate() {
+        return project.calculateMetrics(Collections.singletonList(calculatedMetric));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import com.sixrr.stockmetrics.dependency.DependencyMapImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the dependency map of a generated project, for dependency graphs of different density and cycle structure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DependencyMapBenchmark {
+
+    @Param({"classes:1000;dependencies:3", "classes:1000;dependencies:10;cycle:50"})
+    public String shape;
+
+    private LightJavaProject project;
+    private final List<PsiJavaFile> files = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        project = new LightJavaProject(new SyntheticSourceGenerator(ProjectShape.parse(shape), 1L).generate());
+        final PsiManager psiManager = PsiManager.getInstance(project.getProject());
+        ReadAction.run(() -> project.createScope().accept(virtualFile -> {
+            final PsiFile file = psiManager.findFile(virtualFile);
+            if (file instanceof PsiJavaFile) {
+                files.add((PsiJavaFile) file);
+            }
+            return true;
+        }));
+    }
+
+    @TearDown
+    public void tearDown() {
+        files.clear();
+        project.dispose();
+    }
+
+    @Benchmark
+    public DependencyMapImpl buildDependencyMap() {
+        return ReadAction.compute(() -> {
+            final DependencyMapImpl dependencyMap = new DependencyMapImpl();
+            for (PsiJavaFile file : files) {
+                dependencyMap.build(file);
+            }
+            dependencyMap.finishBuilding();
+            return dependencyMap;
+        });
+    }
+}
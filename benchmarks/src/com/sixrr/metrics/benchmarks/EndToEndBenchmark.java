@@ -0,0 +1,58 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.metricModel.MetricsRunImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A complete run of all Java metrics over a generated project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    @Param({"classes:200", "classes:1000;cycle:5"})
+    public String shape;
+
+    private LightJavaProject project;
+    private List<Metric> metrics;
+
+    @Setup
+    public void setUp() {
+        project = new LightJavaProject(new SyntheticSourceGenerator(ProjectShape.parse(shape), 1L).generate());
+        metrics = Benchmarks.getAllMetrics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        project.dispose();
+    }
+
+    @Benchmark
+    public MetricsRunImpl calculateAllMetrics() {
+        return project.calculateMetrics(metrics);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.sixrr.metrics.metricModel.MetricsRun;
+import com.sixrr.metrics.metricModel.MetricsRunImpl;
+import com.sixrr.metrics.export.CSVExporter;
+import com.sixrr.metrics.export.XMLExporter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exporting, and writing and reading snapshots of, the results of all Java metrics over a generated project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param("classes:1000")
+    public String shape;
+
+    private LightJavaProject project;
+    private MetricsRunImpl run;
+    private File directory;
+    private File xmlSnapshot;
+    private File binarySnapshot;
+
+    @Setup
+    public void setUp() throws IOException {
+        project = new LightJavaProject(new SyntheticSourceGenerator(ProjectShape.parse(shape), 1L).generate());
+        run = project.calculateMetrics(Benchmarks.getAllMetrics());
+        directory = FileUtil.createTempDirectory("metrics-benchmark", null);
+        xmlSnapshot = new File(directory, "snapshot-xml.met");
+        binarySnapshot = new File(directory, "snapshot-binary.metb");
+        run.writeToFile(xmlSnapshot.getPath());
+        run.writeBinaryToFile(binarySnapshot.getPath(), true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileUtil.delete(directory);
+        project.dispose();
+    }
+
+    @Benchmark
+    public void exportCsv() throws IOException {
+        new CSVExporter(run).export(new PrintWriter(NullWriter.INSTANCE));
+    }
+
+    @Benchmark
+    public void exportXml() throws IOException {
+        new XMLExporter(run).export(new PrintWriter(NullWriter.INSTANCE));
+    }
+
+    @Benchmark
+    public void writeXmlSnapshot() {
+        run.writeToFile(new File(directory, "out-xml.met").getPath());
+    }
+
+    @Benchmark
+    public void writeBinarySnapshot() {
+        run.writeBinaryToFile(new File(directory, "out-binary.metb").getPath(), true);
+    }
+
+    @Benchmark
+    public MetricsRun readXmlSnapshot() {
+        return MetricsRunImpl.readFromFile(xmlSnapshot);
+    }
+
+    @Benchmark
+    public MetricsRun readBinarySnapshot() {
+        return MetricsRunImpl.readFromFile(binarySnapshot);
+    }
+
+    private static final class NullWriter extends Writer {
+
+        static final NullWriter INSTANCE = new NullWriter();
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
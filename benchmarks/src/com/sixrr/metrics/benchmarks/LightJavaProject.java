@@ -0,0 +1,94 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import com.intellij.analysis.AnalysisScope;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.testFramework.EdtTestUtil;
+import com.intellij.testFramework.fixtures.*;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.metricModel.MetricsExecutionContextImpl;
+import com.sixrr.metrics.metricModel.MetricsRunImpl;
+import com.sixrr.metrics.metricModel.TimeStamp;
+import com.sixrr.metrics.profile.MetricInstance;
+import com.sixrr.metrics.profile.MetricInstanceImpl;
+import com.sixrr.metrics.profile.MetricsProfile;
+import com.sixrr.metrics.profile.MetricsProfileImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A light in-memory project containing the specified sources, backed by the IntelliJ test framework. The sources are
+ * stored in the in-memory temp file system, so nothing is written to disk.
+ */
+final class LightJavaProject {
+
+    private final CodeInsightTestFixture fixture;
+
+    LightJavaProject(Map<String, String> sources) {
+        final IdeaTestFixtureFactory factory = IdeaTestFixtureFactory.getFixtureFactory();
+        final TestFixtureBuilder<IdeaProjectTestFixture> builder =
+                factory.createLightFixtureBuilder(LightJavaCodeInsightFixtureTestCase.JAVA_LATEST);
+        fixture = JavaTestFixtureFactory.getFixtureFactory().createCodeInsightFixture(builder.getFixture());
+        EdtTestUtil.runInEdtAndWait(() -> {
+            fixture.setUp();
+            for (Map.Entry<String, String> entry : sources.entrySet()) {
+                fixture.addFileToProject(entry.getKey(), entry.getValue());
+            }
+        });
+    }
+
+    Project getProject() {
+        return fixture.getProject();
+    }
+
+    AnalysisScope createScope() {
+        return new AnalysisScope(fixture.getModule());
+    }
+
+    /**
+     * Calculates the specified metrics for the whole project, without using the file cache.
+     */
+    MetricsRunImpl calculateMetrics(Collection<Metric> metrics) {
+        final List<MetricInstance> instances = new ArrayList<>(metrics.size());
+        for (Metric metric : metrics) {
+            final MetricInstance instance = new MetricInstanceImpl(metric);
+            instance.setEnabled(true);
+            instances.add(instance);
+        }
+        final MetricsProfile profile = new MetricsProfileImpl("benchmark", instances);
+        final AnalysisScope scope = createScope();
+        final MetricsRunImpl run = new MetricsRunImpl();
+        run.setProfileName(profile.getName());
+        run.setTimestamp(new TimeStamp());
+        run.setContext(scope);
+        final MetricsExecutionContextImpl context = new MetricsExecutionContextImpl(getProject(), scope);
+        context.setUseFileCache(false);
+        ProgressManager.getInstance().runProcess(() -> context.calculateMetrics(profile, run),
+                                                 new EmptyProgressIndicator());
+        return run;
+    }
+
+    void dispose() {
+        EdtTestUtil.runInEdtAndWait(fixture::tearDown);
+    }
+}
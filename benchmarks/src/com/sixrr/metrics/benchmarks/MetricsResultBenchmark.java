@@ -0,0 +1,92 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricCategory;
+import com.sixrr.metrics.metricModel.MetricsResultImpl;
+import com.sixrr.metrics.metricModel.RowCursor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posting values to, and reading the sorted rows of, a results table with all method metrics. Needs no project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricsResultBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private Metric[] metrics;
+    private String[] measuredObjects;
+    private MetricsResultImpl result;
+
+    @Setup
+    public void setUp() {
+        final List<Metric> methodMetrics = new ArrayList<>();
+        for (Metric metric : Benchmarks.getAllMetrics()) {
+            if (metric.getCategory() == MetricCategory.Method) {
+                methodMetrics.add(metric);
+            }
+        }
+        metrics = methodMetrics.toArray(Metric.EMPTY_ARRAY);
+        measuredObjects = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            // reversed, so sorting has work to do
+            measuredObjects[i] = "bench.p" + i % 10 + ".C" + (rows - i) + ".m" + i % 7 + "(int,int)";
+        }
+        result = post();
+    }
+
+    private MetricsResultImpl post() {
+        final MetricsResultImpl result = new MetricsResultImpl();
+        for (int i = 0; i < measuredObjects.length; i++) {
+            for (Metric metric : metrics) {
+                result.postValue(metric, measuredObjects[i], i % 97);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public MetricsResultImpl postValues() {
+        return post();
+    }
+
+    @Benchmark
+    public void readSortedRows(Blackhole blackhole) {
+        final RowCursor cursor = result.getRowCursor(metrics);
+        while (cursor.next()) {
+            blackhole.consume(cursor.getMeasuredObject());
+            for (int i = 0; i < metrics.length; i++) {
+                if (cursor.hasValue(i)) {
+                    blackhole.consume(cursor.getValue(i));
+                }
+            }
+        }
+    }
+}
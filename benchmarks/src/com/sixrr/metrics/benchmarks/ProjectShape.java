@@ -0,0 +1,81 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The shape of a generated project. Parsed from strings like {@code "classes:500;methods:10;statements:20"}. The
+ * separators differ from the {@code ,} and {@code =} of JMH, so shapes can be passed as JMH parameters with
+ * {@code -p shape=...}. Keys that are not specified keep their default value.
+ */
+final class ProjectShape {
+
+    /** number of classes */
+    final int classes;
+    /** number of packages the classes are divided over */
+    final int packages;
+    /** methods per class */
+    final int methods;
+    /** statements per method */
+    final int statements;
+    /** classes referenced by every class, besides the classes in its cycle */
+    final int dependencies;
+    /** number of classes in every dependency cycle, 1 for an acyclic dependency graph */
+    final int cycle;
+
+    private ProjectShape(Map<String, Integer> values) {
+        classes = get(values, "classes", 200);
+        packages = get(values, "packages", 10);
+        methods = get(values, "methods", 10);
+        statements = get(values, "statements", 15);
+        dependencies = get(values, "dependencies", 3);
+        cycle = get(values, "cycle", 1);
+    }
+
+    private static int get(Map<String, Integer> values, String key, int defaultValue) {
+        final Integer value = values.remove(key);
+        return value == null ? defaultValue : Math.max(1, value.intValue());
+    }
+
+    static ProjectShape parse(String specification) {
+        final Map<String, Integer> values = new HashMap<>();
+        for (String entry : specification.split(";")) {
+            final String trimmed = entry.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            final int index = trimmed.indexOf(':');
+            if (index < 0) {
+                throw new IllegalArgumentException("Expected key:value: " + trimmed);
+            }
+            values.put(trimmed.substring(0, index).trim(), Integer.valueOf(trimmed.substring(index + 1).trim()));
+        }
+        final ProjectShape shape = new ProjectShape(values);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown keys: " + values.keySet());
+        }
+        return shape;
+    }
+
+    @Override
+    public String toString() {
+        return "classes:" + classes + ";packages:" + packages + ";methods:" + methods + ";statements:" + statements +
+               ";dependencies:" + dependencies + ";cycle:" + cycle;
+    }
+}
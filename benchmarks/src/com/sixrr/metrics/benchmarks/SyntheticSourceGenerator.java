@@ -0,0 +1,155 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates the Java sources of a synthetic project with a given {@link ProjectShape}. Classes are divided over the
+ * packages round robin. Every class references the next class in its cycle, and a number of randomly chosen classes
+ * with a lower index, so the dependency graph has no other cycles than the configured ones. Method bodies mix
+ * branches, loops, calls and arithmetic, so all kinds of metrics have something to measure. The same shape and seed
+ * always produce the same sources.
+ */
+final class SyntheticSourceGenerator {
+
+    private final ProjectShape shape;
+    private final Random random;
+
+    SyntheticSourceGenerator(ProjectShape shape, long seed) {
+        this.shape = shape;
+        random = new Random(seed);
+    }
+
+    /**
+     * @return the generated sources, by relative path.
+     */
+    Map<String, String> generate() {
+        final Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < shape.classes; i++) {
+            sources.put(packageName(i).replace('.', '/') + '/' + className(i) + ".java", generateClass(i));
+        }
+        return sources;
+    }
+
+    private String packageName(int index) {
+        return "bench.p" + index % shape.packages;
+    }
+
+    private static String className(int index) {
+        return "C" + index;
+    }
+
+    private String qualifiedName(int index) {
+        return packageName(index) + '.' + className(index);
+    }
+
+    private int[] dependencies(int index) {
+        final int cycleStart = index - index % shape.cycle;
+        final int next = cycleStart + (index - cycleStart + 1) % shape.cycle;
+        final int count = Math.min(index, shape.dependencies);
+        final int[] result = new int[count + (next != index && next < shape.classes ? 1 : 0)];
+        for (int i = 0; i < count; i++) {
+            result[i] = random.nextInt(index);
+        }
+        if (count < result.length) {
+            result[count] = next;
+        }
+        return result;
+    }
+
+    private String generateClass(int index) {
+        final int[] dependencies = dependencies(index);
+        final StringBuilder out = new StringBuilder(1024 + shape.methods * shape.statements * 40);
+        out.append("package ").append(packageName(index)).append(";\n\n");
+        out.append("/**\n * Generated class ").append(index).append(".\n */\n");
+        out.append("public class ").append(className(index));
+        if (index > 0 && random.nextInt(4) == 0) {
+            out.append(" extends ").append(qualifiedName(random.nextInt(index)));
+        }
+        out.append(" {\n\n");
+        for (int i = 0; i < dependencies.length; i++) {
+            out.append("    private ").append(qualifiedName(dependencies[i])).append(" d").append(i).append(";\n");
+        }
+        out.append("    private int state;\n\n");
+        for (int i = 0; i < shape.methods; i++) {
+            generateMethod(i, dependencies.length, out);
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private void generateMethod(int index, int dependencyCount, StringBuilder out) {
+        out.append("    // method ").append(index).append('\n');
+        out.append("    public int m").append(index).append("(int a, int b) {\n");
+        out.append("        int x = a + b;\n");
+        int depth = 0;
+        for (int i = 0; i < shape.statements; i++) {
+            indent(depth, out);
+            switch (random.nextInt(depth < 3 ? 6 : 4)) {
+                case 0:
+                    out.append("x = x * ").append(random.nextInt(10) + 1).append(" - a / (b == 0 ? 1 : b);\n");
+                    break;
+                case 1:
+                    if (dependencyCount == 0) {
+                        out.append("state += x;\n");
+                    }
+                    else {
+                        final int dependency = random.nextInt(dependencyCount);
+                        out.append("if (d").append(dependency).append(" != null) x += d").append(dependency)
+                                .append(".m").append(random.nextInt(shape.methods)).append("(x, a);\n");
+                    }
+                    break;
+                case 2:
+                    out.append("x = m").append(random.nextInt(shape.methods)).append("(b, x) % 17;\n");
+                    break;
+                case 3:
+                    out.append("if (x > a && b != ").append(i).append(") x--; else x++;\n");
+                    break;
+                case 4:
+                    out.append("for (int i").append(i).append(" = 0; i").append(i).append(" < b; i").append(i)
+                            .append("++) {\n");
+                    depth++;
+                    break;
+                default:
+                    out.append("if (x % 3 == 0 || a < b) {\n");
+                    depth++;
+                    break;
+            }
+            if (depth > 0 && random.nextInt(3) == 0) {
+                depth--;
+                indent(depth, out);
+                out.append("}\n");
+            }
+        }
+        while (depth > 0) {
+            depth--;
+            indent(depth, out);
+            out.append("}\n");
+        }
+        out.append("        return x;\n");
+        out.append("    }\n\n");
+    }
+
+    private static void indent(int depth, StringBuilder out) {
+        for (int i = 0; i < depth + 2; i++) {
+            out.append("    ");
+        }
+    }
+}
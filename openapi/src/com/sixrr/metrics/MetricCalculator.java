@@ -16,7 +16,14 @@
 
 package com.sixrr.metrics;
 
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
 
 /**
  * The MetricsCalculator interface, which is subclassed for each individual metric in order to implement all of the metrics
@@ -38,6 +45,96 @@ public interface MetricCalculator {
      */
     void processFile(PsiFile file);
 
+    /**
+     * Returns false if this calculator only needs the text of the files it measures, e.g. to count files or lines.
+     * Such calculators are called through {@link #processText(VirtualFile, CharSequence, UserDataHolder)} in a separate
+     * pass over the files, which does not build PSI. When no calculator in a run requires PSI, no PSI is built at all.
+     * @return true, if the calculator needs the PSI of the files, false otherwise.
+     */
+    default boolean requiresPsi() {
+        return true;
+    }
+
+    /**
+     * Returns false if this calculator only measures Java files. When no calculator in a run measures other files,
+     * no PSI is built for them.
+     * @return true, if the calculator needs the PSI of files in any language, false if only Java files are needed.
+     */
+    default boolean processesNonJavaFiles() {
+        return true;
+    }
+
+    /**
+     * Process the text of a file. This method is called once for each file in the analysis scope, instead of
+     * {@link #processFile(PsiFile)}, for calculators which don't require PSI.
+     * @param file  the file to calculate metrics for.
+     * @param text  the current text of the file, including unsaved changes.
+     * @param fileData  data shared by all calculators processing this file, so anything derived from the text, like
+     * the result of lexing it, only needs to be computed once.
+     */
+    default void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {}
+
+    /**
+     * Returns a non-recursive visitor, which is called for every element of every file in the analysis scope. The
+     * visitors of all calculators in a run share a single traversal of each file, instead of each calculator walking
+     * the file itself. If this method returns null, {@link #processFile(PsiFile)} is called instead.
+     * @return the element visitor of this calculator, or null if it processes files itself.
+     */
+    @Nullable
+    default PsiElementVisitor getElementVisitor() {
+        return null;
+    }
+
+    /**
+     * Returns true if this calculator may process several files at the same time, on different threads. Both
+     * {@link #processFile(PsiFile)} and the element visitor of such a calculator must be thread safe, including the
+     * posting of intermediate values. {@link #beginMetricsRun} and {@link #endMetricsRun()} are always called
+     * from a single thread.
+     * @return true, if files may be processed in parallel, false otherwise.
+     */
+    default boolean supportsParallelProcessing() {
+        return false;
+    }
+
+    /**
+     * Returns true if every value this calculator posts depends only on the contents of the file containing the
+     * measured element, and is posted while that file is processed. When metrics are updated, the values posted in
+     * the previous run for elements in unchanged files are then reused, and only the changed files are processed.
+     * @return true, if values of unchanged files may be reused, false otherwise.
+     */
+    default boolean supportsIncrementalProcessing() {
+        return false;
+    }
+
+    /**
+     * Returns true if this calculator adds up shares of files into the values of packages, modules or the project,
+     * and the share of every file depends only on the contents of that file. When metrics are updated, the shares of
+     * unchanged files are then restored with {@link #restoreFileShares(Object, Set)}, and only the changed files are
+     * processed.
+     * @return true, if the shares of unchanged files may be reused, false otherwise.
+     */
+    default boolean supportsIncrementalAggregation() {
+        return false;
+    }
+
+    /**
+     * Returns the share of every file processed in this run, called after {@link #endMetricsRun()} for calculators
+     * supporting incremental aggregation. The result is only ever passed to a calculator of the same metric.
+     * @return the shares of all files, or null if there are none.
+     */
+    @Nullable
+    default Object getFileShares() {
+        return null;
+    }
+
+    /**
+     * Restores the shares of all unchanged files from a previous run, called after {@link #beginMetricsRun} and before
+     * any file is processed.
+     * @param fileShares  the shares returned by {@link #getFileShares()} in the previous run.
+     * @param changedFiles  the files changed since the previous run, which will be processed again if they still exist.
+     */
+    default void restoreFileShares(@NotNull Object fileShares, @NotNull Set<VirtualFile> changedFiles) {}
+
     /**
      * Complete the metrics run. This is where the calculator should report any final results, and clean up any resources it
      * has acquired.
@@ -36,6 +36,11 @@ public final class MetricsReloadedConfig implements PersistentStateComponent<Met
     public boolean prebuilt = false;
     public boolean autoscroll = false;
     public boolean showOnlyWarnings = false;
+    public int workerCount = 1;
+    public boolean useFileCache = false;
+    public boolean binarySnapshots = false;
+    public boolean compressSnapshots = true;
+    public boolean recordTimings = false;
 
     @XMap(propertyElementName = "layout", entryTagName = "profile", keyAttributeName = "name")
     private final Map<String, MetricDisplaySpecification> displaySpecifications = new HashMap<>();
@@ -78,6 +83,46 @@ public final class MetricsReloadedConfig implements PersistentStateComponent<Met
         this.showOnlyWarnings = showOnlyWarnings;
     }
 
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    public boolean isUseFileCache() {
+        return useFileCache;
+    }
+
+    public void setUseFileCache(boolean useFileCache) {
+        this.useFileCache = useFileCache;
+    }
+
+    public boolean isBinarySnapshots() {
+        return binarySnapshots;
+    }
+
+    public void setBinarySnapshots(boolean binarySnapshots) {
+        this.binarySnapshots = binarySnapshots;
+    }
+
+    public boolean isCompressSnapshots() {
+        return compressSnapshots;
+    }
+
+    public void setCompressSnapshots(boolean compressSnapshots) {
+        this.compressSnapshots = compressSnapshots;
+    }
+
+    public boolean isRecordTimings() {
+        return recordTimings;
+    }
+
+    public void setRecordTimings(boolean recordTimings) {
+        this.recordTimings = recordTimings;
+    }
+
     public MetricDisplaySpecification getDisplaySpecification(MetricsProfile profile) {
         return displaySpecifications.computeIfAbsent(profile.getName(), p -> new MetricDisplaySpecification());
     }
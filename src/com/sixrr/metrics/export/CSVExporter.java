@@ -22,9 +22,11 @@ import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.metricModel.MetricAbbreviationComparator;
 import com.sixrr.metrics.metricModel.MetricsResult;
 import com.sixrr.metrics.metricModel.MetricsRun;
-import com.sixrr.metrics.utils.FormatUtils;
+import com.sixrr.metrics.metricModel.RowCursor;
 import org.jetbrains.annotations.NonNls;
 
+import java.io.BufferedWriter;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Arrays;
@@ -39,7 +41,7 @@ public class CSVExporter implements Exporter {
 
     @Override
     public void export(String fileName) throws IOException {
-        try (PrintWriter writer = new PrintWriter(fileName)) {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(fileName), 65536))) {
             export(writer);
         }
     }
@@ -68,20 +70,28 @@ public class CSVExporter implements Exporter {
         Arrays.sort(metrics, new MetricAbbreviationComparator());
         writer.print(type);
         for (Metric metric : metrics) {
-            writer.print(',' + metric.getAbbreviation());
+            writer.print(',');
+            writer.print(metric.getAbbreviation());
         }
         writer.println();
-        final String[] measuredObjects = results.getMeasuredObjects();
-        Arrays.sort(measuredObjects);
-
-        for (String object : measuredObjects) {
-            writer.print(escape(object));
-            for (Metric metric : metrics) {
-                final Double metricValue = results.getValueForMetric(metric, object);
-                if (metricValue == null) {
-                    writer.print(",n/a");
+        final ValueFormatter formatter = new ValueFormatter();
+        final RowCursor cursor = results.getRowCursor(metrics);
+        while (cursor.next()) {
+            writeEscaped(cursor.getMeasuredObject(), writer);
+            for (int i = 0; i < metrics.length; i++) {
+                if (!cursor.hasValue(i)) {
+                    writer.write(",n/a");
                 } else {
-                    writer.print(',' + escape(FormatUtils.formatValue(metric, metricValue)));
+                    writer.write(',');
+                    formatter.format(metrics[i], cursor.getValue(i));
+                    final boolean quote = formatter.contains(',');
+                    if (quote) {
+                        writer.write('"');
+                    }
+                    formatter.writeTo(writer);
+                    if (quote) {
+                        writer.write('"');
+                    }
                 }
             }
             writer.println();
@@ -90,29 +100,23 @@ public class CSVExporter implements Exporter {
     }
 
     /**
-     * Wraps the specified string into double-quotes if it contains commas, newlines or double-quotes.
+     * Writes the specified string wrapped into double-quotes if it contains commas, newlines or double-quotes.
      * Any double-quote that is part of the string will be represented by two double-quote characters
      * @param s  the string to escape
-     * @return the escaped string
      */
-    static String escape(String s) {
+    private static void writeEscaped(String s, PrintWriter writer) {
         if (!StringUtil.containsAnyChar(s, "\",\n")) {
-            return s;
+            writer.write(s);
+            return;
         }
-        final StringBuilder result = new StringBuilder("\"");
-        int i = 0;
-        final int length = s.length();
-        while (i < length) {
-            final int codePoint = s.codePointAt(i);
-            if (codePoint == '"') {
-                result.append("\"\"");
-            }
-            else {
-                result.appendCodePoint(codePoint);
+        writer.write('"');
+        for (int i = 0, length = s.length(); i < length; i++) {
+            final char c = s.charAt(i);
+            if (c == '"') {
+                writer.write('"');
             }
-            i += Character.charCount(codePoint);
+            writer.write(c);
         }
-        result.append("\"");
-        return result.toString();
+        writer.write('"');
     }
 }
@@ -21,9 +21,11 @@ import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.metricModel.MetricAbbreviationComparator;
 import com.sixrr.metrics.metricModel.MetricsResult;
 import com.sixrr.metrics.metricModel.MetricsRun;
-import com.sixrr.metrics.utils.FormatUtils;
+import com.sixrr.metrics.metricModel.RowCursor;
 import org.jetbrains.annotations.NonNls;
 
+import java.io.BufferedWriter;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Arrays;
@@ -38,7 +40,7 @@ public class HTMLExporter implements Exporter {
 
     @Override
     public void export(String fileName) throws IOException {
-        try (PrintWriter writer = new PrintWriter(fileName)) {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(fileName), 65536))) {
             export(writer);
         }
     }
@@ -65,24 +67,30 @@ public class HTMLExporter implements Exporter {
         writer.print(type);
         for (final Metric metric : metrics) {
             final String abbreviation = metric.getAbbreviation();
-            writer.print(',' + abbreviation);
+            writer.print(',');
+            writer.print(abbreviation);
         }
         writer.println();
-        final String[] measuredObjects = results.getMeasuredObjects();
-        Arrays.sort(measuredObjects);
-
-        for (final String object : measuredObjects) {
-            writer.print('\"' + object + '\"');
-            for (final Metric metric : metrics) {
-                final Double metricValue = results.getValueForMetric(metric, object);
-                if (metricValue == null) {
-                    writer.print(",n/a");
+        final ValueFormatter formatter = new ValueFormatter();
+        final RowCursor cursor = results.getRowCursor(metrics);
+        while (cursor.next()) {
+            writer.write('"');
+            writer.write(cursor.getMeasuredObject());
+            writer.write('"');
+            for (int i = 0; i < metrics.length; i++) {
+                if (!cursor.hasValue(i)) {
+                    writer.write(",n/a");
                 } else {
-                    String formattedValue = FormatUtils.formatValue(metric, metricValue);
-                    if (formattedValue.indexOf((int) ',') >= 0) {
-                        formattedValue = '"' + formattedValue + '"';
+                    writer.write(',');
+                    formatter.format(metrics[i], cursor.getValue(i));
+                    final boolean quote = formatter.contains(',');
+                    if (quote) {
+                        writer.write('"');
+                    }
+                    formatter.writeTo(writer);
+                    if (quote) {
+                        writer.write('"');
                     }
-                    writer.print(',' + formattedValue);
                 }
             }
             writer.println();
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.export;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.utils.FormatUtils;
+
+import java.io.PrintWriter;
+
+/**
+ * Formats metric values into a reused buffer, which is checked for separators and then written out.
+ */
+class ValueFormatter {
+
+    private final StringBuffer buffer = new StringBuffer(32);
+
+    void format(Metric metric, double value) {
+        buffer.setLength(0);
+        FormatUtils.formatValue(metric, value, buffer);
+    }
+
+    boolean contains(char c) {
+        for (int i = 0, length = buffer.length(); i < length; i++) {
+            if (buffer.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes the last formatted value.
+     */
+    void writeTo(PrintWriter writer) {
+        writer.append(buffer);
+    }
+}
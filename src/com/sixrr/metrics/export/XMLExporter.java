@@ -23,11 +23,10 @@ import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.metricModel.MetricAbbreviationComparator;
 import com.sixrr.metrics.metricModel.MetricsResult;
 import com.sixrr.metrics.metricModel.MetricsRun;
+import com.sixrr.metrics.metricModel.RowCursor;
 import org.jetbrains.annotations.NonNls;
 
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.*;
 import java.util.Arrays;
 
 public class XMLExporter implements Exporter {
@@ -40,7 +39,8 @@ public class XMLExporter implements Exporter {
 
     @Override
     public void export(String fileName) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileOutputStream(fileName))) {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(fileName)), 65536))) {
             export(writer);
         }
     }
@@ -72,17 +72,16 @@ public class XMLExporter implements Exporter {
                                               @NonNls PrintWriter writer) {
         writer.println("\t<METRIC category=\"" + category.name() + "\" name=\"" +
                 metric.getDisplayName() + "\" abbreviation=\"" + metric.getAbbreviation() + "\">");
-        for (final String measuredObject : results.getMeasuredObjects()) {
-            writeValue(results, metric, measuredObject, writer);
+        final RowCursor cursor = results.getRowCursor(metric);
+        while (cursor.next()) {
+            if (cursor.hasValue(0)) {
+                writer.write("\t\t<VALUE measured=\"");
+                writer.write(StringUtil.escapeXmlEntities(cursor.getMeasuredObject()));
+                writer.write("\" value=\"");
+                writer.print(cursor.getValue(0));
+                writer.println("\"/>");
+            }
         }
         writer.println("\t</METRIC>");
     }
-
-    private static void writeValue(MetricsResult results, Metric metric, String measuredObject,
-                                   @NonNls PrintWriter writer) {
-        final Double value = results.getValueForMetric(metric, measuredObject);
-        if (value != null) {
-            writer.println("\t\t<VALUE measured=\"" + StringUtil.escapeXmlEntities(measuredObject) + "\" value=\"" + value + "\"/>");
-        }
-    }
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricCategory;
+import com.sixrr.metrics.profile.MetricRepository;
+import com.sixrr.metrics.profile.MetricsProfileRepository;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.util.BitSet;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary alternative to the XML snapshot format. Per category the measured objects are written once, as a
+ * string table in sorted order, followed by one column per metric: a bitmap of the rows having a value, and the values
+ * of those rows only. Columns containing only non-negative whole numbers are stored as variable length ints. Everything
+ * after the header can optionally be deflate compressed.
+ */
+final class BinarySnapshot {
+
+    private static final int MAGIC = 0x4D524253; // "MRBS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int FLAG_COMPRESSED = 1;
+    private static final int COLUMN_DOUBLE = 0;
+    private static final int COLUMN_INT = 1;
+
+    private BinarySnapshot() {}
+
+    /**
+     * @return true, if the stream starts with the binary snapshot header. The stream must support mark and reset,
+     * its position is not changed.
+     */
+    static boolean isBinarySnapshot(@NotNull InputStream in) throws IOException {
+        in.mark(4);
+        try {
+            return new DataInputStream(in).readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    static void write(@NotNull MetricsRun run, @NotNull OutputStream out, @NotNull String pluginVersion,
+                      boolean compressed) throws IOException {
+        final DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(FORMAT_VERSION);
+        header.writeByte(compressed ? FLAG_COMPRESSED : 0);
+        header.flush();
+        final Deflater deflater = compressed ? new Deflater(Deflater.BEST_SPEED) : null;
+        final DeflaterOutputStream deflaterStream = compressed ? new DeflaterOutputStream(out, deflater, 65536) : null;
+        final DataOutputStream data = compressed ? new DataOutputStream(deflaterStream) : header;
+        try {
+            writeRun(run, data, pluginVersion);
+            if (deflaterStream != null) {
+                deflaterStream.finish();
+            }
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    private static void writeRun(MetricsRun run, DataOutputStream data, String pluginVersion) throws IOException {
+        IOUtil.writeUTF(data, String.valueOf(run.getProfileName()));
+        IOUtil.writeUTF(data, String.valueOf(run.getTimestamp()));
+        IOUtil.writeUTF(data, pluginVersion);
+        final MetricCategory[] categories = MetricCategory.values();
+        for (MetricCategory category : categories) {
+            final MetricsResult results = run.getResultsForCategory(category);
+            if (results == null || results.getMetrics().length == 0) {
+                continue;
+            }
+            data.writeByte(category.ordinal());
+            writeResults(results, data);
+        }
+        data.writeByte(-1);
+        data.flush();
+    }
+
+    private static void writeResults(MetricsResult results, DataOutputStream out) throws IOException {
+        final int[] rows = results.getSortedRows();
+        DataInputOutputUtil.writeINT(out, rows.length);
+        for (int row : rows) {
+            IOUtil.writeUTF(out, results.getMeasuredObjectForRow(row));
+        }
+        final Metric[] metrics = results.getMetrics();
+        DataInputOutputUtil.writeINT(out, metrics.length);
+        final BitSet present = new BitSet(rows.length);
+        for (Metric metric : metrics) {
+            present.clear();
+            boolean integral = true;
+            for (int i = 0; i < rows.length; i++) {
+                if (results.hasValueForRow(metric, rows[i])) {
+                    present.set(i);
+                    if (integral) {
+                        final double value = results.getValueForRow(metric, rows[i]);
+                        integral = value >= 0.0 && value <= Integer.MAX_VALUE && value == (int) value;
+                    }
+                }
+            }
+            IOUtil.writeUTF(out, metric.getClass().getName());
+            out.writeByte(integral ? COLUMN_INT : COLUMN_DOUBLE);
+            final long[] words = present.toLongArray();
+            DataInputOutputUtil.writeINT(out, words.length);
+            for (long word : words) {
+                out.writeLong(word);
+            }
+            for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+                final double value = results.getValueForRow(metric, rows[i]);
+                if (integral) {
+                    DataInputOutputUtil.writeINT(out, (int) value);
+                }
+                else {
+                    out.writeDouble(value);
+                }
+            }
+        }
+    }
+
+    static MetricsRunImpl read(@NotNull InputStream in) throws IOException {
+        final DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a binary metrics snapshot");
+        }
+        final int version = header.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary metrics snapshot version: " + version);
+        }
+        final boolean compressed = (header.readUnsignedByte() & FLAG_COMPRESSED) != 0;
+        final Inflater inflater = compressed ? new Inflater() : null;
+        try {
+            return readRun(compressed ? new DataInputStream(new InflaterInputStream(in, inflater, 65536)) : header);
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static MetricsRunImpl readRun(DataInputStream data) throws IOException {
+        final MetricsRunImpl run = new MetricsRunImpl();
+        run.setProfileName(IOUtil.readUTF(data));
+        run.setTimestamp(new TimeStamp(IOUtil.readUTF(data)));
+        final String pluginVersion = IOUtil.readUTF(data); // may need this later
+        final MetricRepository repository = MetricsProfileRepository.getInstance();
+        final MetricCategory[] categories = MetricCategory.values();
+        for (int category = data.readByte(); category >= 0; category = data.readByte()) {
+            if (category >= categories.length) {
+                throw new IOException("Unknown metric category: " + category);
+            }
+            readResults(run, repository, data);
+        }
+        return run;
+    }
+
+    private static void readResults(MetricsRunImpl run, MetricRepository repository, DataInputStream in)
+            throws IOException {
+        final String[] measuredObjects = new String[DataInputOutputUtil.readINT(in)];
+        for (int i = 0; i < measuredObjects.length; i++) {
+            measuredObjects[i] = IOUtil.readUTF(in);
+        }
+        final int metricCount = DataInputOutputUtil.readINT(in);
+        for (int i = 0; i < metricCount; i++) {
+            final Metric metric = repository.getMetric(IOUtil.readUTF(in));
+            final boolean integral = in.readUnsignedByte() == COLUMN_INT;
+            final long[] words = new long[DataInputOutputUtil.readINT(in)];
+            for (int j = 0; j < words.length; j++) {
+                words[j] = in.readLong();
+            }
+            final BitSet present = BitSet.valueOf(words);
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                final double value = integral ? DataInputOutputUtil.readINT(in) : in.readDouble();
+                if (metric != null) {
+                    run.postRawMetric(metric, measuredObjects[row], value);
+                }
+            }
+        }
+    }
+}
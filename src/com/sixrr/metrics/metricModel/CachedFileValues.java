@@ -0,0 +1,126 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.IOUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The values posted while a single file was processed, by the calculators whose results can be cached. Metrics are
+ * stored as an index into the sorted list of cached metric ids, elements as the start offset of the measured class
+ * or method in the file.
+ */
+class CachedFileValues {
+
+    static final DataExternalizer<CachedFileValues> EXTERNALIZER = new Externalizer();
+
+    private int size = 0;
+    private int[] metricIndexes;
+    private String[] measuredObjects;
+    private double[] numerators;
+    private double[] denominators;
+    private int[] offsets;
+
+    CachedFileValues() {
+        this(8);
+    }
+
+    private CachedFileValues(int capacity) {
+        metricIndexes = new int[capacity];
+        measuredObjects = new String[capacity];
+        numerators = new double[capacity];
+        denominators = new double[capacity];
+        offsets = new int[capacity];
+    }
+
+    void add(int metricIndex, String measuredObject, double numerator, double denominator, int offset) {
+        if (size == metricIndexes.length) {
+            final int capacity = Math.max(8, size << 1);
+            metricIndexes = Arrays.copyOf(metricIndexes, capacity);
+            measuredObjects = Arrays.copyOf(measuredObjects, capacity);
+            numerators = Arrays.copyOf(numerators, capacity);
+            denominators = Arrays.copyOf(denominators, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+        }
+        metricIndexes[size] = metricIndex;
+        measuredObjects[size] = measuredObject;
+        numerators[size] = numerator;
+        denominators[size] = denominator;
+        offsets[size] = offset;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getMetricIndex(int i) {
+        return metricIndexes[i];
+    }
+
+    String getMeasuredObject(int i) {
+        return measuredObjects[i];
+    }
+
+    double getNumerator(int i) {
+        return numerators[i];
+    }
+
+    double getDenominator(int i) {
+        return denominators[i];
+    }
+
+    int getOffset(int i) {
+        return offsets[i];
+    }
+
+    private static class Externalizer implements DataExternalizer<CachedFileValues> {
+
+        @Override
+        public void save(@NotNull DataOutput out, CachedFileValues values) throws IOException {
+            final int size = values.size;
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeShort(values.metricIndexes[i]);
+                IOUtil.writeUTF(out, values.measuredObjects[i]);
+                out.writeDouble(values.numerators[i]);
+                out.writeDouble(values.denominators[i]);
+                out.writeInt(values.offsets[i]);
+            }
+        }
+
+        @Override
+        public CachedFileValues read(@NotNull DataInput in) throws IOException {
+            final int size = in.readInt();
+            final CachedFileValues values = new CachedFileValues(size);
+            for (int i = 0; i < size; i++) {
+                final int metricIndex = in.readUnsignedShort();
+                final String measuredObject = IOUtil.readUTF(in);
+                final double numerator = in.readDouble();
+                final double denominator = in.readDouble();
+                values.add(metricIndex, measuredObject, numerator, denominator, in.readInt());
+            }
+            return values;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.sixrr.metrics.Metric;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The time spent and the memory allocated by the calculator of a single metric during a run, recorded when timings
+ * are enabled. Processing covers both {@link com.sixrr.metrics.MetricCalculator#processFile} and the calls to the
+ * element visitor of the calculator, summed over all threads. The calls to element visitors are sampled, so the
+ * processing time and the allocated memory are estimates.
+ */
+public class CalculatorTiming {
+
+    private static final com.sun.management.ThreadMXBean threadMXBean = createThreadMXBean();
+
+    private final Metric metric;
+    private final LongAdder beginNanos = new LongAdder();
+    private final LongAdder processingNanos = new LongAdder();
+    private final LongAdder endNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    CalculatorTiming(@NotNull Metric metric) {
+        this.metric = metric;
+    }
+
+    private static com.sun.management.ThreadMXBean createThreadMXBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return threadMXBean;
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far, or 0 if the JVM can't tell.
+     */
+    static long currentThreadAllocatedBytes() {
+        return threadMXBean == null ? 0L : threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    void addBegin(long nanos, long bytes) {
+        beginNanos.add(nanos);
+        allocatedBytes.add(bytes);
+    }
+
+    void addProcessing(long nanos, long bytes) {
+        processingNanos.add(nanos);
+        allocatedBytes.add(bytes);
+    }
+
+    void addEnd(long nanos, long bytes) {
+        endNanos.add(nanos);
+        allocatedBytes.add(bytes);
+    }
+
+    @NotNull
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public long getBeginNanos() {
+        return beginNanos.sum();
+    }
+
+    public long getProcessingNanos() {
+        return processingNanos.sum();
+    }
+
+    public long getEndNanos() {
+        return endNanos.sum();
+    }
+
+    public long getTotalNanos() {
+        return getBeginNanos() + getProcessingNanos() + getEndNanos();
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    void emitEvent() {
+        final CalculatorTimingEvent event = new CalculatorTimingEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.metric = metric.getID();
+        event.begin = getBeginNanos();
+        event.processing = getProcessingNanos();
+        event.end = getEndNanos();
+        event.allocated = getAllocatedBytes();
+        event.commit();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event with the {@link CalculatorTiming} of a calculator, emitted at the end of a run.
+ */
+@Name("com.sixrr.metrics.CalculatorTiming")
+@Label("Metric Calculator Timing")
+@Category("MetricsReloaded")
+@StackTrace(false)
+class CalculatorTimingEvent extends Event {
+
+    @Label("Metric")
+    String metric;
+
+    @Label("Begin Metrics Run")
+    @Timespan
+    long begin;
+
+    @Label("Processing")
+    @Timespan
+    long processing;
+
+    @Label("End Metrics Run")
+    @Timespan
+    long end;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
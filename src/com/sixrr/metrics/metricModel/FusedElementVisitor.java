@@ -0,0 +1,104 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Walks a file once and passes every element to the non-recursive visitors of all calculators in the run, so each
+ * calculator receives its visitClass/visitMethod/visitFile etc. events without traversing the tree itself.
+ */
+class FusedElementVisitor extends PsiRecursiveElementWalkingVisitor {
+
+    // reading the clock and the allocation counter costs about as much as a simple visitor call, so only one in this
+    // many elements is timed and the result is scaled up, which makes the recorded processing times approximate
+    private static final int SAMPLE_INTERVAL = 16;
+
+    private final PsiElementVisitor[] visitors;
+    private final CalculatorTiming[] timings;
+    private final long[] sampledNanos;
+    private final long[] sampledBytes;
+    private int elementCount = 0;
+
+    FusedElementVisitor(List<PsiElementVisitor> visitors) {
+        this(visitors, null);
+    }
+
+    /**
+     * @param timings  the timings to record the calls to each visitor in, or null if no timings are recorded.
+     */
+    FusedElementVisitor(List<PsiElementVisitor> visitors, @Nullable Map<PsiElementVisitor, CalculatorTiming> timings) {
+        this.visitors = visitors.toArray(new PsiElementVisitor[0]);
+        if (timings == null) {
+            this.timings = null;
+            sampledNanos = null;
+            sampledBytes = null;
+        }
+        else {
+            this.timings = new CalculatorTiming[this.visitors.length];
+            for (int i = 0; i < this.visitors.length; i++) {
+                this.timings[i] = timings.get(this.visitors[i]);
+            }
+            sampledNanos = new long[this.visitors.length];
+            sampledBytes = new long[this.visitors.length];
+        }
+    }
+
+    boolean isEmpty() {
+        return visitors.length == 0;
+    }
+
+    @Override
+    public void visitFile(@NotNull PsiFile file) {
+        super.visitFile(file);
+        if (timings != null) {
+            // the timings are shared by all threads, so they are only updated once per file
+            for (int i = 0; i < visitors.length; i++) {
+                timings[i].addProcessing(sampledNanos[i] * SAMPLE_INTERVAL, sampledBytes[i] * SAMPLE_INTERVAL);
+                sampledNanos[i] = 0L;
+                sampledBytes[i] = 0L;
+            }
+        }
+    }
+
+    @Override
+    public void visitElement(@NotNull PsiElement element) {
+        if (timings == null || elementCount++ % SAMPLE_INTERVAL != 0) {
+            for (PsiElementVisitor visitor : visitors) {
+                element.accept(visitor);
+            }
+        }
+        else {
+            for (int i = 0; i < visitors.length; i++) {
+                final long allocated = CalculatorTiming.currentThreadAllocatedBytes();
+                final long start = System.nanoTime();
+                element.accept(visitors[i]);
+                sampledNanos[i] += System.nanoTime() - start;
+                sampledBytes[i] += CalculatorTiming.currentThreadAllocatedBytes() - allocated;
+            }
+        }
+        super.visitElement(element);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.*;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which files of a project changed, so a metrics run can find the files changed since a previous run started.
+ * Changes which cannot be attributed to single files, like moved directories or changed module roots, invalidate all
+ * earlier runs.
+ */
+public class MetricsChangeTracker implements Disposable {
+
+    private final Project project;
+    private long modificationCount = 0L;
+    private long structureModificationCount = 0L;
+    private final Map<VirtualFile, Long> fileModificationCounts = new HashMap<>();
+
+    public MetricsChangeTracker(Project project) {
+        this.project = project;
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiChangeListener(), this);
+        final MessageBusConnection connection = project.getMessageBus().connect(this);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new FileChangeListener());
+        connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(@NotNull ModuleRootEvent event) {
+                structureChanged();
+            }
+        });
+    }
+
+    public static MetricsChangeTracker getInstance(Project project) {
+        return ServiceManager.getService(project, MetricsChangeTracker.class);
+    }
+
+    /**
+     * @return the current modification count, to be stored with a run before it starts.
+     */
+    public synchronized long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * @return the files which changed since the specified modification count, or null if something changed that
+     * requires all files to be processed again.
+     */
+    @Nullable
+    public synchronized Set<VirtualFile> getChangedFilesSince(long modificationCount) {
+        if (modificationCount < 0L || structureModificationCount > modificationCount) {
+            return null;
+        }
+        final Set<VirtualFile> result = new HashSet<>();
+        for (Map.Entry<VirtualFile, Long> entry : fileModificationCounts.entrySet()) {
+            if (entry.getValue().longValue() > modificationCount) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    synchronized void fileChanged(@Nullable VirtualFile file) {
+        if (file == null) {
+            structureChanged();
+            return;
+        }
+        modificationCount++;
+        fileModificationCounts.put(file, Long.valueOf(modificationCount));
+    }
+
+    synchronized void structureChanged() {
+        modificationCount++;
+        structureModificationCount = modificationCount;
+        fileModificationCounts.clear();
+    }
+
+    @Override
+    public void dispose() {}
+
+    private class PsiChangeListener extends PsiTreeChangeAdapter {
+
+        @Override
+        public void childAdded(@NotNull PsiTreeChangeEvent event) {
+            changed(event, event.getChild());
+        }
+
+        @Override
+        public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+            changed(event, event.getChild());
+        }
+
+        @Override
+        public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+            changed(event, event.getNewChild());
+        }
+
+        @Override
+        public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+            // changes of directories are also reported as more specific events
+            final PsiFile file = event.getFile();
+            if (file != null) {
+                fileChanged(file.getVirtualFile());
+            }
+        }
+
+        @Override
+        public void childMoved(@NotNull PsiTreeChangeEvent event) {
+            changed(event, event.getChild());
+        }
+
+        @Override
+        public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+            changed(event, event.getElement());
+        }
+
+        private void changed(PsiTreeChangeEvent event, PsiElement element) {
+            final PsiFile file = event.getFile();
+            if (file != null) {
+                fileChanged(file.getVirtualFile());
+            } else if (element instanceof PsiFile) {
+                fileChanged(((PsiFile) element).getVirtualFile());
+            } else {
+                structureChanged();
+            }
+        }
+    }
+
+    private class FileChangeListener implements BulkFileListener {
+
+        @Override
+        public void after(@NotNull List<? extends VFileEvent> events) {
+            final ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+            for (VFileEvent event : events) {
+                // deleted files are reported by the psi listener
+                final VirtualFile file = event.getFile();
+                if (file == null || !file.isValid() || !fileIndex.isInContent(file)) {
+                    continue;
+                }
+                if (file.isDirectory()) {
+                    structureChanged();
+                } else {
+                    fileChanged(file);
+                }
+            }
+        }
+    }
+}
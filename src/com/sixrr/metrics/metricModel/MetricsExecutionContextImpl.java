@@ -17,38 +17,105 @@
 package com.sixrr.metrics.metricModel;
 
 import com.intellij.analysis.AnalysisScope;
+import com.intellij.ide.highlighter.JavaFileType;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.UserDataHolder;
 import com.intellij.openapi.util.UserDataHolderBase;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiCompiledElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricsExecutionContext;
 import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.metrics.config.MetricsReloadedConfig;
 import com.sixrr.metrics.profile.MetricInstance;
 import com.sixrr.metrics.profile.MetricsProfile;
 import com.sixrr.metrics.utils.MetricsReloadedBundle;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 public class MetricsExecutionContextImpl extends UserDataHolderBase implements MetricsExecutionContext {
 
+    private static final Logger LOG = Logger.getInstance(MetricsExecutionContextImpl.class);
+
     private final Project project;
     private final AnalysisScope scope;
+    private int workerCount;
+    private MetricsRunImpl previousRun = null;
+    private Set<VirtualFile> changedFiles = null;
+    private boolean useFileCache;
+    private boolean recordTimings;
+    private List<CalculatorTiming> timings = null;
+    private Map<PsiElementVisitor, CalculatorTiming> visitorTimings = null;
 
     public MetricsExecutionContextImpl(Project project, AnalysisScope scope) {
         this.project = project;
         this.scope = scope;
+        final MetricsReloadedConfig config = MetricsReloadedConfig.getInstance();
+        workerCount = config.getWorkerCount();
+        useFileCache = config.isUseFileCache();
+        recordTimings = config.isRecordTimings();
+    }
+
+    /**
+     * Sets the number of threads used for calculators which support parallel processing. With a single worker all
+     * files are processed sequentially.
+     */
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    /**
+     * Enables or disables the {@link MetricsFileCache}, which stores the values of calculators supporting incremental
+     * processing per file, so unchanged files don't need to be processed again in later runs.
+     */
+    public void setUseFileCache(boolean useFileCache) {
+        this.useFileCache = useFileCache;
+    }
+
+    /**
+     * Enables or disables recording a {@link CalculatorTiming} for every calculator in a run. The timings are stored in
+     * the {@link MetricsRunImpl} the results are posted to, and emitted as flight recorder events.
+     */
+    public void setRecordTimings(boolean recordTimings) {
+        this.recordTimings = recordTimings;
+    }
+
+    /**
+     * Reuses the results of a previous run of the same profile on the same scope. Calculators which support
+     * incremental processing then only process the files changed since, all other calculators process all files.
+     */
+    public void setPreviousRun(@NotNull MetricsRunImpl previousRun, @NotNull Set<VirtualFile> changedFiles) {
+        this.previousRun = previousRun;
+        this.changedFiles = changedFiles;
     }
 
     public final void execute(MetricsProfile profile, MetricsResultsHolder resultsHolder) {
@@ -73,63 +140,408 @@ public class MetricsExecutionContextImpl extends UserDataHolderBase implements M
         task.queue();
     }
 
+    /**
+     * May be called more than once, e.g. for several profiles over the same scope. The data calculators share through
+     * the user data of this context, like the dependency map and the method call index, is then reused.
+     */
     public void calculateMetrics(MetricsProfile profile, MetricsResultsHolder resultsHolder) {
         final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
         final List<MetricInstance> metrics = profile.getMetricInstances();
         indicator.setIndeterminate(false);
         indicator.setText(MetricsReloadedBundle.message("initializing.progress.string"));
-        final int numFiles = scope.getFileCount();
         final int numMetrics = metrics.size();
         final List<MetricCalculator> calculators = new ArrayList<>(numMetrics);
+        final List<MetricCalculator> fileCalculators = new ArrayList<>(numMetrics);
+        final List<PsiElementVisitor> elementVisitors = new ArrayList<>(numMetrics);
+        final List<MetricCalculator> parallelFileCalculators = new ArrayList<>(numMetrics);
+        final List<PsiElementVisitor> parallelElementVisitors = new ArrayList<>(numMetrics);
+        final List<Metric> reusedMetrics = new ArrayList<>(numMetrics);
+        final List<MetricCalculator> reusedFileCalculators = new ArrayList<>(numMetrics);
+        final List<PsiElementVisitor> reusedElementVisitors = new ArrayList<>(numMetrics);
+        final List<MetricCalculator> reusedTextCalculators = new ArrayList<>(numMetrics);
+        final Map<Metric, MetricCalculator> aggregatingCalculators = new HashMap<>();
+        final List<MetricCalculator> textCalculators = new ArrayList<>(numMetrics);
+        final boolean incremental = previousRun != null && resultsHolder instanceof MetricsRunImpl;
+        final boolean cached = !incremental && useFileCache && resultsHolder instanceof MetricsRunImpl;
+        final RecordingResultsHolder recorder =
+                cached ? new RecordingResultsHolder((MetricsRunImpl) resultsHolder, reusedMetrics) : null;
+        boolean reusedParallel = workerCount > 1;
+        boolean textParallel = workerCount > 1;
+        boolean nonJavaFiles = false;
+        boolean reusedNonJavaFiles = false;
+        timings = recordTimings ? new ArrayList<>(numMetrics) : null;
+        visitorTimings = recordTimings ? new IdentityHashMap<>(numMetrics) : null;
         for (MetricInstance metricInstance : metrics) {
             indicator.checkCanceled();
             if (!metricInstance.isEnabled()) {
                 continue;
             }
             final Metric metric = metricInstance.getMetric();
-            final MetricCalculator calculator = metric.createCalculator();
+            final MetricCalculator calculator;
+            if (recordTimings) {
+                final CalculatorTiming timing = new CalculatorTiming(metric);
+                timings.add(timing);
+                calculator = new TimedMetricCalculator(metric.createCalculator(), timing);
+            }
+            else {
+                calculator = metric.createCalculator();
+            }
 
             calculators.add(calculator);
-            calculator.beginMetricsRun(resultsHolder, this);
+            final boolean reused = calculator.supportsIncrementalProcessing() &&
+                                   (incremental ? previousRun.hasResultsForMetric(metric) : cached);
+            final Object fileShares = incremental && calculator.supportsIncrementalAggregation()
+                                      ? previousRun.getFileShares(metric)
+                                      : null;
+            calculator.beginMetricsRun(reused && cached ? recorder : resultsHolder, this);
+            if (calculator.supportsIncrementalAggregation()) {
+                aggregatingCalculators.put(metric, calculator);
+                if (fileShares != null) {
+                    calculator.restoreFileShares(fileShares, changedFiles);
+                }
+            }
+            final PsiElementVisitor elementVisitor = calculator.getElementVisitor();
+            if (elementVisitor != null && recordTimings) {
+                visitorTimings.put(elementVisitor, ((TimedMetricCalculator) calculator).getTiming());
+            }
+            if (reused || fileShares != null) {
+                if (reused) {
+                    reusedMetrics.add(metric);
+                }
+                reusedParallel &= calculator.supportsParallelProcessing();
+                if (!calculator.requiresPsi()) {
+                    reusedTextCalculators.add(calculator);
+                    continue;
+                }
+                reusedNonJavaFiles |= calculator.processesNonJavaFiles();
+                if (elementVisitor == null) {
+                    reusedFileCalculators.add(calculator);
+                }
+                else {
+                    reusedElementVisitors.add(elementVisitor);
+                }
+                continue;
+            }
+            if (!calculator.requiresPsi()) {
+                textParallel &= calculator.supportsParallelProcessing();
+                textCalculators.add(calculator);
+                continue;
+            }
+            nonJavaFiles |= calculator.processesNonJavaFiles();
+            final boolean parallel = workerCount > 1 && calculator.supportsParallelProcessing();
+            if (elementVisitor == null) {
+                (parallel ? parallelFileCalculators : fileCalculators).add(calculator);
+            }
+            else {
+                (parallel ? parallelElementVisitors : elementVisitors).add(elementVisitor);
+            }
         }
         if (calculators.isEmpty()) {
             return;
         }
+        final FusedElementVisitor fusedVisitor = new FusedElementVisitor(elementVisitors, visitorTimings);
+        final boolean sequential = !fusedVisitor.isEmpty() || !fileCalculators.isEmpty();
+        final boolean parallel = !parallelElementVisitors.isEmpty() || !parallelFileCalculators.isEmpty();
 
-        scope.accept(new PsiElementVisitor() {
-            private int mainTraversalProgress = 0;
+        if (incremental) {
+            if (!reusedMetrics.isEmpty()) {
+                final MetricsRunImpl run = (MetricsRunImpl) resultsHolder;
+                ReadAction.run(() -> run.copyUnchangedResults(previousRun, reusedMetrics, changedFiles));
+            }
+            if (!reusedElementVisitors.isEmpty() || !reusedFileCalculators.isEmpty() ||
+                !reusedTextCalculators.isEmpty()) {
+                processChangedFiles(reusedElementVisitors, reusedFileCalculators, reusedTextCalculators,
+                                    reusedNonJavaFiles, indicator);
+            }
+        }
+        else if (!reusedMetrics.isEmpty()) {
+            recorder.sortMetrics();
+            processFilesWithCache((MetricsRunImpl) resultsHolder, recorder, reusedElementVisitors,
+                                  reusedFileCalculators, reusedTextCalculators, reusedNonJavaFiles, reusedParallel,
+                                  indicator);
+        }
+        if (!textCalculators.isEmpty()) {
+            processTexts(textCalculators, textParallel, indicator);
+        }
+        if (!sequential && !parallel) {
+            endMetricsRun(calculators, aggregatingCalculators, resultsHolder, indicator);
+            return;
+        }
 
-            @Override
-            public void visitFile(@NotNull PsiFile file) {
-                super.visitFile(file);
-                if (file instanceof PsiCompiledElement) {
+        final List<VirtualFile> files = findMeasuredFiles();
+        if (!nonJavaFiles) {
+            files.removeIf(virtualFile -> !isJavaFile(virtualFile));
+        }
+        if (sequential) {
+            final PsiManager psiManager = PsiManager.getInstance(project);
+            processFilesSequentially(files, virtualFile -> ReadAction.run(() -> {
+                final PsiFile file = psiManager.findFile(virtualFile);
+                if (file == null || file instanceof PsiCompiledElement) {
+                    return;
+                }
+                if (!fusedVisitor.isEmpty()) {
+                    file.accept(fusedVisitor);
+                }
+                for (MetricCalculator calculator : fileCalculators) {
+                    calculator.processFile(file);
+                }
+            }), indicator);
+        }
+        if (parallel) {
+            processFilesInParallel(files, parallelElementVisitors, parallelFileCalculators, indicator);
+        }
+
+        endMetricsRun(calculators, aggregatingCalculators, resultsHolder, indicator);
+    }
+
+    private void endMetricsRun(List<MetricCalculator> calculators, Map<Metric, MetricCalculator> aggregatingCalculators,
+                               MetricsResultsHolder resultsHolder, ProgressIndicator indicator) {
+        indicator.setText(MetricsReloadedBundle.message("tabulating.results.progress.string"));
+        for (MetricCalculator calculator : calculators) {
+            indicator.checkCanceled();
+            calculator.endMetricsRun();
+        }
+        if (resultsHolder instanceof MetricsRunImpl) {
+            final MetricsRunImpl run = (MetricsRunImpl) resultsHolder;
+            for (Map.Entry<Metric, MetricCalculator> entry : aggregatingCalculators.entrySet()) {
+                run.setFileShares(entry.getKey(), entry.getValue().getFileShares());
+            }
+        }
+        if (timings != null) {
+            for (CalculatorTiming timing : timings) {
+                timing.emitEvent();
+            }
+            if (resultsHolder instanceof MetricsRunImpl) {
+                ((MetricsRunImpl) resultsHolder).setTimings(timings);
+            }
+        }
+    }
+
+    private boolean isMeasured(PsiFile file) {
+        return !(file instanceof PsiCompiledElement) && isMeasured(file.getVirtualFile());
+    }
+
+    private boolean isMeasured(VirtualFile virtualFile) {
+        final FileType fileType = virtualFile.getFileType();
+        if (fileType.isBinary()) {
+            return false;
+        }
+        final ProjectRootManager rootManager = ProjectRootManager.getInstance(project);
+        final ProjectFileIndex fileIndex = rootManager.getFileIndex();
+        return !fileIndex.isExcluded(virtualFile) && fileIndex.isInContent(virtualFile);
+    }
+
+    /**
+     * Files in other languages are skipped when none of the calculators processing PSI measure them, so their PSI is
+     * never built.
+     */
+    private static boolean isJavaFile(VirtualFile virtualFile) {
+        return virtualFile.getFileType() == JavaFileType.INSTANCE;
+    }
+
+    /**
+     * Processes the files changed since the previous run with the calculators whose results or file shares for
+     * unchanged files were taken over from that run. Deleted files and files outside of the scope are skipped.
+     */
+    private void processChangedFiles(List<PsiElementVisitor> elementVisitors, List<MetricCalculator> fileCalculators,
+                                     List<MetricCalculator> textCalculators, boolean nonJavaFiles,
+                                     ProgressIndicator indicator) {
+        final FusedElementVisitor fusedVisitor = new FusedElementVisitor(elementVisitors, visitorTimings);
+        final PsiManager psiManager = PsiManager.getInstance(project);
+        final ProgressManager progressManager = ProgressManager.getInstance();
+        for (VirtualFile virtualFile : changedFiles) {
+            indicator.checkCanceled();
+            ReadAction.run(() -> {
+                if (!virtualFile.isValid() || !scope.contains(virtualFile)) {
                     return;
                 }
-                final FileType fileType = file.getFileType();
-                if (fileType.isBinary()) {
+                if (!textCalculators.isEmpty() && isMeasured(virtualFile)) {
+                    processText(virtualFile, textCalculators);
+                }
+                if (fusedVisitor.isEmpty() && fileCalculators.isEmpty()) {
                     return;
                 }
-                final VirtualFile virtualFile = file.getVirtualFile();
-                final ProjectRootManager rootManager = ProjectRootManager.getInstance(file.getProject());
-                final ProjectFileIndex fileIndex = rootManager.getFileIndex();
-                if (fileIndex.isExcluded(virtualFile) || !fileIndex.isInContent(virtualFile)) {
+                if (!nonJavaFiles && !isJavaFile(virtualFile)) {
                     return;
                 }
-                final String fileName = file.getName();
-                indicator.setText(MetricsReloadedBundle.message("analyzing.progress.string", fileName));
-                mainTraversalProgress++;
-
-                for (MetricCalculator calculator : calculators) {
+                final PsiFile file = psiManager.findFile(virtualFile);
+                if (file == null || !isMeasured(file)) {
+                    return;
+                }
+                indicator.setText(MetricsReloadedBundle.message("analyzing.progress.string", file.getName()));
+                if (!fusedVisitor.isEmpty()) {
+                    progressManager.runProcess(() -> file.accept(fusedVisitor), new EmptyProgressIndicator());
+                }
+                for (MetricCalculator calculator : fileCalculators) {
                     calculator.processFile(file);
                 }
-                indicator.setFraction((double) mainTraversalProgress / (double) numFiles);
+            });
+        }
+    }
+
+    /**
+     * Processes all files in the scope with the calculators supporting incremental processing. The values of files
+     * found in the {@link MetricsFileCache} are posted without loading the file, the values of all other files are
+     * recorded while the file is processed and added to the cache.
+     */
+    private void processFilesWithCache(MetricsRunImpl run, RecordingResultsHolder recorder,
+                                       List<PsiElementVisitor> elementVisitors, List<MetricCalculator> fileCalculators,
+                                       List<MetricCalculator> textCalculators, boolean nonJavaFiles,
+                                       boolean parallel, ProgressIndicator indicator) {
+        final List<Metric> metrics = recorder.getMetrics();
+        final List<String> metricIds = ContainerUtil.map(metrics, Metric::getID);
+        final String metricsHash = MetricsFileCache.calculateMetricsHash(metricIds);
+        final MetricsFileCache cache = MetricsFileCache.getInstance();
+        final List<VirtualFile> files = findMeasuredFiles();
+        final ThreadLocal<FusedElementVisitor> fusedVisitors =
+                ThreadLocal.withInitial(() -> new FusedElementVisitor(elementVisitors, visitorTimings));
+        final PsiManager psiManager = PsiManager.getInstance(project);
+        final Consumer<VirtualFile> processor = virtualFile -> {
+            String key = null;
+            try {
+                key = MetricsFileCache.calculateKey(project, virtualFile, metricsHash);
+            } catch (IOException e) {
+                LOG.warn(e);
+            }
+            if (key != null) {
+                final CachedFileValues values = cache.get(key);
+                if (values != null && run.postCachedValues(values, metrics, project, virtualFile)) {
+                    return;
+                }
+            }
+            final String cacheKey = key;
+            ReadAction.run(() -> {
+                final PsiFile file = nonJavaFiles || isJavaFile(virtualFile) ? psiManager.findFile(virtualFile) : null;
+                if (file == null && textCalculators.isEmpty() || file instanceof PsiCompiledElement) {
+                    return;
+                }
+                final CachedFileValues values;
+                recorder.startRecording();
+                try {
+                    if (!textCalculators.isEmpty()) {
+                        processText(virtualFile, textCalculators);
+                    }
+                    if (file != null) {
+                        file.accept(fusedVisitors.get());
+                        for (MetricCalculator calculator : fileCalculators) {
+                            calculator.processFile(file);
+                        }
+                    }
+                } finally {
+                    values = recorder.stopRecording();
+                }
+                if (cacheKey != null && values != null) {
+                    cache.put(cacheKey, values);
+                }
+            });
+        };
+        if (parallel) {
+            processFilesInParallel(files, processor, indicator);
+        }
+        else {
+            processFilesSequentially(files, processor, indicator);
+        }
+    }
+
+    /**
+     * Processes all files in the scope with the calculators which don't require PSI, by passing them the text of
+     * every file. No PSI is built for the files.
+     */
+    private void processTexts(List<MetricCalculator> calculators, boolean parallel, ProgressIndicator indicator) {
+        final List<VirtualFile> files = findMeasuredFiles();
+        final Consumer<VirtualFile> processor = virtualFile -> ReadAction.run(() -> {
+            if (virtualFile.isValid()) {
+                processText(virtualFile, calculators);
             }
         });
+        if (parallel) {
+            processFilesInParallel(files, processor, indicator);
+        }
+        else {
+            processFilesSequentially(files, processor, indicator);
+        }
+    }
 
-        indicator.setText(MetricsReloadedBundle.message("tabulating.results.progress.string"));
+    /**
+     * Passes the text of the file to the calculators, together with a data holder they share for this file only.
+     */
+    private static void processText(VirtualFile virtualFile, List<MetricCalculator> calculators) {
+        final CharSequence text = loadText(virtualFile);
+        final UserDataHolder fileData = new UserDataHolderBase();
         for (MetricCalculator calculator : calculators) {
+            calculator.processText(virtualFile, text, fileData);
+        }
+    }
+
+    private static CharSequence loadText(VirtualFile virtualFile) {
+        // an open document may contain unsaved changes
+        final Document document = FileDocumentManager.getInstance().getCachedDocument(virtualFile);
+        return document != null ? document.getImmutableCharSequence() : LoadTextUtil.loadText(virtualFile);
+    }
+
+    private List<VirtualFile> findMeasuredFiles() {
+        final List<VirtualFile> files = new ArrayList<>();
+        ReadAction.run(() -> scope.accept(virtualFile -> {
+            if (isMeasured(virtualFile)) {
+                files.add(virtualFile);
+            }
+            return true;
+        }));
+        return files;
+    }
+
+    private static void processFilesSequentially(List<VirtualFile> files, Consumer<VirtualFile> processor,
+                                                 ProgressIndicator indicator) {
+        final ProgressManager progressManager = ProgressManager.getInstance();
+        for (int i = 0, size = files.size(); i < size; i++) {
             indicator.checkCanceled();
-            calculator.endMetricsRun();
+            final VirtualFile virtualFile = files.get(i);
+            indicator.setText(MetricsReloadedBundle.message("analyzing.progress.string", virtualFile.getName()));
+            progressManager.runProcess(() -> processor.accept(virtualFile), new EmptyProgressIndicator());
+            indicator.setFraction((double) (i + 1) / (double) size);
+        }
+    }
+
+    /**
+     * Processes the files on a pool of {@link #workerCount} threads, each file in its own read action. Every worker
+     * thread uses its own fused visitor, the calculators themselves are shared and must be thread safe.
+     */
+    private void processFilesInParallel(List<VirtualFile> files, List<PsiElementVisitor> elementVisitors,
+                                        List<MetricCalculator> fileCalculators, ProgressIndicator indicator) {
+        final ThreadLocal<FusedElementVisitor> fusedVisitors =
+                ThreadLocal.withInitial(() -> new FusedElementVisitor(elementVisitors, visitorTimings));
+        final PsiManager psiManager = PsiManager.getInstance(project);
+        processFilesInParallel(files, virtualFile -> ReadAction.run(() -> {
+            final PsiFile file = psiManager.findFile(virtualFile);
+            if (file == null || !isMeasured(file)) {
+                return;
+            }
+            file.accept(fusedVisitors.get());
+            for (MetricCalculator calculator : fileCalculators) {
+                calculator.processFile(file);
+            }
+        }), indicator);
+    }
+
+    private void processFilesInParallel(List<VirtualFile> files, Consumer<VirtualFile> processor,
+                                        ProgressIndicator indicator) {
+        indicator.setText(MetricsReloadedBundle.message("analyzing.parallel.progress.string", workerCount));
+        final ProgressManager progressManager = ProgressManager.getInstance();
+        final ExecutorService executor =
+                AppExecutorUtil.createBoundedApplicationPoolExecutor("MetricsReloaded", workerCount);
+        final List<Future<?>> futures = new ArrayList<>(files.size());
+        try {
+            for (VirtualFile virtualFile : files) {
+                futures.add(executor.submit(() -> progressManager.runProcess(() -> processor.accept(virtualFile),
+                                                                             new EmptyProgressIndicator())));
+            }
+            final int numFiles = futures.size();
+            for (int i = 0; i < numFiles; i++) {
+                ProgressIndicatorUtils.awaitWithCheckCanceled(futures.get(i), indicator);
+                indicator.setFraction((double) (i + 1) / (double) numFiles);
+            }
+        } finally {
+            executor.shutdownNow();
         }
     }
 
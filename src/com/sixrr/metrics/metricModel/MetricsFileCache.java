@@ -0,0 +1,245 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.fileTypes.StdFileTypes;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.impl.JavaPsiImplementationHelper;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.PersistentHashMap;
+import com.sixrr.metrics.Metric;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Stores the values of file-local metrics per file on disk, under the system directory of the IDE, so files which did
+ * not change don't need to be processed again in later runs, even after a restart. Values are keyed by a hash of the
+ * file contents and settings affecting the file, and of the ids of the cached metrics. Every plugin version uses its
+ * own storage, storages of other versions are deleted when the cache is opened.
+ */
+public class MetricsFileCache implements Disposable {
+
+    private static final Logger LOG = Logger.getInstance(MetricsFileCache.class);
+
+    /**
+     * The storage guards its own data, the lock only keeps it from being opened or closed while it is used, so
+     * worker threads don't wait for each other to access the cache.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private PersistentHashMap<String, CachedFileValues> storage = null;
+    private boolean broken = false;
+
+    public static MetricsFileCache getInstance() {
+        return ServiceManager.getService(MetricsFileCache.class);
+    }
+
+    @Nullable
+    CachedFileValues get(@NotNull String key) {
+        final IOException error;
+        final PersistentHashMap<String, CachedFileValues> storage = lockStorage();
+        try {
+            if (storage == null) {
+                return null;
+            }
+            return storage.get(key);
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.readLock().unlock();
+        }
+        handleError(storage, error);
+        return null;
+    }
+
+    void put(@NotNull String key, @NotNull CachedFileValues values) {
+        final IOException error;
+        final PersistentHashMap<String, CachedFileValues> storage = lockStorage();
+        try {
+            if (storage == null) {
+                return;
+            }
+            storage.put(key, values);
+            return;
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            lock.readLock().unlock();
+        }
+        handleError(storage, error);
+    }
+
+    /**
+     * Only values of calculators supporting incremental processing are cached, which depend on nothing but the file.
+     * Besides the contents, the key therefore only includes what changes how the file is parsed or classified: its
+     * file type, its language level and whether it is in a test source root. The cached method signatures can
+     * depend on other files, they are calculated again when the values are read.
+     * @return the cache key for the current contents of the file, or null if the file has unsaved changes, which
+     * are not visible in its contents on disk.
+     */
+    @Nullable
+    static String calculateKey(@NotNull Project project, @NotNull VirtualFile file, @NotNull String metricsHash)
+            throws IOException {
+        if (FileDocumentManager.getInstance().isFileModified(file)) {
+            return null;
+        }
+        final String context = ReadAction.compute(() -> {
+            final FileType fileType = file.getFileType();
+            final String languageLevel = fileType == StdFileTypes.JAVA ? getLanguageLevel(project, file) : "";
+            final boolean test = ProjectFileIndex.getInstance(project).isInTestSourceContent(file);
+            return fileType.getName() + '\0' + languageLevel + '\0' + test;
+        });
+        final MessageDigest digest = createDigest();
+        digest.update(context.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(file.contentsToByteArray());
+        return toHex(digest.digest()) + metricsHash;
+    }
+
+    private static String getLanguageLevel(Project project, VirtualFile file) {
+        return JavaPsiImplementationHelper.getInstance(project).getEffectiveLanguageLevel(file).name();
+    }
+
+    /**
+     * @param metricIds the ids of the cached metrics, sorted.
+     */
+    @NotNull
+    static String calculateMetricsHash(@NotNull List<String> metricIds) {
+        final MessageDigest digest = createDigest();
+        for (String metricId : metricIds) {
+            digest.update(metricId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        final StringBuilder result = new StringBuilder(bytes.length << 1);
+        for (byte b : bytes) {
+            result.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Acquires the read lock, which the caller must release, and opens the storage if that was not done yet.
+     */
+    @Nullable
+    private PersistentHashMap<String, CachedFileValues> lockStorage() {
+        lock.readLock().lock();
+        if (storage != null || broken) {
+            return storage;
+        }
+        lock.readLock().unlock();
+        lock.writeLock().lock();
+        try {
+            if (storage == null && !broken) {
+                openStorage();
+            }
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return storage;
+    }
+
+    private void openStorage() {
+        final File cacheDirectory = new File(PathManager.getSystemPath(), "MetricsReloaded");
+        final String version = MetricsRunImpl.getPluginVersion();
+        final File[] children = cacheDirectory.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                if (!child.getName().equals(version)) {
+                    FileUtil.delete(child);
+                }
+            }
+        }
+        final File storageFile = new File(new File(cacheDirectory, version), "values");
+        try {
+            storage = new PersistentHashMap<>(storageFile, EnumeratorStringDescriptor.INSTANCE,
+                                              CachedFileValues.EXTERNALIZER);
+        } catch (IOException e) {
+            LOG.warn(e);
+            // a corrupted storage is deleted, so the next attempt starts out empty
+            PersistentHashMap.deleteFilesStartingWith(storageFile);
+            broken = true;
+        }
+    }
+
+    private void handleError(PersistentHashMap<String, CachedFileValues> storage, IOException e) {
+        lock.writeLock().lock();
+        try {
+            if (storage != this.storage) {
+                // already handled by another thread
+                return;
+            }
+            LOG.warn(e);
+            this.storage = null;
+            broken = true;
+            try {
+                storage.close();
+            } catch (IOException ignore) {}
+            PersistentHashMap.deleteFilesStartingWith(storage.getBaseFile());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        lock.writeLock().lock();
+        try {
+            if (storage == null) {
+                return;
+            }
+            try {
+                storage.close();
+            } catch (IOException e) {
+                LOG.warn(e);
+            }
+            storage = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
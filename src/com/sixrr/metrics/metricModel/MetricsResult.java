@@ -34,6 +34,37 @@ public interface MetricsResult {
 
     String[] getMeasuredObjects();
 
+    /**
+     * @return the number of measured objects. Every measured object has a row id in the range
+     * {@code [0, getRowCount())}, assigned in the order in which the objects were first posted.
+     */
+    int getRowCount();
+
+    /**
+     * @return the row id of the measured object, or -1 if there are no results for it.
+     */
+    int getRow(String measuredObject);
+
+    String getMeasuredObjectForRow(int row);
+
+    /**
+     * @return all row ids, ordered by the name of their measured object. The returned array must not be modified.
+     */
+    int[] getSortedRows();
+
+    boolean hasValueForRow(Metric metric, int row);
+
+    /**
+     * Only meaningful when {@link #hasValueForRow(Metric, int)} returns true.
+     */
+    double getValueForRow(Metric metric, int row);
+
+    /**
+     * @return a cursor over all rows ordered by the name of their measured object, with the values of the specified
+     * metrics as its columns.
+     */
+    RowCursor getRowCursor(Metric... metrics);
+
     Metric[] getMetrics();
 
     @Nullable
@@ -53,10 +84,15 @@ public interface MetricsResult {
     @Nullable
     PsiElement getElementForMeasuredObject(String measuredObject);
 
+    @Nullable
+    PsiElement getElementForRow(int row);
+
     void setOriginalForMeasuredObject(String measuredObject, Object original);
 
     <T> T getOriginalForMeasuredObject(String measuredObject);
 
+    <T> T getOriginalForRow(int row);
+
     boolean hasWarnings(MetricsProfile profile);
 
     boolean hasValues();
@@ -18,26 +18,34 @@ package com.sixrr.metrics.metricModel;
 
 import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
 import com.intellij.psi.SmartPointerManager;
 import com.intellij.psi.SmartPsiElementPointer;
-import com.intellij.util.ArrayUtil;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricType;
 import com.sixrr.metrics.profile.MetricInstance;
 import com.sixrr.metrics.profile.MetricsProfile;
-import com.sixrr.metrics.utils.StringToFractionMap;
+import com.sixrr.metrics.utils.IndexedSet;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
+/**
+ * Stores the results column by column. Every measured object gets a dense row id when its first value is posted,
+ * and every metric stores its values in primitive arrays indexed by row.
+ */
 public class MetricsResultImpl implements MetricsResult {
     private static final double[] EMPTY_DOUBLE_ARRAY = new double[0];
+    private static final int INITIAL_CAPACITY = 32;
 
-    private final Map<Metric, StringToFractionMap> values = new HashMap<>(32);
-    private final Set<String> measuredObjects = new HashSet<>(32);
-    private final Set<Metric> metrics = new HashSet<>(32);
-    private final Map<String, Object> elements = new HashMap<>(1024);
+    private final Map<Metric, MetricColumn> columns = new HashMap<>(32);
+    private final IndexedSet<String> measuredObjects = new IndexedSet<>();
+    private Object[] elements = new Object[INITIAL_CAPACITY];
+    private int[] sortedRows = null;
 
     @Override
     public void postValue(Metric metric, String measured, double value) {
@@ -45,54 +53,121 @@ public class MetricsResultImpl implements MetricsResult {
     }
 
     @Override
-    public void postValue(Metric metric, String measured, double numerator, double denominator) {
+    public synchronized void postValue(Metric metric, String measured, double numerator, double denominator) {
         if (measured == null) {
             return;
         }
-        StringToFractionMap metricValues = values.get(metric);
-        if (metricValues == null) {
-            metricValues = new StringToFractionMap();
-            values.put(metric, metricValues);
+        final int row = addMeasuredObject(measured);
+        MetricColumn column = columns.get(metric);
+        if (column == null) {
+            column = new MetricColumn();
+            columns.put(metric, column);
+        }
+        column.put(row, numerator, denominator);
+    }
+
+    private int addMeasuredObject(String measured) {
+        final int size = measuredObjects.size();
+        final int row = measuredObjects.add(measured);
+        if (row == size) {
+            sortedRows = null;
+            if (row >= elements.length) {
+                elements = Arrays.copyOf(elements, elements.length << 1);
+            }
         }
-        metricValues.put(measured, numerator, denominator);
-        measuredObjects.add(measured);
-        metrics.add(metric);
+        return row;
     }
 
     @Override
     @Nullable
     public Double getValueForMetric(Metric metric, String measured) {
-        final StringToFractionMap metricValues = values.get(metric);
-        if (metricValues == null) {
+        final int row = measuredObjects.indexOf(measured);
+        if (!hasValueForRow(metric, row)) {
             return null;
         }
-        return metricValues.containsKey(measured) ? Double.valueOf(metricValues.get(measured)) : null;
+        return Double.valueOf(getValueForRow(metric, row));
     }
 
     @Override
     public double[] getValuesForMetric(Metric metric) {
-        final StringToFractionMap metricValues = values.get(metric);
-        if (metricValues == null) {
+        final MetricColumn column = columns.get(metric);
+        if (column == null) {
             return EMPTY_DOUBLE_ARRAY;
         }
-        final String[] measureds = metricValues.getKeys();
-        final double[] result = new double[measureds.length];
-        for (int i = 0, max = measureds.length; i < max; i++) {
-            result[i] = metricValues.get(measureds[i]);
+        final double[] result = new double[column.size()];
+        int i = 0;
+        for (int row = column.present.nextSetBit(0); row >= 0; row = column.present.nextSetBit(row + 1)) {
+            result[i++] = column.get(row);
         }
         return result;
     }
 
     @Override
     public String[] getMeasuredObjects() {
-        final String[] array = measuredObjects.toArray(ArrayUtil.EMPTY_STRING_ARRAY);
-        Arrays.sort(array);
-        return array;
+        final int[] rows = getSortedRows();
+        final String[] result = new String[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            result[i] = measuredObjects.get(rows[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public int getRowCount() {
+        return measuredObjects.size();
+    }
+
+    @Override
+    public int getRow(String measuredObject) {
+        return measuredObjects.indexOf(measuredObject);
+    }
+
+    @Override
+    public String getMeasuredObjectForRow(int row) {
+        return measuredObjects.get(row);
+    }
+
+    @Override
+    public synchronized int[] getSortedRows() {
+        if (sortedRows == null) {
+            final int size = measuredObjects.size();
+            final Integer[] rows = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                rows[i] = Integer.valueOf(i);
+            }
+            Arrays.sort(rows, Comparator.comparing(measuredObjects::get));
+            sortedRows = new int[size];
+            for (int i = 0; i < size; i++) {
+                sortedRows[i] = rows[i].intValue();
+            }
+        }
+        return sortedRows;
+    }
+
+    @Override
+    public boolean hasValueForRow(Metric metric, int row) {
+        final MetricColumn column = columns.get(metric);
+        return column != null && row >= 0 && column.present.get(row);
+    }
+
+    @Override
+    public double getValueForRow(Metric metric, int row) {
+        final MetricColumn column = columns.get(metric);
+        return column == null ? 0.0 : column.get(row);
+    }
+
+    @Override
+    public RowCursor getRowCursor(Metric... metrics) {
+        final MetricColumn[] metricColumns = new MetricColumn[metrics.length];
+        for (int i = 0; i < metrics.length; i++) {
+            metricColumns[i] = columns.get(metrics[i]);
+        }
+        return new SortedRowCursor(getSortedRows(), metricColumns);
     }
 
     @Override
     public Metric[] getMetrics() {
-        final Metric[] metrics = this.metrics.toArray(Metric.EMPTY_ARRAY);
+        final Metric[] metrics = columns.keySet().toArray(Metric.EMPTY_ARRAY);
         Arrays.sort(metrics, new MetricAbbreviationComparator());
         return metrics;
     }
@@ -100,21 +175,21 @@ public class MetricsResultImpl implements MetricsResult {
     @Override
     @Nullable
     public Double getMinimumForMetric(Metric metric) {
-        final StringToFractionMap metricValues = values.get(metric);
-        if (metricValues == null) {
+        final MetricColumn column = columns.get(metric);
+        if (column == null) {
             return Double.valueOf(0.0);
         }
-        return Double.valueOf(metricValues.getMinimum());
+        return Double.valueOf(column.getMinimum());
     }
 
     @Override
     @Nullable
     public Double getMaximumForMetric(Metric metric) {
-        final StringToFractionMap metricValues = values.get(metric);
-        if (metricValues == null) {
+        final MetricColumn column = columns.get(metric);
+        if (column == null) {
             return Double.valueOf(0.0);
         }
-        return Double.valueOf(metricValues.getMaximum());
+        return Double.valueOf(column.getMaximum());
     }
 
     @Override
@@ -124,11 +199,11 @@ public class MetricsResultImpl implements MetricsResult {
         if (metricType != MetricType.Count) {
             return null;
         }
-        final StringToFractionMap metricValues = values.get(metric);
-        if (metricValues == null) {
+        final MetricColumn column = columns.get(metric);
+        if (column == null) {
             return Double.valueOf(0.0);
         }
-        return Double.valueOf(metricValues.getTotal());
+        return Double.valueOf(column.getTotal());
     }
 
     @Override
@@ -138,27 +213,87 @@ public class MetricsResultImpl implements MetricsResult {
         if (metricType == MetricType.RecursiveCount || metricType == MetricType.RecursiveRatio) {
             return null;
         }
-        final StringToFractionMap metricValues = values.get(metric);
-        if (metricValues == null) {
+        final MetricColumn column = columns.get(metric);
+        if (column == null) {
             return Double.valueOf(0.0);
         }
-        return Double.valueOf(metricValues.getAverage());
+        return Double.valueOf(column.getAverage());
     }
 
+    /**
+     * Only the first call for a measured object registers the element. An element in a file is registered by its
+     * location, and a pointer to it is only created when the element is first requested, e.g. when its row is shown.
+     */
     @Override
     public void setElementForMeasuredObject(String measuredObject, PsiElement element) {
-        ReadAction.run(() -> {
-            final Project project = element.getProject();
-            final SmartPointerManager pointerManager = SmartPointerManager.getInstance(project);
-            final SmartPsiElementPointer<PsiElement> pointer = pointerManager.createSmartPsiElementPointer(element);
-            elements.put(measuredObject, pointer);
-        });
+        synchronized (this) {
+            final int row = measuredObjects.indexOf(measuredObject);
+            if (row >= 0 && elements[row] != null) {
+                return;
+            }
+        }
+        // find the location outside of the lock, acquiring the read lock while holding it could deadlock
+        final Object location = ReadAction.compute(() -> createLocation(element));
+        synchronized (this) {
+            final int row = addMeasuredObject(measuredObject);
+            if (elements[row] == null) {
+                elements[row] = location;
+            }
+        }
+    }
+
+    private static Object createLocation(PsiElement element) {
+        final Project project = element.getProject();
+        final PsiFile file = element.getContainingFile();
+        final VirtualFile virtualFile = file == null ? null : file.getVirtualFile();
+        if (virtualFile == null) {
+            // elements outside of files, like packages, are few
+            return SmartPointerManager.getInstance(project).createSmartPsiElementPointer(element);
+        }
+        return new ElementLocation(project, virtualFile, file.getModificationStamp(),
+                                   element.getTextRange().getStartOffset(), element.getClass());
     }
 
     @Override
     @Nullable
     public PsiElement getElementForMeasuredObject(String measuredObject) {
-        final Object o = elements.get(measuredObject);
+        return getElementForRow(measuredObjects.indexOf(measuredObject));
+    }
+
+    /**
+     * Registers where the element of a measured object is located, without loading the file. The element is only
+     * looked up when it is requested.
+     */
+    synchronized void setLocationForMeasuredObject(String measuredObject, Project project, VirtualFile file,
+                                                   int offset, Class<? extends PsiElement> elementClass) {
+        final int row = addMeasuredObject(measuredObject);
+        if (elements[row] == null) {
+            elements[row] = new ElementLocation(project, file, -1L, offset, elementClass);
+        }
+    }
+
+    @Override
+    @Nullable
+    public PsiElement getElementForRow(int row) {
+        if (row < 0) {
+            return null;
+        }
+        final Object o;
+        synchronized (this) {
+            o = elements[row];
+        }
+        if (o instanceof ElementLocation) {
+            final SmartPsiElementPointer<PsiElement> pointer = ((ElementLocation) o).createPointer();
+            if (pointer == null) {
+                return null;
+            }
+            synchronized (this) {
+                if (elements[row] == o) {
+                    elements[row] = pointer;
+                }
+            }
+            return pointer.getElement();
+        }
         if (!(o instanceof SmartPsiElementPointer)) {
             return null;
         }
@@ -167,31 +302,71 @@ public class MetricsResultImpl implements MetricsResult {
     }
 
     @Override
-    public void setOriginalForMeasuredObject(String measuredObject, Object original) {
-        elements.put(measuredObject, original);
+    public synchronized void setOriginalForMeasuredObject(String measuredObject, Object original) {
+        elements[addMeasuredObject(measuredObject)] = original;
     }
 
     @Override
     public <T> T getOriginalForMeasuredObject(String measuredObject) {
-        final Object o = elements.get(measuredObject);
-        if (o instanceof SmartPsiElementPointer) {
+        return getOriginalForRow(measuredObjects.indexOf(measuredObject));
+    }
+
+    @Override
+    public <T> T getOriginalForRow(int row) {
+        final Object o = row < 0 ? null : elements[row];
+        if (o instanceof SmartPsiElementPointer || o instanceof ElementLocation) {
             return null;
         }
         return (T)o;
     }
 
+    /**
+     * Copies the values of the specified metrics from another result, for all measured elements which are not
+     * located in one of the changed files. The pointers to the copied elements are shared.
+     */
+    void copyUnchangedValues(MetricsResultImpl source, Collection<Metric> metrics, Set<VirtualFile> changedFiles) {
+        for (int row = 0, size = source.measuredObjects.size(); row < size; row++) {
+            final Object o = source.elements[row];
+            final VirtualFile file;
+            if (o instanceof SmartPsiElementPointer) {
+                file = ((SmartPsiElementPointer<?>) o).getVirtualFile();
+            } else if (o instanceof ElementLocation) {
+                file = ((ElementLocation) o).file;
+            } else {
+                continue;
+            }
+            if (file == null || changedFiles.contains(file)) {
+                continue;
+            }
+            final String measuredObject = source.measuredObjects.get(row);
+            boolean copied = false;
+            for (Metric metric : metrics) {
+                final MetricColumn column = source.columns.get(metric);
+                if (column != null && column.present.get(row)) {
+                    postValue(metric, measuredObject, column.numerators[row], column.denominators[row]);
+                    copied = true;
+                }
+            }
+            if (copied) {
+                synchronized (this) {
+                    final int newRow = addMeasuredObject(measuredObject);
+                    if (elements[newRow] == null) {
+                        elements[newRow] = o;
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public boolean hasWarnings(MetricsProfile profile) {
-        for (Metric metric : metrics) {
+        for (Map.Entry<Metric, MetricColumn> entry : columns.entrySet()) {
+            final Metric metric = entry.getKey();
             final MetricInstance metricInstance = profile.getMetricInstance(metric);
             assert metricInstance != null : "no instance found for " + metric.getID();
-            final StringToFractionMap valuesForMetric = values.get(metric);
-            for (String measuredObject : measuredObjects) {
-                final double value = valuesForMetric.get(measuredObject);
-                if (metricInstance.isUpperThresholdEnabled() && value > metricInstance.getUpperThreshold()) {
-                    return true;
-                }
-                if (metricInstance.isLowerThresholdEnabled() && value < metricInstance.getLowerThreshold()) {
+            final MetricColumn column = entry.getValue();
+            for (int row = column.present.nextSetBit(0); row >= 0; row = column.present.nextSetBit(row + 1)) {
+                if (isWarning(metricInstance, column.get(row))) {
                     return true;
                 }
             }
@@ -199,45 +374,50 @@ public class MetricsResultImpl implements MetricsResult {
         return false;
     }
 
+    private static boolean isWarning(MetricInstance metricInstance, double value) {
+        return metricInstance.isUpperThresholdEnabled() && value > metricInstance.getUpperThreshold() ||
+               metricInstance.isLowerThresholdEnabled() && value < metricInstance.getLowerThreshold();
+    }
+
     @Override
     public boolean hasValues() {
-        return !values.isEmpty();
+        return !columns.isEmpty();
     }
 
     @Override
     public MetricsResult filterRowsWithoutWarnings(MetricsProfile profile) {
+        final List<Map.Entry<Metric, MetricColumn>> enabledColumns = new ArrayList<>(columns.size());
+        final List<MetricInstance> enabledInstances = new ArrayList<>(columns.size());
+        for (Map.Entry<Metric, MetricColumn> entry : columns.entrySet()) {
+            final Metric metric = entry.getKey();
+            final MetricInstance metricInstance = profile.getMetricInstance(metric);
+            assert metricInstance != null : "no instance found for " + metric.getID();
+            if (metricInstance.isEnabled()) {
+                enabledColumns.add(entry);
+                enabledInstances.add(metricInstance);
+            }
+        }
         final MetricsResultImpl out = new MetricsResultImpl();
-        for (String measuredObject : measuredObjects) {
+        for (int row = 0, size = measuredObjects.size(); row < size; row++) {
             boolean found = false;
-            for (Metric metric : metrics) {
-                final MetricInstance metricInstance = profile.getMetricInstance(metric);
-                assert metricInstance != null : "no instance found for " + metric.getID();
-                if (!metricInstance.isEnabled()) {
-                    continue;
-                }
-                final StringToFractionMap valuesForMetric = values.get(metric);
-                if (!valuesForMetric.containsKey(measuredObject)) {
-                    continue;
-                }
-                final double value = valuesForMetric.get(measuredObject);
-                if (metricInstance.isUpperThresholdEnabled() && value > metricInstance.getUpperThreshold()) {
-                    found = true;
-                    break;
-                }
-                if (metricInstance.isLowerThresholdEnabled() && value < metricInstance.getLowerThreshold()) {
+            for (int i = 0; i < enabledColumns.size(); i++) {
+                final MetricColumn column = enabledColumns.get(i).getValue();
+                if (column.present.get(row) && isWarning(enabledInstances.get(i), column.get(row))) {
                     found = true;
                     break;
                 }
             }
             if (found) {
-                for (Metric metric : metrics) {
-                    final StringToFractionMap valuesForMetric = values.get(metric);
-                    final double value = valuesForMetric.get(measuredObject);
-                    out.postValue(metric, measuredObject, value, 1.0); //not quite right
+                final String measuredObject = measuredObjects.get(row);
+                for (Map.Entry<Metric, MetricColumn> entry : columns.entrySet()) {
+                    final MetricColumn column = entry.getValue();
+                    if (column.present.get(row)) {
+                        out.postValue(entry.getKey(), measuredObject, column.numerators[row], column.denominators[row]);
+                    }
                 }
-                final Object o = elements.get(measuredObject);
+                final Object o = elements[row];
                 if (o != null) {
-                    out.elements.put(measuredObject, o);
+                    out.elements[out.addMeasuredObject(measuredObject)] = o;
                 }
             }
         }
@@ -246,13 +426,166 @@ public class MetricsResultImpl implements MetricsResult {
 
     public String toString() {
         final StringBuilder result = new StringBuilder();
-        for (Map.Entry<Metric, StringToFractionMap> entry : values.entrySet()) {
+        for (Map.Entry<Metric, MetricColumn> entry : columns.entrySet()) {
             result.append(entry.getKey().getDisplayName()).append('\n');
-            final StringToFractionMap value = entry.getValue();
-            for (String key : value.getKeys()) {
-                result.append(key).append(": ").append(value.get(key)).append('\n');
+            final MetricColumn column = entry.getValue();
+            for (int row = column.present.nextSetBit(0); row >= 0; row = column.present.nextSetBit(row + 1)) {
+                result.append(measuredObjects.get(row)).append(": ").append(column.get(row)).append('\n');
             }
         }
         return result.toString();
     }
+
+    /**
+     * The location of an element in a file, from which a pointer to the element is created on first use. The
+     * modification stamp of the file when the location was recorded guards against finding the wrong element after
+     * the file was changed. It is -1 for locations read from the {@link MetricsFileCache}, which match the content
+     * of the file on disk.
+     */
+    private static class ElementLocation {
+        private final Project project;
+        private final VirtualFile file;
+        private final long modificationStamp;
+        private final int offset;
+        private final Class<? extends PsiElement> elementClass;
+
+        ElementLocation(Project project, VirtualFile file, long modificationStamp, int offset,
+                        Class<? extends PsiElement> elementClass) {
+            this.project = project;
+            this.file = file;
+            this.modificationStamp = modificationStamp;
+            this.offset = offset;
+            this.elementClass = elementClass;
+        }
+
+        @Nullable
+        SmartPsiElementPointer<PsiElement> createPointer() {
+            return ReadAction.compute(() -> {
+                if (project.isDisposed() || !file.isValid()) {
+                    return null;
+                }
+                final PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+                if (psiFile == null || modificationStamp >= 0 && psiFile.getModificationStamp() != modificationStamp) {
+                    return null;
+                }
+                final PsiElement element = PsiTreeUtil.findElementOfClassAtOffset(psiFile, offset, elementClass, true);
+                if (element == null) {
+                    return null;
+                }
+                return SmartPointerManager.getInstance(project).createSmartPsiElementPointer(element);
+            });
+        }
+    }
+
+    /**
+     * The values of one metric, indexed by row. Rows without a value have their bit cleared in {@code present}.
+     */
+    private static class MetricColumn {
+        private final BitSet present = new BitSet();
+        private double[] numerators = new double[INITIAL_CAPACITY];
+        private double[] denominators = new double[INITIAL_CAPACITY];
+
+        void put(int row, double numerator, double denominator) {
+            if (row >= numerators.length) {
+                final int length = Math.max(numerators.length << 1, row + 1);
+                numerators = Arrays.copyOf(numerators, length);
+                denominators = Arrays.copyOf(denominators, length);
+            }
+            numerators[row] = numerator;
+            denominators[row] = denominator;
+            present.set(row);
+        }
+
+        double get(int row) {
+            if (row < 0 || row >= numerators.length) {
+                return 1.0;
+            }
+            final double denominator = denominators[row];
+            if (denominator == 0.0) {
+                return 1.0;
+            }
+            return numerators[row] / denominator;
+        }
+
+        int size() {
+            return present.cardinality();
+        }
+
+        double getMinimum() {
+            double minimum = Double.POSITIVE_INFINITY;
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                minimum = Math.min(minimum, numerators[row] / denominators[row]);
+            }
+            return minimum;
+        }
+
+        double getMaximum() {
+            double maximum = Double.NEGATIVE_INFINITY;
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                maximum = Math.max(maximum, numerators[row] / denominators[row]);
+            }
+            return maximum;
+        }
+
+        double getTotal() {
+            double total = 0.0;
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                total += numerators[row] / denominators[row];
+            }
+            return total;
+        }
+
+        double getAverage() {
+            double totalNumerator = 0.0;
+            double totalDenominator = 0.0;
+            for (int row = present.nextSetBit(0); row >= 0; row = present.nextSetBit(row + 1)) {
+                totalNumerator += numerators[row];
+                totalDenominator += denominators[row];
+            }
+            return (totalDenominator == 0.0) ? 1.0 : totalNumerator / totalDenominator;
+        }
+    }
+
+    /**
+     * Iterates over the rows in a given order, reading the values of the specified metric columns.
+     */
+    private class SortedRowCursor implements RowCursor {
+        private final int[] rows;
+        private final MetricColumn[] metricColumns;
+        private int position = -1;
+        private int row = -1;
+
+        SortedRowCursor(int[] rows, MetricColumn[] metricColumns) {
+            this.rows = rows;
+            this.metricColumns = metricColumns;
+        }
+
+        @Override
+        public boolean next() {
+            if (position + 1 >= rows.length) {
+                position = rows.length;
+                row = -1;
+                return false;
+            }
+            row = rows[++position];
+            return true;
+        }
+
+        @Override
+        public String getMeasuredObject() {
+            return measuredObjects.get(row);
+        }
+
+        @Override
+        public boolean hasValue(int column) {
+            final MetricColumn metricColumn = metricColumns[column];
+            return metricColumn != null && metricColumn.present.get(row);
+        }
+
+        @Override
+        public double getValue(int column) {
+            final MetricColumn metricColumn = metricColumns[column];
+            return metricColumn == null ? 0.0 : metricColumn.get(row);
+        }
+    }
 }
@@ -32,6 +32,13 @@ public interface MetricsRun {
 
     void writeToFile(@NonNls String fileName);
 
+    void writeBinaryToFile(@NonNls String fileName, boolean compressed);
+
+    /**
+     * @return the timings of the calculators of the run, or an empty list if no timings were recorded.
+     */
+    List<CalculatorTiming> getTimings();
+
     String getProfileName();
 
     TimeStamp getTimestamp();
@@ -19,33 +19,39 @@ package com.sixrr.metrics.metricModel;
 import com.intellij.analysis.AnalysisScope;
 import com.intellij.ide.plugins.IdeaPluginDescriptor;
 import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.extensions.PluginId;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.module.Module;
-import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiPackage;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.ArrayUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCategory;
 import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.metrics.profile.MetricRepository;
 import com.sixrr.metrics.profile.MetricsProfile;
 import com.sixrr.metrics.profile.MetricsProfileRepository;
+import com.sixrr.metrics.utils.FileCache;
 import com.sixrr.metrics.utils.MethodUtils;
-import org.jdom.Document;
-import org.jdom.Element;
-import org.jdom.input.SAXBuilder;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import javax.xml.stream.XMLOutputFactory;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamWriter;
+import javax.xml.stream.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
 
@@ -55,6 +61,12 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
     private String profileName = null;
     private AnalysisScope context = null;
     private TimeStamp timestamp = null;
+    private long modificationCount = -1L;
+    private List<CalculatorTiming> timings = Collections.emptyList();
+    // metric id -> shares of files in the values of calculators supporting incremental aggregation
+    private final Map<String, Object> fileShares = new HashMap<>();
+
+    private final FileCache<Map<PsiMethod, String>> signatures = new FileCache<>(file -> new ConcurrentHashMap<>());
 
     public MetricsRunImpl() {
         final MetricCategory[] categories = MetricCategory.values();
@@ -130,7 +142,7 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
     @Override
     public void postMethodMetric(@NotNull Metric metric, @NotNull PsiMethod method, double value) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Method);
-        final String signature = MethodUtils.calculateSignature(method);
+        final String signature = getSignature(method);
         results.postValue(metric, signature, value);
         results.setElementForMeasuredObject(signature, method);
     }
@@ -189,12 +201,123 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
     public void postMethodMetric(@NotNull Metric metric, @NotNull PsiMethod method,
                                  double numerator, double denominator) {
         final MetricsResult results = getResultsForCategory(MetricCategory.Method);
-        final String signature = MethodUtils.calculateSignature(method);
+        final String signature = getSignature(method);
         results.postValue(metric, signature, numerator, denominator);
         results.setElementForMeasuredObject(signature, method);
     }
 
-    private void postRawMetric(@NotNull Metric metric, @NotNull String measured, double value) {
+    String getSignature(PsiMethod method) {
+        return signatures.get(method).computeIfAbsent(method, MethodUtils::calculateSignature);
+    }
+
+    /**
+     * Sets the modification count of the {@link MetricsChangeTracker} at the start of this run. Snapshots and
+     * filtered runs don't have one and can't be used for incremental updates.
+     */
+    public void setModificationCount(long modificationCount) {
+        this.modificationCount = modificationCount;
+    }
+
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    boolean hasResultsForMetric(@NotNull Metric metric) {
+        final MetricsResult results = getResultsForCategory(metric.getCategory());
+        return ArrayUtil.contains(metric, results.getMetrics());
+    }
+
+    @Nullable
+    Object getFileShares(@NotNull Metric metric) {
+        return fileShares.get(metric.getID());
+    }
+
+    void setFileShares(@NotNull Metric metric, @Nullable Object shares) {
+        if (shares == null) {
+            fileShares.remove(metric.getID());
+        }
+        else {
+            fileShares.put(metric.getID(), shares);
+        }
+    }
+
+    /**
+     * Copies the values of the specified metrics of all elements in files which did not change from the previous run.
+     */
+    void copyUnchangedResults(@NotNull MetricsRunImpl previousRun, @NotNull Collection<Metric> metrics,
+                              @NotNull Set<VirtualFile> changedFiles) {
+        final Map<MetricCategory, List<Metric>> metricsByCategory = new EnumMap<>(MetricCategory.class);
+        for (Metric metric : metrics) {
+            metricsByCategory.computeIfAbsent(metric.getCategory(), category -> new ArrayList<>()).add(metric);
+        }
+        for (Map.Entry<MetricCategory, List<Metric>> entry : metricsByCategory.entrySet()) {
+            final MetricCategory category = entry.getKey();
+            final MetricsResult source = previousRun.getResultsForCategory(category);
+            final MetricsResult target = getResultsForCategory(category);
+            if (source instanceof MetricsResultImpl && target instanceof MetricsResultImpl) {
+                ((MetricsResultImpl) target).copyUnchangedValues((MetricsResultImpl) source, entry.getValue(),
+                                                                 changedFiles);
+            }
+        }
+    }
+
+    /**
+     * Posts values stored in the {@link MetricsFileCache} for a file. Elements are only looked up in the file when
+     * they are requested. Method signatures can contain the qualified names of classes declared in other files, so
+     * the cached signatures may be stale and are calculated again from the methods at the cached offsets.
+     * @return false if no method was found at a cached offset, in which case nothing is posted.
+     */
+    boolean postCachedValues(@NotNull CachedFileValues values, @NotNull List<Metric> metrics,
+                             @NotNull Project project, @NotNull VirtualFile file) {
+        final String[] measuredObjects =
+                ReadAction.compute(() -> calculateMeasuredObjects(values, metrics, project, file));
+        if (measuredObjects == null) {
+            return false;
+        }
+        for (int i = 0, size = values.size(); i < size; i++) {
+            final Metric metric = metrics.get(values.getMetricIndex(i));
+            final MetricsResult results = getResultsForCategory(metric.getCategory());
+            final String measuredObject = measuredObjects[i];
+            results.postValue(metric, measuredObject, values.getNumerator(i), values.getDenominator(i));
+            if (results instanceof MetricsResultImpl) {
+                final Class<? extends PsiElement> elementClass =
+                        metric.getCategory() == MetricCategory.Method ? PsiMethod.class : PsiClass.class;
+                ((MetricsResultImpl) results).setLocationForMeasuredObject(measuredObject, project, file,
+                                                                           values.getOffset(i), elementClass);
+            }
+        }
+        return true;
+    }
+
+    @Nullable
+    private String[] calculateMeasuredObjects(CachedFileValues values, List<Metric> metrics, Project project,
+                                              VirtualFile file) {
+        final int size = values.size();
+        final String[] measuredObjects = new String[size];
+        PsiFile psiFile = null;
+        for (int i = 0; i < size; i++) {
+            if (metrics.get(values.getMetricIndex(i)).getCategory() != MetricCategory.Method) {
+                // qualified class names depend on nothing but the file
+                measuredObjects[i] = values.getMeasuredObject(i);
+                continue;
+            }
+            if (psiFile == null) {
+                psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+                if (psiFile == null) {
+                    return null;
+                }
+            }
+            final PsiMethod method =
+                    PsiTreeUtil.findElementOfClassAtOffset(psiFile, values.getOffset(i), PsiMethod.class, true);
+            if (method == null) {
+                return null;
+            }
+            measuredObjects[i] = getSignature(method);
+        }
+        return measuredObjects;
+    }
+
+    void postRawMetric(@NotNull Metric metric, @NotNull String measured, double value) {
         final MetricCategory category = metric.getCategory();
         final MetricsResult result = metricResults.get(category);
         result.postValue(metric, measured, value);
@@ -209,6 +332,21 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
         metricResults.put(category, results);
     }
 
+    @Override
+    public void writeBinaryToFile(@NotNull String fileName, boolean compressed) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(fileName), 65536)) {
+            BinarySnapshot.write(this, out, getPluginVersion(), compressed);
+        } catch (IOException e) {
+            LOG.warn(e);
+        }
+    }
+
+    @NotNull
+    static String getPluginVersion() {
+        final IdeaPluginDescriptor pluginDescriptor = PluginManagerCore.getPlugin(PluginId.getId("MetricsReloaded"));
+        return pluginDescriptor == null ? "unknown" : pluginDescriptor.getVersion();
+    }
+
     @Override
     public void writeToFile(@NotNull String fileName) {
         try {
@@ -221,11 +359,7 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
                 writer.writeStartElement("SNAPSHOT");
                 writer.writeAttribute("profile", profileName);
                 writer.writeAttribute("timestamp", timestamp.toString());
-                final IdeaPluginDescriptor pluginDescriptor =
-                        PluginManagerCore.getPlugin(PluginId.getId("MetricsReloaded"));
-                assert pluginDescriptor != null;
-                final String version = pluginDescriptor.getVersion();
-                writer.writeAttribute("version", version);
+                writer.writeAttribute("version", getPluginVersion());
                 writer.writeCharacters("\n");
                 final MetricCategory[] categories = MetricCategory.values();
                 for (MetricCategory category : categories) {
@@ -245,6 +379,15 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
         }
     }
 
+    @Override
+    public List<CalculatorTiming> getTimings() {
+        return timings;
+    }
+
+    public void setTimings(List<CalculatorTiming> timings) {
+        this.timings = timings;
+    }
+
     @Override
     public String getProfileName() {
         return profileName;
@@ -278,6 +421,7 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
         out.context = context;
         out.profileName = profileName;
         out.timestamp = timestamp;
+        out.timings = timings;
 
         final Set<MetricCategory> categories = metricResults.keySet();
         for (MetricCategory category : categories) {
@@ -300,95 +444,82 @@ public class MetricsRunImpl implements MetricsRun, MetricsResultsHolder {
     private static void writeResultsForMetric(Metric metric, MetricsResult results, @NonNls XMLStreamWriter writer)
             throws XMLStreamException {
         final Class<?> metricClass = metric.getClass();
-        final String[] measuredObjects = results.getMeasuredObjects();
         writer.writeCharacters("  ");
         writer.writeStartElement("METRIC");
         writer.writeAttribute("class_name", metricClass.getName());
         writer.writeCharacters("\n");
-        for (String measuredObject : measuredObjects) {
-            writeValue(results, metric, measuredObject, writer);
+        for (int row : results.getSortedRows()) {
+            writeValue(results, metric, row, writer);
         }
         writer.writeCharacters("  ");
         writer.writeEndElement();
         writer.writeCharacters("\n");
     }
 
-    private static void writeValue(MetricsResult results, Metric metric, String measuredObject, @NonNls XMLStreamWriter writer)
+    private static void writeValue(MetricsResult results, Metric metric, int row, @NonNls XMLStreamWriter writer)
             throws XMLStreamException {
-        final Double value = results.getValueForMetric(metric, measuredObject);
-        if (value != null) {
+        if (results.hasValueForRow(metric, row)) {
             writer.writeCharacters("    ");
             writer.writeEmptyElement("VALUE");
-            writer.writeAttribute("measured", measuredObject);
-            writer.writeAttribute("value", value.toString());
+            writer.writeAttribute("measured", results.getMeasuredObjectForRow(row));
+            writer.writeAttribute("value", Double.toString(results.getValueForRow(metric, row)));
             writer.writeCharacters("\n");
         }
     }
 
+    /**
+     * Reads a snapshot written by {@link #writeToFile(String)} or {@link #writeBinaryToFile(String, boolean)}. The
+     * file is streamed, values are posted as they are read, so memory use is proportional to the number of values and
+     * not to the size of the file.
+     */
     public static MetricsRun readFromFile(@NotNull File file) {
-        final SAXBuilder builder = new SAXBuilder();
-        Document doc;
-        try {
-            doc = builder.build(file);
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 65536)) {
+            if (BinarySnapshot.isBinarySnapshot(in)) {
+                return BinarySnapshot.read(in);
+            }
+            return readSnapshot(XMLInputFactory.newInstance().createXMLStreamReader(in));
         } catch (Exception e) {
-            try {
-                doc = builder.build(fixBrokenXml(file));
+            try (Reader in = new QuotedLessThanEscapingReader(
+                    new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+                return readSnapshot(XMLInputFactory.newInstance().createXMLStreamReader(in));
             } catch (Exception e1) {
                 LOG.warn(e);
                 return null;
             }
         }
-        final Element snapshotElement = doc.getRootElement();
-        final MetricsRunImpl run = new MetricsRunImpl();
-        run.setTimestamp(new TimeStamp(snapshotElement.getAttributeValue("timestamp")));
-        run.setProfileName(snapshotElement.getAttributeValue("profile"));
-        final String version = snapshotElement.getAttributeValue("version"); // may need this later
-        final List<Element> metrics = snapshotElement.getChildren("METRIC");
-        final MetricRepository repository = MetricsProfileRepository.getInstance();
-        for (Element metricElement : metrics) {
-            readMetricElement(metricElement, repository, run);
-        }
-        return run;
     }
 
-    @NotNull
-    private static Reader fixBrokenXml(@NotNull File file) throws IOException {
-        final String s = FileUtilRt.loadFile(file);
-        final StringBuilder sb = new StringBuilder();
-        boolean insideQuotes = false;
-        for (int i = 0, length = s.length(); i < length; i++) {
-            final int c = s.codePointAt(i);
-            if (c == '"') {
-                insideQuotes = !insideQuotes;
-                sb.appendCodePoint(c);
-            }
-            else if (!insideQuotes) {
-                sb.appendCodePoint(c);
-            }
-            else if (c == '<') {
-                sb.append("&lt;");
-            } else {
-                sb.appendCodePoint(c);
-            }
-        }
-        return new StringReader(sb.toString());
-    }
-
-    private static void readMetricElement(Element metricElement, MetricRepository repository, MetricsRunImpl run) {
+    private static MetricsRun readSnapshot(XMLStreamReader reader) throws XMLStreamException {
         try {
-            final String className = metricElement.getAttributeValue("class_name");
-            final Metric metric = repository.getMetric(className);
-            if (metric != null) {
-                final List<Element> values = metricElement.getChildren("VALUE");
-                for (Element valueElement : values) {
-                    final String measured = valueElement.getAttributeValue("measured");
-                    final String valueString = valueElement.getAttributeValue("value");
-                    final double value = Double.parseDouble(valueString);
-                    run.postRawMetric(metric, measured, value);
+            final MetricsRunImpl run = new MetricsRunImpl();
+            final MetricRepository repository = MetricsProfileRepository.getInstance();
+            Metric metric = null;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                final String name = reader.getLocalName();
+                if ("SNAPSHOT".equals(name)) {
+                    run.setTimestamp(new TimeStamp(reader.getAttributeValue(null, "timestamp")));
+                    run.setProfileName(reader.getAttributeValue(null, "profile"));
+                    final String version = reader.getAttributeValue(null, "version"); // may need this later
+                }
+                else if ("METRIC".equals(name)) {
+                    metric = repository.getMetric(reader.getAttributeValue(null, "class_name"));
+                }
+                else if ("VALUE".equals(name) && metric != null) {
+                    final String measured = reader.getAttributeValue(null, "measured");
+                    final String valueString = reader.getAttributeValue(null, "value");
+                    try {
+                        run.postRawMetric(metric, measured, Double.parseDouble(valueString));
+                    } catch (NumberFormatException e) {
+                        LOG.warn(e);
+                    }
                 }
             }
-        } catch (Exception e) {
-            LOG.warn(e);
+            return run;
+        } finally {
+            reader.close();
         }
     }
 
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Replaces every {@code <} between double quotes with {@code &lt;} while reading. Older versions wrote snapshots
+ * with unescaped {@code <} characters in attribute values (e.g. in generic method signatures), this makes them
+ * parseable again without loading the whole file into memory.
+ */
+class QuotedLessThanEscapingReader extends FilterReader {
+
+    private static final String ESCAPED_LESS_THAN = "&lt;";
+
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+    private boolean insideQuotes = false;
+    private int pending = 0; // number of characters of ESCAPED_LESS_THAN still to be returned
+
+    QuotedLessThanEscapingReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pending == 0 && position == limit && !fill()) {
+            return -1;
+        }
+        return next();
+    }
+
+    @Override
+    public int read(@NotNull char[] chars, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int count = 0;
+        while (count < length) {
+            if (pending == 0 && position == limit) {
+                // don't block when some characters can already be returned
+                if (count > 0 || !fill()) {
+                    break;
+                }
+            }
+            chars[offset + count++] = next();
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    private char next() {
+        if (pending > 0) {
+            return ESCAPED_LESS_THAN.charAt(ESCAPED_LESS_THAN.length() - pending--);
+        }
+        final char c = buffer[position++];
+        if (c == '"') {
+            insideQuotes = !insideQuotes;
+        }
+        else if (c == '<' && insideQuotes) {
+            pending = ESCAPED_LESS_THAN.length() - 1;
+            return '&';
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        final int read = in.read(buffer, 0, buffer.length);
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0L;
+        while (skipped < n && read() >= 0) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return pending > 0 || position < limit || in.ready();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.module.Module;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiPackage;
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsResultsHolder;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Passes all values on to the run, and additionally records the class, interface and method values posted on the
+ * current thread while a file is processed, so they can be stored in the {@link MetricsFileCache}.
+ */
+class RecordingResultsHolder implements MetricsResultsHolder {
+
+    private final MetricsRunImpl run;
+    private final List<Metric> metrics;
+    private final Map<Metric, Integer> metricIndexes = new IdentityHashMap<>();
+    private final ThreadLocal<CachedFileValues> recording = new ThreadLocal<>();
+
+    /**
+     * @param metrics the cached metrics, which are added to by the caller until {@link #sortMetrics()} is called.
+     */
+    RecordingResultsHolder(MetricsRunImpl run, List<Metric> metrics) {
+        this.run = run;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Sorts the cached metrics by id, which determines their indexes in the cached values. Must be called once all
+     * metrics are added and before recording is started.
+     */
+    void sortMetrics() {
+        metrics.sort(Comparator.comparing(Metric::getID));
+        metricIndexes.clear();
+        for (int i = 0, size = metrics.size(); i < size; i++) {
+            metricIndexes.put(metrics.get(i), i);
+        }
+    }
+
+    List<Metric> getMetrics() {
+        return metrics;
+    }
+
+    void startRecording() {
+        recording.set(new CachedFileValues());
+    }
+
+    /**
+     * @return the values recorded since recording was started, or null if values were posted that can't be cached.
+     */
+    @Nullable
+    CachedFileValues stopRecording() {
+        final CachedFileValues values = recording.get();
+        recording.remove();
+        return values;
+    }
+
+    private void record(Metric metric, String measuredObject, double numerator, double denominator,
+                        PsiElement element) {
+        final CachedFileValues values = recording.get();
+        if (values != null && measuredObject != null) {
+            values.add(metricIndexes.get(metric), measuredObject, numerator, denominator,
+                       element.getTextRange().getStartOffset());
+        }
+    }
+
+    private void abortRecording() {
+        recording.remove();
+    }
+
+    @Override
+    public void postProjectMetric(Metric metric, double value) {
+        abortRecording();
+        run.postProjectMetric(metric, value);
+    }
+
+    @Override
+    public void postFileTypeMetric(Metric metric, FileType fileType, double value) {
+        abortRecording();
+        run.postFileTypeMetric(metric, fileType, value);
+    }
+
+    @Override
+    public void postModuleMetric(Metric metric, Module module, double value) {
+        abortRecording();
+        run.postModuleMetric(metric, module, value);
+    }
+
+    @Override
+    public void postPackageMetric(Metric metric, PsiPackage aPackage, double value) {
+        abortRecording();
+        run.postPackageMetric(metric, aPackage, value);
+    }
+
+    @Override
+    public void postClassMetric(Metric metric, PsiClass aClass, double value) {
+        run.postClassMetric(metric, aClass, value);
+        record(metric, aClass.getQualifiedName(), value, 1.0, aClass);
+    }
+
+    @Override
+    public void postInterfaceMetric(Metric metric, PsiClass anInterface, double value) {
+        run.postInterfaceMetric(metric, anInterface, value);
+        record(metric, anInterface.getQualifiedName(), value, 1.0, anInterface);
+    }
+
+    @Override
+    public void postMethodMetric(Metric metric, PsiMethod method, double value) {
+        run.postMethodMetric(metric, method, value);
+        record(metric, run.getSignature(method), value, 1.0, method);
+    }
+
+    @Override
+    public void postProjectMetric(Metric metric, double numerator, double denominator) {
+        abortRecording();
+        run.postProjectMetric(metric, numerator, denominator);
+    }
+
+    @Override
+    public void postFileTypeMetric(Metric metric, FileType fileType, double numerator, double denominator) {
+        abortRecording();
+        run.postFileTypeMetric(metric, fileType, numerator, denominator);
+    }
+
+    @Override
+    public void postModuleMetric(Metric metric, Module module, double numerator, double denominator) {
+        abortRecording();
+        run.postModuleMetric(metric, module, numerator, denominator);
+    }
+
+    @Override
+    public void postPackageMetric(Metric metric, PsiPackage aPackage, double numerator, double denominator) {
+        abortRecording();
+        run.postPackageMetric(metric, aPackage, numerator, denominator);
+    }
+
+    @Override
+    public void postClassMetric(Metric metric, PsiClass aClass, double numerator, double denominator) {
+        run.postClassMetric(metric, aClass, numerator, denominator);
+        record(metric, aClass.getQualifiedName(), numerator, denominator, aClass);
+    }
+
+    @Override
+    public void postInterfaceMetric(Metric metric, PsiClass anInterface, double numerator, double denominator) {
+        run.postInterfaceMetric(metric, anInterface, numerator, denominator);
+        record(metric, anInterface.getQualifiedName(), numerator, denominator, anInterface);
+    }
+
+    @Override
+    public void postMethodMetric(Metric metric, PsiMethod method, double numerator, double denominator) {
+        run.postMethodMetric(metric, method, numerator, denominator);
+        record(metric, run.getSignature(method), numerator, denominator, method);
+    }
+}
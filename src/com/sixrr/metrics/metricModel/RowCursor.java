@@ -0,0 +1,44 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+/**
+ * Iterates over the rows of a {@link MetricsResult} ordered by the name of their measured object, giving access to
+ * the values of a fixed set of metrics. The metrics are looked up once when the cursor is created, so reading a value
+ * is a plain array access.
+ */
+public interface RowCursor {
+
+    /**
+     * Moves the cursor to the next row. Must be called once before the first row can be read.
+     * @return true, if the cursor is on a row, false if there are no more rows.
+     */
+    boolean next();
+
+    String getMeasuredObject();
+
+    /**
+     * @param column  the index of the metric in the array of metrics the cursor was created with.
+     */
+    boolean hasValue(int column);
+
+    /**
+     * Only meaningful when {@link #hasValue(int)} returns true.
+     * @param column  the index of the metric in the array of metrics the cursor was created with.
+     */
+    double getValue(int column);
+}
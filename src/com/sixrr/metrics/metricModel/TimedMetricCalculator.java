@@ -0,0 +1,122 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.metricModel;
+
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.sixrr.metrics.MetricCalculator;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+
+/**
+ * Records the time spent and the memory allocated in the calls to a calculator. The calls to its element visitor are
+ * sampled by the {@link FusedElementVisitor}.
+ */
+class TimedMetricCalculator implements MetricCalculator {
+
+    private final MetricCalculator delegate;
+    private final CalculatorTiming timing;
+
+    TimedMetricCalculator(MetricCalculator delegate, CalculatorTiming timing) {
+        this.delegate = delegate;
+        this.timing = timing;
+    }
+
+    CalculatorTiming getTiming() {
+        return timing;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        final long allocated = CalculatorTiming.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        delegate.beginMetricsRun(resultsHolder, executionContext);
+        timing.addBegin(System.nanoTime() - start, CalculatorTiming.currentThreadAllocatedBytes() - allocated);
+    }
+
+    @Override
+    public void processFile(PsiFile file) {
+        final long allocated = CalculatorTiming.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        delegate.processFile(file);
+        timing.addProcessing(System.nanoTime() - start, CalculatorTiming.currentThreadAllocatedBytes() - allocated);
+    }
+
+    @Override
+    public boolean requiresPsi() {
+        return delegate.requiresPsi();
+    }
+
+    @Override
+    public boolean processesNonJavaFiles() {
+        return delegate.processesNonJavaFiles();
+    }
+
+    @Override
+    public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+        final long allocated = CalculatorTiming.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        delegate.processText(file, text, fileData);
+        timing.addProcessing(System.nanoTime() - start, CalculatorTiming.currentThreadAllocatedBytes() - allocated);
+    }
+
+    @Nullable
+    @Override
+    public PsiElementVisitor getElementVisitor() {
+        return delegate.getElementVisitor();
+    }
+
+    @Override
+    public boolean supportsParallelProcessing() {
+        return delegate.supportsParallelProcessing();
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return delegate.supportsIncrementalProcessing();
+    }
+
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return delegate.supportsIncrementalAggregation();
+    }
+
+    @Nullable
+    @Override
+    public Object getFileShares() {
+        return delegate.getFileShares();
+    }
+
+    @Override
+    public void restoreFileShares(@NotNull Object fileShares, @NotNull Set<VirtualFile> changedFiles) {
+        delegate.restoreFileShares(fileShares, changedFiles);
+    }
+
+    @Override
+    public void endMetricsRun() {
+        final long allocated = CalculatorTiming.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        delegate.endMetricsRun();
+        timing.addEnd(System.nanoTime() - start, CalculatorTiming.currentThreadAllocatedBytes() - allocated);
+    }
+}
@@ -39,7 +39,9 @@ import com.intellij.psi.search.scope.packageSet.NamedScope;
 import com.intellij.psi.search.scope.packageSet.NamedScopesHolder;
 import com.sixrr.metrics.export.Exporter;
 import com.sixrr.metrics.export.XMLExporter;
+import com.sixrr.metrics.metricModel.CalculatorTiming;
 import com.sixrr.metrics.metricModel.MetricsExecutionContextImpl;
+import com.sixrr.metrics.metricModel.MetricsRun;
 import com.sixrr.metrics.metricModel.MetricsRunImpl;
 import com.sixrr.metrics.metricModel.TimeStamp;
 import com.sixrr.metrics.profile.MetricsProfile;
@@ -47,21 +49,25 @@ import com.sixrr.metrics.profile.MetricsProfileRepository;
 import org.jetbrains.annotations.Contract;
 import org.kohsuke.args4j.*;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintStream;
-import java.io.PrintWriter;
-import java.util.Arrays;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 public class MetricsCommandLine implements ApplicationStarter {
 
     private static final Logger LOG = Logger.getInstance(MetricsCommandLine.class);
+    private static final String PROJECT_SCOPE = "project";
+    private static final String DIRECTORY_PREFIX = "directory:";
+    private static final String SCOPE_PREFIX = "scope:";
 
     @Argument(index = 0, required = true, metaVar = "<project_path>", usage = "the project to calculate metrics for")
     private String projectPath = null;
 
-    @Argument(index = 1, required = true, metaVar = "<metrics_profile_name>",
-            usage = "name of the metrics profile to use")
+    @Argument(index = 1, metaVar = "<metrics_profile_name>",
+            usage = "name of the metrics profile to use, required unless a batch manifest is specified")
     private String metricsProfileName = "";
 
     @Argument(index = 2, metaVar = "<output_path>",
@@ -76,6 +82,24 @@ public class MetricsCommandLine implements ApplicationStarter {
             usage = "name of scope to calculate metrics for, default is the whole project")
     private String scope = null;
 
+    @Option(name = "-b", aliases = "--batch", metaVar = "<manifest_path>", forbids = {"-d", "-s"},
+            usage = "calculate metrics for all jobs in the manifest, opening the project only once. Every line of " +
+                    "the manifest contains a profile name, a scope and an output path, separated by tabs. The scope " +
+                    "is 'project', 'directory:<path>' or 'scope:<scope_name>'. Empty lines and lines starting with " +
+                    "'#' are ignored")
+    private String batchPath = null;
+
+    @Option(name = "-w", aliases = "--workers", metaVar = "<count>",
+            usage = "number of threads to use for calculators that can process files in parallel, default is 1")
+    private int workerCount = 1;
+
+    @Option(name = "--no-cache", usage = "don't reuse or store per file results in the metrics cache")
+    private boolean noCache = false;
+
+    @Option(name = "--timings", metaVar = "<path>",
+            usage = "write the time and memory used by every calculator as CSV to the specified file")
+    private String timingsPath = null;
+
     @Option(name = "-v", aliases = "--verbose", usage = "show more progress information", forbids = "-q")
     private boolean verbose = false;
 
@@ -94,6 +118,7 @@ public class MetricsCommandLine implements ApplicationStarter {
         final String scriptName = ApplicationNamesInfo.getInstance().getScriptName();
         out.println("Usage: " + scriptName +
                 " metrics [options] <project_path> <metrics_profile_name> [<output_xml_file>]");
+        out.println("       " + scriptName + " metrics [options] --batch <manifest_path> <project_path>");
         parser.printUsage(out);
     }
 
@@ -109,6 +134,11 @@ public class MetricsCommandLine implements ApplicationStarter {
                 printUsage(parser, System.out);
                 System.exit(0);
             }
+            if (batchPath == null ? metricsProfileName.isEmpty() : !metricsProfileName.isEmpty()) {
+                throw new CmdLineException(parser, batchPath == null
+                                                   ? "Argument \"<metrics_profile_name>\" is required"
+                                                   : "No profile name or output path allowed with --batch");
+            }
         } catch (CmdLineException e) {
             System.err.println(e.getMessage());
             printUsage(parser, System.err);
@@ -118,11 +148,22 @@ public class MetricsCommandLine implements ApplicationStarter {
 
     @Override
     public void main(String[] args) {
-        if (outputXmlPath != null) {
-            final File file = new File(outputXmlPath);
-            final File parentFile = file.getParentFile();
-            if (parentFile != null && !parentFile.exists()) {
-                error("Could not find directory " + parentFile.getAbsolutePath());
+        final List<BatchJob> jobs;
+        if (batchPath != null) {
+            jobs = readBatchManifest(batchPath);
+        }
+        else {
+            final String scopeSpecification = scope != null
+                                              ? SCOPE_PREFIX + scope
+                                              : directory != null ? DIRECTORY_PREFIX + directory : PROJECT_SCOPE;
+            jobs = Collections.singletonList(new BatchJob(metricsProfileName, scopeSpecification, outputXmlPath));
+        }
+        if (timingsPath != null) {
+            checkParentDirectory(timingsPath);
+        }
+        for (BatchJob job : jobs) {
+            if (job.outputPath != null) {
+                checkParentDirectory(job.outputPath);
             }
         }
         final ApplicationEx application = (ApplicationEx) ApplicationManager.getApplication();
@@ -145,64 +186,40 @@ public class MetricsCommandLine implements ApplicationStarter {
                 PatchProjectUtil.patchProject(project);
                 info("Project " + project.getName() + " opened.");
 
-                final MetricsProfile profile = getMetricsProfile(metricsProfileName);
-                if (profile == null) {
-                    error("Profile not found: " + metricsProfileName);
+                // jobs with the same scope share one execution context, and with it the data shared between
+                // calculators, like the dependency map and the method call index
+                final Map<String, List<BatchJob>> jobsByScope = new LinkedHashMap<>();
+                for (BatchJob job : jobs) {
+                    jobsByScope.computeIfAbsent(job.scope, k -> new ArrayList<>()).add(job);
                 }
-                info("Calculating metrics");
-                final AnalysisScope analysisScope;
-                if (scope != null) {
-                    final NamedScope namedScope = NamedScopesHolder.getScope(project, scope);
-                    if (namedScope == null) {
-                        error("Scope not found: " + scope);
-                    }
-                    analysisScope = new AnalysisScope(GlobalSearchScopesCore.filterScope(project, namedScope), project);
-                } else if (directory != null) {
-                    directory = directory.replace(File.separatorChar, '/');
-
-                    final VirtualFile vfsDir = LocalFileSystem.getInstance().findFileByPath(directory);
-                    if (vfsDir == null) {
-                        error("Directory not found: " + directory);
-                    }
-                    final PsiDirectory psiDirectory = PsiManager.getInstance(project).findDirectory(vfsDir);
-                    if (psiDirectory == null) {
-                        error("Directory not found: " + directory);
-                    }
-                    analysisScope = new AnalysisScope(psiDirectory);
-                } else {
-                    analysisScope = new AnalysisScope(project);
-                }
-                ProgressManager.getInstance().runProcess(() -> {
-                    final MetricsRunImpl metricsRun = new MetricsRunImpl();
-                    metricsRun.setProfileName(profile.getName());
-                    metricsRun.setTimestamp(new TimeStamp());
-                    metricsRun.setContext(analysisScope);
+                final PrintWriter timingsWriter = timingsPath == null ? null : createTimingsWriter(timingsPath);
+                for (Map.Entry<String, List<BatchJob>> entry : jobsByScope.entrySet()) {
+                    final AnalysisScope analysisScope = createAnalysisScope(project, entry.getKey());
                     final MetricsExecutionContextImpl metricsExecutionContext =
                             new MetricsExecutionContextImpl(project, analysisScope);
-                    metricsExecutionContext.calculateMetrics(profile, metricsRun);
-                    final Exporter exporter = new XMLExporter(metricsRun);
-                    try {
-                        if (outputXmlPath == null) {
-                            final PrintWriter writer = new PrintWriter(System.out, true);
-                            exporter.export(writer);
-                        } else {
-                            exporter.export(outputXmlPath);
-                        }
-                    } catch (IOException e) {
-                        error(e.getMessage());
-                    }
-                }, new ProgressIndicatorBase() {
-                    private int lastPercent = 0;
-
-                    @Override
-                    public void setFraction(double fraction) {
-                        final int percent = (int)(fraction * 100);
-                        if (lastPercent != percent && !isIndeterminate()) {
-                            lastPercent = percent;
-                            trace("Calculating metrics " + lastPercent + "%");
+                    metricsExecutionContext.setWorkerCount(workerCount);
+                    metricsExecutionContext.setUseFileCache(!noCache);
+                    metricsExecutionContext.setRecordTimings(timingsWriter != null);
+                    for (BatchJob job : entry.getValue()) {
+                        final MetricsProfile profile = getMetricsProfile(job.profileName);
+                        if (profile == null) {
+                            error("Profile not found: " + job.profileName);
                         }
+                        info("Calculating metrics" + (jobs.size() > 1
+                                                      ? " for profile " + job.profileName + ", " + job.scope
+                                                      : ""));
+                        ProgressManager.getInstance().runProcess(() -> {
+                            final MetricsRun metricsRun =
+                                    calculateMetrics(metricsExecutionContext, profile, job.outputPath);
+                            if (timingsWriter != null) {
+                                writeTimings(metricsRun, job.scope, timingsWriter);
+                            }
+                        }, createProgressIndicator());
                     }
-                });
+                }
+                if (timingsWriter != null) {
+                    timingsWriter.close();
+                }
                 info("Finished.");
             } catch (Exception ex) {
                 error(ex);
@@ -214,6 +231,141 @@ public class MetricsCommandLine implements ApplicationStarter {
         }
     }
 
+    private static MetricsRun calculateMetrics(MetricsExecutionContextImpl metricsExecutionContext,
+                                               MetricsProfile profile, String outputPath) {
+        final MetricsRunImpl metricsRun = new MetricsRunImpl();
+        metricsRun.setProfileName(profile.getName());
+        metricsRun.setTimestamp(new TimeStamp());
+        metricsRun.setContext(metricsExecutionContext.getScope());
+        metricsExecutionContext.calculateMetrics(profile, metricsRun);
+        final Exporter exporter = new XMLExporter(metricsRun);
+        try {
+            if (outputPath == null) {
+                final PrintWriter writer = new PrintWriter(System.out, true);
+                exporter.export(writer);
+            } else {
+                exporter.export(outputPath);
+            }
+        } catch (IOException e) {
+            error(e.getMessage());
+        }
+        return metricsRun;
+    }
+
+    private static PrintWriter createTimingsWriter(String path) {
+        try {
+            final PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(path)));
+            writer.println("profile,scope,metric,begin_ms,processing_ms,end_ms,total_ms,allocated_bytes");
+            return writer;
+        } catch (IOException e) {
+            error("Could not write timings: " + path);
+            return null;
+        }
+    }
+
+    private static void writeTimings(MetricsRun metricsRun, String scope, PrintWriter writer) {
+        for (CalculatorTiming timing : metricsRun.getTimings()) {
+            writer.print(quote(metricsRun.getProfileName()));
+            writer.print(',');
+            writer.print(quote(scope));
+            writer.print(',');
+            writer.print(timing.getMetric().getID());
+            writer.print(',');
+            writer.print(TimeUnit.NANOSECONDS.toMillis(timing.getBeginNanos()));
+            writer.print(',');
+            writer.print(TimeUnit.NANOSECONDS.toMillis(timing.getProcessingNanos()));
+            writer.print(',');
+            writer.print(TimeUnit.NANOSECONDS.toMillis(timing.getEndNanos()));
+            writer.print(',');
+            writer.print(TimeUnit.NANOSECONDS.toMillis(timing.getTotalNanos()));
+            writer.print(',');
+            writer.println(timing.getAllocatedBytes());
+        }
+        writer.flush();
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static void checkParentDirectory(String path) {
+        final File parentFile = new File(path).getParentFile();
+        if (parentFile != null && !parentFile.exists()) {
+            error("Could not find directory " + parentFile.getAbsolutePath());
+        }
+    }
+
+    private ProgressIndicatorBase createProgressIndicator() {
+        return new ProgressIndicatorBase() {
+            private int lastPercent = 0;
+
+            @Override
+            public void setFraction(double fraction) {
+                final int percent = (int)(fraction * 100);
+                if (lastPercent != percent && !isIndeterminate()) {
+                    lastPercent = percent;
+                    trace("Calculating metrics " + lastPercent + "%");
+                }
+            }
+        };
+    }
+
+    private static AnalysisScope createAnalysisScope(Project project, String scopeSpecification) {
+        if (scopeSpecification.startsWith(SCOPE_PREFIX)) {
+            final String scopeName = scopeSpecification.substring(SCOPE_PREFIX.length());
+            final NamedScope namedScope = NamedScopesHolder.getScope(project, scopeName);
+            if (namedScope == null) {
+                error("Scope not found: " + scopeName);
+            }
+            return new AnalysisScope(GlobalSearchScopesCore.filterScope(project, namedScope), project);
+        } else if (scopeSpecification.startsWith(DIRECTORY_PREFIX)) {
+            final String directory =
+                    scopeSpecification.substring(DIRECTORY_PREFIX.length()).replace(File.separatorChar, '/');
+            final VirtualFile vfsDir = LocalFileSystem.getInstance().findFileByPath(directory);
+            if (vfsDir == null) {
+                error("Directory not found: " + directory);
+            }
+            final PsiDirectory psiDirectory = PsiManager.getInstance(project).findDirectory(vfsDir);
+            if (psiDirectory == null) {
+                error("Directory not found: " + directory);
+            }
+            return new AnalysisScope(psiDirectory);
+        } else {
+            return new AnalysisScope(project);
+        }
+    }
+
+    private static List<BatchJob> readBatchManifest(String path) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            error("Could not read batch manifest: " + path);
+            return null;
+        }
+        final List<BatchJob> jobs = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            final String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            final String[] fields = line.split("\t");
+            if (fields.length != 3) {
+                error(path + ":" + (i + 1) + ": expected profile name, scope and output path separated by tabs");
+            }
+            final String scopeSpecification = fields[1].trim();
+            if (!scopeSpecification.equals(PROJECT_SCOPE) && !scopeSpecification.startsWith(SCOPE_PREFIX) &&
+                !scopeSpecification.startsWith(DIRECTORY_PREFIX)) {
+                error(path + ":" + (i + 1) + ": unknown scope: " + scopeSpecification);
+            }
+            jobs.add(new BatchJob(fields[0].trim(), scopeSpecification, fields[2].trim()));
+        }
+        if (jobs.isEmpty()) {
+            error("No jobs found in batch manifest: " + path);
+        }
+        return jobs;
+    }
+
     private static MetricsProfile getMetricsProfile(String profileName) {
         final MetricsProfileRepository repository = MetricsProfileRepository.getInstance();
         final MetricsProfile profile = repository.getProfileByName(profileName);
@@ -250,5 +402,16 @@ public class MetricsCommandLine implements ApplicationStarter {
         }
         System.out.println(message);
     }
-}
 
+    private static class BatchJob {
+        final String profileName;
+        final String scope;
+        final String outputPath;
+
+        BatchJob(String profileName, String scope, String outputPath) {
+            this.profileName = profileName;
+            this.scope = scope;
+            this.outputPath = outputPath;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.MessageType;
 import com.intellij.openapi.wm.ToolWindowManager;
 import com.sixrr.metrics.config.MetricsReloadedConfig;
+import com.sixrr.metrics.metricModel.MetricsChangeTracker;
 import com.sixrr.metrics.metricModel.MetricsExecutionContextImpl;
 import com.sixrr.metrics.metricModel.MetricsRunImpl;
 import com.sixrr.metrics.metricModel.TimeStamp;
@@ -52,6 +53,7 @@ public class ProjectMetricsAction extends BaseAnalysisAction {
         }
         final MetricsView toolWindow = new MetricsView(project);
         final MetricsRunImpl metricsRun = new MetricsRunImpl();
+        metricsRun.setModificationCount(MetricsChangeTracker.getInstance(project).getModificationCount());
         new MetricsExecutionContextImpl(project, analysisScope) {
 
             @Override
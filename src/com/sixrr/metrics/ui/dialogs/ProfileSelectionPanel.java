@@ -38,7 +38,9 @@ public class ProfileSelectionPanel extends JPanel {
                 buildComboBoxWithBrowseButton(project, MetricsProfileRepository.getInstance());
 
         final JComponent separator = new TitledSeparator(MetricsReloadedBundle.message("metrics.profile"));
-        final JCheckBox checkBox = buildCheckBox(MetricsReloadedConfig.getInstance());
+        final MetricsReloadedConfig configuration = MetricsReloadedConfig.getInstance();
+        final JCheckBox checkBox = buildCheckBox(configuration);
+        final JCheckBox fileCacheCheckBox = buildFileCacheCheckBox(configuration);
 
         final GridBagConstraints constraints = new GridBagConstraints();
         constraints.insets.left = 0;
@@ -56,8 +58,13 @@ public class ProfileSelectionPanel extends JPanel {
         add(comboboxWithBrowseButton, constraints);
 
         constraints.gridy = 2;
-        constraints.weighty = 1.0;
+        constraints.insets.bottom = 0;
         add(checkBox, constraints);
+
+        constraints.gridy = 3;
+        constraints.insets.bottom = 8;
+        constraints.weighty = 1.0;
+        add(fileCacheCheckBox, constraints);
     }
 
     private static JCheckBox buildCheckBox(MetricsReloadedConfig configuration) {
@@ -68,6 +75,14 @@ public class ProfileSelectionPanel extends JPanel {
         return checkBox;
     }
 
+    private static JCheckBox buildFileCacheCheckBox(MetricsReloadedConfig configuration) {
+        final JCheckBox checkBox =
+                new JCheckBox(MetricsReloadedBundle.message("reuse.cached.values.of.unchanged.files"));
+        checkBox.setSelected(configuration.isUseFileCache());
+        checkBox.addActionListener(event -> configuration.setUseFileCache(checkBox.isSelected()));
+        return checkBox;
+    }
+
     private static ComboboxWithBrowseButton buildComboBoxWithBrowseButton(Project project,
                                                                           MetricsProfileRepository repository) {
         final ComboBox<MetricsProfile> comboBox = new ComboBox<>(new DefaultComboBoxModel<>(repository.getProfiles()));
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.dialogs;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.ui.ScrollPaneFactory;
+import com.intellij.ui.table.JBTable;
+import com.sixrr.metrics.metricModel.CalculatorTiming;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.util.Collections;
+import java.util.List;
+
+public class TimingsDialog extends DialogWrapper {
+
+    private final JBTable timingsTable;
+
+    public TimingsDialog(Project project, String profileName, List<CalculatorTiming> timings) {
+        super(project, false);
+        timingsTable = new JBTable(new TimingsTableModel(timings));
+        timingsTable.setAutoCreateRowSorter(true);
+        timingsTable.getRowSorter().setSortKeys(
+                Collections.singletonList(new RowSorter.SortKey(5, SortOrder.DESCENDING)));
+        setTitle(MetricsReloadedBundle.message("timings.for.profile", profileName));
+        init();
+    }
+
+    @Override
+    @Nullable
+    protected JComponent createCenterPanel() {
+        return ScrollPaneFactory.createScrollPane(timingsTable);
+    }
+
+    @Override
+    protected String getDimensionServiceKey() {
+        return "MetricsReloaded.TimingsDialog";
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.dialogs;
+
+import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.metricModel.CalculatorTiming;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.List;
+
+public class TimingsTableModel extends AbstractTableModel {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+    private final List<CalculatorTiming> timings;
+
+    public TimingsTableModel(List<CalculatorTiming> timings) {
+        this.timings = timings;
+    }
+
+    @Override
+    public int getRowCount() {
+        return timings.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return 7;
+    }
+
+    @Override
+    public String getColumnName(int columnNum) {
+        switch (columnNum) {
+            case 0:
+                return MetricsReloadedBundle.message("name");
+            case 1:
+                return MetricsReloadedBundle.message("abbreviation");
+            case 2:
+                return MetricsReloadedBundle.message("timings.begin.column");
+            case 3:
+                return MetricsReloadedBundle.message("timings.processing.column");
+            case 4:
+                return MetricsReloadedBundle.message("timings.end.column");
+            case 5:
+                return MetricsReloadedBundle.message("timings.total.column");
+            case 6:
+                return MetricsReloadedBundle.message("timings.allocated.column");
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnNum) {
+        return columnNum < 2 ? String.class : Double.class;
+    }
+
+    @Override
+    public Object getValueAt(int rowNum, int columnNum) {
+        final CalculatorTiming timing = timings.get(rowNum);
+        final Metric metric = timing.getMetric();
+        switch (columnNum) {
+            case 0:
+                return metric.getDisplayName();
+            case 1:
+                return metric.getAbbreviation();
+            case 2:
+                return timing.getBeginNanos() / NANOS_PER_MILLI;
+            case 3:
+                return timing.getProcessingNanos() / NANOS_PER_MILLI;
+            case 4:
+                return timing.getEndNanos() / NANOS_PER_MILLI;
+            case 5:
+                return timing.getTotalNanos() / NANOS_PER_MILLI;
+            case 6:
+                return timing.getAllocatedBytes() / BYTES_PER_MEGABYTE;
+            default:
+                return null;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.wm.WindowManager;
+import com.sixrr.metrics.config.MetricsReloadedConfig;
 import com.sixrr.metrics.metricModel.MetricsRun;
 import com.sixrr.metrics.utils.MetricsReloadedBundle;
 import org.jetbrains.annotations.NonNls;
@@ -51,12 +52,19 @@ class CreateSnapshotAction extends DumbAwareAction {
 
         if (returnVal == JFileChooser.APPROVE_OPTION) {
             final File selectedFile = chooser.getSelectedFile();
-            @NonNls final String fileName = selectedFile.getAbsolutePath();
-            if (fileName.endsWith(".met")) {
-                currentResults.writeToFile(fileName);
-            } else {
-                currentResults.writeToFile(fileName + ".met");
-            }
+            writeSnapshot(currentResults, selectedFile.getAbsolutePath());
+        }
+    }
+
+    private static void writeSnapshot(MetricsRun results, @NonNls String fileName) {
+        final MetricsReloadedConfig config = MetricsReloadedConfig.getInstance();
+        if (config.isBinarySnapshots()) {
+            final String extension = SnapshotFileFilter.BINARY_EXTENSION;
+            results.writeBinaryToFile(fileName.endsWith(extension) ? fileName : fileName + extension,
+                                      config.isCompressSnapshots());
+        } else {
+            final String extension = SnapshotFileFilter.XML_EXTENSION;
+            results.writeToFile(fileName.endsWith(extension) ? fileName : fileName + extension);
         }
     }
 
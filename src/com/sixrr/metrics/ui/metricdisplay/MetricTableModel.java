@@ -39,6 +39,8 @@ class MetricTableModel extends AbstractTableModel {
     private final MetricTableSpecification tableSpecification;
     private final String type;
     private String[] measuredObjects;
+    private int[] rows;
+    private int[] prevRows;
     private MetricInstance[] metricsInstances;
     private MetricsResult prevResults;
     private MetricsResult results;
@@ -51,6 +53,7 @@ class MetricTableModel extends AbstractTableModel {
         this.tableSpecification = tableSpecification;
         prevResults = null;
         measuredObjects = results.getMeasuredObjects();
+        rows = findRows(results);
         metricsInstances = findMetricInstances(results.getMetrics());
         Arrays.sort(metricsInstances, new MetricInstanceAbbreviationComparator());
         final Map<MetricInstance, Integer> remainingMetrics = new LinkedHashMap<>();
@@ -154,17 +157,16 @@ class MetricTableModel extends AbstractTableModel {
         if (row >= rowPermutation.length) {
             return null;
         }
-        final String measuredObject = measuredObjects[rowPermutation[row]];
-
-        return results.getElementForMeasuredObject(measuredObject);
+        final int resultRow = rows[rowPermutation[row]];
+        return resultRow < 0 ? null : results.getElementForRow(resultRow);
     }
 
     public Object getOriginalAtRow(int row) {
         if (row >= rowPermutation.length) {
             return null;
         }
-        final String measuredObject = measuredObjects[rowPermutation[row]];
-        return results.getOriginalForMeasuredObject(measuredObject);
+        final int resultRow = rows[rowPermutation[row]];
+        return resultRow < 0 ? null : results.getOriginalForRow(resultRow);
     }
 
     public MetricInstance getMetricForColumn(int column) {
@@ -232,20 +234,28 @@ class MetricTableModel extends AbstractTableModel {
                 }
             }
         }
-        final String measuredObject = measuredObjects[rowPermutation[rowIndex]];
+        final int index = rowPermutation[rowIndex];
         if (permutedColumn == 0) {
-            return measuredObject;
+            return measuredObjects[index];
         } else if (prevResults == null) {
             final MetricInstance metricInstance = metricsInstances[permutedColumn - 1];
-            return results.getValueForMetric(metricInstance.getMetric(), measuredObject);
+            return getValue(results, metricInstance.getMetric(), rows[index]);
         } else {
             final MetricInstance metric = metricsInstances[permutedColumn - 1];
-            final Double value = results.getValueForMetric(metric.getMetric(), measuredObject);
-            final Double prevValue = prevResults.getValueForMetric(metric.getMetric(), measuredObject);
+            final Double value = getValue(results, metric.getMetric(), rows[index]);
+            final Double prevValue = getValue(prevResults, metric.getMetric(), prevRows[index]);
             return Pair.create(value, prevValue);
         }
     }
 
+    @Nullable
+    private static Double getValue(MetricsResult results, Metric metric, int row) {
+        if (!results.hasValueForRow(metric, row)) {
+            return null;
+        }
+        return Double.valueOf(results.getValueForRow(metric, row));
+    }
+
     public boolean hasDiff() {
         return prevResults != null;
     }
@@ -284,11 +294,9 @@ class MetricTableModel extends AbstractTableModel {
                 tempArray[i] = Pair.create(Integer.valueOf(i), name);
             }
         } else {
+            final Metric metric = metricsInstances[permutedColumn - 1].getMetric();
             for (int i = 0; i < rowPermutation.length; i++) {
-                final String name = measuredObjects[i];
-                final MetricInstance metricInstance = metricsInstances[permutedColumn - 1];
-                final Double value = results.getValueForMetric(metricInstance.getMetric(), name);
-                tempArray[i] = Pair.create(Integer.valueOf(i), value);
+                tempArray[i] = Pair.create(Integer.valueOf(i), getValue(results, metric, rows[i]));
             }
         }
         Arrays.sort(tempArray, new PairComparator(tableSpecification.isAscending()));
@@ -306,6 +314,20 @@ class MetricTableModel extends AbstractTableModel {
         }
         Collections.addAll(allObjects, resultObjects);
         measuredObjects = allObjects.toArray(ArrayUtil.EMPTY_STRING_ARRAY);
+        rows = findRows(results);
+        prevRows = prevResults == null ? null : findRows(prevResults);
+    }
+
+    /**
+     * @return the row ids in the specified results of the measured objects of this table, -1 for objects that are
+     * not present.
+     */
+    private int[] findRows(MetricsResult results) {
+        final int[] result = new int[measuredObjects.length];
+        for (int i = 0; i < measuredObjects.length; i++) {
+            result[i] = results.getRow(measuredObjects[i]);
+        }
+        return result;
     }
 
     private void tabulateMetrics() {
@@ -52,6 +52,7 @@ public class MetricsView {
     private final MetricsDisplay metricsDisplay;
     private final Content myContent;
     private MetricsRun currentResults = null;
+    private MetricsRun unfilteredResults = null;
     private AnalysisScope currentScope = null;
     private MetricsProfile currentProfile = null;
     private MetricDisplaySpecification currentDisplaySpecification = null;
@@ -67,6 +68,8 @@ public class MetricsView {
         toolbarGroup.add(new DiffSnapshotAction(this, project));
         toolbarGroup.add(new RemoveDiffAction(this));
         toolbarGroup.add(new EditThresholdsAction(this));
+        toolbarGroup.add(new ToggleRecordTimingsAction());
+        toolbarGroup.add(new ShowTimingsAction(this, project));
         final ActionManager actionManager = ActionManager.getInstance();
         final ActionToolbar toolbar = actionManager.createActionToolbar(TOOL_WINDOW_ID, toolbarGroup, false);
         final JPanel contentPanel = new JPanel(new BorderLayout());
@@ -97,6 +100,7 @@ public class MetricsView {
     public void show(@NotNull MetricsRun results, @NotNull MetricsProfile profile, @NotNull AnalysisScope scope,
                      boolean showOnlyWarnings) {
         currentScope = scope;
+        unfilteredResults = results;
         currentResults = showOnlyWarnings ? results.filterRowsWithoutWarnings(profile) : results;
         currentProfile = profile;
         currentDisplaySpecification = MetricsReloadedConfig.getInstance().getDisplaySpecification(currentProfile);
@@ -113,12 +117,14 @@ public class MetricsView {
 
     public void update(@NotNull MetricsRun results) {
         currentResults = results;
+        unfilteredResults = results;
         metricsDisplay.updateMetricsResults(results, currentDisplaySpecification);
     }
 
     public void updateWithDiff(@NotNull MetricsRun results) {
         final MetricsRun prevResults = currentResults;
         currentResults = results;
+        unfilteredResults = results;
         metricsDisplay.updateMetricsResultsWithDiff(results, currentDisplaySpecification);
         myContent.setDisplayName(MetricsReloadedBundle.message("run.comparison.message",
                 currentResults.getProfileName(), currentScope.getDisplayName(),
@@ -147,6 +153,14 @@ public class MetricsView {
         return currentResults;
     }
 
+    /**
+     * @return the current run including the rows without warnings, which are left out of the current run when only
+     * warnings are shown.
+     */
+    public MetricsRun getUnfilteredRun() {
+        return unfilteredResults;
+    }
+
     public AnalysisScope getCurrentScope() {
         return currentScope;
     }
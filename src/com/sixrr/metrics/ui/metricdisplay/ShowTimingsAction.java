@@ -0,0 +1,51 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.metricdisplay;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.sixrr.metrics.metricModel.MetricsRun;
+import com.sixrr.metrics.ui.dialogs.TimingsDialog;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+import org.jetbrains.annotations.NotNull;
+
+class ShowTimingsAction extends DumbAwareAction {
+
+    private final MetricsView toolWindow;
+    private final Project project;
+
+    ShowTimingsAction(MetricsView toolWindow, Project project) {
+        super(MetricsReloadedBundle.messagePointer("show.timings.action"),
+              MetricsReloadedBundle.messagePointer("show.timings.description"), AllIcons.Actions.Profile);
+        this.toolWindow = toolWindow;
+        this.project = project;
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        final MetricsRun run = toolWindow.getUnfilteredRun();
+        new TimingsDialog(project, run.getProfileName(), run.getTimings()).show();
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent event) {
+        final MetricsRun run = toolWindow.getUnfilteredRun();
+        event.getPresentation().setEnabled(run != null && !run.getTimings().isEmpty());
+    }
+}
@@ -23,13 +23,17 @@ import javax.swing.filechooser.FileFilter;
 import java.io.File;
 
 public class SnapshotFileFilter extends FileFilter {
+
+    @NonNls public static final String XML_EXTENSION = ".met";
+    @NonNls public static final String BINARY_EXTENSION = ".metb";
+
     @Override
     public boolean accept(File f) {
         if (f.isDirectory()) {
             return true;
         }
         @NonNls final String fileName = f.getName();
-        return fileName.endsWith(".met");
+        return fileName.endsWith(XML_EXTENSION) || fileName.endsWith(BINARY_EXTENSION);
     }
 
     @Override
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.ui.metricdisplay;
+
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.project.DumbAwareToggleAction;
+import com.sixrr.metrics.config.MetricsReloadedConfig;
+import com.sixrr.metrics.utils.MetricsReloadedBundle;
+import org.jetbrains.annotations.NotNull;
+
+class ToggleRecordTimingsAction extends DumbAwareToggleAction {
+
+    ToggleRecordTimingsAction() {
+        super(MetricsReloadedBundle.messagePointer("record.timings.action"),
+              MetricsReloadedBundle.messagePointer("record.timings.description"), AllIcons.Actions.ProfileCPU);
+    }
+
+    @Override
+    public boolean isSelected(@NotNull AnActionEvent event) {
+        return MetricsReloadedConfig.getInstance().isRecordTimings();
+    }
+
+    @Override
+    public void setSelected(@NotNull AnActionEvent event, boolean b) {
+        MetricsReloadedConfig.getInstance().setRecordTimings(b);
+    }
+}
@@ -20,6 +20,7 @@ import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
+import com.sixrr.metrics.metricModel.MetricsChangeTracker;
 import com.sixrr.metrics.metricModel.MetricsExecutionContextImpl;
 import com.sixrr.metrics.metricModel.MetricsRunImpl;
 import com.sixrr.metrics.metricModel.TimeStamp;
@@ -44,6 +45,7 @@ class UpdateMetricsViewAction extends DumbAwareAction {
         final AnalysisScope currentScope = toolWindow.getCurrentScope();
         final MetricsProfile currentProfile = toolWindow.getCurrentProfile();
         final MetricsRunImpl metricsRun = new MetricsRunImpl();
+        metricsRun.setModificationCount(MetricsChangeTracker.getInstance(project).getModificationCount());
         new MetricsExecutionContextImpl(project, currentScope) {
             
             @Override
@@ -20,13 +20,18 @@ import com.intellij.icons.AllIcons;
 import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.sixrr.metrics.metricModel.MetricsChangeTracker;
 import com.sixrr.metrics.metricModel.MetricsExecutionContextImpl;
+import com.sixrr.metrics.metricModel.MetricsRun;
 import com.sixrr.metrics.metricModel.MetricsRunImpl;
 import com.sixrr.metrics.metricModel.TimeStamp;
 import com.sixrr.metrics.profile.MetricsProfile;
 import com.sixrr.metrics.utils.MetricsReloadedBundle;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Set;
+
 class UpdateWithDiffAction extends DumbAwareAction {
 
     private final MetricsView toolWindow;
@@ -44,7 +49,9 @@ class UpdateWithDiffAction extends DumbAwareAction {
         final AnalysisScope scope = toolWindow.getCurrentScope();
         final MetricsProfile currentProfile = toolWindow.getCurrentProfile();
         final MetricsRunImpl metricsRun = new MetricsRunImpl();
-        new MetricsExecutionContextImpl(project, scope) {
+        final MetricsChangeTracker changeTracker = MetricsChangeTracker.getInstance(project);
+        metricsRun.setModificationCount(changeTracker.getModificationCount());
+        final MetricsExecutionContextImpl executionContext = new MetricsExecutionContextImpl(project, scope) {
 
             @Override
             public void onFinish() {
@@ -53,6 +60,16 @@ class UpdateWithDiffAction extends DumbAwareAction {
                 metricsRun.setTimestamp(new TimeStamp());
                 toolWindow.updateWithDiff(metricsRun);
             }
-        }.execute(currentProfile, metricsRun);
+        };
+        final MetricsRun previousRun = toolWindow.getUnfilteredRun();
+        if (previousRun instanceof MetricsRunImpl) {
+            final MetricsRunImpl previousRunImpl = (MetricsRunImpl) previousRun;
+            final Set<VirtualFile> changedFiles =
+                    changeTracker.getChangedFilesSince(previousRunImpl.getModificationCount());
+            if (changedFiles != null) {
+                executionContext.setPreviousRun(previousRunImpl, changedFiles);
+            }
+        }
+        executionContext.execute(currentProfile, metricsRun);
     }
 }
@@ -19,12 +19,14 @@ package com.sixrr.metrics.utils;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricType;
 
+import java.text.FieldPosition;
 import java.text.NumberFormat;
 
 public final class FormatUtils {
 
     private static final NumberFormat numberFormatter = NumberFormat.getNumberInstance();
     private static final NumberFormat intFormatter = NumberFormat.getIntegerInstance();
+    private static final FieldPosition fieldPosition = new FieldPosition(0);
 
     static {
         numberFormatter.setMaximumFractionDigits(2);
@@ -41,14 +43,35 @@ public final class FormatUtils {
         if (value == null) {
             return "";
         }
+        return formatValue(metric, value.doubleValue(), average);
+    }
+
+    public static String formatValue(Metric metric, double value) {
+        return formatValue(metric, value, false);
+    }
+
+    public static String formatValue(Metric metric, double value, boolean average) {
+        return formatValue(metric, value, average, new StringBuffer()).toString();
+    }
+
+    /**
+     * Appends the formatted value to the buffer, which allows the buffer to be reused for many values.
+     */
+    public static StringBuffer formatValue(Metric metric, double value, StringBuffer buffer) {
+        return formatValue(metric, value, false, buffer);
+    }
+
+    private static StringBuffer formatValue(Metric metric, double value, boolean average, StringBuffer buffer) {
         final MetricType metricType = metric.getType();
         if (metricType == MetricType.Count || metricType == MetricType.Score ||
                 metricType == MetricType.RecursiveCount) {
-            return average ? numberFormatter.format(value.doubleValue()) : intFormatter.format(value.longValue());
-        }  else if(metricType == MetricType.Average) {
-            return numberFormatter.format(value) ;
+            return average
+                   ? numberFormatter.format(value, buffer, fieldPosition)
+                   : intFormatter.format((long) value, buffer, fieldPosition);
+        } else if (metricType == MetricType.Average) {
+            return numberFormatter.format(value, buffer, fieldPosition);
         } else { //it's a ratio or recursive ratio
-            return numberFormatter.format(value.doubleValue() * 100.0) + '%';
+            return numberFormatter.format(value * 100.0, buffer, fieldPosition).append('%');
         }
     }
 }
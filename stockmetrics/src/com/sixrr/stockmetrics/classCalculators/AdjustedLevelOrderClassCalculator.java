@@ -17,7 +17,7 @@ package com.sixrr.stockmetrics.classCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.stockmetrics.dependency.DependencyMap;
 
@@ -32,11 +32,10 @@ public class AdjustedLevelOrderClassCalculator extends ClassCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isConcreteClass(aClass)) {
                 final DependencyMap dependencyMap = getDependencyMap();
                 final int levelOrder = dependencyMap.calculateAdjustedLevelOrder(aClass);
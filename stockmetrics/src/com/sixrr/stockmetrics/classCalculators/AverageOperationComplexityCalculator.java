@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -15,108 +15,44 @@
  */
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.*;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
+import com.sixrr.stockmetrics.utils.ClassComplexity;
 
 public class AverageOperationComplexityCalculator extends ClassCalculator {
 
-    private int complexity = 0;
-    private int numMethods = 0;
-
     public AverageOperationComplexityCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            final int prevComplexity = complexity;
-            final int prevNumMethods = numMethods;
-            if (isConcreteClass(aClass)) {
-
-                complexity = 0;
-                numMethods = 0;
-            }
-            super.visitClass(aClass);
-            if (isConcreteClass(aClass)) {
-                if (numMethods != 0) {
-                    postMetric(aClass, complexity, numMethods);
-                }
-                complexity = prevComplexity;
-                numMethods = prevNumMethods;
-            }
-        }
-
-        @Override
-        public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
-            if (method.getBody() != null) {
-                complexity++;
-                numMethods++;
-            }
-        }
-
-        @Override
-        public void visitForStatement(PsiForStatement statement) {
-            super.visitForStatement(statement);
-            complexity++;
-        }
-
-        @Override
-        public void visitForeachStatement(PsiForeachStatement statement) {
-            super.visitForeachStatement(statement);
-            complexity++;
-        }
-
-        @Override
-        public void visitIfStatement(PsiIfStatement statement) {
-            super.visitIfStatement(statement);
-            complexity++;
-        }
-
-        @Override
-        public void visitDoWhileStatement(PsiDoWhileStatement statement) {
-            super.visitDoWhileStatement(statement);
-            complexity++;
-        }
-
-        @Override
-        public void visitConditionalExpression(PsiConditionalExpression expression) {
-            super.visitConditionalExpression(expression);
-            complexity++;
-        }
-
-        @Override
-        public void visitSwitchStatement(PsiSwitchStatement statement) {
-            super.visitSwitchStatement(statement);
-            final PsiCodeBlock body = statement.getBody();
-            if (body == null) {
+            if (!isConcreteClass(aClass)) {
                 return;
             }
-            final PsiStatement[] statements = body.getStatements();
-            boolean pendingLabel = false;
-            for (final PsiStatement child : statements) {
-                if (child instanceof PsiSwitchLabelStatement) {
-                    if (!pendingLabel) {
-                        complexity++;
-                    }
-                    pendingLabel = true;
-                } else {
-                    pendingLabel = false;
-                }
+            final ClassComplexity complexity = getClassComplexity(aClass);
+            if (complexity != null && complexity.getNumOperations() != 0) {
+                postMetric(aClass, complexity.getTotalOperationComplexity(), complexity.getNumOperations());
             }
         }
-
-        @Override
-        public void visitWhileStatement(PsiWhileStatement statement) {
-            super.visitWhileStatement(statement);
-            complexity++;
-        }
     }
 }
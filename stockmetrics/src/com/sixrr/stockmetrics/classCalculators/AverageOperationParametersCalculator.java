@@ -25,16 +25,25 @@ public class AverageOperationParametersCalculator extends ClassCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (!isConcreteClass(aClass)) {
                 return;
             }
@@ -25,16 +25,20 @@ public class ClassSizeAttributesCalculator extends ClassCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isConcreteClass(aClass)) {
                 final PsiField[] fields = aClass.getAllFields();
                 int numAttributes = 0;
@@ -25,16 +25,20 @@ public class ClassSizeOperationsAttributesCalculator extends ClassCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isConcreteClass(aClass)) {
                 final PsiMethod[] methods = aClass.getAllMethods();
                 final PsiField[] fields = aClass.getAllFields();
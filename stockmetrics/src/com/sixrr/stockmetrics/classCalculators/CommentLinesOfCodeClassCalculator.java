@@ -16,48 +16,35 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class CommentLinesOfCodeClassCalculator extends ClassCalculator {
 
-    private int elementCount = 0;
-
     public CommentLinesOfCodeClassCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            final int prevElementCount = elementCount;
-            if (!ClassUtils.isAnonymous(aClass)) {
-                elementCount = 0;
+            if (isConcreteClass(aClass)) {
+                postMetric(aClass, LineUtil.countClassLines(aClass, getLineFacts(aClass)::countCommentLines));
             }
-            super.visitClass(aClass);
-            if (!ClassUtils.isAnonymous(aClass)) {
-                if (!aClass.isInterface()) {
-                    postMetric(aClass, elementCount);
-                }
-                elementCount = prevElementCount;
-            }
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            elementCount += LineUtil.countLines(comment);
         }
     }
 }
@@ -16,53 +16,38 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.stockmetrics.utils.LineFacts;
 import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class CommentRatioClassCalculator extends ClassCalculator {
 
-    private int commentLines = 0;
-
     public CommentRatioClassCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            final int prevCommentLines = commentLines;
-            if (!ClassUtils.isAnonymous(aClass)) {
-                commentLines = 0;
+            if (isConcreteClass(aClass)) {
+                final LineFacts lineFacts = getLineFacts(aClass);
+                final int commentLines = LineUtil.countClassLines(aClass, lineFacts::countCommentLines);
+                postMetric(aClass, commentLines, LineUtil.countClassLines(aClass, lineFacts::countLines));
             }
-            super.visitClass(aClass);
-            if (!ClassUtils.isAnonymous(aClass)) {
-                if (!aClass.isInterface()) {
-                    int linesOfCode = LineUtil.countLines(aClass);
-                    final PsiClass[] innerClasses = aClass.getInnerClasses();
-                    for (PsiClass innerClass : innerClasses) {
-                        linesOfCode -= LineUtil.countLines(innerClass);
-                    }
-                    postMetric(aClass, commentLines, linesOfCode);
-                }
-                commentLines = prevCommentLines;
-            }
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            commentLines += LineUtil.countLines(comment);
         }
     }
 }
@@ -16,36 +16,46 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
 
 public class DepthOfInheritanceCalculator extends ClassCalculator {
 
+    private TypeHierarchy typeHierarchy = null;
+
     public DepthOfInheritanceCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        typeHierarchy = getTypeHierarchy();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isConcreteClass(aClass) && !aClass.isEnum()) {
-                final int depth = getInheritanceDepth(aClass);
+                final int depth = typeHierarchy.getInheritanceDepth(aClass);
                 postMetric(aClass, depth);
             }
         }
-
-        private int getInheritanceDepth(PsiClass aClass) {
-            final PsiClass superClass = aClass.getSuperClass();
-            return superClass == null ? 0 : getInheritanceDepth(superClass) + 1;
-        }
     }
 }
@@ -16,34 +16,47 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.halstead.HalsteadCache;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 
 public abstract class HalsteadClassCalculator extends ClassCalculator {
 
+    private HalsteadCache halsteadCache = null;
+
     public HalsteadClassCalculator(Metric metric) {
         super(metric);
     }
 
-    protected abstract double calculateValue(HalsteadVisitor visitor);
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        halsteadCache = getHalsteadCache();
+    }
+
+    protected abstract double calculateValue(HalsteadCounts counts);
 
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isConcreteClass(aClass)) {
-                final HalsteadVisitor visitor = new HalsteadVisitor();
-                aClass.accept(visitor);
-                final double value = calculateValue(visitor);
+                final double value = calculateValue(halsteadCache.getCounts(aClass));
                 postMetric(aClass, value);
             }
         }
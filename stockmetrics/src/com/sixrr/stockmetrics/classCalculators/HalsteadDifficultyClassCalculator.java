@@ -17,7 +17,7 @@
 package com.sixrr.stockmetrics.classCalculators;
 
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 
 public class HalsteadDifficultyClassCalculator extends HalsteadClassCalculator {
 
@@ -26,7 +26,7 @@ public class HalsteadDifficultyClassCalculator extends HalsteadClassCalculator {
     }
 
     @Override
-    protected double calculateValue(HalsteadVisitor visitor) {
-        return visitor.getDifficulty();
+    protected double calculateValue(HalsteadCounts counts) {
+        return counts.getDifficulty();
     }
 }
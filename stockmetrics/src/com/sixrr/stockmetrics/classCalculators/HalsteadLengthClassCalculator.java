@@ -17,7 +17,7 @@
 package com.sixrr.stockmetrics.classCalculators;
 
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 
 public class HalsteadLengthClassCalculator extends HalsteadClassCalculator {
 
@@ -26,7 +26,7 @@ public class HalsteadLengthClassCalculator extends HalsteadClassCalculator {
     }
 
     @Override
-    protected double calculateValue(HalsteadVisitor visitor) {
-        return (double) visitor.getLength();
+    protected double calculateValue(HalsteadCounts counts) {
+        return (double) counts.getLength();
     }
 }
\ No newline at end of file
@@ -17,7 +17,7 @@
 package com.sixrr.stockmetrics.classCalculators;
 
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 
 public class HalsteadVocabularyClassCalculator extends HalsteadClassCalculator {
 
@@ -26,7 +26,7 @@ public class HalsteadVocabularyClassCalculator extends HalsteadClassCalculator {
     }
 
     @Override
-    protected double calculateValue(HalsteadVisitor visitor) {
-        return (double) visitor.getVocabulary();
+    protected double calculateValue(HalsteadCounts counts) {
+        return (double) counts.getVocabulary();
     }
 }
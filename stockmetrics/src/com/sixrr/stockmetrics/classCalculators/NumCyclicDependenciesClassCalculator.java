@@ -16,14 +16,12 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.stockmetrics.dependency.DependencyMap;
 
-import java.util.Set;
-
 public class NumCyclicDependenciesClassCalculator extends ClassCalculator {
 
     public NumCyclicDependenciesClassCalculator(Metric metric) {
@@ -35,15 +33,13 @@ public class NumCyclicDependenciesClassCalculator extends ClassCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isConcreteClass(aClass)) {
                 final DependencyMap dependencyMap = getDependencyMap();
-                final Set<PsiClass> dependencies = dependencyMap.calculateStronglyConnectedComponents(aClass);
-                final int numDependencies = dependencies.size() - 1;
+                final int numDependencies = dependencyMap.calculateCyclicDependencies(aClass);
                 postMetric(aClass, numDependencies);
             }
         }
@@ -18,25 +18,39 @@ package com.sixrr.stockmetrics.classCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.stockmetrics.utils.OverrideMap;
 
 public class NumOperationsAddedCalculator extends ClassCalculator {
 
+    private OverrideMap overrideMap = null;
+
     public NumOperationsAddedCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        overrideMap = getOverrideMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(final PsiClass aClass) {
-            super.visitClass(aClass);
             if (ClassUtils.isAnonymous(aClass) || aClass.isInterface()) {
                 return;
             }
@@ -50,7 +64,7 @@ public class NumOperationsAddedCalculator extends ClassCalculator {
                     numAddedMethods++;
                     continue;
                 }
-                if (!MethodUtils.hasConcreteSuperMethod(method)) {
+                if (!overrideMap.hasConcreteSuperMethod(method)) {
                     numAddedMethods++;
                 }
             }
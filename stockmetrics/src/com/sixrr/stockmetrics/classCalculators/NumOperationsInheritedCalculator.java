@@ -18,27 +18,45 @@ package com.sixrr.stockmetrics.classCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.utils.OverrideMap;
+
+import java.util.Set;
 
 public class NumOperationsInheritedCalculator extends ClassCalculator {
 
+    private OverrideMap overrideMap = null;
+
     public NumOperationsInheritedCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        overrideMap = getOverrideMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (!isConcreteClass(aClass)) {
                 return;
             }
             final PsiMethod[] allMethods = aClass.getAllMethods();
+            final Set<PsiMethod> overriddenMethods = overrideMap.findOverriddenMethods(aClass.getMethods());
             int numInheritedMethods = 0;
             for (final PsiMethod method : allMethods) {
                 if (method.isConstructor() || method.hasModifierProperty(PsiModifier.PRIVATE) ||
@@ -50,8 +68,7 @@ public class NumOperationsInheritedCalculator extends ClassCalculator {
                 if (containingClass == null || containingClass.equals(aClass)) {
                     continue;
                 }
-                final PsiMethod localMethod = aClass.findMethodBySignature(method, false);
-                if (localMethod == null) {
+                if (!overriddenMethods.contains(method)) {
                     numInheritedMethods++;
                 }
             }
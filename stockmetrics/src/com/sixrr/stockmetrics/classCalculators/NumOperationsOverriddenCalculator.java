@@ -16,30 +16,45 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.stockmetrics.utils.OverrideMap;
 
 public class NumOperationsOverriddenCalculator extends ClassCalculator {
 
+    private OverrideMap overrideMap = null;
+
     public NumOperationsOverriddenCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        overrideMap = getOverrideMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(final PsiClass aClass) {
-            super.visitClass(aClass);
             if (ClassUtils.isAnonymous(aClass) || aClass.isInterface()) {
                 return;
             }
@@ -49,7 +64,7 @@ public class NumOperationsOverriddenCalculator extends ClassCalculator {
                 if (!MethodUtils.isConcreteMethod(method)) {
                     continue;
                 }
-                if (MethodUtils.hasConcreteSuperMethod(method)) {
+                if (overrideMap.hasConcreteSuperMethod(method)) {
                     numOverriddenMethods++;
                 }
             }
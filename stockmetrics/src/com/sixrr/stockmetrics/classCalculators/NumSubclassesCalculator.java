@@ -16,32 +16,46 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
 
 public class NumSubclassesCalculator extends ClassCalculator {
 
+    private TypeHierarchy typeHierarchy = null;
+
     public NumSubclassesCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        typeHierarchy = getTypeHierarchy();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(final PsiClass aClass) {
-            super.visitClass(aClass);
             if (!isConcreteClass(aClass) || aClass.isEnum()) {
                 return;
             }
-            postMetric(aClass, ClassUtils.calculateSubclassCount(aClass));
+            postMetric(aClass, typeHierarchy.countClassInheritors(aClass));
         }
     }
 }
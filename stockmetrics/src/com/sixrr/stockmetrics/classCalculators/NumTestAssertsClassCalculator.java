@@ -22,7 +22,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethodCallExpression;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestAssertsClassCalculator extends ClassCalculator {
 
@@ -57,7 +56,7 @@ public class NumTestAssertsClassCalculator extends ClassCalculator {
         @Override
         public void visitMethodCallExpression(PsiMethodCallExpression expression) {
             super.visitMethodCallExpression(expression);
-            if (JavaTestUtils.isJUnitAssertCall(expression)) {
+            if (getTestClassifier().isTestAssertCall(expression)) {
                 elementCount++;
             }
         }
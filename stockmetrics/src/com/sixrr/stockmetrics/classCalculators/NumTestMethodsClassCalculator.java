@@ -22,7 +22,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestMethodsClassCalculator extends ClassCalculator {
 
@@ -56,7 +55,7 @@ public class NumTestMethodsClassCalculator extends ClassCalculator {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (JavaTestUtils.isJUnitTestMethod(method)) {
+            if (getTestClassifier().isTestMethod(method)) {
                 elementCount++;
             }
         }
@@ -16,14 +16,12 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.stockmetrics.dependency.DependentsMap;
 
-import java.util.Set;
-
 public class NumTransitiveDependentsClassCalculator extends ClassCalculator {
 
     public NumTransitiveDependentsClassCalculator(Metric metric) {
@@ -35,15 +33,13 @@ public class NumTransitiveDependentsClassCalculator extends ClassCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isConcreteClass(aClass)) {
                 final DependentsMap dependentsMap = getDependentsMap();
-                final Set<PsiClass> dependents = dependentsMap.calculateTransitiveDependents(aClass);
-                final int numDependents = dependents.size() - 1;
+                final int numDependents = dependentsMap.calculateTransitiveDependentCount(aClass) - 1;
                 postMetric(aClass, numDependents);
             }
         }
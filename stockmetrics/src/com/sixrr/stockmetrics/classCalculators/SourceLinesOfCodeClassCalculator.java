@@ -16,57 +16,35 @@
 
 package com.sixrr.stockmetrics.classCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeClassCalculator extends ClassCalculator {
 
-    private int commentLines = 0;
-
     public SourceLinesOfCodeClassCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            int prevCommentLines = 0;
-            if (!ClassUtils.isAnonymous(aClass)) {
-                prevCommentLines = commentLines;
-                commentLines = 0;
+            if (isConcreteClass(aClass)) {
+                postMetric(aClass, LineUtil.countClassLines(aClass, getLineFacts(aClass)::countCodeLines));
             }
-            super.visitClass(aClass);
-
-            if (!ClassUtils.isAnonymous(aClass)) {
-                if (aClass.isInterface()) {
-                    commentLines = prevCommentLines;
-                } else {
-                    int linesOfCode = LineUtil.countLines(aClass);
-                    final PsiClass[] innerClasses = aClass.getInnerClasses();
-                    for (PsiClass innerClass : innerClasses) {
-                        linesOfCode -= LineUtil.countLines(innerClass);
-                    }
-                    postMetric(aClass, linesOfCode - commentLines);
-                    commentLines = prevCommentLines;
-                }
-            }
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            commentLines += LineUtil.countCommentOnlyLines(comment);
         }
     }
 }
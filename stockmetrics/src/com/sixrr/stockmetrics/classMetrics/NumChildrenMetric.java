@@ -16,16 +16,17 @@
 
 package com.sixrr.stockmetrics.classMetrics;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiModifier;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricType;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.stockmetrics.classCalculators.ClassCalculator;
 import com.sixrr.stockmetrics.i18n.StockMetricsBundle;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -59,33 +60,33 @@ public class NumChildrenMetric extends ClassMetric {
 
     private static class NumberOfChildrenCalculator extends ClassCalculator {
 
+        private TypeHierarchy typeHierarchy = null;
+
         public NumberOfChildrenCalculator(Metric metric) {
             super(metric);
         }
 
+        @Override
+        public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+            super.beginMetricsRun(resultsHolder, executionContext);
+            typeHierarchy = getTypeHierarchy();
+        }
+
         @Override
         protected PsiElementVisitor createVisitor() {
             return new Visitor();
         }
 
-        private class Visitor extends JavaRecursiveElementVisitor {
+        private class Visitor extends JavaElementVisitor {
 
             @Override
             public void visitClass(PsiClass aClass) {
-                super.visitClass(aClass);
                 if (!isConcreteClass(aClass) || aClass.isEnum()) {
                     return;
                 }
-                final int numberOfChildren = getNumberOfChildren(aClass);
+                final int numberOfChildren = typeHierarchy.countDirectInheritors(aClass);
                 postMetric(aClass, numberOfChildren);
             }
-
-            int getNumberOfChildren(final PsiClass aClass) {
-                if (aClass.hasModifierProperty(PsiModifier.FINAL)) {
-                    return 0;
-                }
-                return ClassInheritorsSearch.search(aClass, false).findAll().size();
-            }
         }
     }
 }
@@ -27,8 +27,18 @@ public interface DependencyMap {
 
     Set<PsiClass> calculateTransitiveDependencies(PsiClass aClass);
 
+    /**
+     * @return the number of classes in the transitive dependencies of the specified class, including the class itself.
+     */
+    int calculateTransitiveDependencyCount(PsiClass aClass);
+
     Set<PsiClass> calculateStronglyConnectedComponents(PsiClass aClass);
 
+    /**
+     * @return the number of other classes in the strongly connected component of the specified class.
+     */
+    int calculateCyclicDependencies(PsiClass aClass);
+
     int calculateLevelOrder(PsiClass aClass);
 
     int calculateAdjustedLevelOrder(PsiClass aClass);
@@ -37,8 +47,19 @@ public interface DependencyMap {
 
     Set<PsiPackage> calculateTransitivePackageDependencies(PsiPackage aPackage);
 
+    /**
+     * @return the number of packages in the transitive dependencies of the specified package, including the package
+     * itself.
+     */
+    int calculateTransitivePackageDependencyCount(PsiPackage aPackage);
+
     Set<PsiPackage> calculateStronglyConnectedPackageComponents(PsiPackage aPackage);
 
+    /**
+     * @return the number of other packages in the strongly connected component of the specified package.
+     */
+    int calculateCyclicPackageDependencies(PsiPackage aPackage);
+
     int calculatePackageLevelOrder(PsiPackage aPackage);
 
     int calculatePackageAdjustedLevelOrder(PsiPackage aPackage);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -17,344 +17,266 @@
 package com.sixrr.stockmetrics.dependency;
 
 import com.intellij.psi.*;
-import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.metrics.utils.CompactGraph;
+import com.sixrr.metrics.utils.GraphCondensation;
+import com.sixrr.metrics.utils.IndexedSet;
 import com.sixrr.metrics.utils.Stack;
+import com.sixrr.metrics.utils.StronglyConnectedComponents;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 
+/**
+ * Class and package dependencies of the whole project. Classes and packages are numbered densely while the
+ * dependencies are collected, and the dependency edges are stored as compact int graphs once
+ * {@link #finishBuilding()} is called. Dependents are read from the reverse edges of the same graphs.
+ */
 public class DependencyMapImpl implements DependencyMap, DependentsMap {
 
-    private final Map<PsiClass, BucketedCount<PsiClass>> dependencies = new HashMap<>();
-    private final Map<PsiClass, Set<PsiClass>> transitiveDependencies = new HashMap<>();
-    private final Map<PsiPackage, Set<PsiPackage>> transitivePackageDependencies = new HashMap<>();
-    private final Map<PsiClass, Set<PsiClass>> stronglyConnectedComponents = new HashMap<>();
-    private final Map<PsiClass, Integer> levelOrders = new HashMap<>();
-    private final Map<PsiClass, Integer> adjustedLevelOrders = new HashMap<>();
-    private final Map<PsiClass, BucketedCount<PsiPackage>> packageDependencies = new HashMap<>();
-    private final Map<PsiPackage, BucketedCount<PsiPackage>> packageToPackageDependencies = new HashMap<>();
-    private final Map<PsiPackage, Set<PsiPackage>> stronglyConnectedPackageComponents = new HashMap<>();
-    private final Map<PsiPackage, Integer> packageLevelOrders = new HashMap<>();
-    private final Map<PsiPackage, Integer> packageAdjustedLevelOrders = new HashMap<>();
-
-    private final Map<PsiClass, BucketedCount<PsiClass>> dependents = new HashMap<>();
-    private final Map<PsiClass, BucketedCount<PsiPackage>> packageDependents = new HashMap<>();
-    private final Map<PsiPackage, BucketedCount<PsiPackage>> packageToPackageDependents = new HashMap<>();
-    private final Map<PsiClass, Set<PsiClass>> transitiveDependents = new HashMap<>();
-    private final Map<PsiPackage, Set<PsiPackage>> transitivePackageDependents = new HashMap<>();
+    private final IndexedSet<PsiClass> classes = new IndexedSet<>();
+    private final IndexedSet<PsiPackage> packages = new IndexedSet<>();
+
+    // class -> referenced class
+    private CompactGraph.Builder classGraphBuilder = new CompactGraph.Builder();
+    // class -> package of referenced class
+    private CompactGraph.Builder classPackageGraphBuilder = new CompactGraph.Builder();
+    // referenced class -> package of referencing class
+    private CompactGraph.Builder dependentPackageGraphBuilder = new CompactGraph.Builder();
+    // package -> referenced package, excluding references inside a package
+    private CompactGraph.Builder packageGraphBuilder = new CompactGraph.Builder();
+
+    private CompactGraph classGraph = null;
+    private CompactGraph classPackageGraph = null;
+    private CompactGraph dependentPackageGraph = null;
+    private CompactGraph packageGraph = null;
+    private GraphCondensation classCondensation = null;
+    private GraphCondensation packageCondensation = null;
 
     @Override
     public Set<PsiClass> calculateDependents(PsiClass aClass) {
-        final BucketedCount<PsiClass> existing = dependents.get(aClass);
-        return (existing == null) ? Collections.emptySet() : existing.getBuckets();
+        return NodeSet.sources(classes, classGraph, classes.indexOf(aClass));
     }
 
     @Override
     public int getStrengthForDependent(PsiClass aClass, PsiClass dependentClass) {
-        final BucketedCount<PsiClass> dependentsForClass = dependents.get(aClass);
-        return dependentsForClass.getBucketValue(dependentClass);
+        return classGraph.getWeight(classes.indexOf(dependentClass), classes.indexOf(aClass));
     }
 
     @Override
     public Set<PsiPackage> calculatePackageDependents(PsiClass aClass) {
-        final BucketedCount<PsiPackage> existing = packageDependents.get(aClass);
-        return (existing == null) ? Collections.emptySet() : existing.getBuckets();
+        return NodeSet.targets(packages, dependentPackageGraph, classes.indexOf(aClass));
     }
 
     @Override
     public Set<PsiPackage> calculatePackageToPackageDependents(PsiPackage aPackage) {
-        final BucketedCount<PsiPackage> existing = packageToPackageDependents.get(aPackage);
-        return (existing == null) ? Collections.emptySet() : existing.getBuckets();
+        return NodeSet.sources(packages, packageGraph, packages.indexOf(aPackage));
     }
 
     @Override
     public int getStrengthForPackageDependent(PsiClass aClass, PsiPackage dependentPackage) {
-        final BucketedCount<PsiPackage> dependentsForClass = packageDependents.get(aClass);
-        return dependentsForClass.getBucketValue(dependentPackage);
+        return dependentPackageGraph.getWeight(classes.indexOf(aClass), packages.indexOf(dependentPackage));
     }
 
     @Override
     public Set<PsiClass> calculateTransitiveDependents(PsiClass aClass) {
-        final Set<PsiClass> out = transitiveDependents.get(aClass);
-        if (out != null) {
-            return out;
-        }
+        return collectReachable(aClass, classes, classGraph, true);
+    }
 
-        final List<PsiClass> pendingClasses = new ArrayList<>();
-        pendingClasses.add(aClass);
-        final Set<PsiClass> allDependents = new HashSet<>();
-        while (!pendingClasses.isEmpty()) {
-            final PsiClass dependentClass = pendingClasses.get(0);
-            pendingClasses.remove(0);
-            if (!allDependents.contains(dependentClass)) {
-                if (transitiveDependents.containsKey(dependentClass)) {
-                    allDependents.addAll(transitiveDependents.get(dependentClass));
-                } else {
-                    allDependents.add(dependentClass);
-                    if (dependentClass != null) {
-                        final Set<PsiClass> indirectDependents = calculateDependents(dependentClass);
-                        pendingClasses.addAll(indirectDependents);
-                    }
-                }
-            }
-        }
-        transitiveDependents.put(aClass, allDependents);
-        return allDependents;
+    @Override
+    public int calculateTransitiveDependentCount(PsiClass aClass) {
+        final int component = getClassComponent(aClass);
+        return component < 0 ? 1 : classCondensation.getReachingCount(component);
     }
 
     @Override
     public Set<PsiPackage> calculateTransitivePackageDependents(PsiPackage aPackage) {
-        final Set<PsiPackage> out = transitivePackageDependents.get(aPackage);
-        if (out != null) {
-            return out;
-        }
-        final List<PsiPackage> pendingPackages = new ArrayList<>();
-        pendingPackages.add(aPackage);
-        final Set<PsiPackage> allDependents = new HashSet<>();
-        while (!pendingPackages.isEmpty()) {
-            final PsiPackage dependentPackage = pendingPackages.get(0);
-            pendingPackages.remove(0);
-            if (!allDependents.contains(dependentPackage)) {
-                if (transitivePackageDependents.containsKey(dependentPackage)) {
-                    allDependents.addAll(transitivePackageDependents.get(dependentPackage));
-                } else {
-                    allDependents.add(dependentPackage);
-                    final Set<PsiPackage> indirectDependents = calculatePackageToPackageDependents(dependentPackage);
-                    pendingPackages.addAll(indirectDependents);
-                }
-            }
-        }
-        transitivePackageDependents.put(aPackage, allDependents);
-        return allDependents;
+        return collectReachable(aPackage, packages, packageGraph, true);
+    }
+
+    @Override
+    public int calculateTransitivePackageDependentCount(PsiPackage aPackage) {
+        final int component = getPackageComponent(aPackage);
+        return component < 0 ? 1 : packageCondensation.getReachingCount(component);
     }
 
     @Override
     public Set<PsiClass> calculateDependencies(PsiClass aClass) {
-        final BucketedCount<PsiClass> dependenciesForClass = dependencies.get(aClass);
-        return (dependenciesForClass == null) ? Collections.emptySet() : dependenciesForClass.getBuckets();
+        return NodeSet.targets(classes, classGraph, classes.indexOf(aClass));
     }
 
     @Override
     public Set<PsiClass> calculateTransitiveDependencies(PsiClass aClass) {
-        final Set<PsiClass> out = transitiveDependencies.get(aClass);
-        if (out != null) {
-            return out;
-        }
+        return collectReachable(aClass, classes, classGraph, false);
+    }
 
-        final List<PsiClass> pendingClasses = new ArrayList<>();
-        pendingClasses.add(aClass);
-        final Set<PsiClass> allDependencies = new HashSet<>();
-        while (!pendingClasses.isEmpty()) {
-            final PsiClass pendingClass = pendingClasses.get(0);
-            pendingClasses.remove(0);
-            if (!allDependencies.contains(pendingClass)) {
-                if (transitiveDependencies.containsKey(pendingClass)) {
-                    allDependencies.addAll(transitiveDependencies.get(pendingClass));
-                } else {
-                    allDependencies.add(pendingClass);
-                    if (pendingClass != null) {
-                        final Set<PsiClass> indirectDependencies = calculateDependencies(pendingClass);
-                        pendingClasses.addAll(indirectDependencies);
-                    }
-                }
-            }
-        }
-        transitiveDependencies.put(aClass, allDependencies);
-        return allDependencies;
+    @Override
+    public int calculateTransitiveDependencyCount(PsiClass aClass) {
+        final int component = getClassComponent(aClass);
+        return component < 0 ? 1 : classCondensation.getReachableCount(component);
     }
 
     @Override
     public Set<PsiClass> calculateStronglyConnectedComponents(PsiClass aClass) {
-        final Set<PsiClass> out = stronglyConnectedComponents.get(aClass);
-        if (out != null) {
-            return out;
-        }
-        final Set<PsiClass> transitiveDeps = calculateTransitiveDependencies(aClass);
-        final Set<PsiClass> component = new HashSet<>();
-        component.add(aClass);
-        for (final PsiClass dependencyClass : transitiveDeps) {
-            if (dependencyClass != null) {
-                final Set<PsiClass> dependencyDependencies = calculateTransitiveDependencies(dependencyClass);
-                if (transitiveDeps.size() == dependencyDependencies.size()) {
-                    component.add(dependencyClass);
-                }
-            }
-        }
-        for (final PsiClass componentElement : component) {
-            stronglyConnectedComponents.put(componentElement, component);
-        }
-        return component;
+        return getComponentMembers(aClass, classes, classCondensation.getComponents());
+    }
+
+    @Override
+    public int calculateCyclicDependencies(PsiClass aClass) {
+        final int component = getClassComponent(aClass);
+        return component < 0 ? 0 : classCondensation.getComponents().getComponentSize(component) - 1;
     }
 
     @Override
     public int calculateLevelOrder(PsiClass aClass) {
-        final Integer out = levelOrders.get(aClass);
-        if (out != null) {
-            return out.intValue();
-        }
-        final Set<PsiClass> dependentClasses = calculateDependencies(aClass);
-        final Set<PsiClass> mutuallyDependentClasses = calculateStronglyConnectedComponents(aClass);
-        int levelOrder = 0;
-        for (final PsiClass dependentClass : dependentClasses) {
-            if (!mutuallyDependentClasses.contains(dependentClass)) {
-                if (dependentClass != null) {
-                    final int dependentLevelOrder = calculateLevelOrder(dependentClass);
-                    levelOrder = Math.max(levelOrder, dependentLevelOrder);
-                }
-            }
-        }
-        levelOrder += 1;
-        for (final PsiClass stronglyConnectedClass : mutuallyDependentClasses) {
-            levelOrders.put(stronglyConnectedClass, Integer.valueOf(levelOrder));
-        }
-        return levelOrder;
+        final int component = getClassComponent(aClass);
+        return component < 0 ? 1 : classCondensation.getLevelOrder(component);
     }
 
     @Override
     public int calculateAdjustedLevelOrder(PsiClass aClass) {
-        final Integer out = adjustedLevelOrders.get(aClass);
-        if (out != null) {
-            return out.intValue();
-        }
-        final Set<PsiClass> dependentClasses = calculateDependencies(aClass);
-        final Set<PsiClass> mutuallyDependentClasses = calculateStronglyConnectedComponents(aClass);
-        int levelOrder = 0;
-        for (final PsiClass dependentClass : dependentClasses) {
-            if (!mutuallyDependentClasses.contains(dependentClass)) {
-                if (dependentClass != null) {
-                    final int dependentLevelOrder = calculateAdjustedLevelOrder(dependentClass);
-                    levelOrder = Math.max(levelOrder, dependentLevelOrder);
-                }
-            }
-        }
-        levelOrder += mutuallyDependentClasses.size();
-        for (final PsiClass stronglyConnectedClass : mutuallyDependentClasses) {
-            adjustedLevelOrders.put(stronglyConnectedClass, Integer.valueOf(levelOrder));
-        }
-        return levelOrder;
+        final int component = getClassComponent(aClass);
+        return component < 0 ? 1 : classCondensation.getAdjustedLevelOrder(component);
     }
 
     @Override
     public Set<PsiPackage> calculatePackageDependencies(PsiClass aClass) {
-        final BucketedCount<PsiPackage> existing = packageDependencies.get(aClass);
-        return (existing == null) ? Collections.emptySet() : existing.getBuckets();
+        return NodeSet.targets(packages, classPackageGraph, classes.indexOf(aClass));
     }
 
     @Override
     public Set<PsiPackage> calculateTransitivePackageDependencies(PsiPackage aPackage) {
-        final Set<PsiPackage> out = transitivePackageDependencies.get(aPackage);
-        if (out != null) {
-            return out;
-        }
-        final List<PsiPackage> pendingPackages = new ArrayList<>();
-        pendingPackages.add(aPackage);
-        final Set<PsiPackage> allDependencies = new HashSet<>();
-        while (!pendingPackages.isEmpty()) {
-            final PsiPackage dependencyPackageName = pendingPackages.get(0);
-            pendingPackages.remove(0);
-            if (!allDependencies.contains(dependencyPackageName)) {
-                if (transitivePackageDependencies.containsKey(dependencyPackageName)) {
-                    allDependencies.addAll(transitivePackageDependencies.get(dependencyPackageName));
-                } else {
-                    allDependencies.add(dependencyPackageName);
-                    final Set<PsiPackage> indirectDependencies =
-                            calculatePackageToPackageDependencies(dependencyPackageName);
-                    pendingPackages.addAll(indirectDependencies);
-                }
-            }
-        }
-        transitivePackageDependencies.put(aPackage, allDependencies);
-        return allDependencies;
+        return collectReachable(aPackage, packages, packageGraph, false);
+    }
+
+    @Override
+    public int calculateTransitivePackageDependencyCount(PsiPackage aPackage) {
+        final int component = getPackageComponent(aPackage);
+        return component < 0 ? 1 : packageCondensation.getReachableCount(component);
     }
 
     @Override
     public Set<PsiPackage> calculateStronglyConnectedPackageComponents(PsiPackage aPackage) {
-        final Set<PsiPackage> out = stronglyConnectedPackageComponents.get(aPackage);
-        if (out != null) {
-            return out;
+        return getComponentMembers(aPackage, packages, packageCondensation.getComponents());
+    }
+
+    @Override
+    public int calculateCyclicPackageDependencies(PsiPackage aPackage) {
+        final int component = getPackageComponent(aPackage);
+        return component < 0 ? 0 : packageCondensation.getComponents().getComponentSize(component) - 1;
+    }
+
+    /**
+     * @return the id of the strongly connected component of the class, or -1 if the class has no dependencies or
+     * dependents.
+     */
+    private int getClassComponent(PsiClass aClass) {
+        final int id = classes.indexOf(aClass);
+        return id < 0 ? -1 : classCondensation.getComponents().getComponentId(id);
+    }
+
+    private int getPackageComponent(PsiPackage aPackage) {
+        final int id = packages.indexOf(aPackage);
+        return id < 0 ? -1 : packageCondensation.getComponents().getComponentId(id);
+    }
+
+    private static <T> Set<T> getComponentMembers(T element, IndexedSet<T> elements,
+                                                  StronglyConnectedComponents components) {
+        final int id = elements.indexOf(element);
+        if (id < 0) {
+            return Collections.singleton(element);
         }
-        final Set<PsiPackage> transitiveDeps = calculateTransitivePackageDependencies(aPackage);
-        final Set<PsiPackage> component = new HashSet<>();
-        component.add(aPackage);
-        for (final PsiPackage dependencyPackage : transitiveDeps) {
-            final Set<PsiPackage> dependencyDependencies = calculateTransitivePackageDependencies(dependencyPackage);
-            if (transitiveDeps.size() == dependencyDependencies.size()) {
-                component.add(dependencyPackage);
-            }
+        final int component = components.getComponentId(id);
+        final Set<T> result = new HashSet<>(components.getComponentSize(component));
+        for (int i = components.membersStart(component), end = components.membersEnd(component); i < end; i++) {
+            result.add(elements.get(components.getMember(i)));
         }
-        for (final PsiPackage componentElement : component) {
-            stronglyConnectedPackageComponents.put(componentElement, component);
+        return result;
+    }
+
+    /**
+     * @return the specified element and all elements reachable from it through the edges of the graph, or through
+     * the reversed edges when {@code reverse} is true.
+     */
+    private static <T> Set<T> collectReachable(T element, IndexedSet<T> elements, CompactGraph graph,
+                                               boolean reverse) {
+        final int id = elements.indexOf(element);
+        if (id < 0) {
+            return Collections.singleton(element);
+        }
+        final boolean[] visited = new boolean[elements.size()];
+        final int[] queue = new int[elements.size()];
+        int head = 0;
+        int tail = 0;
+        visited[id] = true;
+        queue[tail++] = id;
+        final Set<T> result = new HashSet<>();
+        while (head < tail) {
+            final int node = queue[head++];
+            result.add(elements.get(node));
+            final int start = reverse ? graph.reverseEdgesStart(node) : graph.edgesStart(node);
+            final int end = reverse ? graph.reverseEdgesEnd(node) : graph.edgesEnd(node);
+            for (int i = start; i < end; i++) {
+                final int next = reverse ? graph.getSource(i) : graph.getTarget(i);
+                if (!visited[next]) {
+                    visited[next] = true;
+                    queue[tail++] = next;
+                }
+            }
         }
-        return component;
+        return result;
     }
 
     @Override
     public int calculatePackageLevelOrder(PsiPackage aPackage) {
-        final Integer out = packageLevelOrders.get(aPackage);
-        if (out != null) {
-            return out.intValue();
-        }
-        final Set<PsiPackage> dependentPackages = calculatePackageToPackageDependencies(aPackage);
-        final Set<PsiPackage> mutuallyDependentPackages = calculateStronglyConnectedPackageComponents(aPackage);
-        int levelOrder = 0;
-        for (final PsiPackage dependentPackage : dependentPackages) {
-            if (!mutuallyDependentPackages.contains(dependentPackage)) {
-                final int dependentLevelOrder = calculatePackageLevelOrder(dependentPackage);
-                levelOrder = Math.max(levelOrder, dependentLevelOrder);
-            }
-        }
-        levelOrder += 1;
-        for (final PsiPackage mutuallyDependentPackage : mutuallyDependentPackages) {
-            packageLevelOrders.put(mutuallyDependentPackage, Integer.valueOf(levelOrder));
-        }
-        return levelOrder;
+        final int component = getPackageComponent(aPackage);
+        return component < 0 ? 1 : packageCondensation.getLevelOrder(component);
     }
 
     @Override
     public int calculatePackageAdjustedLevelOrder(PsiPackage aPackage) {
-        final Integer out = packageAdjustedLevelOrders.get(aPackage);
-        if (out != null) {
-            return out.intValue();
-        }
-        final Set<PsiPackage> dependentPackages = calculatePackageToPackageDependencies(aPackage);
-        final Set<PsiPackage> mutuallyDependentPackages = calculateStronglyConnectedPackageComponents(aPackage);
-        int levelOrder = 0;
-        for (final PsiPackage dependentPackage : dependentPackages) {
-            if (!mutuallyDependentPackages.contains(dependentPackage)) {
-                final int dependentLevelOrder = calculatePackageAdjustedLevelOrder(dependentPackage);
-                levelOrder = Math.max(levelOrder, dependentLevelOrder);
-            }
-        }
-        levelOrder += mutuallyDependentPackages.size();
-        for (final PsiPackage stronglyConnectedPackage : mutuallyDependentPackages) {
-            packageAdjustedLevelOrders.put(stronglyConnectedPackage, Integer.valueOf(levelOrder));
-        }
-        return levelOrder;
+        final int component = getPackageComponent(aPackage);
+        return component < 0 ? 1 : packageCondensation.getAdjustedLevelOrder(component);
     }
 
     @Override
     public int getStrengthForDependency(PsiClass aClass, PsiClass dependencyClass) {
-        final BucketedCount<PsiClass> dependenciesForClass = dependencies.get(aClass);
-        return dependenciesForClass.getBucketValue(dependencyClass);
+        return classGraph.getWeight(classes.indexOf(aClass), classes.indexOf(dependencyClass));
     }
 
     @Override
     public int getStrengthForPackageDependency(PsiClass aClass, PsiPackage dependencyPackage) {
-        final BucketedCount<PsiPackage> dependenciesForClass = packageDependencies.get(aClass);
-        return dependenciesForClass.getBucketValue(dependencyPackage);
+        return classPackageGraph.getWeight(classes.indexOf(aClass), packages.indexOf(dependencyPackage));
     }
 
     @Override
     public Set<PsiPackage> calculatePackageToPackageDependencies(PsiPackage aPackage) {
-        final BucketedCount<PsiPackage> dependenciesForPackage = packageToPackageDependencies.get(aPackage);
-        return (dependenciesForPackage == null) ? Collections.emptySet() : dependenciesForPackage.getBuckets();
+        return NodeSet.targets(packages, packageGraph, packages.indexOf(aPackage));
     }
 
     public void build(PsiElement element) {
         element.accept(new DependenciesVisitor());
     }
 
+    /**
+     * Must be called after all files have been passed to {@link #build(PsiElement)} and before any dependencies
+     * or dependents are requested.
+     */
+    public void finishBuilding() {
+        final int classCount = classes.size();
+        final int packageCount = packages.size();
+        classGraph = classGraphBuilder.build(classCount, classCount);
+        classPackageGraph = classPackageGraphBuilder.build(classCount, packageCount);
+        dependentPackageGraph = dependentPackageGraphBuilder.build(classCount, packageCount);
+        packageGraph = packageGraphBuilder.build(packageCount, packageCount);
+        classCondensation = new GraphCondensation(classGraph, StronglyConnectedComponents.compute(classGraph));
+        packageCondensation = new GraphCondensation(packageGraph, StronglyConnectedComponents.compute(packageGraph));
+        classGraphBuilder = null;
+        classPackageGraphBuilder = null;
+        dependentPackageGraphBuilder = null;
+        packageGraphBuilder = null;
+    }
+
     private class DependenciesVisitor extends JavaRecursiveElementVisitor {
 
         private final Stack<PsiClass> classStack = new Stack<>();
@@ -493,33 +415,24 @@ public class DependencyMapImpl implements DependencyMap, DependentsMap {
                     referencedClass instanceof PsiTypeParameter) {
                 return;
             }
-            add(currentClass, referencedClass, dependencies);
-            add(referencedClass, currentClass, dependents);
+            final int classId = classes.add(currentClass);
+            final int referencedClassId = classes.add(referencedClass);
+            classGraphBuilder.addEdge(classId, referencedClassId);
 
             final PsiPackage dependencyPackage = ClassUtils.findPackage(referencedClass);
             if (dependencyPackage != null) {
-                add(currentClass, dependencyPackage, packageDependencies);
+                classPackageGraphBuilder.addEdge(classId, packages.add(dependencyPackage));
             }
 
             final PsiPackage aPackage = ClassUtils.findPackage(currentClass);
             if (aPackage != null) {
-                add(referencedClass, aPackage, packageDependents);
+                dependentPackageGraphBuilder.addEdge(referencedClassId, packages.add(aPackage));
             }
 
             if (aPackage == null || dependencyPackage == null || aPackage.equals(dependencyPackage)) {
                 return;
             }
-            add(aPackage, dependencyPackage, packageToPackageDependencies);
-            add(dependencyPackage, aPackage, packageToPackageDependents);
-        }
-
-        private <K, V> void add(K k, V v, Map<K, BucketedCount<V>> map) {
-            BucketedCount<V> bucketedCount = map.get(k);
-            if (bucketedCount == null) {
-                bucketedCount = new BucketedCount<>();
-                map.put(k, bucketedCount);
-            }
-            bucketedCount.incrementBucketValue(v);
+            packageGraphBuilder.addEdge(packages.indexOf(aPackage), packages.indexOf(dependencyPackage));
         }
     }
 }
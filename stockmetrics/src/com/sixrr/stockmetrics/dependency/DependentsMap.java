@@ -35,5 +35,16 @@ public interface DependentsMap {
 
     Set<PsiClass> calculateTransitiveDependents(PsiClass aClass);
 
+    /**
+     * @return the number of classes in the transitive dependents of the specified class, including the class itself.
+     */
+    int calculateTransitiveDependentCount(PsiClass aClass);
+
     Set<PsiPackage> calculateTransitivePackageDependents(PsiPackage aPackage);
+
+    /**
+     * @return the number of packages in the transitive dependents of the specified package, including the package
+     * itself.
+     */
+    int calculateTransitivePackageDependentCount(PsiPackage aPackage);
 }
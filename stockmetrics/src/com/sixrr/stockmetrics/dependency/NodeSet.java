@@ -0,0 +1,103 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.dependency;
+
+import com.sixrr.metrics.utils.CompactGraph;
+import com.sixrr.metrics.utils.IndexedSet;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Unmodifiable set view of the neighbours of a single node in a {@link CompactGraph}, without copying.
+ */
+class NodeSet<T> extends AbstractSet<T> {
+
+    private final IndexedSet<T> nodes;
+    private final CompactGraph graph;
+    private final boolean reverse;
+    private final int start;
+    private final int end;
+
+    private NodeSet(IndexedSet<T> nodes, CompactGraph graph, boolean reverse, int start, int end) {
+        this.nodes = nodes;
+        this.graph = graph;
+        this.reverse = reverse;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return the targets of the outgoing edges of the specified source node.
+     */
+    static <T> NodeSet<T> targets(IndexedSet<T> targets, CompactGraph graph, int source) {
+        return new NodeSet<>(targets, graph, false, graph.edgesStart(source), graph.edgesEnd(source));
+    }
+
+    /**
+     * @return the sources of the incoming edges of the specified target node.
+     */
+    static <T> NodeSet<T> sources(IndexedSet<T> sources, CompactGraph graph, int target) {
+        return new NodeSet<>(sources, graph, true, graph.reverseEdgesStart(target), graph.reverseEdgesEnd(target));
+    }
+
+    private int idAt(int edge) {
+        return reverse ? graph.getSource(edge) : graph.getTarget(edge);
+    }
+
+    @Override
+    public int size() {
+        return end - start;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        final int id = nodes.indexOf(o);
+        if (id < 0) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (idAt(i) == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next = start;
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public T next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                return nodes.get(idAt(next++));
+            }
+        };
+    }
+}
@@ -24,24 +24,60 @@ import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.util.UserDataHolderBase;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiClass;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.PsiRecursiveVisitor;
 import com.intellij.util.Processor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricsExecutionContext;
 import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.metrics.utils.FileCache;
 import com.sixrr.stockmetrics.dependency.DependencyMap;
 import com.sixrr.stockmetrics.dependency.DependencyMapImpl;
 import com.sixrr.stockmetrics.dependency.DependentsMap;
+import com.sixrr.stockmetrics.halstead.HalsteadCache;
 import com.sixrr.stockmetrics.i18n.StockMetricsBundle;
+import com.sixrr.stockmetrics.utils.ClassComplexity;
+import com.sixrr.stockmetrics.utils.ClassReferenceCache;
+import com.sixrr.stockmetrics.utils.LineFacts;
+import com.sixrr.stockmetrics.utils.MethodCallMap;
+import com.sixrr.stockmetrics.utils.MethodCallMapImpl;
+import com.sixrr.stockmetrics.utils.MethodComplexity;
+import com.sixrr.stockmetrics.utils.MethodComplexityCache;
+import com.sixrr.stockmetrics.utils.OverrideMap;
+import com.sixrr.stockmetrics.utils.OverrideMapImpl;
+import com.sixrr.stockmetrics.utils.TestClassifier;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
+import com.sixrr.stockmetrics.utils.TypeHierarchyImpl;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public abstract class BaseMetricsCalculator implements MetricCalculator {
 
     private static final Key<DependencyMapImpl> dependencyMapKey = new Key<>("dependencyMap");
+    private static final Key<MethodCallMapImpl> methodCallMapKey = new Key<>("methodCallMap");
+    private static final Key<TypeHierarchyImpl> typeHierarchyKey = new Key<>("typeHierarchy");
+    private static final Key<OverrideMapImpl> overrideMapKey = new Key<>("overrideMap");
+    private static final Key<HalsteadCache> halsteadCacheKey = new Key<>("halsteadCache");
+    private static final Key<MethodComplexityCache> methodComplexityCacheKey = new Key<>("methodComplexityCache");
+    private static final Key<FileCache<Map<PsiClass, ClassComplexity>>> classComplexityCacheKey =
+            new Key<>("classComplexityCache");
+    private static final Key<FileCache<LineFacts>> lineFactsCacheKey = new Key<>("lineFactsCache");
+    private static final Key<LineFacts> lineFactsKey = new Key<>("lineFacts");
+    private static final Key<TestClassifier> testClassifierKey = new Key<>("testClassifier");
+    private static final Key<ClassReferenceCache> classReferenceCacheKey = new Key<>("classReferenceCache");
 
     protected final Metric metric;
     protected MetricsResultsHolder resultsHolder = null;
@@ -64,9 +100,38 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
 
     @Override
     public void processFile(final PsiFile file) {
+        if (!requiresPsi()) {
+            // e.g. when the values of unchanged files are reused, changed files are processed with PSI
+            final VirtualFile virtualFile = file.getVirtualFile();
+            if (virtualFile != null) {
+                processText(virtualFile, file.getViewProvider().getContents(), new UserDataHolderBase());
+            }
+            return;
+        }
         ProgressManager.getInstance().runProcess(() -> file.accept(visitor), new EmptyProgressIndicator());
     }
 
+    /**
+     * Calculators visiting only Java elements have nothing to measure in other files. Calculators measuring every
+     * file with a Java visitor, e.g. to create a count for every module, need to override this method.
+     */
+    @Override
+    public boolean processesNonJavaFiles() {
+        return !(visitor instanceof JavaElementVisitor);
+    }
+
+    /**
+     * Visitors that walk the tree themselves are run separately for each file through {@link #processFile(PsiFile)},
+     * all other visitors take part in the single traversal shared by all calculators.
+     */
+    @Override
+    public PsiElementVisitor getElementVisitor() {
+        return visitor instanceof PsiRecursiveVisitor ? null : visitor;
+    }
+
+    /**
+     * @return the visitor calculating the metric, or null for calculators which don't require PSI.
+     */
     protected abstract PsiElementVisitor createVisitor();
 
     @Override
@@ -82,8 +147,137 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
         return executionContext.getUserData(dependencyMapKey);
     }
 
+    /**
+     * Returns the calls of all methods in the project. The index is built on first use, in a single pass over the
+     * project, and shared by all calculators in the run. Call this from {@link #beginMetricsRun}, which is not run
+     * inside a read action.
+     */
+    protected MethodCallMap getMethodCallMap() {
+        MethodCallMapImpl methodCallMap = executionContext.getUserData(methodCallMapKey);
+        if (methodCallMap == null) {
+            methodCallMap = new MethodCallMapImpl();
+            processProjectFiles("building.method.call.index.progress.string", methodCallMap::build);
+            executionContext.putUserData(methodCallMapKey, methodCallMap);
+        }
+        return methodCallMap;
+    }
+
+    /**
+     * Returns the inheritance relations of all classes in the project. The index is built on first use, in a single
+     * pass over the project, and shared by all calculators in the run. Call this from {@link #beginMetricsRun}.
+     */
+    protected TypeHierarchy getTypeHierarchy() {
+        TypeHierarchyImpl typeHierarchy = executionContext.getUserData(typeHierarchyKey);
+        if (typeHierarchy == null) {
+            typeHierarchy = new TypeHierarchyImpl();
+            processProjectFiles("building.type.hierarchy.progress.string", typeHierarchy::build);
+            typeHierarchy.finishBuilding();
+            executionContext.putUserData(typeHierarchyKey, typeHierarchy);
+        }
+        return typeHierarchy;
+    }
+
+    /**
+     * Returns the super methods and overriding methods of all methods in the project. The index is built on first use,
+     * in a single pass over the project, and shared by all calculators in the run. Call this from
+     * {@link #beginMetricsRun}.
+     */
+    protected OverrideMap getOverrideMap() {
+        OverrideMapImpl overrideMap = executionContext.getUserData(overrideMapKey);
+        if (overrideMap == null) {
+            overrideMap = new OverrideMapImpl();
+            processProjectFiles("building.override.index.progress.string", overrideMap::build);
+            overrideMap.finishBuilding();
+            executionContext.putUserData(overrideMapKey, overrideMap);
+        }
+        return overrideMap;
+    }
+
+    /**
+     * Returns the Halstead counts shared by all calculators in the run. Call this from {@link #beginMetricsRun}.
+     */
+    protected HalsteadCache getHalsteadCache() {
+        return getSharedData(halsteadCacheKey, HalsteadCache::new);
+    }
+
+    /**
+     * Returns the complexity facts of the method, which are shared by all calculators in the run.
+     */
+    protected MethodComplexity getMethodComplexity(PsiMethod method) {
+        return getSharedData(methodComplexityCacheKey, MethodComplexityCache::new).getComplexity(method);
+    }
+
+    /**
+     * Returns the operation complexity facts of the concrete class, which are calculated for all classes in its file at
+     * once and shared by all calculators in the run.
+     */
+    protected ClassComplexity getClassComplexity(PsiClass aClass) {
+        return getSharedData(classComplexityCacheKey,
+                             () -> new FileCache<Map<PsiClass, ClassComplexity>>(ClassComplexity::calculate))
+                .get(aClass).get(aClass);
+    }
+
+    /**
+     * Returns the line facts of the file containing the element, which are shared by all calculators in the run.
+     */
+    protected LineFacts getLineFacts(PsiElement element) {
+        return getSharedData(lineFactsCacheKey, () -> new FileCache<LineFacts>(LineFacts::build)).get(element);
+    }
+
+    /**
+     * Returns the line facts of a file processed without PSI, which are built once and shared by all calculators
+     * processing the file through {@link #processText}.
+     */
+    protected LineFacts getLineFacts(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+        LineFacts lineFacts = fileData.getUserData(lineFactsKey);
+        if (lineFacts == null) {
+            lineFacts = LineFacts.build(file, text, executionContext.getProject());
+            fileData.putUserData(lineFactsKey, lineFacts);
+        }
+        return lineFacts;
+    }
+
+    /**
+     * Returns the test classification of files, classes and methods, which is shared by all calculators in the run.
+     */
+    protected TestClassifier getTestClassifier() {
+        return getSharedData(testClassifierKey, () -> new TestClassifier(executionContext.getProject()));
+    }
+
+    /**
+     * Returns the references to classes, which are searched once per class and shared by all calculators in the run.
+     */
+    protected ClassReferenceCache getClassReferenceCache() {
+        return getSharedData(classReferenceCacheKey, ClassReferenceCache::new);
+    }
+
+    /**
+     * Returns the data stored in the execution context under the key, creating it on first use. May be called from
+     * several threads at once, the data is created only once.
+     */
+    private <T> T getSharedData(Key<T> key, Supplier<? extends T> factory) {
+        final T data = executionContext.getUserData(key);
+        if (data != null) {
+            return data;
+        }
+        synchronized (executionContext) {
+            T newData = executionContext.getUserData(key);
+            if (newData == null) {
+                newData = factory.get();
+                executionContext.putUserData(key, newData);
+            }
+            return newData;
+        }
+    }
+
     private void calculateDependencies() {
         final DependencyMapImpl dependencyMap = new DependencyMapImpl();
+        processProjectFiles("building.dependency.structure.progress.string", dependencyMap::build);
+        dependencyMap.finishBuilding();
+        executionContext.putUserData(dependencyMapKey, dependencyMap);
+    }
+
+    private void processProjectFiles(String progressKey, Consumer<PsiJavaFile> consumer) {
         final ProgressManager progressManager = ProgressManager.getInstance();
         final ProgressIndicator progressIndicator = progressManager.getProgressIndicator();
 
@@ -94,15 +288,14 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
 
         analysisScope.accept(new Processor<VirtualFile>() {
 
-            private int dependencyProgress = 0;
+            private int progress = 0;
 
             @Override
             public boolean process(VirtualFile virtualFile) {
                 final String fileName = virtualFile.getName();
-                progressIndicator.setText(
-                        StockMetricsBundle.message("building.dependency.structure.progress.string", fileName));
-                progressIndicator.setFraction((double) dependencyProgress / (double) allFilesCount);
-                dependencyProgress++;
+                progressIndicator.setText(StockMetricsBundle.message(progressKey, fileName));
+                progressIndicator.setFraction((double) progress / (double) allFilesCount);
+                progress++;
                 if (virtualFile.getFileType() != JavaFileType.INSTANCE) {
                     return true;
                 }
@@ -111,11 +304,10 @@ public abstract class BaseMetricsCalculator implements MetricCalculator {
                     if (!(file instanceof PsiJavaFile)) {
                         return;
                     }
-                    dependencyMap.build(file);
+                    consumer.accept((PsiJavaFile) file);
                 });
                 return true;
             }
         });
-        executionContext.putUserData(dependencyMapKey, dependencyMap);
     }
 }
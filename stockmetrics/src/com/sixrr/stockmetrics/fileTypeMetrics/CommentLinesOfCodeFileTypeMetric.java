@@ -16,12 +16,14 @@
 
 package com.sixrr.stockmetrics.fileTypeMetrics;
 
-import com.intellij.psi.*;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricType;
 import com.sixrr.stockmetrics.i18n.StockMetricsBundle;
-import com.sixrr.stockmetrics.utils.LineUtil;
 import org.jetbrains.annotations.NotNull;
 
 public class CommentLinesOfCodeFileTypeMetric extends FileTypeMetric {
@@ -57,24 +59,25 @@ public class CommentLinesOfCodeFileTypeMetric extends FileTypeMetric {
         }
 
         @Override
-        protected PsiElementVisitor createVisitor() {
-            return new PsiRecursiveElementVisitor() {
+        public boolean requiresPsi() {
+            return false;
+        }
 
-                @Override
-                public void visitFile(PsiFile file) {
-                    super.visitFile(file);
-                    createCount(file);
-                }
+        @Override
+        public boolean supportsParallelProcessing() {
+            return true;
+        }
 
-                @Override
-                public void visitElement(PsiElement element) {
-                    super.visitElement(element);
-                    if (element instanceof PsiComment) {
-                        final int lineCount = LineUtil.countLines(element);
-                        incrementCount(element, lineCount);
-                    }
-                }
-            };
+        @Override
+        protected PsiElementVisitor createVisitor() {
+            return null;
+        }
+
+        @Override
+        public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+            final FileType fileType = file.getFileType();
+            createCount(fileType);
+            incrementCount(fileType, getLineFacts(file, text, fileData).countCommentLines());
         }
     }
 }
@@ -16,12 +16,15 @@
 
 package com.sixrr.stockmetrics.fileTypeMetrics;
 
-import com.intellij.psi.*;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricType;
 import com.sixrr.stockmetrics.i18n.StockMetricsBundle;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 import org.jetbrains.annotations.NotNull;
 
 public class CommentRatioFileTypeMetric extends FileTypeMetric {
@@ -57,28 +60,27 @@ public class CommentRatioFileTypeMetric extends FileTypeMetric {
         }
 
         @Override
-        protected PsiElementVisitor createVisitor() {
-            return new Visitor();
+        public boolean requiresPsi() {
+            return false;
         }
 
-        private class Visitor extends PsiRecursiveElementVisitor {
+        @Override
+        public boolean supportsParallelProcessing() {
+            return true;
+        }
 
-            @Override
-            public void visitFile(PsiFile file) {
-                super.visitFile(file);
-                createRatio(file);
-                final int lineCount = LineUtil.countLines(file);
-                incrementDenominator(file, lineCount);
-            }
+        @Override
+        protected PsiElementVisitor createVisitor() {
+            return null;
+        }
 
-            @Override
-            public void visitElement(PsiElement element) {
-                super.visitElement(element);
-                if (element instanceof PsiComment) {
-                    final int lineCount = LineUtil.countLines(element);
-                    incrementNumerator(element, lineCount);
-                }
-            }
+        @Override
+        public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+            final FileType fileType = file.getFileType();
+            final LineFacts lineFacts = getLineFacts(file, text, fileData);
+            createRatio(fileType);
+            incrementDenominator(fileType, lineFacts.countLines());
+            incrementNumerator(fileType, lineFacts.countCommentLines());
         }
     }
 }
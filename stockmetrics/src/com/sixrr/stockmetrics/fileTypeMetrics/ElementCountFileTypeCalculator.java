@@ -57,4 +57,12 @@ public abstract class ElementCountFileTypeCalculator extends FileTypeCalculator
         }
         elementCountsPerFileType.incrementBucketValue(fileType, count);
     }
+
+    protected void createCount(@NotNull FileType fileType) {
+        elementCountsPerFileType.createBucket(fileType);
+    }
+
+    protected void incrementCount(@NotNull FileType fileType, int count) {
+        elementCountsPerFileType.incrementBucketValue(fileType, count);
+    }
 }
@@ -21,6 +21,7 @@ import com.intellij.psi.PsiElement;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.Set;
 
@@ -68,6 +69,19 @@ public abstract class ElementRatioFileTypeCalculator extends FileTypeCalculator
         increment(element, count, denominatorPerModule);
     }
 
+    protected void createRatio(@NotNull FileType fileType) {
+        numeratorPerModule.createBucket(fileType);
+        denominatorPerModule.createBucket(fileType);
+    }
+
+    protected void incrementNumerator(@NotNull FileType fileType, int count) {
+        numeratorPerModule.incrementBucketValue(fileType, count);
+    }
+
+    protected void incrementDenominator(@NotNull FileType fileType, int count) {
+        denominatorPerModule.incrementBucketValue(fileType, count);
+    }
+
     private static void increment(PsiElement element, int count, BucketedCount<FileType> result) {
         final FileType fileType = ClassUtils.calculateFileType(element);
         if (fileType == null) {
@@ -15,13 +15,13 @@
  */
 package com.sixrr.stockmetrics.fileTypeMetrics;
 
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricType;
 import com.sixrr.stockmetrics.i18n.StockMetricsBundle;
-import com.sixrr.stockmetrics.utils.LineUtil;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -60,18 +60,23 @@ public class LinesOfCodeFileTypeMetric extends FileTypeMetric {
         }
 
         @Override
-        protected PsiElementVisitor createVisitor() {
-            return new Visitor();
+        public boolean requiresPsi() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsParallelProcessing() {
+            return true;
         }
 
-        private class Visitor extends PsiElementVisitor {
+        @Override
+        protected PsiElementVisitor createVisitor() {
+            return null;
+        }
 
-            @Override
-            public void visitFile(PsiFile file) {
-                super.visitFile(file);
-                final int lines = LineUtil.countLines(file);
-                incrementCount(file, lines);
-            }
+        @Override
+        public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+            incrementCount(file.getFileType(), getLineFacts(file, text, fileData).countLines());
         }
     }
 }
@@ -16,13 +16,15 @@
 
 package com.sixrr.stockmetrics.fileTypeMetrics;
 
+import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.PlainTextFileType;
-import com.intellij.psi.*;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricType;
 import com.sixrr.stockmetrics.i18n.StockMetricsBundle;
-import com.sixrr.stockmetrics.utils.LineUtil;
 import org.jetbrains.annotations.NotNull;
 
 public class NonCommentLinesOfCodeFileTypeMetric extends FileTypeMetric {
@@ -58,29 +60,27 @@ public class NonCommentLinesOfCodeFileTypeMetric extends FileTypeMetric {
         }
 
         @Override
-        protected PsiElementVisitor createVisitor() {
-            return new PsiRecursiveElementWalkingVisitor() {
+        public boolean requiresPsi() {
+            return false;
+        }
 
-                @Override
-                public void visitFile(PsiFile file) {
-                    if (file.getFileType() == PlainTextFileType.INSTANCE) {
-                        return;
-                    }
-                    super.visitFile(file);
-                    final int lineCount = LineUtil.countLines(file);
-                    incrementCount(file, lineCount);
-                }
+        @Override
+        public boolean supportsParallelProcessing() {
+            return true;
+        }
 
-                @Override
-                public void visitElement(PsiElement element) {
-                    super.visitElement(element);
-                    if (element instanceof PsiComment) {
-                        final PsiComment comment = (PsiComment) element;
-                        final int lineCount = LineUtil.countCommentOnlyLines(comment);
-                        incrementCount(comment, -lineCount);
-                    }
-                }
-            };
+        @Override
+        protected PsiElementVisitor createVisitor() {
+            return null;
+        }
+
+        @Override
+        public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+            final FileType fileType = file.getFileType();
+            if (fileType == PlainTextFileType.INSTANCE) {
+                return;
+            }
+            incrementCount(fileType, getLineFacts(file, text, fileData).countCodeLines());
         }
     }
 }
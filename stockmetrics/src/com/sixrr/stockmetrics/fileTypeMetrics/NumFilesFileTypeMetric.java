@@ -15,8 +15,9 @@
  */
 package com.sixrr.stockmetrics.fileTypeMetrics;
 
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.MetricCalculator;
 import com.sixrr.metrics.MetricType;
@@ -59,17 +60,23 @@ public class NumFilesFileTypeMetric extends FileTypeMetric {
         }
 
         @Override
-        protected PsiElementVisitor createVisitor() {
-            return new Visitor();
+        public boolean requiresPsi() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsParallelProcessing() {
+            return true;
         }
 
-        private class Visitor extends PsiElementVisitor {
+        @Override
+        protected PsiElementVisitor createVisitor() {
+            return null;
+        }
 
-            @Override
-            public void visitFile(PsiFile file) {
-                super.visitFile(file);
-                incrementCount(file, 1);
-            }
+        @Override
+        public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+            incrementCount(file.getFileType(), 1);
         }
     }
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.halstead;
+
+import com.intellij.psi.PsiElement;
+import com.sixrr.metrics.utils.FileCache;
+
+import java.util.Map;
+
+/**
+ * Shares the Halstead counts between all Halstead calculators in a run. A file is walked once for all classes and
+ * methods in it.
+ */
+public class HalsteadCache {
+
+    private final FileCache<Map<PsiElement, HalsteadCounts>> cache = new FileCache<>(file -> {
+        final HalsteadVisitor visitor = new HalsteadVisitor();
+        file.accept(visitor);
+        return visitor.getCounts();
+    });
+
+    /**
+     * @param element  a class or method
+     */
+    public HalsteadCounts getCounts(PsiElement element) {
+        return cache.get(element).get(element);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.halstead;
+
+/**
+ * The operator and operand counts of a class or method, from which all Halstead metrics are derived.
+ */
+public class HalsteadCounts {
+
+    private final int numOperands;
+    private final int numOperators;
+    private final int numDistinctOperands;
+    private final int numDistinctOperators;
+
+    HalsteadCounts(int numOperands, int numOperators, int numDistinctOperands, int numDistinctOperators) {
+        this.numOperands = numOperands;
+        this.numOperators = numOperators;
+        this.numDistinctOperands = numDistinctOperands;
+        this.numDistinctOperators = numDistinctOperators;
+    }
+
+    public int getLength() {
+        return numOperands + numOperators;
+    }
+
+    public int getVocabulary() {
+        return numDistinctOperands + numDistinctOperators;
+    }
+
+    public double getDifficulty() {
+        final int N2 = numOperands;
+        final int n1 = numDistinctOperators;
+        final int n2 = numDistinctOperands;
+        return n2 == 0 ? 0.0 : ((double) n1 / 2.0) * ((double) N2 / (double) n2);
+    }
+
+    public double getVolume() {
+        final double vocabulary = (double) getVocabulary();
+        return (double) getLength() * Math.log(vocabulary) / Math.log(2.0);
+    }
+
+    public double getEffort() {
+        return getDifficulty() * getVolume();
+    }
+
+    public double getBugs() {
+        final double effort = getEffort();
+        return Math.pow(effort, 2.0 / 3.0) / 3000.0;
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -17,19 +17,60 @@
 package com.sixrr.stockmetrics.halstead;
 
 import com.intellij.psi.*;
-import com.sixrr.metrics.utils.MethodUtils;
 import com.sixrr.stockmetrics.utils.ExpressionUtils;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the operators and operands of every class and method in the visited tree in a single walk. The counts of a
+ * nested class or method are added to those of the enclosing class or method when it is finished, and distinct
+ * operators and operands are tracked as bits of ids interned for the walk. Operands are identified by their text,
+ * so e.g. {@code x} and {@code this.x} are different operands.
+ */
+class HalsteadVisitor extends JavaRecursiveElementVisitor {
 
-public class HalsteadVisitor extends JavaRecursiveElementVisitor {
-    private int numOperands = 0;
-    private int numOperators = 0;
-    private final Set<String> operators = new HashSet<>(32);
-    private final Set<String> operands = new HashSet<>(32);
+    private final Map<PsiElement, HalsteadCounts> counts = new HashMap<>();
+    private final Map<Object, Integer> operatorIds = new HashMap<>(64);
+    private final Map<String, Integer> operandIds = new HashMap<>(64);
+    private final Deque<Accumulator> accumulators = new ArrayDeque<>();
     private boolean inCompileTimeConstant = false;
 
+    Map<PsiElement, HalsteadCounts> getCounts() {
+        return counts;
+    }
+
+    @Override
+    public void visitClass(PsiClass aClass) {
+        accumulators.push(new Accumulator());
+        super.visitClass(aClass);
+        finish(aClass);
+    }
+
+    @Override
+    public void visitMethod(PsiMethod method) {
+        accumulators.push(new Accumulator());
+        super.visitMethod(method);
+        finish(method);
+    }
+
+    private void finish(PsiElement element) {
+        final Accumulator accumulator = accumulators.pop();
+        counts.put(element, new HalsteadCounts(accumulator.numOperands, accumulator.numOperators,
+                                               accumulator.operands.cardinality(),
+                                               accumulator.operators.cardinality()));
+        final Accumulator parent = accumulators.peek();
+        if (parent != null) {
+            parent.numOperands += accumulator.numOperands;
+            parent.numOperators += accumulator.numOperators;
+            parent.operands.or(accumulator.operands);
+            parent.operators.or(accumulator.operators);
+        }
+    }
+
     @Override
     public void visitReferenceExpression(PsiReferenceExpression expression) {
         super.visitReferenceExpression(expression);
@@ -41,43 +82,6 @@ public class HalsteadVisitor extends JavaRecursiveElementVisitor {
         }
     }
 
-    private int getNumDistinctOperands() {
-        return operands.size();
-    }
-
-    private int getNumDistinctOperators() {
-        return operators.size();
-    }
-
-    public int getLength() {
-        return numOperands + numOperators;
-    }
-
-    public int getVocabulary() {
-        return operands.size() + operators.size();
-    }
-
-    public double getDifficulty() {
-        final int N2 = numOperands;
-        final int n1 = getNumDistinctOperators();
-        final int n2 = getNumDistinctOperands();
-        return n2 == 0 ? 0.0 : ((double) n1 / 2.0) * ((double) N2 / (double) n2);
-    }
-
-    public double getVolume() {
-        final double vocabulary = (double) getVocabulary();
-        return (double) getLength() * Math.log(vocabulary) / Math.log(2.0);
-    }
-
-    public double getEffort() {
-        return getDifficulty() * getVolume();
-    }
-
-    public double getBugs() {
-        final double effort = getEffort();
-        return Math.pow(effort, 2.0 / 3.0) / 3000.0;
-    }
-
     @Override
     public void visitLiteralExpression(PsiLiteralExpression expression) {
         if (inCompileTimeConstant) {
@@ -152,23 +156,47 @@ public class HalsteadVisitor extends JavaRecursiveElementVisitor {
         super.visitMethodCallExpression(callExpression);
         final PsiMethod method = callExpression.resolveMethod();
         if (method != null) {
-            final String signature = MethodUtils.calculateSignature(method);
-            registerOperator(signature);
+            // the method itself stands in for its fully qualified signature
+            registerOperator(method);
         }
     }
 
     private void registerSign(PsiJavaToken sign) {
-        final String text = sign.getText();
-        registerOperator(text);
+        registerOperator(sign.getTokenType());
     }
 
-    private void registerOperator(String operator) {
-        numOperators++;
-        operators.add(operator);
+    private void registerOperator(Object operator) {
+        final Accumulator accumulator = accumulators.peek();
+        if (accumulator == null) {
+            return;
+        }
+        accumulator.numOperators++;
+        accumulator.operators.set(intern(operator, operatorIds));
     }
 
     private void registerOperand(String operand) {
-        numOperands++;
-        operands.add(operand);
+        final Accumulator accumulator = accumulators.peek();
+        if (accumulator == null) {
+            return;
+        }
+        accumulator.numOperands++;
+        accumulator.operands.set(intern(operand, operandIds));
+    }
+
+    private static <T> int intern(T key, Map<T, Integer> ids) {
+        final Integer id = ids.get(key);
+        if (id != null) {
+            return id.intValue();
+        }
+        final int newId = ids.size();
+        ids.put(key, Integer.valueOf(newId));
+        return newId;
+    }
+
+    private static class Accumulator {
+        int numOperands = 0;
+        int numOperators = 0;
+        final BitSet operands = new BitSet();
+        final BitSet operators = new BitSet();
     }
 }
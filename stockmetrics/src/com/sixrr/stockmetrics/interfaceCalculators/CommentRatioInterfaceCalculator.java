@@ -18,49 +18,34 @@ package com.sixrr.stockmetrics.interfaceCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.stockmetrics.utils.LineFacts;
 import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class CommentRatioInterfaceCalculator extends InterfaceCalculator {
 
-    private int commentLines = 0;
-
     public CommentRatioInterfaceCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            int prevCommentLines = 0;
-            if (!ClassUtils.isAnonymous(aClass)) {
-                prevCommentLines = commentLines;
-                commentLines = 0;
+            if (isInterface(aClass)) {
+                final LineFacts lineFacts = getLineFacts(aClass);
+                final int commentLines = LineUtil.countClassLines(aClass, lineFacts::countCommentLines);
+                postMetric(aClass, commentLines, LineUtil.countClassLines(aClass, lineFacts::countLines));
             }
-            super.visitClass(aClass);
-            if (!ClassUtils.isAnonymous(aClass)) {
-                if (isInterface(aClass)) {
-                    int linesOfCode = LineUtil.countLines(aClass);
-                    final PsiClass[] innerClasses = aClass.getInnerClasses();
-                    for (PsiClass innerClass : innerClasses) {
-                        linesOfCode -= LineUtil.countLines(innerClass);
-                    }
-                    postMetric(aClass, commentLines, linesOfCode);
-                }
-                commentLines = prevCommentLines;
-            }
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            commentLines += LineUtil.countLines(comment);
         }
     }
 }
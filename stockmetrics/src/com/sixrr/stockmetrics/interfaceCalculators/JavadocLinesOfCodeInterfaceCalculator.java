@@ -16,49 +16,35 @@
 
 package com.sixrr.stockmetrics.interfaceCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.javadoc.PsiDocComment;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class JavadocLinesOfCodeInterfaceCalculator extends InterfaceCalculator {
 
-    private int elementCount = 0;
-
     public JavadocLinesOfCodeInterfaceCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
-            int prevElementCount = 0;
-            if (!ClassUtils.isAnonymous(aClass)) {
-                prevElementCount = elementCount;
-                elementCount = 0;
+            if (isInterface(aClass)) {
+                postMetric(aClass, LineUtil.countClassLines(aClass, getLineFacts(aClass)::countJavadocLines));
             }
-            super.visitClass(aClass);
-            if (!ClassUtils.isAnonymous(aClass)) {
-                if (isInterface(aClass)) {
-                    postMetric(aClass, (double) elementCount);
-                }
-                elementCount = prevElementCount;
-            }
-        }
-
-        @Override
-        public void visitDocComment(PsiDocComment comment) {
-            elementCount += LineUtil.countLines(comment);
         }
     }
 }
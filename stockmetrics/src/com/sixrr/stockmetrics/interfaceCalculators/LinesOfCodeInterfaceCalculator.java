@@ -16,7 +16,7 @@
 
 package com.sixrr.stockmetrics.interfaceCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
@@ -28,23 +28,22 @@ public class LinesOfCodeInterfaceCalculator extends InterfaceCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isInterface(aClass)) {
-                int linesOfCode = LineUtil.countLines(aClass);
-                final PsiClass[] innerClasses = aClass.getInnerClasses();
-                for (PsiClass innerClass : innerClasses) {
-                    linesOfCode -= LineUtil.countLines(innerClass);
-                }
-                postMetric(aClass, linesOfCode);
+                postMetric(aClass, LineUtil.countClassLines(aClass, getLineFacts(aClass)::countLines));
             }
         }
     }
@@ -16,40 +16,46 @@
 
 package com.sixrr.stockmetrics.interfaceCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.util.Query;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
 
 public class NumImplementationsCalculator extends InterfaceCalculator {
 
+    private TypeHierarchy typeHierarchy = null;
+
     public NumImplementationsCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        typeHierarchy = getTypeHierarchy();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(final PsiClass aClass) {
-            super.visitClass(aClass);
             if (!isInterface(aClass)) {
                 return;
             }
-            final Query<PsiClass> query = ClassInheritorsSearch.search(aClass);
-            int numImplementations = 0;
-            for (final PsiClass inheritor : query) {
-                if (!inheritor.isInterface()) {
-                    numImplementations++;
-                }
-            }
-            postMetric(aClass, numImplementations);
+            postMetric(aClass, typeHierarchy.countClassInheritors(aClass));
         }
     }
 }
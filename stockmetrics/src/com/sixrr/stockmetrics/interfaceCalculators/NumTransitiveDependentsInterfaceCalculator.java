@@ -16,14 +16,12 @@
 
 package com.sixrr.stockmetrics.interfaceCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.stockmetrics.dependency.DependentsMap;
 
-import java.util.Set;
-
 public class NumTransitiveDependentsInterfaceCalculator extends InterfaceCalculator {
 
     public NumTransitiveDependentsInterfaceCalculator(Metric metric) {
@@ -35,15 +33,13 @@ public class NumTransitiveDependentsInterfaceCalculator extends InterfaceCalcula
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (isInterface(aClass)) {
                 final DependentsMap dependentsMap = getDependentsMap();
-                final Set<PsiClass> dependents = dependentsMap.calculateTransitiveDependents(aClass);
-                final int numDependents = dependents.size() - 1;
+                final int numDependents = dependentsMap.calculateTransitiveDependentCount(aClass) - 1;
                 postMetric(aClass, numDependents);
             }
         }
@@ -16,54 +16,35 @@
 
 package com.sixrr.stockmetrics.interfaceCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeInterfaceCalculator extends InterfaceCalculator {
 
-    private int elementCount = 0;
-
     public SourceLinesOfCodeInterfaceCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            int prevElementCount = 0;
-            if (!ClassUtils.isAnonymous(aClass)) {
-                prevElementCount = elementCount;
-                elementCount = 0;
-            }
-            elementCount += LineUtil.countLines(aClass);
-            final PsiClass[] innerClasses = aClass.getInnerClasses();
-            for (PsiClass innerClass : innerClasses) {
-                elementCount -= LineUtil.countLines(innerClass);
+            if (isInterface(aClass)) {
+                postMetric(aClass, LineUtil.countClassLines(aClass, getLineFacts(aClass)::countCodeLines));
             }
-            super.visitClass(aClass);
-            if (!ClassUtils.isAnonymous(aClass)) {
-                if (isInterface(aClass)) {
-                    postMetric(aClass, (double) elementCount);
-                }
-                elementCount = prevElementCount;
-            }
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            elementCount -= LineUtil.countCommentOnlyLines(comment);
         }
     }
 }
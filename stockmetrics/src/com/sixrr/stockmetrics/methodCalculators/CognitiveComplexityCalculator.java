@@ -16,12 +16,11 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CognitiveComplexity;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -33,20 +32,29 @@ public class CognitiveComplexityCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(@NotNull PsiMethod method) {
-            super.visitMethod(method);
             if (MethodUtils.isAbstract(method)) {
                 return;
             }
-            final int complexity = CognitiveComplexity.calculate(method.getBody());
+            final int complexity = getMethodComplexity(method).getCognitiveComplexity();
             postMetric(method, complexity);
         }
     }
@@ -16,7 +16,7 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
@@ -28,16 +28,28 @@ public class CommentLinesOfCodeMethodCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            postMetric(method, LineUtil.calculateCommentLinesOfCode(method));
+            if (isOutermostMethod(method)) {
+                postMetric(method, LineUtil.calculateCommentLinesOfCode(method));
+            }
         }
     }
 }
@@ -16,54 +16,47 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiComment;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 public class CommentRatioMethodCalculator extends MethodCalculator {
 
-    private int methodNestingDepth = 0;
-    private int numerator = 0;
-    private int denominator = 0;
-
     public CommentRatioMethodCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (methodNestingDepth == 0) {
-                numerator = 0;
-                denominator = 0;
+            if (!isOutermostMethod(method)) {
+                return;
             }
-            denominator = LineUtil.countLines(method);
-
-            methodNestingDepth++;
-            super.visitMethod(method);
-            methodNestingDepth--;
-            if (methodNestingDepth == 0) {
-                if (denominator == 0) {
-                    postMetric(method, 0);
-                } else {
-                    postMetric(method, numerator, denominator);
-                }
+            final LineFacts lineFacts = getLineFacts(method);
+            final int lines = lineFacts.countLines(method);
+            if (lines == 0) {
+                postMetric(method, 0);
+            } else {
+                postMetric(method, lineFacts.countCommentLines(method), lines);
             }
         }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            numerator += LineUtil.countLines(comment);
-        }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -16,13 +16,12 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiElement;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexity;
+import com.sixrr.stockmetrics.utils.MethodComplexity;
 
 public abstract class ComplexityCalculator extends MethodCalculator {
 
@@ -30,22 +29,32 @@ public abstract class ComplexityCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (MethodUtils.isAbstract(method)) {
+            if (MethodUtils.isAbstract(method) || !isOutermostMethod(method)) {
                 return;
             }
-            final int complexity = CyclomaticComplexity.calculate(method, element -> !isReducible(element));
+            final int complexity = getComplexity(getMethodComplexity(method));
             postMetric(method, complexity);
         }
     }
 
-    protected abstract boolean isReducible(PsiElement element);
+    protected abstract int getComplexity(MethodComplexity complexity);
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -16,69 +16,42 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.*;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class ConditionalNestingDepthCalculator extends MethodCalculator {
 
-    private int methodNestingCount = 0;
-    private int maximumDepth = 0;
-    private int currentDepth = 0;
-
     public ConditionalNestingDepthCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
-        @Override
-        public void visitMethod(PsiMethod method) {
-            if (methodNestingCount == 0) {
-                maximumDepth = 0;
-                currentDepth = 0;
-            }
-            methodNestingCount++;
-            super.visitMethod(method);
-            methodNestingCount--;
-            if (methodNestingCount == 0) {
-                if (!MethodUtils.isAbstract(method)) {
-                    postMetric(method, maximumDepth);
-                }
-            }
-        }
+    private class Visitor extends JavaElementVisitor {
 
         @Override
-        public void visitIfStatement(PsiIfStatement statement) {
-            boolean isAlreadyCounted = false;
-            if (statement.getParent()instanceof PsiIfStatement) {
-                final PsiIfStatement parent = (PsiIfStatement) statement.getParent();
-                final PsiStatement elseBranch = parent.getElseBranch();
-                if (statement.equals(elseBranch)) {
-                    isAlreadyCounted = true;
-                }
-            }
-            if (!isAlreadyCounted) {
-                enterScope();
-            }
-            super.visitIfStatement(statement);
-
-            if (!isAlreadyCounted) {
-                exitScope();
+        public void visitMethod(PsiMethod method) {
+            if (MethodUtils.isAbstract(method) || PsiTreeUtil.getParentOfType(method, PsiMethod.class) != null) {
+                return;
             }
-        }
-
-        private void enterScope() {
-            currentDepth++;
-            maximumDepth = Math.max(maximumDepth, currentDepth);
-        }
-
-        private void exitScope() {
-            currentDepth--;
+            postMetric(method, getMethodComplexity(method).getConditionalNestingDepth());
         }
     }
 }
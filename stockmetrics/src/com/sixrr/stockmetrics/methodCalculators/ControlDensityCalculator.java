@@ -30,6 +30,11 @@ public class ControlDensityCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
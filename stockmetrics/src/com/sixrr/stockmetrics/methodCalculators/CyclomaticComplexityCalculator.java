@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -16,8 +16,8 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.PsiElement;
 import com.sixrr.metrics.Metric;
+import com.sixrr.stockmetrics.utils.MethodComplexity;
 
 public class CyclomaticComplexityCalculator extends ComplexityCalculator {
 
@@ -26,7 +26,7 @@ public class CyclomaticComplexityCalculator extends ComplexityCalculator {
     }
 
     @Override
-    public boolean isReducible(PsiElement element) {
-        return false;
+    protected int getComplexity(MethodComplexity complexity) {
+        return complexity.getCyclomaticComplexity();
     }
 }
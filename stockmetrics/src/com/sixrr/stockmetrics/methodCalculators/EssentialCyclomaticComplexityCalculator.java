@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -16,8 +16,8 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
+import com.sixrr.stockmetrics.utils.MethodComplexity;
 
 public class EssentialCyclomaticComplexityCalculator extends ComplexityCalculator {
 
@@ -26,73 +26,7 @@ public class EssentialCyclomaticComplexityCalculator extends ComplexityCalculato
     }
 
     @Override
-    public boolean isReducible(PsiElement element) {
-        if (element == null) {
-            return true;
-        }
-        if (element instanceof PsiReturnStatement || element instanceof PsiThrowStatement ||
-                element instanceof PsiContinueStatement) {
-            return false;
-        } else if (element instanceof PsiBreakStatement) {
-            final PsiBreakStatement breakStatement = (PsiBreakStatement) element;
-            return isBreakStatementReducible(breakStatement);
-        } else if (element instanceof PsiIfStatement) {
-            final PsiIfStatement ifStatement = (PsiIfStatement) element;
-            return isReducible(ifStatement.getThenBranch()) && isReducible(ifStatement.getElseBranch());
-        } else if (element instanceof PsiLoopStatement) {
-            final PsiLoopStatement whileStatement = (PsiLoopStatement) element;
-            return isReducible(whileStatement.getBody());
-        } else if (element instanceof PsiSynchronizedStatement) {
-            final PsiSynchronizedStatement synchronizedStatement = (PsiSynchronizedStatement) element;
-            return isReducible(synchronizedStatement.getBody());
-        } else if (element instanceof PsiTryStatement) {
-            final PsiTryStatement tryStatement = (PsiTryStatement) element;
-            return tryStatementIsReducible(tryStatement);
-        } else if (element instanceof PsiSwitchStatement) {
-            final PsiSwitchStatement switchStatement = (PsiSwitchStatement) element;
-            return isReducible(switchStatement.getBody());
-        } else if (element instanceof PsiBlockStatement) {
-            final PsiBlockStatement blockStatement = (PsiBlockStatement) element;
-            return isReducible(blockStatement.getCodeBlock());
-        } else if (element instanceof PsiCodeBlock) {
-            return codeBlockIsReducible((PsiCodeBlock) element);
-        }
-        return true;
-    }
-
-    private static boolean isBreakStatementReducible(PsiBreakStatement breakStatement) {
-        if (breakStatement.getLabelIdentifier() != null) {
-            return false;
-        }
-        return breakStatement.findExitedStatement() instanceof PsiSwitchStatement;
-    }
-
-    private boolean tryStatementIsReducible(PsiTryStatement statement) {
-        final PsiCodeBlock tryBlock = statement.getTryBlock();
-        if (!isReducible(tryBlock)) {
-            return false;
-        }
-        final PsiCodeBlock[] catchBlocks = statement.getCatchBlocks();
-        for (final PsiCodeBlock catchBlock : catchBlocks) {
-            if (!isReducible(catchBlock)) {
-                return false;
-            }
-        }
-        final PsiCodeBlock finallyBlock = statement.getFinallyBlock();
-        return isReducible(finallyBlock);
-    }
-
-    private boolean codeBlockIsReducible(PsiCodeBlock codeBlock) {
-        if (codeBlock == null) {
-            return true;
-        }
-        final PsiStatement[] statements = codeBlock.getStatements();
-
-        for (PsiStatement statement : statements) {
-            if (!isReducible(statement)) {
-                return false;
-            }
-        }
-        return true;
+    protected int getComplexity(MethodComplexity complexity) {
+        return complexity.getEssentialComplexity();
     }
 }
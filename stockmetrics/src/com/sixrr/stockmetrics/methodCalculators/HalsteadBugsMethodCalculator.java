@@ -17,7 +17,7 @@
 package com.sixrr.stockmetrics.methodCalculators;
 
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 
 public class HalsteadBugsMethodCalculator extends HalsteadMethodCalculator {
 
@@ -26,7 +26,7 @@ public class HalsteadBugsMethodCalculator extends HalsteadMethodCalculator {
     }
 
     @Override
-    protected double getValue(HalsteadVisitor visitor) {
-        return visitor.getBugs();
+    protected double getValue(HalsteadCounts counts) {
+        return counts.getBugs();
     }
 }
@@ -17,7 +17,7 @@
 package com.sixrr.stockmetrics.methodCalculators;
 
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 
 public class HalsteadDifficultyMethodCalculator extends HalsteadMethodCalculator {
 
@@ -26,7 +26,7 @@ public class HalsteadDifficultyMethodCalculator extends HalsteadMethodCalculator
     }
 
     @Override
-    protected double getValue(HalsteadVisitor visitor) {
-        return visitor.getDifficulty();
+    protected double getValue(HalsteadCounts counts) {
+        return counts.getDifficulty();
     }
 }
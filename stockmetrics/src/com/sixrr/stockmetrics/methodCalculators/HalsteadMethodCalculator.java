@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -16,41 +16,51 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.halstead.HalsteadCache;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public abstract class HalsteadMethodCalculator extends MethodCalculator {
 
-    private int methodNestingDepth = 0;
+    private HalsteadCache halsteadCache = null;
 
     public HalsteadMethodCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        halsteadCache = getHalsteadCache();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (methodNestingDepth == 0 && !MethodUtils.isAbstract(method)) {
-                final HalsteadVisitor visitor = new HalsteadVisitor();
-                method.accept(visitor);
-                final double value = getValue(visitor);
+            if (!MethodUtils.isAbstract(method) && PsiTreeUtil.getParentOfType(method, PsiMethod.class) == null) {
+                final double value = getValue(halsteadCache.getCounts(method));
                 postMetric(method, value);
             }
-            methodNestingDepth++;
-            super.visitMethod(method);
-            methodNestingDepth--;
         }
     }
 
-    protected abstract double getValue(HalsteadVisitor visitor);
+    protected abstract double getValue(HalsteadCounts counts);
 }
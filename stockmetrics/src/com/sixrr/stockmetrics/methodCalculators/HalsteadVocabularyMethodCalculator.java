@@ -17,7 +17,7 @@
 package com.sixrr.stockmetrics.methodCalculators;
 
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.stockmetrics.halstead.HalsteadCounts;
 
 public class HalsteadVocabularyMethodCalculator extends HalsteadMethodCalculator {
 
@@ -26,7 +26,7 @@ public class HalsteadVocabularyMethodCalculator extends HalsteadMethodCalculator
     }
 
     @Override
-    protected double getValue(HalsteadVisitor visitor) {
-        return (double) visitor.getVocabulary();
+    protected double getValue(HalsteadCounts counts) {
+        return (double) counts.getVocabulary();
     }
 }
@@ -16,47 +16,40 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.javadoc.PsiDocComment;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class JavadocLinesOfCodeMethodCalculator extends MethodCalculator {
 
-    private int methodNestingDepth = 0;
-    protected int elementCount = 0;
-
     public JavadocLinesOfCodeMethodCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (methodNestingDepth == 0) {
-                elementCount = 0;
-            }
-            methodNestingDepth++;
-            super.visitMethod(method);
-            methodNestingDepth--;
-            if (methodNestingDepth == 0 && !MethodUtils.isAbstract(method)) {
-                postMetric(method, elementCount);
+            if (isOutermostMethod(method) && !MethodUtils.isAbstract(method)) {
+                postMetric(method, getLineFacts(method).countJavadocLines(method));
             }
         }
-
-        @Override
-        public void visitDocComment(PsiDocComment comment) {
-            super.visitDocComment(comment);
-            elementCount += LineUtil.countLines(comment);
-        }
     }
 }
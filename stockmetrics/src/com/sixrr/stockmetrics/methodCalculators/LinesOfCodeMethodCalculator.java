@@ -16,11 +16,10 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class LinesOfCodeMethodCalculator extends MethodCalculator {
@@ -29,19 +28,28 @@ public class LinesOfCodeMethodCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (MethodUtils.isAbstract(method)) {
-                return;
+            if (isOutermostMethod(method) && !MethodUtils.isAbstract(method)) {
+                postMetric(method, getLineFacts(method).countLines(method));
             }
-            postMetric(method, LineUtil.countLines(method));
         }
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -16,78 +16,42 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.*;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class LoopNestingDepthCalculator extends MethodCalculator {
 
-    private int methodNestingCount = 0;
-    private int maximumDepth = 0;
-    private int currentDepth = 0;
-
     public LoopNestingDepthCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (methodNestingCount == 0) {
-                maximumDepth = 0;
-                currentDepth = 0;
-            }
-            methodNestingCount++;
-            super.visitMethod(method);
-            methodNestingCount--;
-            if (methodNestingCount == 0) {
-                if (!MethodUtils.isAbstract(method)) {
-                    postMetric(method, maximumDepth);
-                }
+            if (MethodUtils.isAbstract(method) || PsiTreeUtil.getParentOfType(method, PsiMethod.class) != null) {
+                return;
             }
-        }
-
-        @Override
-        public void visitDoWhileStatement(PsiDoWhileStatement statement) {
-            enterScope();
-            super.visitDoWhileStatement(statement);
-            exitScope();
-        }
-
-        @Override
-        public void visitWhileStatement(PsiWhileStatement statement) {
-            enterScope();
-            super.visitWhileStatement(statement);
-            exitScope();
-        }
-
-        @Override
-        public void visitForStatement(PsiForStatement statement) {
-            enterScope();
-            super.visitForStatement(statement);
-            exitScope();
-        }
-
-        @Override
-        public void visitForeachStatement(PsiForeachStatement statement) {
-            enterScope();
-            super.visitForeachStatement(statement);
-            exitScope();
-        }
-
-        private void enterScope() {
-            currentDepth++;
-            maximumDepth = Math.max(maximumDepth, currentDepth);
-        }
-
-        private void exitScope() {
-            currentDepth--;
+            postMetric(method, getMethodComplexity(method).getLoopNestingDepth());
         }
     }
 }
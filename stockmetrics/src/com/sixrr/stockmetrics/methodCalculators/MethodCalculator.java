@@ -17,6 +17,7 @@
 package com.sixrr.stockmetrics.methodCalculators;
 
 import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.stockmetrics.execution.BaseMetricsCalculator;
 
@@ -26,6 +27,14 @@ public abstract class MethodCalculator extends BaseMetricsCalculator {
         super(metric);
     }
 
+    /**
+     * @return true, if the method is not declared in a class inside another method. The lines of such methods are
+     * counted as part of the method containing them.
+     */
+    static boolean isOutermostMethod(PsiMethod method) {
+        return PsiTreeUtil.getParentOfType(method, PsiMethod.class) == null;
+    }
+
     void postMetric(PsiMethod method, int numerator, int denominator) {
         resultsHolder.postMethodMetric(metric, method, (double) numerator, (double) denominator);
     }
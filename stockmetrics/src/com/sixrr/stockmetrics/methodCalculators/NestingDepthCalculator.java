@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -16,70 +16,42 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.*;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiMethod;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class NestingDepthCalculator extends MethodCalculator {
 
-    private int methodNestingCount = 0;
-    private int maximumDepth = 0;
-    private int currentDepth = 0;
-
     public NestingDepthCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            methodNestingCount++;
-            super.visitMethod(method);
-            methodNestingCount--;
-            if (methodNestingCount == 0) {
-                if (!MethodUtils.isAbstract(method)) {
-                    postMetric(method, maximumDepth - 1);
-                }
-                maximumDepth = 0;
-                currentDepth = 0;
-            }
-        }
-
-        @Override
-        public void visitCodeBlock(PsiCodeBlock block) {
-            if (methodNestingCount != 0) {
-                enterScope();
+            if (MethodUtils.isAbstract(method) || PsiTreeUtil.getParentOfType(method, PsiMethod.class) != null) {
+                return;
             }
-            super.visitCodeBlock(block);
-            if (methodNestingCount != 0) {
-                exitScope();
-            }
-        }
-
-        @Override
-        public void visitClass(PsiClass aClass) {
-            if (methodNestingCount != 0) {
-                enterScope();
-            }
-            super.visitClass(aClass);
-            if (methodNestingCount != 0) {
-                exitScope();
-            }
-        }
-
-        private void enterScope() {
-            currentDepth++;
-            maximumDepth = Math.max(maximumDepth, currentDepth);
-        }
-
-        private void exitScope() {
-            currentDepth--;
+            postMetric(method, getMethodComplexity(method).getNestingDepth());
         }
     }
 }
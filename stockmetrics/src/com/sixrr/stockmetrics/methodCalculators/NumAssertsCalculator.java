@@ -32,6 +32,11 @@ public class NumAssertsCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -29,6 +29,11 @@ public class NumBranchStatementsCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -29,6 +29,11 @@ public class NumControlStatementsCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -27,6 +27,11 @@ public class NumExceptionsThrownCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
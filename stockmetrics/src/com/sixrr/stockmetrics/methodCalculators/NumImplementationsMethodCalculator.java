@@ -16,43 +16,47 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.search.searches.OverridingMethodsSearch;
-import com.intellij.util.Query;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.stockmetrics.utils.OverrideMap;
 
 public class NumImplementationsMethodCalculator extends MethodCalculator {
 
+    private OverrideMap overrideMap = null;
+
     public NumImplementationsMethodCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        overrideMap = getOverrideMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(final PsiMethod method) {
-            super.visitMethod(method);
             if (!MethodUtils.isAbstract(method)) {
                 return;
             }
-
-            int numImplementations = 0;
-            final Query<PsiMethod> query = OverridingMethodsSearch.search(method);
-            for (final PsiMethod overridingMethod : query) {
-                if (!MethodUtils.isAbstract(overridingMethod)) {
-                    numImplementations++;
-                }
-            }
-
-            postMetric(method, numImplementations);
+            postMetric(method, overrideMap.countImplementingMethods(method));
         }
     }
 }
@@ -17,19 +17,27 @@
 package com.sixrr.stockmetrics.methodCalculators;
 
 import com.intellij.psi.*;
-import com.intellij.psi.search.searches.OverridingMethodsSearch;
-import com.intellij.util.Query;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.stockmetrics.utils.OverrideMap;
 
 public class NumOverridesMethodCalculator extends MethodCalculator {
 
     private int methodNestingDepth = 0;
+    private OverrideMap overrideMap = null;
 
     public NumOverridesMethodCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        overrideMap = getOverrideMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -62,8 +70,7 @@ public class NumOverridesMethodCalculator extends MethodCalculator {
                     containingClass.hasModifierProperty(PsiModifier.FINAL)) {
                 return -1;
             }
-            final Query<PsiMethod> query = OverridingMethodsSearch.search(method);
-            return query.findAll().size();
+            return overrideMap.countOverridingMethods(method);
         }
     }
 }
@@ -16,25 +16,29 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.openapi.util.Key;
 import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.PsiReference;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.stockmetrics.utils.MethodCallMap;
-import com.sixrr.stockmetrics.utils.MethodCallMapImpl;
-
-import java.util.Set;
 
 public class NumTimesCalledProductCalculator extends MethodCalculator {
 
     private int methodNestingDepth = 0;
+    private MethodCallMap methodCallMap = null;
 
     public NumTimesCalledProductCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        methodCallMap = getMethodCallMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -45,16 +49,7 @@ public class NumTimesCalledProductCalculator extends MethodCalculator {
         @Override
         public void visitMethod(PsiMethod method) {
             if (methodNestingDepth == 0) {
-                final Key<MethodCallMap> key = new Key<>("MethodCallMap");
-
-                MethodCallMap methodCallMap = executionContext.getUserData(key);
-                if (methodCallMap == null) {
-                    methodCallMap = new MethodCallMapImpl();
-                    executionContext.putUserData(key, methodCallMap);
-                }
-                final Set<PsiReference> methodCalls = methodCallMap.calculateProductMethodCallPoints(method);
-                final int calls = methodCalls.size();
-                postMetric(method, calls);
+                postMetric(method, methodCallMap.countProductMethodCalls(method));
             }
             methodNestingDepth++;
             super.visitMethod(method);
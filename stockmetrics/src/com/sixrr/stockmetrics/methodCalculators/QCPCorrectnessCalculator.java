@@ -18,11 +18,14 @@ package com.sixrr.stockmetrics.methodCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.halstead.HalsteadCache;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class QCPCorrectnessCalculator extends MethodCalculator {
 
+    private HalsteadCache halsteadCache = null;
     private int methodNestingDepth = 0;
     private int complexity = 0;
     private int numControlStatements = 0;
@@ -32,6 +35,12 @@ public class QCPCorrectnessCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        halsteadCache = getHalsteadCache();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -50,9 +59,7 @@ public class QCPCorrectnessCalculator extends MethodCalculator {
             super.visitMethod(method);
             methodNestingDepth--;
             if (methodNestingDepth == 0 && !MethodUtils.isAbstract(method)) {
-                final HalsteadVisitor visitor = new HalsteadVisitor();
-                method.accept(visitor);
-                final double D = visitor.getDifficulty();
+                final double D = halsteadCache.getCounts(method).getDifficulty();
                 final double value = D + (double) numControlStatements + (double) numExecutableStatements +
                         (double) (2 * complexity);
                 postMetric(method, value);
@@ -18,11 +18,14 @@ package com.sixrr.stockmetrics.methodCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.halstead.HalsteadVisitor;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.halstead.HalsteadCache;
 import com.sixrr.metrics.utils.MethodUtils;
 
 public class QCPReliabilityCalculator extends MethodCalculator {
 
+    private HalsteadCache halsteadCache = null;
     private int methodNestingDepth = 0;
     private int complexity = 0;
     private int numControlStatements = 0;
@@ -35,6 +38,12 @@ public class QCPReliabilityCalculator extends MethodCalculator {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        halsteadCache = getHalsteadCache();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -55,9 +64,7 @@ public class QCPReliabilityCalculator extends MethodCalculator {
             super.visitMethod(method);
             methodNestingDepth--;
             if (methodNestingDepth == 0 && !MethodUtils.isAbstract(method)) {
-                final HalsteadVisitor visitor = new HalsteadVisitor();
-                method.accept(visitor);
-                final int N = visitor.getLength();
+                final int N = halsteadCache.getCounts(method).getLength();
                 final double value = (double) (N + (2 * maxNestingDepth) + (3 * complexity) + numBranchStatements +
                         numControlStatements + numExecutableStatements);
                 postMetric(method, value);
@@ -16,41 +16,46 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 public class RelativeLinesOfCodeCalculator extends MethodCalculator {
 
-    private int methodNestingDepth = 0;
-
     public RelativeLinesOfCodeCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (methodNestingDepth == 0) {
-                final int numMethodLines = LineUtil.countLines(method);
-                final PsiClass containingClass = method.getContainingClass();
-                if (containingClass != null) {
-                    final int numClassLines = LineUtil.countLines(containingClass);
-                    postMetric(method, numMethodLines, numClassLines);
-                }
+            if (!isOutermostMethod(method)) {
+                return;
+            }
+            final PsiClass containingClass = method.getContainingClass();
+            if (containingClass != null) {
+                final LineFacts lineFacts = getLineFacts(method);
+                postMetric(method, lineFacts.countLines(method), lineFacts.countLines(containingClass));
             }
-            methodNestingDepth++;
-            super.visitMethod(method);
-            methodNestingDepth--;
         }
     }
 }
@@ -16,47 +16,41 @@
 
 package com.sixrr.stockmetrics.methodCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
-import com.intellij.psi.PsiComment;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 public class TrueCommentRatioMethodCalculator extends MethodCalculator {
 
-    private int methodNestingDepth = 0;
-    private int commentLines = 0;
-
     public TrueCommentRatioMethodCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalProcessing() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            if (methodNestingDepth == 0) {
-                commentLines = 0;
-            }
-            methodNestingDepth++;
-            super.visitMethod(method);
-            methodNestingDepth--;
-            if (methodNestingDepth == 0) {
-                final int lines = LineUtil.countLines(method);
-                postMetric(method, commentLines, lines - commentLines);
+            if (isOutermostMethod(method)) {
+                final LineFacts lineFacts = getLineFacts(method);
+                postMetric(method, lineFacts.countCommentOnlyLines(method), lineFacts.countCodeLines(method));
             }
         }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            commentLines += LineUtil.countCommentOnlyLines(comment);
-        }
     }
 }
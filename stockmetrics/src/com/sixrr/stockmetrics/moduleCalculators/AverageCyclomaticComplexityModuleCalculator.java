@@ -24,7 +24,6 @@ import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexity;
 
 import java.util.Set;
 
@@ -64,7 +63,7 @@ public class AverageCyclomaticComplexityModuleCalculator extends ModuleCalculato
             if (module == null) {
                 return;
             }
-            final int complexity = CyclomaticComplexity.calculate(method);
+            final int complexity = getMethodComplexity(method).getCyclomaticComplexity();
             totalComplexityPerModule.incrementBucketValue(module, complexity);
             numMethodsPerModule.incrementBucketValue(module);
         }
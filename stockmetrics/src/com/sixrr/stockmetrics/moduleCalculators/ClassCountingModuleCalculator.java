@@ -25,6 +25,11 @@ public abstract class ClassCountingModuleCalculator extends ElementCountModuleCa
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     protected abstract boolean satisfies(PsiClass aClass);
 
     @Override
@@ -32,11 +37,10 @@ public abstract class ClassCountingModuleCalculator extends ElementCountModuleCa
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (aClass instanceof PsiTypeParameter || aClass instanceof PsiEnumConstantInitializer) {
                 return;
             }
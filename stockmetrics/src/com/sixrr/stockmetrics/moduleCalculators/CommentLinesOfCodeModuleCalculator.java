@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class CommentLinesOfCodeModuleCalculator extends ElementCountModuleCalculator {
 
@@ -26,26 +25,22 @@ public class CommentLinesOfCodeModuleCalculator extends ElementCountModuleCalcul
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             createCount(file);
-        }
-
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final int lineCount = LineUtil.countLines(element);
-                incrementCount(element, lineCount);
-            }
+            incrementCount(file, getLineFacts(file).countCommentLines(file));
         }
     }
 }
@@ -17,7 +17,7 @@ package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 public class CommentRatioModuleCalculator extends ElementRatioModuleCalculator {
 
@@ -30,23 +30,14 @@ public class CommentRatioModuleCalculator extends ElementRatioModuleCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             createRatio(file);
-            final int lineCount = LineUtil.countLines(file);
-            incrementDenominator(file, lineCount);
-        }
-
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final int lineCount = LineUtil.countLines(element);
-                incrementNumerator(element, lineCount);
-            }
+            final LineFacts lineFacts = getLineFacts(file);
+            incrementDenominator(file, lineFacts.countLines(file));
+            incrementNumerator(file, lineFacts.countCommentLines(file));
         }
     }
 }
@@ -17,26 +17,44 @@
 package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiUtilCore;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.metrics.utils.FileBucketedCount;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.Set;
 
 public abstract class ElementCountModuleCalculator extends ModuleCalculator {
 
-    private final BucketedCount<Module> elementCountPerModule = new BucketedCount<>();
+    private final FileBucketedCount<Module> elementCountPerModule = new FileBucketedCount<>();
 
     public ElementCountModuleCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public Object getFileShares() {
+        return elementCountPerModule;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void restoreFileShares(@NotNull Object fileShares, @NotNull Set<VirtualFile> changedFiles) {
+        elementCountPerModule.copyShares((FileBucketedCount<Module>) fileShares, changedFiles);
+    }
+
     @Override
     public final void endMetricsRun() {
-        final Set<Module> modules = elementCountPerModule.getBuckets();
+        final BucketedCount<Module> counts = new BucketedCount<>();
+        elementCountPerModule.addTo(counts);
+        final Set<Module> modules = counts.getBuckets();
         for (final Module module : modules) {
-            final int count = elementCountPerModule.getBucketValue(module);
+            final int count = counts.getBucketValue(module);
             postMetric(module, count);
         }
     }
@@ -46,7 +64,7 @@ public abstract class ElementCountModuleCalculator extends ModuleCalculator {
         if (module == null) {
             return;
         }
-        elementCountPerModule.createBucket(module);
+        elementCountPerModule.createBucket(PsiUtilCore.getVirtualFile(element), module);
     }
 
     protected void incrementCount(PsiElement element, int count) {
@@ -54,6 +72,26 @@ public abstract class ElementCountModuleCalculator extends ModuleCalculator {
         if (module == null) {
             return;
         }
-        elementCountPerModule.incrementBucketValue(module, count);
+        elementCountPerModule.incrementBucketValue(PsiUtilCore.getVirtualFile(element), module, count);
+    }
+
+    protected void createCount(VirtualFile file) {
+        final Module module = findModule(file);
+        if (module == null) {
+            return;
+        }
+        elementCountPerModule.createBucket(file, module);
+    }
+
+    protected void incrementCount(VirtualFile file, int count) {
+        final Module module = findModule(file);
+        if (module == null) {
+            return;
+        }
+        elementCountPerModule.incrementBucketValue(file, module, count);
+    }
+
+    private Module findModule(VirtualFile file) {
+        return ProjectRootManager.getInstance(executionContext.getProject()).getFileIndex().getModuleForFile(file);
     }
 }
@@ -16,12 +16,9 @@
 
 package com.sixrr.stockmetrics.moduleCalculators;
 
-import com.intellij.openapi.util.Key;
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.ClassReferenceCache;
 
 public class EncapsulationRatioModuleCalculator extends ElementRatioModuleCalculator {
 
@@ -39,7 +36,7 @@ public class EncapsulationRatioModuleCalculator extends ElementRatioModuleCalcul
         @Override
         public void visitClass(PsiClass aClass) {
             super.visitClass(aClass);
-            if (!TestUtils.isTest(aClass) && !ClassUtils.isAnonymous(aClass)) {
+            if (!getTestClassifier().isTest(aClass) && !ClassUtils.isAnonymous(aClass)) {
                 incrementDenominator(aClass, 1);
                 if (isInternal(aClass)) {
                     incrementNumerator(aClass, 1);
@@ -49,17 +46,10 @@ public class EncapsulationRatioModuleCalculator extends ElementRatioModuleCalcul
 
         private boolean isInternal(PsiClass aClass) {
             final String moduleName = ClassUtils.calculateModuleName(aClass);
-            final Key<ClassReferenceCache> key = new Key<>("ClassReferenceCache");
-
-            ClassReferenceCache classReferenceCache = executionContext.getUserData(key);
-            if (classReferenceCache == null) {
-                classReferenceCache = new ClassReferenceCache();
-                executionContext.putUserData(key, classReferenceCache);
-            }
-            for (final PsiReference reference : classReferenceCache.findClassReferences(aClass)) {
+            for (final PsiReference reference : getClassReferenceCache().findClassReferences(aClass)) {
                 final PsiElement element = reference.getElement();
                 final PsiFile containingFile = element.getContainingFile();
-                if (containingFile == null || TestUtils.isTest(containingFile)) {
+                if (containingFile == null || getTestClassifier().isTest(containingFile)) {
                     continue;
                 }
                 final String referencingModuleName = ClassUtils.calculateModuleName(containingFile);
@@ -17,8 +17,9 @@
 package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
 import com.sixrr.metrics.Metric;
 import org.jetbrains.annotations.NotNull;
 
@@ -37,16 +38,27 @@ public class FileCountModuleCalculator extends ElementCountModuleCalculator {
     }
 
     @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
+    @Override
+    public boolean requiresPsi() {
+        return false;
     }
 
-    private class Visitor extends PsiElementVisitor {
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
 
-        @Override
-        public void visitFile(@NotNull PsiFile file) {
-            super.visitFile(file);
-            incrementCount(file, fileType == null || file.getFileType() == fileType ? 1 : 0);
-        }
+    @Override
+    protected PsiElementVisitor createVisitor() {
+        return null;
+    }
+
+    @Override
+    public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+        incrementCount(file, fileType == null || file.getFileType() == fileType ? 1 : 0);
     }
 }
@@ -17,11 +17,10 @@
 package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class LinesOfCodeModuleCalculator extends ElementCountModuleCalculator {
 
@@ -33,20 +32,30 @@ public class LinesOfCodeModuleCalculator extends ElementCountModuleCalculator {
     }
 
     @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
+    @Override
+    public boolean requiresPsi() {
+        return false;
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
 
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            createCount(file);
-            if (fileType == null || file.getFileType() == fileType) {
-                final int lineCount = LineUtil.countLines(file);
-                incrementCount(file, lineCount);
-            }
+    @Override
+    protected PsiElementVisitor createVisitor() {
+        return null;
+    }
+
+    @Override
+    public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+        createCount(file);
+        if (fileType == null || file.getFileType() == fileType) {
+            incrementCount(file, getLineFacts(file, text, fileData).countLines());
         }
     }
 }
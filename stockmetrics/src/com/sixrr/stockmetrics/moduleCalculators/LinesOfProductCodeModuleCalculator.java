@@ -18,10 +18,7 @@ package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class LinesOfProductCodeModuleCalculator extends ElementCountModuleCalculator {
 
@@ -29,20 +26,23 @@ public class LinesOfProductCodeModuleCalculator extends ElementCountModuleCalcul
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             createCount(file);
-            if (TestUtils.isProduction(file)) {
-                final int lineCount = LineUtil.countLines(file);
-                incrementCount(file, lineCount);
+            if (getTestClassifier().isProduction(file)) {
+                incrementCount(file, getLineFacts(file).countLines(file));
             }
         }
     }
@@ -28,6 +28,11 @@ public class NumAnnotationClassesModuleCalculator extends ClassCountingModuleCal
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isAnnotationType();
@@ -25,6 +25,11 @@ public class NumClassesModuleCalculator extends ClassCountingModuleCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return true;
@@ -28,6 +28,11 @@ public class NumEnumClassesModuleCalculator extends ClassCountingModuleCalculato
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isEnum();
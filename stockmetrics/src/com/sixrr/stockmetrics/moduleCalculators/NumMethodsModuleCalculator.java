@@ -28,6 +28,11 @@ public class NumMethodsModuleCalculator extends ElementCountModuleCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -21,7 +21,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethodCallExpression;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestAssertsModuleCalculator extends ElementCountModuleCalculator {
 
@@ -39,7 +38,7 @@ public class NumTestAssertsModuleCalculator extends ElementCountModuleCalculator
         @Override
         public void visitMethodCallExpression(PsiMethodCallExpression expression) {
             super.visitMethodCallExpression(expression);
-            if (JavaTestUtils.isJUnitAssertCall(expression)) {
+            if (getTestClassifier().isTestAssertCall(expression)) {
                 incrementCount(expression, 1);
             }
         }
@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestCasesModuleCalculator extends ClassCountingModuleCalculator {
 
@@ -28,6 +27,6 @@ public class NumTestCasesModuleCalculator extends ClassCountingModuleCalculator
 
     @Override
     public boolean satisfies(PsiClass aClass) {
-        return JavaTestUtils.isJUnitTestCase(aClass);
+        return getTestClassifier().isTestCase(aClass);
     }
 }
@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
 
 public class NumTestClassesModuleCalculator extends ClassCountingModuleCalculator {
 
@@ -26,8 +25,13 @@ public class NumTestClassesModuleCalculator extends ClassCountingModuleCalculato
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
-        return TestUtils.isTest(aClass);
+        return getTestClassifier().isTest(aClass);
     }
 }
@@ -21,7 +21,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestMethodsModuleCalculator extends ElementCountModuleCalculator {
 
@@ -29,6 +28,11 @@ public class NumTestMethodsModuleCalculator extends ElementCountModuleCalculator
         super(metric);
     }
 
+    @Override
+    public boolean processesNonJavaFiles() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -39,7 +43,7 @@ public class NumTestMethodsModuleCalculator extends ElementCountModuleCalculator
         @Override
         public void visitMethod(PsiMethod method) {
             super.visitMethod(method);
-            if (JavaTestUtils.isJUnitTestMethod(method)) {
+            if (getTestClassifier().isTestMethod(method)) {
                 incrementCount(method, 1);
             }
         }
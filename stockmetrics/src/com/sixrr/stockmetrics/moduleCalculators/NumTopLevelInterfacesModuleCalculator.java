@@ -26,6 +26,11 @@ public class NumTopLevelInterfacesModuleCalculator extends ClassCountingModuleCa
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isInterface() && ClassUtils.isTopLevel(aClass);
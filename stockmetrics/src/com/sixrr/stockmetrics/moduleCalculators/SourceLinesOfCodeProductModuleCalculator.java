@@ -19,8 +19,6 @@ package com.sixrr.stockmetrics.moduleCalculators;
 import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeProductModuleCalculator extends ElementCountModuleCalculator {
 
@@ -28,36 +26,27 @@ public class SourceLinesOfCodeProductModuleCalculator extends ElementCountModule
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
-
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final PsiComment comment = (PsiComment) element;
-                final PsiFile file = comment.getContainingFile();
-                if (TestUtils.isProduction(file)) {
-                    final int lineCount = LineUtil.countCommentOnlyLines(comment);
-                    incrementCount(comment, -lineCount);
-                }
-            }
-        }
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
+
             createCount(file);
-            if (TestUtils.isProduction(file)) {
-                final int lineCount = LineUtil.countLines(file);
-                incrementCount(file, lineCount);
+            if (getTestClassifier().isProduction(file)) {
+                incrementCount(file, getLineFacts(file).countCodeLines(file));
             }
         }
     }
@@ -19,8 +19,6 @@ package com.sixrr.stockmetrics.moduleCalculators;
 import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeTestModuleCalculator extends ElementCountModuleCalculator {
 
@@ -28,36 +26,27 @@ public class SourceLinesOfCodeTestModuleCalculator extends ElementCountModuleCal
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
-            createCount(file);
-            if (TestUtils.isTest(file)) {
-                final int lineCount = LineUtil.countLines(file);
-                incrementCount(file, lineCount);
-            }
-        }
 
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final PsiComment comment = (PsiComment) element;
-                final PsiFile file = comment.getContainingFile();
-                if (TestUtils.isTest(file)) {
-                    final int lineCount = LineUtil.countCommentOnlyLines(comment);
-                    incrementCount(comment, -lineCount);
-                }
+            createCount(file);
+            if (getTestClassifier().isTest(file)) {
+                incrementCount(file, getLineFacts(file).countCodeLines(file));
             }
         }
     }
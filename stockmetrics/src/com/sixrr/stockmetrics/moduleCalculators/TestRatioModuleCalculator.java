@@ -18,10 +18,7 @@ package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class TestRatioModuleCalculator extends ElementRatioModuleCalculator {
 
@@ -34,15 +31,14 @@ public class TestRatioModuleCalculator extends ElementRatioModuleCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             createRatio(file);
-            final int lineCount = LineUtil.countLines(file);
+            final int lineCount = getLineFacts(file).countLines(file);
             incrementDenominator(file, lineCount);
-            if (TestUtils.isTest(file)) {
+            if (getTestClassifier().isTest(file)) {
                 incrementNumerator(file, lineCount);
             }
         }
@@ -18,7 +18,7 @@ package com.sixrr.stockmetrics.moduleCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 public class TrueCommentRatioModuleCalculator extends ElementRatioModuleCalculator {
 
@@ -31,26 +31,14 @@ public class TrueCommentRatioModuleCalculator extends ElementRatioModuleCalculat
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             createRatio(file);
-            final int lineCount = LineUtil.countLines(file);
-            incrementDenominator(file, lineCount);
-        }
-
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final PsiComment comment = (PsiComment) element;
-                final int commentOnlyLineCount = LineUtil.countCommentOnlyLines(comment);
-                incrementDenominator(comment, -commentOnlyLineCount);
-                final int lineCount = LineUtil.countLines(comment);
-                incrementNumerator(comment, lineCount);
-            }
+            final LineFacts lineFacts = getLineFacts(file);
+            incrementDenominator(file, lineFacts.countCodeLines(file));
+            incrementNumerator(file, lineFacts.countCommentLines(file));
         }
     }
 }
@@ -24,7 +24,6 @@ import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
 import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexity;
 
 import java.util.Set;
 
@@ -65,7 +64,7 @@ public class AverageCyclomaticComplexityPackageCalculator extends PackageCalcula
             if (aPackage == null) {
                 return;
             }
-            final int complexity = CyclomaticComplexity.calculate(method);
+            final int complexity = getMethodComplexity(method).getCyclomaticComplexity();
             totalComplexityPerPackage.incrementBucketValue(aPackage, complexity);
             numMethodsPerPackage.incrementBucketValue(aPackage);
         }
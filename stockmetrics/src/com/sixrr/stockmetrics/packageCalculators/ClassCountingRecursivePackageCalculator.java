@@ -25,6 +25,11 @@ public abstract class ClassCountingRecursivePackageCalculator extends ElementCou
         super(metric);
     }
 
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
+
     protected abstract boolean satisfies(PsiClass aClass);
 
     @Override
@@ -32,11 +37,10 @@ public abstract class ClassCountingRecursivePackageCalculator extends ElementCou
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (aClass instanceof PsiTypeParameter || aClass instanceof PsiEnumConstantInitializer) {
                 return;
             }
@@ -16,12 +16,9 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class CommentLinesOfCodePackageCalculator extends ElementCountPackageCalculator {
 
@@ -29,22 +26,22 @@ public class CommentLinesOfCodePackageCalculator extends ElementCountPackageCalc
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             createCount(file);
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            final int lineCount = LineUtil.countLines(comment);
-            incrementCount(comment, lineCount);
+            incrementCount(file, getLineFacts(file).countCommentLines(file));
         }
     }
 }
@@ -16,12 +16,9 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class CommentLinesOfCodeRecursivePackageCalculator extends ElementCountPackageCalculator {
 
@@ -29,24 +26,22 @@ public class CommentLinesOfCodeRecursivePackageCalculator extends ElementCountPa
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             createCount(file);
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            final int lineCount = LineUtil.countLines(comment);
-            incrementCountRecursive(comment, lineCount);
+            incrementCountRecursive(file, getLineFacts(file).countCommentLines(file));
         }
     }
 }
@@ -20,7 +20,7 @@ import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 import java.util.Set;
 
@@ -48,28 +48,17 @@ public class CommentRatioPackageCalculator extends PackageCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             final PsiPackage aPackage = ClassUtils.findPackage(file);
             if (aPackage == null) {
                 return;
             }
-            final int lineCount = LineUtil.countLines(file);
-            numLinesPerPackage.incrementBucketValue(aPackage, lineCount);
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            final PsiPackage aPackage = ClassUtils.findPackage(comment);
-            if (aPackage == null) {
-                return;
-            }
-            final int lineCount = LineUtil.countLines(comment);
-            numCommentLinesPerPackage.incrementBucketValue(aPackage, lineCount);
+            final LineFacts lineFacts = getLineFacts(file);
+            numLinesPerPackage.incrementBucketValue(aPackage, lineFacts.countLines(file));
+            numCommentLinesPerPackage.incrementBucketValue(aPackage, lineFacts.countCommentLines(file));
         }
     }
 }
@@ -16,11 +16,15 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiPackage;
+import com.intellij.psi.util.PsiUtilCore;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.metrics.utils.FileBucketedCount;
+import org.jetbrains.annotations.NotNull;
 
 import java.util.Set;
 
@@ -29,14 +33,36 @@ import java.util.Set;
  */
 public abstract class ElementCountPackageCalculator extends PackageCalculator {
 
-    private final BucketedCount<PsiPackage> elementCountPerPackage = new BucketedCount<>();
+    private final PackageCounts counts = new PackageCounts();
 
     public ElementCountPackageCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public Object getFileShares() {
+        return counts;
+    }
+
+    @Override
+    public void restoreFileShares(@NotNull Object fileShares, @NotNull Set<VirtualFile> changedFiles) {
+        final PackageCounts previousCounts = (PackageCounts) fileShares;
+        counts.elementCountPerPackage.copyShares(previousCounts.elementCountPerPackage, changedFiles);
+        counts.recursiveElementCountPerPackage.copyShares(previousCounts.recursiveElementCountPerPackage,
+                                                          changedFiles);
+    }
+
     @Override
     public final void endMetricsRun() {
+        final BucketedCount<PsiPackage> elementCountPerPackage = new BucketedCount<>();
+        final BucketedCount<PsiPackage> recursiveElementCountPerPackage = new BucketedCount<>();
+        counts.elementCountPerPackage.addTo(elementCountPerPackage);
+        counts.recursiveElementCountPerPackage.addTo(recursiveElementCountPerPackage);
+        addToParentPackages(recursiveElementCountPerPackage);
+        for (final PsiPackage aPackage : recursiveElementCountPerPackage.getBuckets()) {
+            final int count = recursiveElementCountPerPackage.getBucketValue(aPackage);
+            elementCountPerPackage.incrementBucketValue(aPackage, count);
+        }
         final Set<PsiPackage> packages = elementCountPerPackage.getBuckets();
         for (final PsiPackage aPackage : packages) {
             final int count = elementCountPerPackage.getBucketValue(aPackage);
@@ -49,14 +75,15 @@ public abstract class ElementCountPackageCalculator extends PackageCalculator {
         if (aPackage == null) {
             return;
         }
-        elementCountPerPackage.createBucket(aPackage);
+        counts.elementCountPerPackage.createBucket(PsiUtilCore.getVirtualFile(element), aPackage);
     }
 
     protected void createCountRecursive(PsiElement element) {
-        final PsiPackage[] packages = ClassUtils.calculatePackagesRecursive(element);
-        for (PsiPackage aPackage : packages) {
-            elementCountPerPackage.createBucket(aPackage);
+        final PsiPackage aPackage = ClassUtils.findPackage(element);
+        if (aPackage == null) {
+            return;
         }
+        counts.recursiveElementCountPerPackage.createBucket(PsiUtilCore.getVirtualFile(element), aPackage);
     }
 
     protected void incrementCount(PsiElement element, int count) {
@@ -64,13 +91,22 @@ public abstract class ElementCountPackageCalculator extends PackageCalculator {
         if (aPackage == null) {
             return;
         }
-        elementCountPerPackage.incrementBucketValue(aPackage, count);
+        counts.elementCountPerPackage.incrementBucketValue(PsiUtilCore.getVirtualFile(element), aPackage, count);
     }
 
     protected void incrementCountRecursive(PsiElement element, int count) {
-        final PsiPackage[] packages = ClassUtils.calculatePackagesRecursive(element);
-        for (PsiPackage aPackage : packages) {
-            elementCountPerPackage.incrementBucketValue(aPackage, count);
+        final PsiPackage aPackage = ClassUtils.findPackage(element);
+        if (aPackage == null) {
+            return;
         }
+        counts.recursiveElementCountPerPackage.incrementBucketValue(PsiUtilCore.getVirtualFile(element), aPackage,
+                                                                    count);
+    }
+
+    private static class PackageCounts {
+
+        final FileBucketedCount<PsiPackage> elementCountPerPackage = new FileBucketedCount<>();
+        // counted in the package of the element only, until added to the containing packages at the end of the run
+        final FileBucketedCount<PsiPackage> recursiveElementCountPerPackage = new FileBucketedCount<>();
     }
 }
@@ -16,14 +16,11 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.openapi.util.Key;
 import com.intellij.psi.*;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.ClassReferenceCache;
 
 import java.util.Set;
 
@@ -51,16 +48,15 @@ public class EncapsulationRatioPackageCalculator extends PackageCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             final PsiPackage aPackage = ClassUtils.findPackage(aClass);
             if (aPackage == null) {
                 return;
             }
             numClassesPerPackage.createBucket(aPackage);
-            if (!TestUtils.isTest(aClass) && !ClassUtils.isAnonymous(aClass)) {
+            if (!getTestClassifier().isTest(aClass) && !ClassUtils.isAnonymous(aClass)) {
                 numClassesPerPackage.incrementBucketValue(aPackage);
                 if (isInternal(aClass)) {
                     numInternalClassesPerPackage.incrementBucketValue(aPackage);
@@ -74,18 +70,11 @@ public class EncapsulationRatioPackageCalculator extends PackageCalculator {
                 return true;
             }
             final String packageName = ClassUtils.calculatePackageName(aClass);
-            final Key<ClassReferenceCache> key = new Key<>("ClassReferenceCache");
-
-            ClassReferenceCache classReferenceCache = executionContext.getUserData(key);
-            if (classReferenceCache == null) {
-                classReferenceCache = new ClassReferenceCache();
-                executionContext.putUserData(key, classReferenceCache);
-            }
-            for (final PsiReference reference : classReferenceCache.findClassReferences(aClass)) {
+            for (final PsiReference reference : getClassReferenceCache().findClassReferences(aClass)) {
                 final PsiElement element = reference.getElement();
                 final PsiClass referencingClass = PsiTreeUtil.getParentOfType(element, PsiClass.class);
 
-                if (referencingClass == null || TestUtils.isTest(referencingClass)) {
+                if (referencingClass == null || getTestClassifier().isTest(referencingClass)) {
                     continue;
                 }
                 final String referencingPackageName = ClassUtils.calculatePackageName(referencingClass);
@@ -16,12 +16,10 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiJavaFile;
-import com.intellij.psi.javadoc.PsiDocComment;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class JavadocLinesOfCodePackageCalculator extends ElementCountPackageCalculator {
 
@@ -29,24 +27,22 @@ public class JavadocLinesOfCodePackageCalculator extends ElementCountPackageCalc
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitJavaFile(PsiJavaFile file) {
-            super.visitJavaFile(file);
             createCount(file);
-        }
-
-        @Override
-        public void visitDocComment(PsiDocComment comment) {
-            super.visitDocComment(comment);
-            final int lineCount = LineUtil.countLines(comment);
-            incrementCount(comment, lineCount);
+            incrementCount(file, getLineFacts(file).countJavadocLines(file));
         }
     }
 }
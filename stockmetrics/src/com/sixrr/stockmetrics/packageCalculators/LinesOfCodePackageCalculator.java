@@ -18,9 +18,7 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class LinesOfCodePackageCalculator extends ElementCountPackageCalculator {
 
@@ -28,18 +26,21 @@ public class LinesOfCodePackageCalculator extends ElementCountPackageCalculator
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            final int lineCount = LineUtil.countLines(file);
-            incrementCount(file, lineCount);
+            incrementCount(file, getLineFacts(file).countLines(file));
         }
     }
 }
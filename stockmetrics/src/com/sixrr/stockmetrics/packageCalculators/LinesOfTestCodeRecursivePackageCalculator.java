@@ -18,10 +18,7 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class LinesOfTestCodeRecursivePackageCalculator extends ElementCountPackageCalculator {
 
@@ -29,20 +26,23 @@ public class LinesOfTestCodeRecursivePackageCalculator extends ElementCountPacka
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            final int lineCount = LineUtil.countLines(file);
             createCountRecursive(file);
-            if (TestUtils.isTest(file)) {
-                incrementCountRecursive(file, lineCount);
+            if (getTestClassifier().isTest(file)) {
+                incrementCountRecursive(file, getLineFacts(file).countLines(file));
             }
         }
     }
@@ -25,6 +25,11 @@ public class NumAnnotationClassesPackageCalculator extends ClassCountingPackageC
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isAnnotationType();
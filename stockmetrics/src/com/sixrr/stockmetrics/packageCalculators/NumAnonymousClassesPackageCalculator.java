@@ -29,6 +29,11 @@ public class NumAnonymousClassesPackageCalculator extends ClassCountingPackageCa
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass instanceof PsiAnonymousClass;
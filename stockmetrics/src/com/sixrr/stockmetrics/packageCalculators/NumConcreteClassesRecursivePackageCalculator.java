@@ -26,6 +26,11 @@ public class NumConcreteClassesRecursivePackageCalculator extends ClassCountingR
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return ClassUtils.isConcrete(aClass);
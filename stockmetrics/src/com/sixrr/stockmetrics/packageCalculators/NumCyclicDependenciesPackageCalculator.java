@@ -39,8 +39,7 @@ public class NumCyclicDependenciesPackageCalculator extends PackageCalculator {
     public void endMetricsRun() {
         for (PsiPackage aPackage : packages) {
             final DependencyMap dependencyMap = getDependencyMap();
-            final Set<PsiPackage> component = dependencyMap.calculateStronglyConnectedPackageComponents(aPackage);
-            final int cyclicDependencies = component.size() - 1;
+            final int cyclicDependencies = dependencyMap.calculateCyclicPackageDependencies(aPackage);
             postMetric(aPackage, (double) cyclicDependencies);
         }
     }
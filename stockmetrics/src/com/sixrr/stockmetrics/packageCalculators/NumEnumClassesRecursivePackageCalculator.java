@@ -25,6 +25,11 @@ public class NumEnumClassesRecursivePackageCalculator extends ClassCountingRecur
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isEnum();
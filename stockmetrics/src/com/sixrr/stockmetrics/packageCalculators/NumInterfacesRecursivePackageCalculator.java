@@ -25,6 +25,11 @@ public class NumInterfacesRecursivePackageCalculator extends ClassCountingRecurs
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isInterface();
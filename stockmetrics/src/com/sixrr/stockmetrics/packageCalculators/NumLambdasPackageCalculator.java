@@ -28,6 +28,11 @@ public class NumLambdasPackageCalculator extends ElementCountPackageCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
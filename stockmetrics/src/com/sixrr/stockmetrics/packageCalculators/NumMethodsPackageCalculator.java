@@ -31,6 +31,11 @@ public class NumMethodsPackageCalculator extends ElementCountPackageCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
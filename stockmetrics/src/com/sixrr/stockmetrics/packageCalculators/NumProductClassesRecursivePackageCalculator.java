@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
 
 public class NumProductClassesRecursivePackageCalculator extends ClassCountingRecursivePackageCalculator {
 
@@ -26,8 +25,13 @@ public class NumProductClassesRecursivePackageCalculator extends ClassCountingRe
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
-        return TestUtils.isProduction(aClass);
+        return getTestClassifier().isProduction(aClass);
     }
 }
@@ -18,16 +18,26 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
 
 public class NumRootClassesPackageCalculator extends ClassCountingPackageCalculator {
 
+    private TypeHierarchy typeHierarchy = null;
+
     public NumRootClassesPackageCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        typeHierarchy = getTypeHierarchy();
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
-        return ClassUtils.isRoot(aClass);
+        return typeHierarchy.isRoot(aClass);
     }
 }
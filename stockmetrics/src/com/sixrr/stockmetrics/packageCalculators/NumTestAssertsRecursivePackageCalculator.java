@@ -21,7 +21,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethodCallExpression;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestAssertsRecursivePackageCalculator extends ElementCountPackageCalculator {
 
@@ -45,7 +44,7 @@ public class NumTestAssertsRecursivePackageCalculator extends ElementCountPackag
         @Override
         public void visitMethodCallExpression(PsiMethodCallExpression expression) {
             super.visitMethodCallExpression(expression);
-            if (JavaTestUtils.isJUnitAssertCall(expression)) {
+            if (getTestClassifier().isTestAssertCall(expression)) {
                 incrementCountRecursive(expression, 1);
             }
         }
@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestCasesPackageCalculator extends ClassCountingPackageCalculator {
 
@@ -28,6 +27,6 @@ public class NumTestCasesPackageCalculator extends ClassCountingPackageCalculato
 
     @Override
     public boolean satisfies(PsiClass aClass) {
-        return JavaTestUtils.isJUnitTestCase(aClass);
+        return getTestClassifier().isTestCase(aClass);
     }
 }
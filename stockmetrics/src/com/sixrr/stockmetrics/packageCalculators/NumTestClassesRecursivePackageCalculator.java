@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
 
 public class NumTestClassesRecursivePackageCalculator extends ClassCountingRecursivePackageCalculator {
 
@@ -26,8 +25,13 @@ public class NumTestClassesRecursivePackageCalculator extends ClassCountingRecur
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
-        return TestUtils.isTest(aClass);
+        return getTestClassifier().isTest(aClass);
     }
 }
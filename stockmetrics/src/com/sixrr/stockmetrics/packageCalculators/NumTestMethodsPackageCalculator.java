@@ -21,7 +21,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestMethodsPackageCalculator extends ElementCountPackageCalculator {
 
@@ -45,7 +44,7 @@ public class NumTestMethodsPackageCalculator extends ElementCountPackageCalculat
         @Override
         public void visitMethod(PsiMethod method) {
             super.visitMethod(method);
-            if (!JavaTestUtils.isJUnitTestMethod(method)) {
+            if (!getTestClassifier().isTestMethod(method)) {
                 return;
             }
             incrementCount(method, 1);
@@ -21,7 +21,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiJavaFile;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestMethodsRecursivePackageCalculator extends ElementCountPackageCalculator {
 
@@ -45,7 +44,7 @@ public class NumTestMethodsRecursivePackageCalculator extends ElementCountPackag
         @Override
         public void visitMethod(PsiMethod method) {
             super.visitMethod(method);
-            if (JavaTestUtils.isJUnitTestMethod(method)) {
+            if (getTestClassifier().isTestMethod(method)) {
                 createCountRecursive(method);
             }
         }
@@ -26,6 +26,11 @@ public class NumTopLevelClassesPackageCalculator extends ClassCountingPackageCal
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return !aClass.isInterface() && ClassUtils.isTopLevel(aClass);
@@ -26,6 +26,11 @@ public class NumTopLevelInterfacesRecursivePackageCalculator extends ClassCounti
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isInterface() && ClassUtils.isTopLevel(aClass);
@@ -39,8 +39,7 @@ public class NumTransitiveDependencyPackagesPackageCalculator extends PackageCal
     public void endMetricsRun() {
         for (final PsiPackage aPackage : packages) {
             final DependencyMap dependencyMap = getDependencyMap();
-            final Set<PsiPackage> dependentPackages = dependencyMap.calculateTransitivePackageDependencies(aPackage);
-            final int numDependencies = dependentPackages.size();
+            final int numDependencies = dependencyMap.calculateTransitivePackageDependencyCount(aPackage);
             postMetric(aPackage, numDependencies);
         }
     }
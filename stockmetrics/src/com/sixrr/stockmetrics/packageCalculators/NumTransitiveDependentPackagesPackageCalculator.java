@@ -39,8 +39,7 @@ public class NumTransitiveDependentPackagesPackageCalculator extends PackageCalc
     public void endMetricsRun() {
         for (final PsiPackage aPackage : packages) {
             final DependentsMap dependencyMap = getDependentsMap();
-            final Set<PsiPackage> dependentPackages = dependencyMap.calculateTransitivePackageDependents(aPackage);
-            final int numDependencies = dependentPackages.size();
+            final int numDependencies = dependencyMap.calculateTransitivePackageDependentCount(aPackage);
             postMetric(aPackage, (double) numDependencies);
         }
     }
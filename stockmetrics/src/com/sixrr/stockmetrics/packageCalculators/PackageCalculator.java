@@ -18,14 +18,57 @@ package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.psi.PsiPackage;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.stockmetrics.execution.BaseMetricsCalculator;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public abstract class PackageCalculator extends BaseMetricsCalculator {
 
     public PackageCalculator(Metric metric) {
         super(metric);
     }
 
+    /**
+     * Adds the count of every package to the counts of all packages containing it. Recursive calculators only count
+     * elements in their own package while traversing, and call this once at the end of the run. Packages are
+     * processed deepest first, so every package is only added to its parent once.
+     */
+    static void addToParentPackages(BucketedCount<PsiPackage> counts) {
+        final List<List<PsiPackage>> packagesPerDepth = new ArrayList<>();
+        for (PsiPackage aPackage : counts.getBuckets()) {
+            addPackage(packagesPerDepth, aPackage);
+        }
+        for (int depth = packagesPerDepth.size() - 1; depth > 0; depth--) {
+            for (PsiPackage aPackage : packagesPerDepth.get(depth)) {
+                final PsiPackage parentPackage = aPackage.getParentPackage();
+                if (parentPackage == null) {
+                    continue;
+                }
+                if (!counts.containsBucket(parentPackage)) {
+                    counts.createBucket(parentPackage);
+                    addPackage(packagesPerDepth, parentPackage);
+                }
+                counts.incrementBucketValue(parentPackage, counts.getBucketValue(aPackage));
+            }
+        }
+    }
+
+    private static void addPackage(List<List<PsiPackage>> packagesPerDepth, PsiPackage aPackage) {
+        final String name = aPackage.getQualifiedName();
+        int depth = name.isEmpty() ? 0 : 1;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) == '.') {
+                depth++;
+            }
+        }
+        while (packagesPerDepth.size() <= depth) {
+            packagesPerDepth.add(new ArrayList<>());
+        }
+        packagesPerDepth.get(depth).add(aPackage);
+    }
+
     void postMetric(PsiPackage aPackage, int numerator, int denominator) {
         resultsHolder.postPackageMetric(metric, aPackage, (double) numerator, (double) denominator);
     }
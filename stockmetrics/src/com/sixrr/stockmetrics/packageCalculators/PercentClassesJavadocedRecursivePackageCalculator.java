@@ -16,7 +16,7 @@
 
 package com.sixrr.stockmetrics.packageCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiPackage;
@@ -37,6 +37,8 @@ public class PercentClassesJavadocedRecursivePackageCalculator extends PackageCa
 
     @Override
     public void endMetricsRun() {
+        addToParentPackages(numClassesPerPackage);
+        addToParentPackages(numJavadocedClassesPerPackage);
         final Set<PsiPackage> packages = numClassesPerPackage.getBuckets();
         for (final PsiPackage aPackage : packages) {
             final int numClasses = numClassesPerPackage.getBucketValue(aPackage);
@@ -50,20 +52,21 @@ public class PercentClassesJavadocedRecursivePackageCalculator extends PackageCa
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             if (ClassUtils.isAnonymous(aClass)) {
                 return;
             }
-            for (final PsiPackage aPackage : ClassUtils.calculatePackagesRecursive(aClass)) {
-                if (aClass.getDocComment() != null) {
-                    numJavadocedClassesPerPackage.incrementBucketValue(aPackage);
-                }
-                numClassesPerPackage.incrementBucketValue(aPackage);
+            final PsiPackage aPackage = ClassUtils.findPackage(aClass);
+            if (aPackage == null) {
+                return;
+            }
+            if (aClass.getDocComment() != null) {
+                numJavadocedClassesPerPackage.incrementBucketValue(aPackage);
             }
+            numClassesPerPackage.incrementBucketValue(aPackage);
         }
     }
 }
@@ -48,11 +48,10 @@ public class PercentFieldsJavadocedPackageCalculator extends PackageCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitField(PsiField field) {
-            super.visitField(field);
             final PsiClass containingClass = field.getContainingClass();
             if (containingClass == null || ClassUtils.isAnonymous(containingClass)) {
                 return;
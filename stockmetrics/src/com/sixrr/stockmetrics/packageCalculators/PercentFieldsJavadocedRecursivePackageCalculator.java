@@ -34,6 +34,8 @@ public class PercentFieldsJavadocedRecursivePackageCalculator extends PackageCal
 
     @Override
     public void endMetricsRun() {
+        addToParentPackages(numFieldsPerPackage);
+        addToParentPackages(numJavadocedFieldsPerPackage);
         final Set<PsiPackage> packages = numFieldsPerPackage.getBuckets();
         for (final PsiPackage aPackage : packages) {
             final int numFields = numFieldsPerPackage.getBucketValue(aPackage);
@@ -48,22 +50,22 @@ public class PercentFieldsJavadocedRecursivePackageCalculator extends PackageCal
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitField(PsiField field) {
-            super.visitField(field);
             final PsiClass containingClass = field.getContainingClass();
             if (containingClass == null || ClassUtils.isAnonymous(containingClass)) {
                 return;
             }
-            for (final PsiPackage aPackage : ClassUtils.calculatePackagesRecursive(containingClass)) {
-                numFieldsPerPackage.createBucket(aPackage);
-                if (field.getDocComment() != null) {
-                    numJavadocedFieldsPerPackage.incrementBucketValue(aPackage);
-                }
-                numFieldsPerPackage.incrementBucketValue(aPackage);
+            final PsiPackage aPackage = ClassUtils.findPackage(containingClass);
+            if (aPackage == null) {
+                return;
+            }
+            if (field.getDocComment() != null) {
+                numJavadocedFieldsPerPackage.incrementBucketValue(aPackage);
             }
+            numFieldsPerPackage.incrementBucketValue(aPackage);
         }
     }
 }
@@ -48,11 +48,10 @@ public class PercentMethodsJavadocedPackageCalculator extends PackageCalculator
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
         
         @Override
         public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
             final PsiClass containingClass = method.getContainingClass();
             if (containingClass == null || ClassUtils.isAnonymous(containingClass)) {
                 return;
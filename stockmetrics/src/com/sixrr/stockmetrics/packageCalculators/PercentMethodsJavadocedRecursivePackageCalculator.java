@@ -34,6 +34,8 @@ public class PercentMethodsJavadocedRecursivePackageCalculator extends PackageCa
 
     @Override
     public void endMetricsRun() {
+        addToParentPackages(numMethodsPerPackage);
+        addToParentPackages(numJavadocedMethodsPerPackage);
         final Set<PsiPackage> packages = numMethodsPerPackage.getBuckets();
         for (final PsiPackage packageName : packages) {
             final int numMethods = numMethodsPerPackage.getBucketValue(packageName);
@@ -48,22 +50,22 @@ public class PercentMethodsJavadocedRecursivePackageCalculator extends PackageCa
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
             final PsiClass containingClass = method.getContainingClass();
             if (containingClass == null || ClassUtils.isAnonymous(containingClass)) {
                 return;
             }
-            for (final PsiPackage aPackage : ClassUtils.calculatePackagesRecursive(containingClass)) {
-                numMethodsPerPackage.createBucket(aPackage);
-                if (method.getDocComment() != null) {
-                    numJavadocedMethodsPerPackage.incrementBucketValue(aPackage);
-                }
-                numMethodsPerPackage.incrementBucketValue(aPackage);
+            final PsiPackage aPackage = ClassUtils.findPackage(containingClass);
+            if (aPackage == null) {
+                return;
+            }
+            if (method.getDocComment() != null) {
+                numJavadocedMethodsPerPackage.incrementBucketValue(aPackage);
             }
+            numMethodsPerPackage.incrementBucketValue(aPackage);
         }
     }
 }
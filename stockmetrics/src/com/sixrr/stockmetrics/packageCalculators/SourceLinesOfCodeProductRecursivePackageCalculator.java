@@ -17,13 +17,9 @@
 package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.openapi.fileTypes.PlainTextFileType;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeProductRecursivePackageCalculator extends ElementCountPackageCalculator {
 
@@ -31,32 +27,27 @@ public class SourceLinesOfCodeProductRecursivePackageCalculator extends ElementC
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
-            createCount(file);
-            if (TestUtils.isProduction(file)) {
-                final int lineCount = LineUtil.countLines(file);
-                incrementCountRecursive(file, lineCount);
-            }
-        }
 
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            if (TestUtils.isProduction(comment)) {
-                final int lineCount = LineUtil.countCommentOnlyLines(comment);
-                incrementCountRecursive(comment, -lineCount);
+            createCount(file);
+            if (getTestClassifier().isProduction(file)) {
+                incrementCountRecursive(file, getLineFacts(file).countCodeLines(file));
             }
         }
     }
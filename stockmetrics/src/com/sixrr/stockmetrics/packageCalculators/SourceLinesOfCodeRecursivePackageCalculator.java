@@ -17,12 +17,9 @@
 package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.openapi.fileTypes.PlainTextFileType;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeRecursivePackageCalculator extends ElementCountPackageCalculator {
 
@@ -30,28 +27,25 @@ public class SourceLinesOfCodeRecursivePackageCalculator extends ElementCountPac
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
-            final int lineCount = LineUtil.countLines(file);
-            incrementCountRecursive(file, lineCount);
-        }
 
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            final int lineCount = LineUtil.countCommentOnlyLines(comment);
-            incrementCountRecursive(comment, -lineCount);
+            incrementCountRecursive(file, getLineFacts(file).countCodeLines(file));
         }
     }
 }
@@ -17,13 +17,9 @@
 package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.openapi.fileTypes.PlainTextFileType;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeTestPackageCalculator extends ElementCountPackageCalculator {
 
@@ -31,35 +27,28 @@ public class SourceLinesOfCodeTestPackageCalculator extends ElementCountPackageC
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
-            createCount(file);
-            if (!TestUtils.isTest(file)) {
-                return;
-            }
-            final int lineCount = LineUtil.countLines(file);
-            incrementCount(file, lineCount);
-        }
 
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            if (!TestUtils.isTest(comment)) {
-                return;
+            createCount(file);
+            if (getTestClassifier().isTest(file)) {
+                incrementCount(file, getLineFacts(file).countCodeLines(file));
             }
-            final int lineCount = LineUtil.countCommentOnlyLines(comment);
-            incrementCount(comment, -lineCount);
         }
     }
 }
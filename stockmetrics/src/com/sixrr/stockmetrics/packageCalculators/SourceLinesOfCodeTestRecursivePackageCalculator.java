@@ -17,13 +17,9 @@
 package com.sixrr.stockmetrics.packageCalculators;
 
 import com.intellij.openapi.fileTypes.PlainTextFileType;
-import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeTestRecursivePackageCalculator extends ElementCountPackageCalculator {
 
@@ -31,31 +27,26 @@ public class SourceLinesOfCodeTestRecursivePackageCalculator extends ElementCoun
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
-            if (TestUtils.isTest(file)) {
-                final int lineCount = LineUtil.countLines(file);
-                incrementCountRecursive(file, lineCount);
-            }
-        }
 
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            if (TestUtils.isTest(comment)) {
-                final int lineCount = LineUtil.countCommentOnlyLines(comment);
-                incrementCountRecursive(comment, -lineCount);
+            if (getTestClassifier().isTest(file)) {
+                incrementCountRecursive(file, getLineFacts(file).countCodeLines(file));
             }
         }
     }
@@ -19,12 +19,9 @@ package com.sixrr.stockmetrics.packageCalculators;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiPackage;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 import java.util.Set;
 
@@ -52,18 +49,17 @@ public class TestRatioPackageCalculator extends PackageCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
-        
+    private class Visitor extends PsiElementVisitor {
+
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
             final PsiPackage aPackage = ClassUtils.findPackage(file);
             if (aPackage == null) {
                 return;
             }
-            final int lineCount = LineUtil.countLines(file);
+            final int lineCount = getLineFacts(file).countLines(file);
             numLinesPerPackage.incrementBucketValue(aPackage, lineCount);
-            if (TestUtils.isTest(file)) {
+            if (getTestClassifier().isTest(file)) {
                 numTestLinesPerPackage.incrementBucketValue(aPackage, lineCount);
             }
         }
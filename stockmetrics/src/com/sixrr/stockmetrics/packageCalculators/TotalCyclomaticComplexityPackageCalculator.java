@@ -21,7 +21,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexity;
 
 public class TotalCyclomaticComplexityPackageCalculator extends ElementCountPackageCalculator {
 
@@ -29,6 +28,11 @@ public class TotalCyclomaticComplexityPackageCalculator extends ElementCountPack
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -41,7 +45,7 @@ public class TotalCyclomaticComplexityPackageCalculator extends ElementCountPack
             if (MethodUtils.isAbstract(method)) {
                 return;
             }
-            final int complexity = CyclomaticComplexity.calculate(method);
+            final int complexity = getMethodComplexity(method).getCyclomaticComplexity();
             incrementCount(method, complexity);
         }
     }
@@ -20,7 +20,7 @@ import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 import java.util.Set;
 
@@ -35,6 +35,8 @@ public class TrueCommentRatioRecursivePackageCalculator extends PackageCalculato
 
     @Override
     public void endMetricsRun() {
+        addToParentPackages(numLinesPerPackage);
+        addToParentPackages(numCommentLinesPerPackage);
         final Set<PsiPackage> packages = numLinesPerPackage.getBuckets();
         for (PsiPackage aPackage : packages) {
             final int numLines = numLinesPerPackage.getBucketValue(aPackage);
@@ -48,26 +50,19 @@ public class TrueCommentRatioRecursivePackageCalculator extends PackageCalculato
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            final int lineCount = LineUtil.countLines(file);
-            final PsiPackage[] packages = ClassUtils.calculatePackagesRecursive(file);
-            for (PsiPackage aPackage : packages) {
-                numLinesPerPackage.incrementBucketValue(aPackage, lineCount);
-            }
-        }
-
-        @Override
-        public void visitComment(PsiComment comment) {
-            super.visitComment(comment);
-            final int lineCount = LineUtil.countCommentOnlyLines(comment);
-            final PsiPackage[] packages = ClassUtils.calculatePackagesRecursive(comment);
-            for (PsiPackage aPackage : packages) {
-                numCommentLinesPerPackage.incrementBucketValue(aPackage, lineCount);
+            final LineFacts lineFacts = getLineFacts(file);
+            final int lineCount = lineFacts.countLines(file);
+            final int commentLineCount = lineFacts.countCommentOnlyLines(file);
+            final PsiPackage aPackage = ClassUtils.findPackage(file);
+            if (aPackage == null) {
+                return;
             }
+            numLinesPerPackage.incrementBucketValue(aPackage, lineCount);
+            numCommentLinesPerPackage.incrementBucketValue(aPackage, commentLineCount);
         }
     }
 }
@@ -33,10 +33,9 @@ public class AttributeInheritanceFactorProjectCalculator extends ProjectCalculat
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             final PsiField[] allFields = aClass.getAllFields();
             for (PsiField field : allFields) {
                 final PsiClass containingClass = field.getContainingClass();
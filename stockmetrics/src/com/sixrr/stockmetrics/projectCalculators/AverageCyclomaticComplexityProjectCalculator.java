@@ -21,7 +21,6 @@ import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
 import com.sixrr.metrics.utils.MethodUtils;
-import com.sixrr.stockmetrics.utils.CyclomaticComplexity;
 
 public class AverageCyclomaticComplexityProjectCalculator extends ProjectCalculator {
 
@@ -50,7 +49,7 @@ public class AverageCyclomaticComplexityProjectCalculator extends ProjectCalcula
             if (MethodUtils.isAbstract(method)) {
                 return;
             }
-            totalComplexity += CyclomaticComplexity.calculate(method);
+            totalComplexity += getMethodComplexity(method).getCyclomaticComplexity();
             numMethods++;
         }
     }
@@ -16,12 +16,9 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.psi.PsiComment;
-import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiRecursiveElementVisitor;
+import com.intellij.psi.PsiFile;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class CommentLinesOfCodeProjectCalculator extends ElementCountProjectCalculator {
 
@@ -29,19 +26,21 @@ public class CommentLinesOfCodeProjectCalculator extends ElementCountProjectCalc
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                incrementCount(LineUtil.countLines(element));
-            }
+        public void visitFile(PsiFile file) {
+            incrementCount(file, getLineFacts(file).countCommentLines(file));
         }
     }
 }
@@ -18,7 +18,7 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 public class CommentRatioProjectCalculator extends ElementRatioProjectCalculator {
 
@@ -31,20 +31,13 @@ public class CommentRatioProjectCalculator extends ElementRatioProjectCalculator
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            denominator += LineUtil.countLines(file);
-        }
-
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                numerator += LineUtil.countLines(element);
-            }
+            final LineFacts lineFacts = getLineFacts(file);
+            denominator += lineFacts.countLines(file);
+            numerator += lineFacts.countCommentLines(file);
         }
     }
 }
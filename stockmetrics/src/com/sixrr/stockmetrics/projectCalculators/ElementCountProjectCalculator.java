@@ -16,22 +16,48 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.PsiUtilCore;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.utils.BucketedCount;
+import com.sixrr.metrics.utils.FileBucketedCount;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Set;
 
 public abstract class ElementCountProjectCalculator extends ProjectCalculator {
 
-    private int numElements = 0;
+    private final FileBucketedCount<Project> numElements = new FileBucketedCount<>();
 
     public ElementCountProjectCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public Object getFileShares() {
+        return numElements;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void restoreFileShares(@NotNull Object fileShares, @NotNull Set<VirtualFile> changedFiles) {
+        numElements.copyShares((FileBucketedCount<Project>) fileShares, changedFiles);
+    }
+
     @Override
     public final void endMetricsRun() {
-        postMetric(numElements);
+        final BucketedCount<Project> count = new BucketedCount<>();
+        numElements.addTo(count);
+        postMetric(count.getBucketValue(executionContext.getProject()));
+    }
+
+    protected void incrementCount(PsiElement element, int count) {
+        incrementCount(PsiUtilCore.getVirtualFile(element), count);
     }
 
-    protected void incrementCount(int count) {
-        numElements += count;
+    protected void incrementCount(VirtualFile file, int count) {
+        numElements.incrementBucketValue(file, executionContext.getProject(), count);
     }
 }
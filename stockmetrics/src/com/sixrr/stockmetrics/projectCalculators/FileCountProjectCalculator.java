@@ -17,8 +17,9 @@
 package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
 import com.sixrr.metrics.Metric;
 
 public class FileCountProjectCalculator extends ElementCountProjectCalculator {
@@ -31,18 +32,29 @@ public class FileCountProjectCalculator extends ElementCountProjectCalculator {
     }
 
     @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
+    @Override
+    public boolean requiresPsi() {
+        return false;
     }
 
-    private class Visitor extends PsiElementVisitor {
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
 
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            if (fileType == null || file.getFileType() == fileType) {
-                incrementCount(1);
-            }
+    @Override
+    protected PsiElementVisitor createVisitor() {
+        return null;
+    }
+
+    @Override
+    public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+        if (fileType == null || file.getFileType() == fileType) {
+            incrementCount(file, 1);
         }
     }
 }
@@ -16,11 +16,10 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.javadoc.PsiDocComment;
+import com.intellij.psi.PsiJavaFile;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class JavadocLinesOfCodeProjectCalculator extends ElementCountProjectCalculator {
 
@@ -28,15 +27,21 @@ public class JavadocLinesOfCodeProjectCalculator extends ElementCountProjectCalc
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
+
         @Override
-        public void visitDocComment(PsiDocComment comment) {
-            incrementCount(LineUtil.countLines(comment));
+        public void visitJavaFile(PsiJavaFile file) {
+            incrementCount(file, getLineFacts(file).countJavadocLines(file));
         }
     }
 }
@@ -17,10 +17,10 @@
 package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.UserDataHolder;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.PsiFile;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class LinesOfCodeProjectCalculator extends ElementCountProjectCalculator {
 
@@ -32,18 +32,29 @@ public class LinesOfCodeProjectCalculator extends ElementCountProjectCalculator
     }
 
     @Override
-    protected PsiElementVisitor createVisitor() {
-        return new Visitor();
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
+    @Override
+    public boolean requiresPsi() {
+        return false;
     }
 
-    private class Visitor extends PsiElementVisitor {
+    @Override
+    public boolean supportsParallelProcessing() {
+        return true;
+    }
 
-        @Override
-        public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            if (fileType == null || file.getFileType() == fileType) {
-                incrementCount(LineUtil.countLines(file));
-            }
+    @Override
+    protected PsiElementVisitor createVisitor() {
+        return null;
+    }
+
+    @Override
+    public void processText(VirtualFile file, CharSequence text, UserDataHolder fileData) {
+        if (fileType == null || file.getFileType() == fileType) {
+            incrementCount(file, getLineFacts(file, text, fileData).countLines());
         }
     }
 }
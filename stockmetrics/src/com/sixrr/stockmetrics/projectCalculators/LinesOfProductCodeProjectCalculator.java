@@ -18,10 +18,7 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class LinesOfProductCodeProjectCalculator extends ElementCountProjectCalculator {
 
@@ -29,17 +26,22 @@ public class LinesOfProductCodeProjectCalculator extends ElementCountProjectCalc
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            if (TestUtils.isProduction(file)) {
-                incrementCount(LineUtil.countLines(file));
+            if (getTestClassifier().isProduction(file)) {
+                incrementCount(file, getLineFacts(file).countLines(file));
             }
         }
     }
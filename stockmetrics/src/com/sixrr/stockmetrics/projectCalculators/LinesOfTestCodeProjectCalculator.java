@@ -18,8 +18,6 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
-import com.sixrr.metrics.utils.TestUtils;
 
 public class LinesOfTestCodeProjectCalculator extends ElementCountProjectCalculator {
 
@@ -27,17 +25,22 @@ public class LinesOfTestCodeProjectCalculator extends ElementCountProjectCalcula
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            if (TestUtils.isTest(file)) {
-                incrementCount(LineUtil.countLines(file));
+            if (getTestClassifier().isTest(file)) {
+                incrementCount(file, getLineFacts(file).countLines(file));
             }
         }
     }
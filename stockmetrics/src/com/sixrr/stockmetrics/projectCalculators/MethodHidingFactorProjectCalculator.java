@@ -16,15 +16,13 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.openapi.progress.ProgressManager;
-import com.intellij.openapi.project.Project;
 import com.intellij.psi.*;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.util.Query;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
 import com.sixrr.metrics.utils.BucketedCount;
 import com.sixrr.metrics.utils.ClassUtils;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
 
 import java.util.Set;
 
@@ -34,24 +32,29 @@ public class MethodHidingFactorProjectCalculator extends ProjectCalculator {
     private int numPublicMethods = 0;
     private int numClasses = 0;
     private int totalVisibility = 0;
+    private TypeHierarchy typeHierarchy = null;
     private final BucketedCount<String> classesPerPackage = new BucketedCount<>();
     private final BucketedCount<String> packageVisibleMethodsPerPackage = new BucketedCount<>();
-    private final BucketedCount<PsiClass> subclassesPerClass = new BucketedCount<>();
 
     public MethodHidingFactorProjectCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        typeHierarchy = getTypeHierarchy();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
             numMethods++;
             final PsiClass containingClass = method.getContainingClass();
 
@@ -60,7 +63,7 @@ public class MethodHidingFactorProjectCalculator extends ProjectCalculator {
                 //don't do anything
             } else if (method.hasModifierProperty(PsiModifier.PROTECTED) ||
                     containingClass.hasModifierProperty(PsiModifier.PROTECTED)) {
-                totalVisibility += getSubclassCount(containingClass);
+                totalVisibility += typeHierarchy.countClassInheritors(containingClass);
             } else if ((method.hasModifierProperty(PsiModifier.PUBLIC) || containingClass.isInterface()) &&
                     containingClass.hasModifierProperty(PsiModifier.PUBLIC)) {
                 numPublicMethods++;
@@ -72,35 +75,12 @@ public class MethodHidingFactorProjectCalculator extends ProjectCalculator {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             numClasses++;
             final String packageName = ClassUtils.calculatePackageName(aClass);
             classesPerPackage.incrementBucketValue(packageName);
         }
     }
 
-    private int getSubclassCount(final PsiClass aClass) {
-        if (subclassesPerClass.containsBucket(aClass)) {
-            return subclassesPerClass.getBucketValue(aClass);
-        }
-        final int[] numSubclasses = new int[1];
-        final Runnable runnable = () -> {
-            final Project project = executionContext.getProject();
-            final GlobalSearchScope globalScope = GlobalSearchScope.allScope(project);
-            final Query<PsiClass> query = ClassInheritorsSearch.search(
-                    aClass, globalScope, true, true, true);
-            for (final PsiClass inheritor : query) {
-                if (!inheritor.isInterface()) {
-                    numSubclasses[0]++;
-                }
-            }
-        };
-        final ProgressManager progressManager = ProgressManager.getInstance();
-        progressManager.runProcess(runnable, null);
-        subclassesPerClass.incrementBucketValue(aClass, numSubclasses[0]);
-        return numSubclasses[0];
-    }
-
     @Override
     public void endMetricsRun() {
         totalVisibility += numPublicMethods * (numClasses - 1);
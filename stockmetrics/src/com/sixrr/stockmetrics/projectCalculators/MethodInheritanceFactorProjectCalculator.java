@@ -18,6 +18,9 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.utils.OverrideMap;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashSet;
@@ -27,32 +30,32 @@ public class MethodInheritanceFactorProjectCalculator extends ProjectCalculator
 
     private int availableMethods = 0;
     private int inheritedMethods = 0;
+    private OverrideMap overrideMap = null;
 
     public MethodInheritanceFactorProjectCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        overrideMap = getOverrideMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             final PsiMethod[] allMethods = aClass.getAllMethods();
+            final Set<PsiMethod> overriddenMethods = overrideMap.findOverriddenMethods(allMethods);
             final Set<PsiMethod> nonOverriddenMethods = new HashSet<>();
             for (PsiMethod method : allMethods) {
-                boolean overrideFound = false;
-                for (PsiMethod testMethod : allMethods) {
-                    if (overrides(testMethod, method)) {
-                        overrideFound = true;
-                        break;
-                    }
-                }
-                if (!overrideFound) {
+                if (!overriddenMethods.contains(method)) {
                     nonOverriddenMethods.add(method);
                 }
             }
@@ -70,19 +73,6 @@ public class MethodInheritanceFactorProjectCalculator extends ProjectCalculator
                 }
             }
         }
-
-        private boolean overrides(PsiMethod testMethod, PsiMethod method) {
-            if (testMethod.equals(method)) {
-                return false;
-            }
-            final PsiMethod[] superMethods = testMethod.findSuperMethods();
-            for (PsiMethod superMethod : superMethods) {
-                if (superMethod.equals(method)) {
-                    return true;
-                }
-            }
-            return false;
-        }
     }
 
     @Override
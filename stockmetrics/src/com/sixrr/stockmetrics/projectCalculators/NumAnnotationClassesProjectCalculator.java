@@ -25,6 +25,11 @@ public class NumAnnotationClassesProjectCalculator extends ClassCountingProjectC
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return aClass.isAnnotationType();
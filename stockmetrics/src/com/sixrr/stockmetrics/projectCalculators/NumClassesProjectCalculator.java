@@ -25,6 +25,11 @@ public class NumClassesProjectCalculator extends ClassCountingProjectCalculator
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return true;
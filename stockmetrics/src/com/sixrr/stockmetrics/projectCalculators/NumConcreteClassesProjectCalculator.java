@@ -26,6 +26,11 @@ public class NumConcreteClassesProjectCalculator extends ClassCountingProjectCal
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
         return ClassUtils.isConcrete(aClass);
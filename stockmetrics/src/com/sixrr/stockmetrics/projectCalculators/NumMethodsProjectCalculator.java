@@ -27,6 +27,11 @@ public class NumMethodsProjectCalculator extends ElementCountProjectCalculator {
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -35,7 +40,7 @@ public class NumMethodsProjectCalculator extends ElementCountProjectCalculator {
     private class Visitor extends JavaRecursiveElementVisitor {
         @Override
         public void visitMethod(PsiMethod method) {
-            incrementCount(1);
+            incrementCount(method, 1);
         }
     }
 }
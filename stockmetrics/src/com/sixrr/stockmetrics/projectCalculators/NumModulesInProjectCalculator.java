@@ -33,6 +33,11 @@ public class NumModulesInProjectCalculator extends ElementCountProjectCalculator
         super(metric);
     }
 
+    @Override
+    public boolean processesNonJavaFiles() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
@@ -49,7 +54,7 @@ public class NumModulesInProjectCalculator extends ElementCountProjectCalculator
                 index = ProjectFileIndex.getInstance(file.getProject());
             }
             if (modules.add(index.getModuleForFile(file.getVirtualFile()))) {
-                incrementCount(1);
+                incrementCount(file, 1);
             }
         }
     }
@@ -18,7 +18,6 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.PsiClass;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
 
 public class NumProductClassesProjectCalculator extends ClassCountingProjectCalculator {
 
@@ -26,8 +25,13 @@ public class NumProductClassesProjectCalculator extends ClassCountingProjectCalc
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     public boolean satisfies(PsiClass aClass) {
-        return TestUtils.isProduction(aClass);
+        return getTestClassifier().isProduction(aClass);
     }
 }
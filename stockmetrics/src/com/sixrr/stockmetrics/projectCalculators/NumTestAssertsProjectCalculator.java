@@ -20,7 +20,6 @@ import com.intellij.psi.JavaRecursiveElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethodCallExpression;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestAssertsProjectCalculator extends ElementCountProjectCalculator {
 
@@ -37,8 +36,8 @@ public class NumTestAssertsProjectCalculator extends ElementCountProjectCalculat
 
         @Override
         public void visitMethodCallExpression(PsiMethodCallExpression expression) {
-            if (JavaTestUtils.isJUnitAssertCall(expression)) {
-                incrementCount(1);
+            if (getTestClassifier().isTestAssertCall(expression)) {
+                incrementCount(expression, 1);
             }
         }
     }
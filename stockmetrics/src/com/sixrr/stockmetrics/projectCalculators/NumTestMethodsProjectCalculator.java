@@ -16,11 +16,10 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.JavaTestUtils;
 
 public class NumTestMethodsProjectCalculator extends ElementCountProjectCalculator {
 
@@ -33,13 +32,12 @@ public class NumTestMethodsProjectCalculator extends ElementCountProjectCalculat
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
 
         @Override
         public void visitMethod(PsiMethod method) {
-            super.visitMethod(method);
-            if (JavaTestUtils.isJUnitTestMethod(method)) {
-                incrementCount(1);
+            if (getTestClassifier().isTestMethod(method)) {
+                incrementCount(method, 1);
             }
         }
     }
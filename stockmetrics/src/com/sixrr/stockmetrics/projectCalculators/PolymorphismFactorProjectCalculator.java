@@ -16,43 +16,45 @@
 
 package com.sixrr.stockmetrics.projectCalculators;
 
-import com.intellij.openapi.progress.ProgressManager;
-import com.intellij.openapi.project.Project;
-import com.intellij.psi.JavaRecursiveElementVisitor;
+import com.intellij.psi.JavaElementVisitor;
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.search.GlobalSearchScope;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.util.Query;
 import com.sixrr.metrics.Metric;
-
-import java.util.HashMap;
-import java.util.Map;
+import com.sixrr.metrics.MetricsExecutionContext;
+import com.sixrr.metrics.MetricsResultsHolder;
+import com.sixrr.stockmetrics.utils.OverrideMap;
+import com.sixrr.stockmetrics.utils.TypeHierarchy;
 
 public class PolymorphismFactorProjectCalculator extends ProjectCalculator {
-    private final Map<PsiClass, Integer> subclassesPerClass = new HashMap<>();
     private int numOverridingMethods = 0;
     private int numOverridePotentials = 0;
+    private TypeHierarchy typeHierarchy = null;
+    private OverrideMap overrideMap = null;
 
     public PolymorphismFactorProjectCalculator(Metric metric) {
         super(metric);
     }
 
+    @Override
+    public void beginMetricsRun(MetricsResultsHolder resultsHolder, MetricsExecutionContext executionContext) {
+        super.beginMetricsRun(resultsHolder, executionContext);
+        typeHierarchy = getTypeHierarchy();
+        overrideMap = getOverrideMap();
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends JavaRecursiveElementVisitor {
+    private class Visitor extends JavaElementVisitor {
         @Override
         public void visitClass(PsiClass aClass) {
-            super.visitClass(aClass);
             final PsiMethod[] methods = aClass.getMethods();
             for (PsiMethod method : methods) {
-                final PsiMethod[] superMethods = method.findSuperMethods();
-                if (superMethods.length == 0) {
-                    numOverridePotentials += getSubclassCount(aClass);
+                if (overrideMap.countSuperMethods(method) == 0) {
+                    numOverridePotentials += typeHierarchy.countClassInheritors(aClass);
                 } else {
                     numOverridingMethods++;
                 }
@@ -64,26 +66,4 @@ public class PolymorphismFactorProjectCalculator extends ProjectCalculator {
     public void endMetricsRun() {
         postMetric(numOverridingMethods, numOverridePotentials);
     }
-
-    private int getSubclassCount(final PsiClass aClass) {
-        if (subclassesPerClass.containsKey(aClass)) {
-            return subclassesPerClass.get(aClass);
-        }
-        final int[] numSubclasses = new int[1];
-        final Runnable runnable = () -> {
-            final Project project = executionContext.getProject();
-            final GlobalSearchScope globalScope = GlobalSearchScope.allScope(project);
-            final Query<PsiClass> query = ClassInheritorsSearch.search(
-                    aClass, globalScope, true, true, true);
-            for (final PsiClass inheritor : query) {
-                if (!inheritor.isInterface()) {
-                    numSubclasses[0]++;
-                }
-            }
-        };
-        final ProgressManager progressManager = ProgressManager.getInstance();
-        progressManager.runProcess(runnable, null);
-        subclassesPerClass.put(aClass, numSubclasses[0]);
-        return numSubclasses[0];
-    }
 }
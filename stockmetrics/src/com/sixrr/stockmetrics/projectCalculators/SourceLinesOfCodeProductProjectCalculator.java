@@ -19,8 +19,6 @@ package com.sixrr.stockmetrics.projectCalculators;
 import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeProductProjectCalculator extends ElementCountProjectCalculator {
 
@@ -28,33 +26,26 @@ public class SourceLinesOfCodeProductProjectCalculator extends ElementCountProje
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
-            if (TestUtils.isProduction(file)) {
-                incrementCount(LineUtil.countLines(file));
-            }
-        }
 
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final PsiComment comment = (PsiComment) element;
-                final PsiFile file = comment.getContainingFile();
-                if (TestUtils.isProduction(file)) {
-                    incrementCount(-LineUtil.countCommentOnlyLines(comment));
-                }
+            if (getTestClassifier().isProduction(file)) {
+                incrementCount(file, getLineFacts(file).countCodeLines(file));
             }
         }
     }
@@ -19,7 +19,6 @@ package com.sixrr.stockmetrics.projectCalculators;
 import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class SourceLinesOfCodeProjectCalculator extends ElementCountProjectCalculator {
 
@@ -27,29 +26,25 @@ public class SourceLinesOfCodeProjectCalculator extends ElementCountProjectCalcu
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
             if (file.getFileType() == PlainTextFileType.INSTANCE) {
                 return;
             }
-            super.visitFile(file);
-            incrementCount(LineUtil.countLines(file));
-        }
 
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final PsiComment comment = (PsiComment) element;
-                incrementCount(-LineUtil.countCommentOnlyLines(comment));
-            }
+            incrementCount(file, getLineFacts(file).countCodeLines(file));
         }
     }
 }
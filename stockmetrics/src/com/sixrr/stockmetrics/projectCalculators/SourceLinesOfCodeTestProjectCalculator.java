@@ -19,8 +19,6 @@ package com.sixrr.stockmetrics.projectCalculators;
 import com.intellij.openapi.fileTypes.PlainTextFileType;
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
-import com.sixrr.metrics.utils.TestUtils;
 
 public class SourceLinesOfCodeTestProjectCalculator extends ElementCountProjectCalculator {
 
@@ -28,32 +26,24 @@ public class SourceLinesOfCodeTestProjectCalculator extends ElementCountProjectC
         super(metric);
     }
 
+    @Override
+    public boolean supportsIncrementalAggregation() {
+        return true;
+    }
+
     @Override
     protected PsiElementVisitor createVisitor() {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            if (file.getFileType() == PlainTextFileType.INSTANCE || !TestUtils.isTest(file)) {
+            if (file.getFileType() == PlainTextFileType.INSTANCE || !getTestClassifier().isTest(file)) {
                 return;
             }
-            super.visitFile(file);
-            incrementCount(LineUtil.countLines(file));
-        }
-
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final PsiComment comment = (PsiComment) element;
-                final PsiFile file = comment.getContainingFile();
-                if (TestUtils.isTest(file)) {
-                    incrementCount(-LineUtil.countCommentOnlyLines(comment));
-                }
-            }
+            incrementCount(file, getLineFacts(file).countCodeLines(file));
         }
     }
 }
@@ -18,10 +18,7 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
-import com.intellij.psi.PsiRecursiveElementVisitor;
 import com.sixrr.metrics.Metric;
-import com.sixrr.metrics.utils.TestUtils;
-import com.sixrr.stockmetrics.utils.LineUtil;
 
 public class TestRatioProjectCalculator extends ElementRatioProjectCalculator {
 
@@ -34,13 +31,13 @@ public class TestRatioProjectCalculator extends ElementRatioProjectCalculator {
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            final int lineCount = LineUtil.countLines(file);
+            final int lineCount = getLineFacts(file).countLines(file);
             denominator += lineCount;
-            if (TestUtils.isTest(file)) {
+            if (getTestClassifier().isTest(file)) {
                 numerator += lineCount;
             }
         }
@@ -37,7 +37,7 @@ public class TodoCommentCountProjectCalculator extends ElementCountProjectCalcul
 
         @Override
         public void visitFile(PsiFile file) {
-            incrementCount(TodoUtil.getTodoItemsCount(file));
+            incrementCount(file, TodoUtil.getTodoItemsCount(file));
         }
     }
 }
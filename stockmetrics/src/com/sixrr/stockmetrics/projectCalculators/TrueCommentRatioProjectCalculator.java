@@ -18,7 +18,7 @@ package com.sixrr.stockmetrics.projectCalculators;
 
 import com.intellij.psi.*;
 import com.sixrr.metrics.Metric;
-import com.sixrr.stockmetrics.utils.LineUtil;
+import com.sixrr.stockmetrics.utils.LineFacts;
 
 public class TrueCommentRatioProjectCalculator extends ElementRatioProjectCalculator {
 
@@ -31,22 +31,13 @@ public class TrueCommentRatioProjectCalculator extends ElementRatioProjectCalcul
         return new Visitor();
     }
 
-    private class Visitor extends PsiRecursiveElementVisitor {
+    private class Visitor extends PsiElementVisitor {
 
         @Override
         public void visitFile(PsiFile file) {
-            super.visitFile(file);
-            denominator += LineUtil.countLines(file);
-        }
-
-        @Override
-        public void visitElement(PsiElement element) {
-            super.visitElement(element);
-            if (element instanceof PsiComment) {
-                final PsiComment comment = (PsiComment) element;
-                numerator += LineUtil.countLines(comment);
-                denominator -= LineUtil.countCommentOnlyLines(comment);
-            }
+            final LineFacts lineFacts = getLineFacts(file);
+            numerator += lineFacts.countCommentLines(file);
+            denominator += lineFacts.countCodeLines(file);
         }
     }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.psi.*;
+import com.sixrr.metrics.utils.ClassUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The operation complexity facts of a concrete class, on which the weighted method complexity and the average and
+ * maximum operation complexity are based. Decision points in initializers, lambdas and nested interfaces and
+ * anonymous classes count for the class, those in nested concrete classes count for the nested class only.
+ */
+public class ClassComplexity {
+
+    private final int weightedMethodComplexity;
+    private final int totalOperationComplexity;
+    private final int maximumOperationComplexity;
+    private final int numOperations;
+
+    private ClassComplexity(int weightedMethodComplexity, int totalOperationComplexity,
+                            int maximumOperationComplexity, int numOperations) {
+        this.weightedMethodComplexity = weightedMethodComplexity;
+        this.totalOperationComplexity = totalOperationComplexity;
+        this.maximumOperationComplexity = maximumOperationComplexity;
+        this.numOperations = numOperations;
+    }
+
+    /**
+     * @return the number of decision points of the class plus the number of its non-abstract methods.
+     */
+    public int getWeightedMethodComplexity() {
+        return weightedMethodComplexity;
+    }
+
+    /**
+     * @return the number of decision points of the class plus the number of its methods with a body.
+     */
+    public int getTotalOperationComplexity() {
+        return totalOperationComplexity;
+    }
+
+    public int getMaximumOperationComplexity() {
+        return maximumOperationComplexity;
+    }
+
+    /**
+     * @return the number of methods with a body.
+     */
+    public int getNumOperations() {
+        return numOperations;
+    }
+
+    /**
+     * Calculates the facts of all concrete classes in the file in a single walk.
+     */
+    public static Map<PsiClass, ClassComplexity> calculate(PsiFile file) {
+        final Visitor visitor = new Visitor();
+        file.accept(visitor);
+        return visitor.result;
+    }
+
+    private static boolean isConcreteClass(PsiClass aClass) {
+        return !(aClass.isInterface() || ClassUtils.isAnonymous(aClass));
+    }
+
+    private static class Visitor extends JavaRecursiveElementVisitor {
+
+        private final Map<PsiClass, ClassComplexity> result = new HashMap<>();
+        private int weightedComplexity = 0;
+        private int totalComplexity = 0;
+        private int numMethods = 0;
+        // the complexity of the current method, which continues to count decision points after the method
+        private int methodComplexity = 0;
+        private int maxComplexity = 0;
+
+        @Override
+        public void visitClass(PsiClass aClass) {
+            if (!isConcreteClass(aClass)) {
+                super.visitClass(aClass);
+                return;
+            }
+            final int prevWeightedComplexity = weightedComplexity;
+            final int prevTotalComplexity = totalComplexity;
+            final int prevNumMethods = numMethods;
+            final int prevMethodComplexity = methodComplexity;
+            weightedComplexity = 0;
+            totalComplexity = 0;
+            numMethods = 0;
+            methodComplexity = 0;
+            maxComplexity = 0;
+            super.visitClass(aClass);
+            result.put(aClass, new ClassComplexity(weightedComplexity, totalComplexity, maxComplexity, numMethods));
+            weightedComplexity = prevWeightedComplexity;
+            totalComplexity = prevTotalComplexity;
+            numMethods = prevNumMethods;
+            methodComplexity = prevMethodComplexity;
+            // the maximum found before the nested class is not restored
+            maxComplexity = prevMethodComplexity;
+        }
+
+        @Override
+        public void visitMethod(PsiMethod method) {
+            final boolean hasBody = method.getBody() != null;
+            if (hasBody) {
+                methodComplexity = 1;
+            }
+            super.visitMethod(method);
+            if (methodComplexity > maxComplexity) {
+                maxComplexity = methodComplexity;
+            }
+            if (!method.hasModifierProperty(PsiModifier.ABSTRACT)) {
+                weightedComplexity++;
+            }
+            if (hasBody) {
+                totalComplexity++;
+                numMethods++;
+            }
+        }
+
+        @Override
+        public void visitForStatement(PsiForStatement statement) {
+            super.visitForStatement(statement);
+            addDecisionPoints(1);
+        }
+
+        @Override
+        public void visitForeachStatement(PsiForeachStatement statement) {
+            super.visitForeachStatement(statement);
+            addDecisionPoints(1);
+        }
+
+        @Override
+        public void visitIfStatement(PsiIfStatement statement) {
+            super.visitIfStatement(statement);
+            addDecisionPoints(1);
+        }
+
+        @Override
+        public void visitDoWhileStatement(PsiDoWhileStatement statement) {
+            super.visitDoWhileStatement(statement);
+            addDecisionPoints(1);
+        }
+
+        @Override
+        public void visitConditionalExpression(PsiConditionalExpression expression) {
+            super.visitConditionalExpression(expression);
+            addDecisionPoints(1);
+        }
+
+        @Override
+        public void visitSwitchStatement(PsiSwitchStatement statement) {
+            super.visitSwitchStatement(statement);
+            final PsiCodeBlock body = statement.getBody();
+            if (body == null) {
+                return;
+            }
+            final PsiStatement[] statements = body.getStatements();
+            boolean pendingLabel = false;
+            for (final PsiStatement child : statements) {
+                if (child instanceof PsiSwitchLabelStatement) {
+                    if (!pendingLabel) {
+                        addDecisionPoints(1);
+                    }
+                    pendingLabel = true;
+                } else {
+                    pendingLabel = false;
+                }
+            }
+        }
+
+        @Override
+        public void visitWhileStatement(PsiWhileStatement statement) {
+            super.visitWhileStatement(statement);
+            addDecisionPoints(1);
+        }
+
+        private void addDecisionPoints(int count) {
+            weightedComplexity += count;
+            totalComplexity += count;
+            methodComplexity += count;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -18,29 +18,32 @@ package com.sixrr.stockmetrics.utils;
 
 import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiReference;
-import com.intellij.psi.SmartPointerManager;
-import com.intellij.psi.SmartPsiElementPointer;
-import com.intellij.psi.search.SearchScope;
 import com.intellij.psi.search.searches.ReferencesSearch;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.WeakHashMap;
 
+/**
+ * The references to classes, searched once per class and shared by all calculators in a run. References from
+ * anywhere are found, including imports, javadoc and annotations outside of class bodies.
+ */
 public class ClassReferenceCache {
 
-    private final Map<SmartPsiElementPointer<PsiClass>, Collection<PsiReference>> cachedReferences = new WeakHashMap<>(256);
-
-    public Collection<PsiReference> findClassReferences(final PsiClass aClass) {
-        final SmartPointerManager manager = SmartPointerManager.getInstance(aClass.getProject());
-        final SmartPsiElementPointer<PsiClass> pointer = manager.createSmartPsiElementPointer(aClass);
+    private final Map<PsiClass, Collection<PsiReference>> cachedReferences = new HashMap<>(256);
 
-        final Collection<PsiReference> references = cachedReferences.get(pointer);
-        if (references == null) {
-            final SearchScope scope = aClass.getUseScope();
-            final Collection<PsiReference> newReferences = ReferencesSearch.search(aClass, scope, false).findAll();
-            cachedReferences.put(pointer, newReferences);
+    public Collection<PsiReference> findClassReferences(PsiClass aClass) {
+        synchronized (cachedReferences) {
+            final Collection<PsiReference> references = cachedReferences.get(aClass);
+            if (references != null) {
+                return references;
+            }
+        }
+        final Collection<PsiReference> references =
+                ReferencesSearch.search(aClass, aClass.getUseScope(), false).findAll();
+        synchronized (cachedReferences) {
+            final Collection<PsiReference> existing = cachedReferences.putIfAbsent(aClass, references);
+            return existing != null ? existing : references;
         }
-        return cachedReferences.get(pointer);
     }
 }
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.lang.Language;
+import com.intellij.lang.LanguageParserDefinitions;
+import com.intellij.lang.ParserDefinition;
+import com.intellij.lexer.Lexer;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.fileTypes.LanguageFileType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiCompiledElement;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.TokenType;
+import com.intellij.psi.impl.source.tree.JavaDocElementType;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.tree.TokenSet;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The lines and comments of a file, collected in a single pass of the lexer of the file's language. Lines are
+ * counted like they always were: a line is any non-blank line, the lines of a comment are the non-blank lines of its
+ * text, counted for every comment, and the comment-only lines of a comment are its lines without the first and last
+ * line when they contain code. Line breaks are {@code \n} and {@code \r}. The lines of any element in the file are
+ * counted by looking up its text range, without copying or rescanning the text of the element.
+ */
+public final class LineFacts {
+
+    private static final LineFacts EMPTY = new Builder("").build();
+
+    private final int[] lineStarts;
+    private final int lineCount;
+
+    // number of non-blank lines before the line at the index
+    private final int[] nonBlankLines;
+
+    // start offsets of the comments, and the number of lines of each kind of the comments before the index
+    private final int[] commentStarts;
+    private final int commentCount;
+    private final int[] commentLines;
+    private final int[] commentOnlyLines;
+    private final int[] javadocLines;
+
+    private LineFacts(Builder builder) {
+        lineStarts = builder.lineStarts;
+        lineCount = builder.line + 1;
+        nonBlankLines = new int[lineCount + 1];
+        for (int line = 0; line < lineCount; line++) {
+            nonBlankLines[line + 1] = nonBlankLines[line] + (builder.nonBlank[line] ? 1 : 0);
+        }
+        commentStarts = builder.commentStarts;
+        commentCount = builder.commentCount;
+        commentLines = new int[commentCount + 1];
+        commentOnlyLines = new int[commentCount + 1];
+        javadocLines = new int[commentCount + 1];
+        for (int i = 0; i < commentCount; i++) {
+            final int lines = builder.commentLineCounts[i];
+            int onlyLines = lines;
+            final int firstLine = findLine(commentStarts[i]);
+            if (builder.firstCode[firstLine] < commentStarts[i]) {
+                onlyLines = Math.max(onlyLines - 1, 0);
+            }
+            final int end = builder.commentEnds[i];
+            if (builder.lastCode[findLine(end - 1)] > end) {
+                onlyLines = Math.max(onlyLines - 1, 0);
+            }
+            commentLines[i + 1] = commentLines[i] + lines;
+            commentOnlyLines[i + 1] = commentOnlyLines[i] + onlyLines;
+            javadocLines[i + 1] = javadocLines[i] + (builder.javadoc[i] ? lines : 0);
+        }
+    }
+
+    public static LineFacts build(PsiFile file) {
+        if (file instanceof PsiCompiledElement) {
+            return EMPTY;
+        }
+        return build(file.getLanguage(), file.getViewProvider().getContents(), file.getProject());
+    }
+
+    /**
+     * Builds the line facts of a file without PSI, using the lexer of the language of the file type.
+     */
+    public static LineFacts build(VirtualFile file, CharSequence text, Project project) {
+        final FileType fileType = file.getFileType();
+        if (!(fileType instanceof LanguageFileType)) {
+            return build(null, text, project);
+        }
+        return build(((LanguageFileType) fileType).getLanguage(), text, project);
+    }
+
+    private static LineFacts build(@Nullable Language language, CharSequence text, Project project) {
+        final ParserDefinition definition =
+                language == null ? null : LanguageParserDefinitions.INSTANCE.forLanguage(language);
+        final Builder builder = new Builder(text);
+        if (definition == null) {
+            builder.addCode(0, text.length());
+            return builder.build();
+        }
+        final Lexer lexer = definition.createLexer(project);
+        final TokenSet whitespace = definition.getWhitespaceTokens();
+        final TokenSet comments = definition.getCommentTokens();
+        lexer.start(text);
+        for (IElementType type = lexer.getTokenType(); type != null; lexer.advance(), type = lexer.getTokenType()) {
+            final int start = lexer.getTokenStart();
+            final int end = lexer.getTokenEnd();
+            if (type == TokenType.WHITE_SPACE || whitespace.contains(type)) {
+                builder.addWhitespace(start, end);
+            } else if (type == JavaDocElementType.DOC_COMMENT) {
+                builder.addComment(start, end, true);
+            } else if (comments.contains(type)) {
+                builder.addComment(start, end, false);
+            } else {
+                builder.addCode(start, end);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the number of non-blank lines of the file.
+     */
+    public int countLines() {
+        return nonBlankLines[lineCount];
+    }
+
+    /**
+     * @return the number of non-blank lines of the file, minus the comment-only lines of its comments.
+     */
+    public int countCodeLines() {
+        return countLines() - commentOnlyLines[commentCount];
+    }
+
+    /**
+     * @return the number of lines of the comments of the file.
+     */
+    public int countCommentLines() {
+        return commentLines[commentCount];
+    }
+
+    /**
+     * @return the number of non-blank lines of the element.
+     */
+    public int countLines(@Nullable PsiElement element) {
+        final TextRange range = getRange(element);
+        if (range == null) {
+            return 0;
+        }
+        final int firstLine = findLine(range.getStartOffset());
+        final int lastLine = findLine(range.getEndOffset() - 1);
+        return nonBlankLines[lastLine + 1] - nonBlankLines[firstLine];
+    }
+
+    /**
+     * @return the number of non-blank lines of the element, minus the comment-only lines of its comments.
+     */
+    public int countCodeLines(@Nullable PsiElement element) {
+        return countLines(element) - countCommentOnlyLines(element);
+    }
+
+    /**
+     * @return the number of lines of the comments of the element, including javadoc comments.
+     */
+    public int countCommentLines(@Nullable PsiElement element) {
+        return countComments(commentLines, element);
+    }
+
+    /**
+     * @return the number of comment-only lines of the comments of the element.
+     */
+    public int countCommentOnlyLines(@Nullable PsiElement element) {
+        return countComments(commentOnlyLines, element);
+    }
+
+    /**
+     * @return the number of lines of the javadoc comments of the element.
+     */
+    public int countJavadocLines(@Nullable PsiElement element) {
+        return countComments(javadocLines, element);
+    }
+
+    private int countComments(int[] lines, @Nullable PsiElement element) {
+        final TextRange range = getRange(element);
+        if (range == null) {
+            return 0;
+        }
+        return lines[findComment(range.getEndOffset())] - lines[findComment(range.getStartOffset())];
+    }
+
+    @Nullable
+    private static TextRange getRange(@Nullable PsiElement element) {
+        if (element == null || element instanceof PsiCompiledElement) {
+            return null;
+        }
+        final TextRange range = element.getTextRange();
+        return range == null || range.isEmpty() ? null : range;
+    }
+
+    private int findLine(int offset) {
+        final int index = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    /**
+     * @return the index of the first comment starting at or after the offset.
+     */
+    private int findComment(int offset) {
+        final int index = Arrays.binarySearch(commentStarts, 0, commentCount, offset);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static class Builder {
+
+        private final CharSequence text;
+        int[] lineStarts = new int[64];
+        boolean[] nonBlank = new boolean[64];
+        // offsets of the first code character and after the last code character of each line
+        int[] firstCode = new int[64];
+        int[] lastCode = new int[64];
+        int line = 0;
+
+        int[] commentStarts = new int[16];
+        int[] commentEnds = new int[16];
+        int[] commentLineCounts = new int[16];
+        boolean[] javadoc = new boolean[16];
+        int commentCount = 0;
+
+        Builder(CharSequence text) {
+            this.text = text;
+            firstCode[0] = Integer.MAX_VALUE;
+            lastCode[0] = -1;
+        }
+
+        void addWhitespace(int start, int end) {
+            addToken(start, end, false);
+        }
+
+        void addCode(int start, int end) {
+            addToken(start, end, true);
+        }
+
+        void addComment(int start, int end, boolean doc) {
+            if (commentCount == commentStarts.length) {
+                final int length = commentCount << 1;
+                commentStarts = Arrays.copyOf(commentStarts, length);
+                commentEnds = Arrays.copyOf(commentEnds, length);
+                commentLineCounts = Arrays.copyOf(commentLineCounts, length);
+                javadoc = Arrays.copyOf(javadoc, length);
+            }
+            commentStarts[commentCount] = start;
+            commentEnds[commentCount] = end;
+            commentLineCounts[commentCount] = addToken(start, end, false);
+            javadoc[commentCount] = doc;
+            commentCount++;
+        }
+
+        /**
+         * @return the number of lines on which the token has non-blank characters.
+         */
+        private int addToken(int start, int end, boolean code) {
+            int lines = 0;
+            boolean onEmptyLine = true;
+            for (int i = start; i < end; i++) {
+                final char c = text.charAt(i);
+                if (c == '\n' || c == '\r') {
+                    newLine(i + 1);
+                    onEmptyLine = true;
+                } else if (c != ' ' && c != '\t') {
+                    nonBlank[line] = true;
+                    if (code) {
+                        firstCode[line] = Math.min(firstCode[line], i);
+                        lastCode[line] = i + 1;
+                    }
+                    if (onEmptyLine) {
+                        lines++;
+                        onEmptyLine = false;
+                    }
+                }
+            }
+            return lines;
+        }
+
+        private void newLine(int start) {
+            line++;
+            if (line == lineStarts.length) {
+                final int length = line << 1;
+                lineStarts = Arrays.copyOf(lineStarts, length);
+                nonBlank = Arrays.copyOf(nonBlank, length);
+                firstCode = Arrays.copyOf(firstCode, length);
+                lastCode = Arrays.copyOf(lastCode, length);
+            }
+            lineStarts[line] = start;
+            firstCode[line] = Integer.MAX_VALUE;
+            lastCode[line] = -1;
+        }
+
+        LineFacts build() {
+            return new LineFacts(this);
+        }
+    }
+}
@@ -23,105 +23,25 @@ import com.intellij.psi.search.PsiElementProcessor;
 import com.intellij.psi.tree.IElementType;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
+
+import java.util.function.ToIntFunction;
 
 public final class LineUtil {
 
     private LineUtil() {}
 
-    public static int countLines(@Nullable PsiElement element) {
-        if (element == null || element instanceof PsiCompiledElement) {
-            return 0;
-        }
-        return countLines(element.getText());
-    }
-
-    static int countLines(String text) {
-        if (text == null) {
-            return 0;
-        }
-        int lines = 0;
-        boolean onEmptyLine = true;
-        final char[] chars = text.toCharArray();
-        for (char aChar : chars) {
-            if (aChar == '\n' || aChar == '\r') {
-                if (!onEmptyLine) {
-                    lines++;
-                    onEmptyLine = true;
-                }
-            } else if (aChar != ' ' && aChar != '\t') {
-                onEmptyLine = false;
-            }
-        }
-        if (!onEmptyLine) {
-            lines++;
+    /**
+     * @param count  one of the line counting methods of {@link LineFacts}
+     * @return the number of lines of the class, not counting the lines of its inner classes.
+     */
+    public static int countClassLines(PsiClass aClass, ToIntFunction<PsiElement> count) {
+        int lines = count.applyAsInt(aClass);
+        for (PsiClass innerClass : aClass.getInnerClasses()) {
+            lines -= count.applyAsInt(innerClass);
         }
         return lines;
     }
 
-    public static int countCommentOnlyLines(PsiComment comment) {
-        final String text = comment.getText();
-        int totalLines = countLines(text);
-        boolean isOnSameLineBeforeCode = false;
-        if (!endsInLineBreak(comment)) {
-            PsiElement nextSibling = comment.getNextSibling();
-
-            while (nextSibling != null) {
-                if (nextSibling instanceof PsiComment ||
-                        nextSibling instanceof PsiWhiteSpace) {
-                    if (containsLineBreak(nextSibling)) {
-                        break;
-                    }
-                } else {
-                    isOnSameLineBeforeCode = true;
-                }
-                nextSibling = nextSibling.getNextSibling();
-            }
-        }
-        boolean isOnSameLineAfterCode = false;
-        PsiElement prevSibling = comment.getPrevSibling();
-        while (prevSibling != null) {
-            if (prevSibling instanceof PsiComment ||
-                    prevSibling instanceof PsiWhiteSpace) {
-                if (containsLineBreak(prevSibling)) {
-                    break;
-                }
-            } else {
-                isOnSameLineAfterCode = true;
-            }
-            prevSibling = prevSibling.getPrevSibling();
-        }
-
-        if (isOnSameLineAfterCode) {
-            totalLines = Math.max(totalLines - 1, 0);
-        }
-        if (isOnSameLineBeforeCode) {
-            totalLines = Math.max(totalLines - 1, 0);
-        }
-
-        return totalLines;
-    }
-
-    private static boolean endsInLineBreak(PsiElement element) {
-        if (element == null) {
-            return false;
-        }
-        final String text = element.getText();
-        if (text == null) {
-            return false;
-        }
-        final char endChar = text.charAt(text.length() - 1);
-        return endChar == '\n' || endChar == '\r';
-    }
-
-    private static boolean containsLineBreak(PsiElement element) {
-        if (element == null) {
-            return false;
-        }
-        final String text = element.getText();
-        return text != null && (text.contains("\n") || text.contains("\r"));
-    }
-
     public static String getCommentText(PsiComment comment) {
         if (comment instanceof PsiDocComment) {
             final PsiDocComment docComment = (PsiDocComment)comment;
@@ -140,6 +60,11 @@ public final class LineUtil {
         }
     }
 
+    /**
+     * Counts the comment lines of a method the way the method level comment lines of code metric always did: the
+     * lines of the comment text without delimiters and javadoc tags, where comments following each other on a line
+     * count once.
+     */
     public static int calculateCommentLinesOfCode(PsiElement element) {
         final CommentLinesOfCodeProcessor processor = new CommentLinesOfCodeProcessor();
         PsiTreeUtil.processElements(element, processor);
@@ -17,14 +17,14 @@
 package com.sixrr.stockmetrics.utils;
 
 import com.intellij.psi.PsiMethod;
-import com.intellij.psi.PsiReference;
-
-import java.util.Set;
 
+/**
+ * Number of references to each method in the project, including the references to the methods it overrides.
+ */
 public interface MethodCallMap {
-    Set<PsiReference> calculateMethodCallPoints(PsiMethod method);
+    int countMethodCalls(PsiMethod method);
 
-    Set<PsiReference> calculateTestMethodCallPoints(PsiMethod method);
+    int countTestMethodCalls(PsiMethod method);
 
-    Set<PsiReference> calculateProductMethodCallPoints(PsiMethod method);
+    int countProductMethodCalls(PsiMethod method);
 }
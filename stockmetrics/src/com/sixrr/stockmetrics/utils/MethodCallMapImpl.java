@@ -1,5 +1,5 @@
 /*
- * Copyright 2005-2020 Sixth and Red River Software, Bas Leijdekkers
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
  *
  *  Licensed under the Apache License, Version 2.0 (the "License");
  *  you may not use this file except in compliance with the License.
@@ -17,86 +17,129 @@
 package com.sixrr.stockmetrics.utils;
 
 import com.intellij.psi.*;
-import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.javadoc.PsiDocTagValue;
 import com.intellij.psi.util.PsiTreeUtil;
-import com.intellij.util.Query;
 import com.sixrr.metrics.utils.TestUtils;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Built by passing every file of the project to {@link #build(PsiJavaFile)}, which resolves each reference to a method
+ * once and counts it for the method referenced. Like a references search, this counts calls, method references and
+ * the other references to a method inside a class, e.g. in javadoc {@code @link} and {@code @see} tags, or
+ * annotation attribute names. Calls to overridden methods are added when the counts of a method are requested,
+ * which may happen on several threads at once.
+ */
 public class MethodCallMapImpl implements MethodCallMap {
-    private final Map<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>> methodToCallPointMap = new HashMap<>(1024);
-    private final Map<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>> methodToTestCallPointMap = new HashMap<>(1024);
-    private final Map<SmartPsiElementPointer<PsiMethod>, Set<PsiReference>> methodToProductCallPointMap = new HashMap<>(1024);
+
+    private static final int ALL = 0;
+    private static final int TEST = 1;
+    private static final int PRODUCT = 2;
+
+    private final Map<PsiMethod, int[]> callCounts = new HashMap<>(1024);
+    private final Map<PsiMethod, int[]> inheritedCallCounts = new ConcurrentHashMap<>(1024);
 
     @Override
-    public Set<PsiReference> calculateMethodCallPoints(PsiMethod method) {
-        final SmartPointerManager manager = SmartPointerManager.getInstance(method.getProject());
-        final SmartPsiElementPointer<PsiMethod> pointer = manager.createSmartPsiElementPointer(method);
-        if (!methodToCallPointMap.containsKey(pointer)) {
-            calculateCalls(method);
-        }
-        return methodToCallPointMap.get(pointer);
+    public int countMethodCalls(PsiMethod method) {
+        return getInheritedCallCounts(method)[ALL];
     }
 
     @Override
-    public Set<PsiReference> calculateTestMethodCallPoints(PsiMethod method) {
-        final SmartPointerManager manager = SmartPointerManager.getInstance(method.getProject());
-        final SmartPsiElementPointer<PsiMethod> pointer = manager.createSmartPsiElementPointer(method);
-        if (!methodToTestCallPointMap.containsKey(pointer)) {
-            calculateCalls(method);
-        }
-        return methodToTestCallPointMap.get(pointer);
+    public int countTestMethodCalls(PsiMethod method) {
+        return getInheritedCallCounts(method)[TEST];
     }
 
     @Override
-    public Set<PsiReference> calculateProductMethodCallPoints(PsiMethod method) {
-        final SmartPointerManager manager = SmartPointerManager.getInstance(method.getProject());
-        final SmartPsiElementPointer<PsiMethod> pointer = manager.createSmartPsiElementPointer(method);
-        if (!methodToProductCallPointMap.containsKey(pointer)) {
-            calculateCalls(method);
+    public int countProductMethodCalls(PsiMethod method) {
+        return getInheritedCallCounts(method)[PRODUCT];
+    }
+
+    private int[] getInheritedCallCounts(PsiMethod method) {
+        final int[] cached = inheritedCallCounts.get(method);
+        if (cached != null) {
+            return cached;
         }
-        return methodToProductCallPointMap.get(pointer);
+        // every call resolves to a single method, so the counts of distinct super methods can simply be added
+        final int[] counts = new int[3];
+        final Set<PsiMethod> visited = new HashSet<>();
+        final Deque<PsiMethod> pending = new ArrayDeque<>();
+        pending.add(method);
+        while (!pending.isEmpty()) {
+            final PsiMethod pendingMethod = pending.pop();
+            if (!visited.add(pendingMethod)) {
+                continue;
+            }
+            final int[] ownCounts = callCounts.get(pendingMethod);
+            if (ownCounts != null) {
+                counts[ALL] += ownCounts[ALL];
+                counts[TEST] += ownCounts[TEST];
+                counts[PRODUCT] += ownCounts[PRODUCT];
+            }
+            Collections.addAll(pending, pendingMethod.findSuperMethods());
+        }
+        final int[] existing = inheritedCallCounts.putIfAbsent(method, counts);
+        return existing != null ? existing : counts;
     }
 
-    private void calculateCalls(final PsiMethod method) {
-        final Set<PsiReference> allCalls = new HashSet<>(4);
-        final Set<PsiReference> testCalls = new HashSet<>(4);
-        final Set<PsiReference> productCalls = new HashSet<>(4);
-
-        final Query<PsiReference> query = ReferencesSearch.search(method);
-        for (final PsiReference reference : query) {
-            final PsiElement element = reference.getElement();
-
-            final PsiClass referencingClass = PsiTreeUtil.getParentOfType(element, PsiClass.class);
-            if (referencingClass != null) {
-                allCalls.add(reference);
-                if (TestUtils.isTest(referencingClass)) {
-                    testCalls.add(reference);
-                } else if (TestUtils.isProduction(referencingClass)) {
-                    productCalls.add(reference);
+    public void build(PsiJavaFile file) {
+        final boolean test = TestUtils.isTest(file);
+        final boolean product = !test && TestUtils.isProduction(file);
+        file.accept(new JavaRecursiveElementWalkingVisitor() {
+
+            @Override
+            public void visitCallExpression(PsiCallExpression callExpression) {
+                super.visitCallExpression(callExpression);
+                addCall(callExpression.resolveMethod());
+            }
+
+            @Override
+            public void visitMethodReferenceExpression(PsiMethodReferenceExpression expression) {
+                super.visitMethodReferenceExpression(expression);
+                final PsiElement target = expression.resolve();
+                if (target instanceof PsiMethod) {
+                    addCall((PsiMethod) target);
                 }
             }
-        }
 
-        final PsiMethod[] ancestorMethods = method.findSuperMethods();
-        for (PsiMethod ancestorMethod : ancestorMethods) {
-            final Set<PsiReference> ancestorCalls = calculateMethodCallPoints(ancestorMethod);
-            allCalls.addAll(ancestorCalls);
-            final Set<PsiReference> ancestorTestCalls =
-                    calculateTestMethodCallPoints(ancestorMethod);
-            testCalls.addAll(ancestorTestCalls);
-            final Set<PsiReference> ancestorProductCalls =
-                    calculateProductMethodCallPoints(ancestorMethod);
-            productCalls.addAll(ancestorProductCalls);
-        }
-        final SmartPointerManager manager = SmartPointerManager.getInstance(method.getProject());
-        final SmartPsiElementPointer<PsiMethod> pointer = manager.createSmartPsiElementPointer(method);
-        methodToCallPointMap.put(pointer, allCalls);
-        methodToProductCallPointMap.put(pointer, productCalls);
-        methodToTestCallPointMap.put(pointer, testCalls);
+            @Override
+            public void visitDocTagValue(PsiDocTagValue value) {
+                super.visitDocTagValue(value);
+                addReference(value, value.getReference());
+            }
+
+            @Override
+            public void visitNameValuePair(PsiNameValuePair pair) {
+                super.visitNameValuePair(pair);
+                addReference(pair, pair.getReference());
+            }
+
+            private void addReference(PsiElement element, PsiReference reference) {
+                if (reference == null || PsiTreeUtil.getParentOfType(element, PsiClass.class) == null) {
+                    return;
+                }
+                final PsiElement target = reference.resolve();
+                if (target instanceof PsiMethod) {
+                    addCall((PsiMethod) target);
+                }
+            }
+
+            private void addCall(PsiMethod method) {
+                if (method == null) {
+                    return;
+                }
+                int[] counts = callCounts.get(method);
+                if (counts == null) {
+                    counts = new int[3];
+                    callCounts.put(method, counts);
+                }
+                counts[ALL]++;
+                if (test) {
+                    counts[TEST]++;
+                } else if (product) {
+                    counts[PRODUCT]++;
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.psi.*;
+
+/**
+ * The complexity facts of a single method. Every fact is calculated when it is first requested, so a method is only
+ * analyzed for the metrics that are actually used, and only once for all calculators that use them.
+ */
+public class MethodComplexity {
+
+    private final PsiMethod method;
+    private int cyclomaticComplexity = -1;
+    private int essentialComplexity = -1;
+    private int designComplexity = -1;
+    private int cognitiveComplexity = -1;
+    private int nestingDepth = Integer.MIN_VALUE;
+    private int conditionalNestingDepth = -1;
+    private int loopNestingDepth = -1;
+
+    MethodComplexity(PsiMethod method) {
+        this.method = method;
+    }
+
+    public int getCyclomaticComplexity() {
+        if (cyclomaticComplexity < 0) {
+            cyclomaticComplexity = CyclomaticComplexity.calculate(method);
+        }
+        return cyclomaticComplexity;
+    }
+
+    public int getEssentialComplexity() {
+        if (essentialComplexity < 0) {
+            essentialComplexity = EssentialComplexity.calculate(method);
+        }
+        return essentialComplexity;
+    }
+
+    public int getDesignComplexity() {
+        if (designComplexity < 0) {
+            designComplexity = DesignComplexity.calculate(method);
+        }
+        return designComplexity;
+    }
+
+    public int getCognitiveComplexity() {
+        if (cognitiveComplexity < 0) {
+            cognitiveComplexity = CognitiveComplexity.calculate(method.getBody());
+        }
+        return cognitiveComplexity;
+    }
+
+    /**
+     * @return the maximum depth of code blocks and classes nested inside the body of the method, or -1 if the method
+     * has no body.
+     */
+    public int getNestingDepth() {
+        if (nestingDepth == Integer.MIN_VALUE) {
+            calculateNestingDepths();
+        }
+        return nestingDepth;
+    }
+
+    /**
+     * @return the maximum depth of nested if statements, where an else-if does not increase the depth.
+     */
+    public int getConditionalNestingDepth() {
+        if (conditionalNestingDepth < 0) {
+            calculateNestingDepths();
+        }
+        return conditionalNestingDepth;
+    }
+
+    /**
+     * @return the maximum depth of nested loop statements.
+     */
+    public int getLoopNestingDepth() {
+        if (loopNestingDepth < 0) {
+            calculateNestingDepths();
+        }
+        return loopNestingDepth;
+    }
+
+    private void calculateNestingDepths() {
+        final NestingDepthVisitor visitor = new NestingDepthVisitor();
+        method.accept(visitor);
+        nestingDepth = visitor.maximumBlockDepth - 1;
+        conditionalNestingDepth = visitor.maximumConditionalDepth;
+        loopNestingDepth = visitor.maximumLoopDepth;
+    }
+
+    private static class NestingDepthVisitor extends JavaRecursiveElementVisitor {
+
+        private int blockDepth = 0;
+        private int maximumBlockDepth = 0;
+        private int conditionalDepth = 0;
+        private int maximumConditionalDepth = 0;
+        private int loopDepth = 0;
+        private int maximumLoopDepth = 0;
+
+        @Override
+        public void visitCodeBlock(PsiCodeBlock block) {
+            blockDepth++;
+            maximumBlockDepth = Math.max(maximumBlockDepth, blockDepth);
+            super.visitCodeBlock(block);
+            blockDepth--;
+        }
+
+        @Override
+        public void visitClass(PsiClass aClass) {
+            blockDepth++;
+            maximumBlockDepth = Math.max(maximumBlockDepth, blockDepth);
+            super.visitClass(aClass);
+            blockDepth--;
+        }
+
+        @Override
+        public void visitIfStatement(PsiIfStatement statement) {
+            final PsiElement parent = statement.getParent();
+            final boolean elseIf = parent instanceof PsiIfStatement &&
+                    statement.equals(((PsiIfStatement) parent).getElseBranch());
+            if (elseIf) {
+                super.visitIfStatement(statement);
+                return;
+            }
+            conditionalDepth++;
+            maximumConditionalDepth = Math.max(maximumConditionalDepth, conditionalDepth);
+            super.visitIfStatement(statement);
+            conditionalDepth--;
+        }
+
+        @Override
+        public void visitDoWhileStatement(PsiDoWhileStatement statement) {
+            loopDepth++;
+            maximumLoopDepth = Math.max(maximumLoopDepth, loopDepth);
+            super.visitDoWhileStatement(statement);
+            loopDepth--;
+        }
+
+        @Override
+        public void visitWhileStatement(PsiWhileStatement statement) {
+            loopDepth++;
+            maximumLoopDepth = Math.max(maximumLoopDepth, loopDepth);
+            super.visitWhileStatement(statement);
+            loopDepth--;
+        }
+
+        @Override
+        public void visitForStatement(PsiForStatement statement) {
+            loopDepth++;
+            maximumLoopDepth = Math.max(maximumLoopDepth, loopDepth);
+            super.visitForStatement(statement);
+            loopDepth--;
+        }
+
+        @Override
+        public void visitForeachStatement(PsiForeachStatement statement) {
+            loopDepth++;
+            maximumLoopDepth = Math.max(maximumLoopDepth, loopDepth);
+            super.visitForeachStatement(statement);
+            loopDepth--;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.psi.PsiMethod;
+import com.sixrr.metrics.utils.FileCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares the complexity facts of methods between all calculators in a run.
+ */
+public class MethodComplexityCache {
+
+    private final FileCache<Map<PsiMethod, MethodComplexity>> cache = new FileCache<>(file -> new ConcurrentHashMap<>());
+
+    public MethodComplexity getComplexity(PsiMethod method) {
+        return cache.get(method).computeIfAbsent(method, MethodComplexity::new);
+    }
+}
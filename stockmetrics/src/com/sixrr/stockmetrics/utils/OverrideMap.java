@@ -0,0 +1,53 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.psi.PsiMethod;
+
+import java.util.Set;
+
+/**
+ * The super methods and overriding methods of all methods in the project, as found by
+ * {@link PsiMethod#findSuperMethods()}. Overriding methods include the methods of anonymous classes.
+ */
+public interface OverrideMap {
+
+    /**
+     * @return the number of methods the method directly overrides or implements.
+     */
+    int countSuperMethods(PsiMethod method);
+
+    /**
+     * @return true, if the method directly or indirectly overrides a method which is not abstract.
+     */
+    boolean hasConcreteSuperMethod(PsiMethod method);
+
+    /**
+     * @return the number of methods directly or indirectly overriding the method.
+     */
+    int countOverridingMethods(PsiMethod method);
+
+    /**
+     * @return the number of methods directly or indirectly overriding the method, which are not abstract.
+     */
+    int countImplementingMethods(PsiMethod method);
+
+    /**
+     * @return the methods directly or indirectly overridden by any of the specified methods.
+     */
+    Set<PsiMethod> findOverriddenMethods(PsiMethod[] overridingMethods);
+}
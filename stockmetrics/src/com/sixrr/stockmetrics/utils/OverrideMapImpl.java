@@ -0,0 +1,172 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.psi.*;
+import com.sixrr.metrics.utils.CompactGraph;
+import com.sixrr.metrics.utils.GraphCondensation;
+import com.sixrr.metrics.utils.IndexedSet;
+import com.sixrr.metrics.utils.MethodUtils;
+import com.sixrr.metrics.utils.StronglyConnectedComponents;
+
+import java.util.*;
+
+/**
+ * Built by passing every file of the project to {@link #build(PsiJavaFile)}, which resolves the super methods of each
+ * method once, followed by a call to {@link #finishBuilding()}. Super methods in libraries are resolved once as well,
+ * so indirectly overridden methods can be found without searching. Only methods which override or are overridden
+ * are stored. Once built, the map is not modified anymore and can be queried from several threads at once.
+ */
+public class OverrideMapImpl implements OverrideMap {
+
+    private final IndexedSet<PsiMethod> methods = new IndexedSet<>();
+    private final BitSet abstractMethods = new BitSet();
+    private Set<PsiMethod> resolvedMethods = new HashSet<>(1024);
+    private CompactGraph.Builder builder = new CompactGraph.Builder();
+    private CompactGraph graph = null;
+    private int[] overridingCounts = null;
+    private int[] implementingCounts = null;
+
+    @Override
+    public int countSuperMethods(PsiMethod method) {
+        final int id = methods.indexOf(method);
+        return graph.edgesEnd(id) - graph.edgesStart(id);
+    }
+
+    @Override
+    public boolean hasConcreteSuperMethod(PsiMethod method) {
+        final int id = methods.indexOf(method);
+        if (id < 0) {
+            return false;
+        }
+        // an abstract method may itself override a concrete method, e.g. an abstract redeclaration of toString()
+        final BitSet visited = new BitSet();
+        final Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(Integer.valueOf(id));
+        while (!pending.isEmpty()) {
+            final int pendingId = pending.pop().intValue();
+            for (int i = graph.edgesStart(pendingId), end = graph.edgesEnd(pendingId); i < end; i++) {
+                final int superMethod = graph.getTarget(i);
+                if (!abstractMethods.get(superMethod)) {
+                    return true;
+                }
+                if (!visited.get(superMethod)) {
+                    visited.set(superMethod);
+                    pending.push(Integer.valueOf(superMethod));
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int countOverridingMethods(PsiMethod method) {
+        final int id = methods.indexOf(method);
+        return id < 0 ? 0 : overridingCounts[id];
+    }
+
+    @Override
+    public int countImplementingMethods(PsiMethod method) {
+        final int id = methods.indexOf(method);
+        return id < 0 ? 0 : implementingCounts[id];
+    }
+
+    @Override
+    public Set<PsiMethod> findOverriddenMethods(PsiMethod[] overridingMethods) {
+        final Set<PsiMethod> result = new HashSet<>();
+        final BitSet visited = new BitSet();
+        final Deque<Integer> pending = new ArrayDeque<>();
+        for (PsiMethod method : overridingMethods) {
+            final int id = methods.indexOf(method);
+            if (id >= 0) {
+                pending.push(Integer.valueOf(id));
+            }
+        }
+        while (!pending.isEmpty()) {
+            final int id = pending.pop().intValue();
+            for (int i = graph.edgesStart(id), end = graph.edgesEnd(id); i < end; i++) {
+                final int superMethod = graph.getTarget(i);
+                if (!visited.get(superMethod)) {
+                    visited.set(superMethod);
+                    result.add(methods.get(superMethod));
+                    pending.push(Integer.valueOf(superMethod));
+                }
+            }
+        }
+        return result;
+    }
+
+    public void build(PsiJavaFile file) {
+        file.accept(new JavaRecursiveElementWalkingVisitor() {
+
+            @Override
+            public void visitMethod(PsiMethod method) {
+                super.visitMethod(method);
+                resolveSuperMethods(method);
+            }
+        });
+    }
+
+    private void resolveSuperMethods(PsiMethod method) {
+        final Deque<PsiMethod> pending = new ArrayDeque<>();
+        pending.push(method);
+        while (!pending.isEmpty()) {
+            final PsiMethod pendingMethod = pending.pop();
+            if (!resolvedMethods.add(pendingMethod) || pendingMethod.isConstructor() ||
+                    pendingMethod.hasModifierProperty(PsiModifier.STATIC) ||
+                    pendingMethod.hasModifierProperty(PsiModifier.PRIVATE)) {
+                continue;
+            }
+            final PsiMethod[] superMethods = pendingMethod.findSuperMethods();
+            if (superMethods.length == 0) {
+                continue;
+            }
+            final int id = addMethod(pendingMethod);
+            for (PsiMethod superMethod : superMethods) {
+                builder.addEdge(id, addMethod(superMethod));
+                pending.push(superMethod);
+            }
+        }
+    }
+
+    private int addMethod(PsiMethod method) {
+        final int id = methods.add(method);
+        if (MethodUtils.isAbstract(method)) {
+            abstractMethods.set(id);
+        }
+        return id;
+    }
+
+    public void finishBuilding() {
+        final int methodCount = methods.size();
+        graph = builder.build(methodCount, methodCount);
+        builder = null;
+        resolvedMethods = null;
+
+        // edges go from a method to its super methods, so the overriding methods are the methods that can reach it
+        final StronglyConnectedComponents components = StronglyConnectedComponents.compute(graph);
+        final GraphCondensation condensation = new GraphCondensation(graph, components);
+        final int[] concreteReachingCounts = condensation.calculateReachingCounts(id -> !abstractMethods.get(id));
+        overridingCounts = new int[methodCount];
+        implementingCounts = new int[methodCount];
+        for (int id = 0; id < methodCount; id++) {
+            final int component = components.getComponentId(id);
+            overridingCounts[id] = condensation.getReachingCount(component) - 1;
+            implementingCounts[id] = concreteReachingCounts[component] - (abstractMethods.get(id) ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.codeInsight.AnnotationUtil;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.sixrr.metrics.utils.FileCache;
+import org.jetbrains.annotations.NonNls;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classifies files, classes and methods as test or production code, and shares the results between all calculators
+ * in a run. The base class and annotations of JUnit 3, 4 and 5 and TestNG are looked up only once. The results are
+ * memoized in concurrent maps, so the classifier can be used from several threads at once.
+ */
+public class TestClassifier {
+
+    private static final int TEST = 1;
+    private static final int PRODUCTION = 2;
+
+    @NonNls private static final String TESTNG_TEST = "org.testng.annotations.Test";
+    @NonNls private static final Set<String> TEST_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "org.junit.Test",
+            "org.junit.jupiter.api.Test",
+            "org.junit.jupiter.api.RepeatedTest",
+            "org.junit.jupiter.api.TestFactory",
+            "org.junit.jupiter.api.TestTemplate",
+            "org.junit.jupiter.params.ParameterizedTest",
+            TESTNG_TEST));
+    @NonNls private static final Set<String> TESTNG_CONFIGURATION_ANNOTATIONS = new HashSet<>(Arrays.asList(
+            "org.testng.annotations.BeforeMethod",
+            "org.testng.annotations.AfterMethod",
+            "org.testng.annotations.BeforeClass",
+            "org.testng.annotations.AfterClass",
+            "org.testng.annotations.BeforeTest",
+            "org.testng.annotations.AfterTest",
+            "org.testng.annotations.BeforeSuite",
+            "org.testng.annotations.AfterSuite",
+            "org.testng.annotations.BeforeGroups",
+            "org.testng.annotations.AfterGroups",
+            "org.testng.annotations.DataProvider",
+            "org.testng.annotations.Factory"));
+
+    private final ProjectFileIndex fileIndex;
+    private final PsiClass testCaseClass;
+    private final Map<VirtualFile, Integer> fileKinds = new ConcurrentHashMap<>();
+    private final Map<PsiClass, Boolean> testCaseSubclasses = new ConcurrentHashMap<>();
+    private final Map<PsiClass, Boolean> testCases = new ConcurrentHashMap<>();
+    private final FileCache<Map<PsiMethod, Boolean>> testMethods = new FileCache<>(file -> new ConcurrentHashMap<>());
+
+    public TestClassifier(Project project) {
+        fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+        final JavaPsiFacade psiFacade = JavaPsiFacade.getInstance(project);
+        testCaseClass = psiFacade.findClass("junit.framework.TestCase", GlobalSearchScope.allScope(project));
+    }
+
+    /**
+     * @return true, if the element is in a test source root.
+     */
+    public boolean isTest(PsiElement element) {
+        return (getFileKind(element) & TEST) != 0;
+    }
+
+    /**
+     * @return true, if the element is in a source root which is not a test source root.
+     */
+    public boolean isProduction(PsiElement element) {
+        return (getFileKind(element) & PRODUCTION) != 0;
+    }
+
+    private int getFileKind(PsiElement element) {
+        final PsiFile file = element.getContainingFile();
+        if (file == null) {
+            return 0;
+        }
+        final VirtualFile virtualFile = file.getVirtualFile();
+        if (virtualFile == null) {
+            return 0;
+        }
+        final Integer cached = fileKinds.get(virtualFile);
+        if (cached != null) {
+            return cached.intValue();
+        }
+        final int kind = fileIndex.isInTestSourceContent(virtualFile)
+                         ? TEST
+                         : fileIndex.isInSourceContent(virtualFile) ? PRODUCTION : 0;
+        fileKinds.put(virtualFile, Integer.valueOf(kind));
+        return kind;
+    }
+
+    /**
+     * @return true, if the class extends the JUnit 3 TestCase class, is annotated as a TestNG test class, or has test
+     * methods annotated for JUnit 4 or 5 or TestNG.
+     */
+    public boolean isTestCase(PsiClass aClass) {
+        final Boolean cached = testCases.get(aClass);
+        if (cached != null) {
+            return cached.booleanValue();
+        }
+        final boolean testCase = calculateIsTestCase(aClass);
+        testCases.put(aClass, Boolean.valueOf(testCase));
+        return testCase;
+    }
+
+    private boolean calculateIsTestCase(PsiClass aClass) {
+        if (isTestCaseSubclass(aClass) || AnnotationUtil.isAnnotated(aClass, TESTNG_TEST, 0)) {
+            return true;
+        }
+        for (PsiMethod method : aClass.getMethods()) {
+            if (AnnotationUtil.findAnnotation(method, TEST_ANNOTATIONS) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isTestCaseSubclass(PsiClass aClass) {
+        if (testCaseClass == null) {
+            return false;
+        }
+        // walk up to the first superclass with a known status, guarding against cyclic inheritance in broken code
+        final List<PsiClass> superClasses = new ArrayList<>();
+        final Set<PsiClass> visited = new HashSet<>();
+        boolean testCase = false;
+        PsiClass superClass = aClass.getSuperClass();
+        while (superClass != null && visited.add(superClass)) {
+            if (superClass.equals(testCaseClass)) {
+                testCase = true;
+                break;
+            }
+            final Boolean known = testCaseSubclasses.get(superClass);
+            if (known != null) {
+                testCase = known.booleanValue();
+                break;
+            }
+            superClasses.add(superClass);
+            superClass = superClass.getSuperClass();
+        }
+        for (PsiClass aSuperClass : superClasses) {
+            testCaseSubclasses.put(aSuperClass, Boolean.valueOf(testCase));
+        }
+        testCaseSubclasses.put(aClass, Boolean.valueOf(testCase));
+        return testCase;
+    }
+
+    /**
+     * @return true, if the method is annotated as a JUnit 4 or 5 or TestNG test, is a public method of a TestNG test
+     * class which is not a TestNG configuration, data provider or factory method, or is a public void method named
+     * test* of a test case.
+     */
+    public boolean isTestMethod(PsiMethod method) {
+        return testMethods.get(method).computeIfAbsent(method, m -> Boolean.valueOf(calculateIsTestMethod(m)))
+                .booleanValue();
+    }
+
+    private boolean calculateIsTestMethod(PsiMethod method) {
+        if (AnnotationUtil.findAnnotation(method, TEST_ANNOTATIONS) != null) {
+            return true;
+        }
+        if (method.isConstructor() || !method.hasModifierProperty(PsiModifier.PUBLIC) ||
+                method.hasModifierProperty(PsiModifier.STATIC)) {
+            return false;
+        }
+        final PsiClass containingClass = method.getContainingClass();
+        if (containingClass == null) {
+            return false;
+        }
+        if (AnnotationUtil.isAnnotated(containingClass, TESTNG_TEST, 0)) {
+            return AnnotationUtil.findAnnotation(method, TESTNG_CONFIGURATION_ANNOTATIONS) == null;
+        }
+        @NonNls final String methodName = method.getName();
+        return methodName.startsWith("test") && PsiType.VOID.equals(method.getReturnType()) &&
+                isTestCase(containingClass);
+    }
+
+    /**
+     * @return true, if the call is an assert* or fail call inside a test method.
+     */
+    public boolean isTestAssertCall(PsiMethodCallExpression call) {
+        final PsiReferenceExpression methodExpression = call.getMethodExpression();
+        @NonNls final String methodName = methodExpression.getReferenceName();
+        if (methodName == null || !methodName.startsWith("assert") && !"fail".equals(methodName)) {
+            return false;
+        }
+        final PsiMethod containingMethod = PsiTreeUtil.getParentOfType(call, PsiMethod.class);
+        return containingMethod != null && isTestMethod(containingMethod);
+    }
+}
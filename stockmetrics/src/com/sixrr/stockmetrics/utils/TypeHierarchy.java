@@ -0,0 +1,49 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.psi.PsiClass;
+
+/**
+ * The inheritance relations between all classes of the project. Inheritors include anonymous classes.
+ */
+public interface TypeHierarchy {
+
+    /**
+     * @return the number of classes and interfaces directly extending or implementing the class.
+     */
+    int countDirectInheritors(PsiClass aClass);
+
+    /**
+     * @return the number of classes, not interfaces, directly or indirectly extending or implementing the class.
+     */
+    int countClassInheritors(PsiClass aClass);
+
+    /**
+     * @return the number of interfaces directly or indirectly extending the interface.
+     */
+    int countInterfaceInheritors(PsiClass aClass);
+
+    /**
+     * @return the number of superclasses of the class, e.g. 1 for a class only extending {@code java.lang.Object}.
+     */
+    int getInheritanceDepth(PsiClass aClass);
+
+    boolean isLeaf(PsiClass aClass);
+
+    boolean isRoot(PsiClass aClass);
+}
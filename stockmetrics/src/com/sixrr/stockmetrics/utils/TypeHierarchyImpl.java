@@ -0,0 +1,163 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.stockmetrics.utils;
+
+import com.intellij.psi.*;
+import com.sixrr.metrics.utils.CompactGraph;
+import com.sixrr.metrics.utils.GraphCondensation;
+import com.sixrr.metrics.utils.IndexedSet;
+import com.sixrr.metrics.utils.StronglyConnectedComponents;
+
+import java.util.*;
+
+/**
+ * Built by passing every file of the project to {@link #build(PsiJavaFile)}, which records the extends and implements
+ * edges of each class once, followed by a call to {@link #finishBuilding()}, which counts the inheritors of all
+ * classes in one pass over the condensed graph. Depths of inheritance are calculated on request, and every class is
+ * only resolved once.
+ */
+public class TypeHierarchyImpl implements TypeHierarchy {
+
+    private final IndexedSet<PsiClass> classes = new IndexedSet<>();
+    private final BitSet interfaces = new BitSet();
+    private CompactGraph.Builder builder = new CompactGraph.Builder();
+    private CompactGraph graph = null;
+    private int[] classInheritorCounts = null;
+    private int[] interfaceInheritorCounts = null;
+    private final Map<PsiClass, Integer> depths = new HashMap<>(1024);
+
+    @Override
+    public int countDirectInheritors(PsiClass aClass) {
+        final int id = classes.indexOf(aClass);
+        return graph.reverseEdgesEnd(id) - graph.reverseEdgesStart(id);
+    }
+
+    @Override
+    public int countClassInheritors(PsiClass aClass) {
+        final int id = classes.indexOf(aClass);
+        return id < 0 ? 0 : classInheritorCounts[id];
+    }
+
+    @Override
+    public int countInterfaceInheritors(PsiClass aClass) {
+        final int id = classes.indexOf(aClass);
+        return id < 0 ? 0 : interfaceInheritorCounts[id];
+    }
+
+    @Override
+    public int getInheritanceDepth(PsiClass aClass) {
+        synchronized (depths) {
+            final Integer depth = depths.get(aClass);
+            if (depth != null) {
+                return depth.intValue();
+            }
+        }
+        // walk up to the first superclass with a known depth, guarding against cyclic inheritance in broken code
+        final List<PsiClass> superClasses = new ArrayList<>();
+        final Set<PsiClass> visited = new HashSet<>();
+        int depth = -1;
+        PsiClass superClass = aClass;
+        while (superClass != null && visited.add(superClass)) {
+            synchronized (depths) {
+                final Integer knownDepth = depths.get(superClass);
+                if (knownDepth != null) {
+                    depth = knownDepth.intValue();
+                    break;
+                }
+            }
+            superClasses.add(superClass);
+            superClass = superClass.getSuperClass();
+        }
+        synchronized (depths) {
+            for (int i = superClasses.size() - 1; i >= 0; i--) {
+                depth++;
+                depths.put(superClasses.get(i), Integer.valueOf(depth));
+            }
+        }
+        return depth;
+    }
+
+    @Override
+    public boolean isLeaf(PsiClass aClass) {
+        return !aClass.isInterface() && countDirectInheritors(aClass) == 0;
+    }
+
+    @Override
+    public boolean isRoot(PsiClass aClass) {
+        // only java.lang.Object has no superclass
+        return !aClass.isInterface() && getInheritanceDepth(aClass) <= 1;
+    }
+
+    public void build(PsiJavaFile file) {
+        file.accept(new JavaRecursiveElementWalkingVisitor() {
+
+            @Override
+            public void visitClass(PsiClass aClass) {
+                super.visitClass(aClass);
+                if (aClass instanceof PsiTypeParameter) {
+                    return;
+                }
+                final int id = addClass(aClass);
+                if (aClass instanceof PsiAnonymousClass) {
+                    addSuper(id, ((PsiAnonymousClass) aClass).getBaseClassType());
+                    return;
+                }
+                for (PsiClassType type : aClass.getExtendsListTypes()) {
+                    addSuper(id, type);
+                }
+                for (PsiClassType type : aClass.getImplementsListTypes()) {
+                    addSuper(id, type);
+                }
+            }
+
+            private void addSuper(int id, PsiClassType type) {
+                final PsiClass superClass = type.resolve();
+                if (superClass != null && !(superClass instanceof PsiTypeParameter)) {
+                    builder.addEdge(id, addClass(superClass));
+                }
+            }
+        });
+    }
+
+    private int addClass(PsiClass aClass) {
+        final int id = classes.add(aClass);
+        if (aClass.isInterface()) {
+            interfaces.set(id);
+        }
+        return id;
+    }
+
+    public void finishBuilding() {
+        final int classCount = classes.size();
+        graph = builder.build(classCount, classCount);
+        builder = null;
+
+        // edges go from a class to its supers, so the inheritors of a class are the classes that can reach it
+        final StronglyConnectedComponents components = StronglyConnectedComponents.compute(graph);
+        final GraphCondensation condensation = new GraphCondensation(graph, components);
+        final int[] classReachingCounts = condensation.calculateReachingCounts(id -> !interfaces.get(id));
+        classInheritorCounts = new int[classCount];
+        interfaceInheritorCounts = new int[classCount];
+        for (int id = 0; id < classCount; id++) {
+            final int component = components.getComponentId(id);
+            final boolean isInterface = interfaces.get(id);
+            final int classInheritorCount = classReachingCounts[component] - (isInterface ? 0 : 1);
+            classInheritorCounts[id] = classInheritorCount;
+            interfaceInheritorCounts[id] = condensation.getReachingCount(component) - 1 - classInheritorCount;
+        }
+    }
+}
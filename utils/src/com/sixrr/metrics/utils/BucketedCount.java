@@ -22,17 +22,21 @@ import org.jetbrains.annotations.NotNull;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * A count per bucket. All methods are synchronized, so a single instance may be shared by calculators that process
+ * files in parallel.
+ */
 public class BucketedCount<T> {
 
     private final TObjectIntHashMap<T> buckets = new TObjectIntHashMap<>();
 
-    public void createBucket(@NotNull T bucket) {
+    public synchronized void createBucket(@NotNull T bucket) {
         if (!buckets.containsKey(bucket)) {
             buckets.put(bucket, 0);
         }
     }
 
-    public Set<T> getBuckets() {
+    public synchronized Set<T> getBuckets() {
         final Set<T> result = new HashSet<>(buckets.size());
         buckets.forEachKey(t -> {
             result.add(t);
@@ -41,7 +45,7 @@ public class BucketedCount<T> {
         return result;
     }
 
-    public void incrementBucketValue(@NotNull T bucket, int increment) {
+    public synchronized void incrementBucketValue(@NotNull T bucket, int increment) {
         if (buckets.containsKey(bucket)) {
             buckets.adjustValue(bucket, increment);
         } else {
@@ -49,19 +53,19 @@ public class BucketedCount<T> {
         }
     }
 
-    public void incrementBucketValue(@NotNull T bucket) {
+    public synchronized void incrementBucketValue(@NotNull T bucket) {
         incrementBucketValue(bucket, 1);
     }
 
-    public boolean containsBucket(T bucket) {
+    public synchronized boolean containsBucket(T bucket) {
         return buckets.containsKey(bucket);
     }
 
-    public int getBucketValue(T bucket) {
+    public synchronized int getBucketValue(T bucket) {
         return buckets.get(bucket);
     }
 
-    public void clear() {
+    public synchronized void clear() {
         buckets.clear();
     }
 }
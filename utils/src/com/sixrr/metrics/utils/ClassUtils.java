@@ -20,22 +20,14 @@ import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
-import com.intellij.openapi.util.Key;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.*;
-import com.intellij.psi.search.searches.ClassInheritorsSearch;
-import com.intellij.psi.search.searches.DirectClassInheritorsSearch;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class ClassUtils {
 
-    private static final Key<Integer> SUBCLASS_COUNT = new Key<>("MetricsReloadedSubclassCount");
-
     private ClassUtils() {}
 
     @Nullable
@@ -47,20 +39,6 @@ public final class ClassUtils {
         return file.getFileType();
     }
 
-    public static int calculateSubclassCount(final PsiClass aClass) {
-        final Integer subclassCount = aClass.getUserData(SUBCLASS_COUNT);
-        if (subclassCount != null) {
-            return subclassCount.intValue();
-        }
-        if (aClass.hasModifierProperty(PsiModifier.FINAL)) {
-            aClass.putUserData(SUBCLASS_COUNT, Integer.valueOf(0));
-            return 0;
-        }
-        final int size = ClassInheritorsSearch.search(aClass).findAll().size();
-        aClass.putUserData(SUBCLASS_COUNT, Integer.valueOf(size));
-        return size;
-    }
-
     @NotNull
     public static String calculatePackageName(PsiElement element) {
         final PsiFile file = element.getContainingFile();
@@ -71,16 +49,6 @@ public final class ClassUtils {
         return javaFile.getPackageName();
     }
 
-    public static PsiPackage[] calculatePackagesRecursive(PsiElement element) {
-        PsiPackage aPackage = findPackage(element);
-        final List<PsiPackage> out = new ArrayList<>();
-        while (aPackage != null) {
-            out.add(aPackage);
-            aPackage = aPackage.getParentPackage();
-        }
-        return out.toArray(PsiPackage.EMPTY_ARRAY);
-    }
-
     public static boolean isAnonymous(PsiClass aClass) {
         return aClass instanceof PsiAnonymousClass || aClass instanceof PsiTypeParameter ||
                 aClass.getParent() instanceof PsiDeclarationStatement;
@@ -124,21 +92,6 @@ public final class ClassUtils {
         return !aClass.isInterface() && !aClass.isEnum() && !aClass.hasModifierProperty(PsiModifier.ABSTRACT);
     }
 
-    public static boolean isRoot(PsiClass aClass) {
-        if (aClass.isInterface()) {
-            return false;
-        }
-        final PsiClass superClass = aClass.getSuperClass();
-        return superClass == null || "java.lang.Object".equals(superClass.getQualifiedName());
-    }
-
-    public static boolean isLeaf(PsiClass aClass) {
-        if (aClass.isInterface()) {
-            return false;
-        }
-        return DirectClassInheritorsSearch.search(aClass).findFirst() == null;
-    }
-
     @Nullable
     public static PsiPackage findPackage(PsiElement element) {
         if (element == null) {
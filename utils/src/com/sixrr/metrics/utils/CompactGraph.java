@@ -0,0 +1,158 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.utils;
+
+import gnu.trove.TLongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Immutable weighted directed graph over int node ids, stored in compressed sparse row form. Edges go from a source
+ * node to a target node, which may be ids from different id spaces (e.g. classes to packages). Both the outgoing
+ * and the incoming edges of every node are available, sorted by node id, in the edge index range
+ * {@code [start, end)} returned by the respective start and end methods.
+ */
+public class CompactGraph {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] reverseOffsets;
+    private final int[] sources;
+    private final int[] reverseWeights;
+
+    private CompactGraph(int[] offsets, int[] targets, int[] weights,
+                         int[] reverseOffsets, int[] sources, int[] reverseWeights) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.reverseOffsets = reverseOffsets;
+        this.sources = sources;
+        this.reverseWeights = reverseWeights;
+    }
+
+    public int getSourceCount() {
+        return offsets.length - 1;
+    }
+
+    public int getTargetCount() {
+        return reverseOffsets.length - 1;
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    public int edgesStart(int source) {
+        return source < 0 ? 0 : offsets[source];
+    }
+
+    public int edgesEnd(int source) {
+        return source < 0 ? 0 : offsets[source + 1];
+    }
+
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int getWeight(int edge) {
+        return weights[edge];
+    }
+
+    public int reverseEdgesStart(int target) {
+        return target < 0 ? 0 : reverseOffsets[target];
+    }
+
+    public int reverseEdgesEnd(int target) {
+        return target < 0 ? 0 : reverseOffsets[target + 1];
+    }
+
+    public int getSource(int reverseEdge) {
+        return sources[reverseEdge];
+    }
+
+    public int getReverseWeight(int reverseEdge) {
+        return reverseWeights[reverseEdge];
+    }
+
+    /**
+     * @return the weight of the edge from source to target, or 0 if there is no such edge.
+     */
+    public int getWeight(int source, int target) {
+        if (source < 0 || target < 0) {
+            return 0;
+        }
+        final int index = Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target);
+        return index < 0 ? 0 : weights[index];
+    }
+
+    /**
+     * Collects edges while a graph is being built. Adding the same edge more than once increments its weight.
+     */
+    public static class Builder {
+
+        private final TLongIntHashMap edges = new TLongIntHashMap();
+
+        public void addEdge(int source, int target) {
+            final long key = ((long) source << 32) | (target & 0xffffffffL);
+            if (edges.containsKey(key)) {
+                edges.adjustValue(key, 1);
+            } else {
+                edges.put(key, 1);
+            }
+        }
+
+        public CompactGraph build(int sourceCount, int targetCount) {
+            final long[] keys = edges.keys();
+            Arrays.sort(keys);
+            final int edgeCount = keys.length;
+            final int[] offsets = new int[sourceCount + 1];
+            final int[] targets = new int[edgeCount];
+            final int[] weights = new int[edgeCount];
+            final int[] reverseOffsets = new int[targetCount + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                final long key = keys[i];
+                final int source = (int) (key >>> 32);
+                final int target = (int) key;
+                targets[i] = target;
+                weights[i] = edges.get(key);
+                offsets[source + 1]++;
+                reverseOffsets[target + 1]++;
+            }
+            for (int i = 0; i < sourceCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            for (int i = 0; i < targetCount; i++) {
+                reverseOffsets[i + 1] += reverseOffsets[i];
+            }
+
+            // edges are sorted by source, so filling the reverse edges in order keeps their sources sorted too
+            final int[] sources = new int[edgeCount];
+            final int[] reverseWeights = new int[edgeCount];
+            final int[] next = Arrays.copyOf(reverseOffsets, targetCount);
+            for (int source = 0; source < sourceCount; source++) {
+                for (int i = offsets[source], end = offsets[source + 1]; i < end; i++) {
+                    final int index = next[targets[i]]++;
+                    sources[index] = source;
+                    reverseWeights[index] = weights[i];
+                }
+            }
+            edges.clear();
+            return new CompactGraph(offsets, targets, weights, reverseOffsets, sources, reverseWeights);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.utils;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A count per bucket, which keeps the share of every file separately. The shares of unchanged files can be copied
+ * from the count of an earlier run, so only the changed files need to be counted again. Like {@link BucketedCount},
+ * all methods are synchronized.
+ */
+public class FileBucketedCount<T> {
+
+    // a file usually has a share in a single bucket only, like its package or module
+    private final Map<VirtualFile, Share<T>> shares = new HashMap<>();
+
+    public synchronized void createBucket(@Nullable VirtualFile file, @NotNull T bucket) {
+        findShare(file, bucket);
+    }
+
+    public synchronized void incrementBucketValue(@Nullable VirtualFile file, @NotNull T bucket, int increment) {
+        findShare(file, bucket).value += increment;
+    }
+
+    private Share<T> findShare(VirtualFile file, T bucket) {
+        final Share<T> first = shares.get(file);
+        for (Share<T> share = first; share != null; share = share.next) {
+            if (share.bucket.equals(bucket)) {
+                return share;
+            }
+        }
+        final Share<T> share = new Share<>(bucket, 0, first);
+        shares.put(file, share);
+        return share;
+    }
+
+    /**
+     * Copies the shares of all files, except the specified files and elements not in any file, from the count of an
+     * earlier run.
+     */
+    public void copyShares(@NotNull FileBucketedCount<T> previous, @NotNull Set<VirtualFile> excludedFiles) {
+        final Map<VirtualFile, Share<T>> previousShares;
+        synchronized (previous) {
+            previousShares = new HashMap<>(previous.shares);
+        }
+        synchronized (this) {
+            for (Map.Entry<VirtualFile, Share<T>> entry : previousShares.entrySet()) {
+                final VirtualFile file = entry.getKey();
+                if (file == null || excludedFiles.contains(file)) {
+                    continue;
+                }
+                for (Share<T> share = entry.getValue(); share != null; share = share.next) {
+                    findShare(file, share.bucket).value += share.value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the shares of all files to the specified count, creating a bucket for every share.
+     */
+    public synchronized void addTo(@NotNull BucketedCount<T> count) {
+        for (Share<T> first : shares.values()) {
+            for (Share<T> share = first; share != null; share = share.next) {
+                count.incrementBucketValue(share.bucket, share.value);
+            }
+        }
+    }
+
+    private static class Share<T> {
+
+        final T bucket;
+        int value;
+        final Share<T> next;
+
+        Share(T bucket, int value, Share<T> next) {
+            this.bucket = bucket;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.utils;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps a value calculated per file. Values are requested while their file is being processed, so only the values of
+ * the most recently used files are kept. May be used from several threads at once. Values are calculated outside of
+ * the lock, so files can be processed in parallel.
+ */
+public class FileCache<V> {
+
+    private static final int MAX_CACHED_FILES = 32;
+
+    private final Function<? super PsiFile, ? extends V> calculation;
+    private final Map<PsiFile, V> cache = new LinkedHashMap<PsiFile, V>(MAX_CACHED_FILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<PsiFile, V> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
+
+    public FileCache(@NotNull Function<? super PsiFile, ? extends V> calculation) {
+        this.calculation = calculation;
+    }
+
+    /**
+     * @return the value of the file containing the element.
+     */
+    public V get(@NotNull PsiElement element) {
+        final PsiFile file = element.getContainingFile();
+        V value;
+        synchronized (cache) {
+            value = cache.get(file);
+        }
+        if (value == null) {
+            value = calculation.apply(file);
+            synchronized (cache) {
+                final V existing = cache.putIfAbsent(file, value);
+                if (existing != null) {
+                    // calculated by another thread in the meantime
+                    value = existing;
+                }
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.utils;
+
+import java.util.function.IntPredicate;
+
+/**
+ * The acyclic graph of the strongly connected components of a {@link CompactGraph}, with the level orders and the
+ * transitive closure sizes of all components. Because the components are numbered in reverse topological order,
+ * everything is computed by plain loops over the component ids, without recursion.
+ */
+public class GraphCondensation {
+
+    private final StronglyConnectedComponents components;
+    private final CompactGraph graph;
+    private int[] levelOrders = null;
+    private int[] adjustedLevelOrders = null;
+    private int[] reachableCounts = null;
+    private int[] reachingCounts = null;
+
+    public GraphCondensation(CompactGraph graph, StronglyConnectedComponents components) {
+        this.components = components;
+        final CompactGraph.Builder builder = new CompactGraph.Builder();
+        final int nodeCount = graph.getSourceCount();
+        for (int node = 0; node < nodeCount; node++) {
+            final int component = components.getComponentId(node);
+            for (int i = graph.edgesStart(node), end = graph.edgesEnd(node); i < end; i++) {
+                final int targetComponent = components.getComponentId(graph.getTarget(i));
+                if (targetComponent != component) {
+                    builder.addEdge(component, targetComponent);
+                }
+            }
+        }
+        final int componentCount = components.getComponentCount();
+        this.graph = builder.build(componentCount, componentCount);
+    }
+
+    public StronglyConnectedComponents getComponents() {
+        return components;
+    }
+
+    /**
+     * @return one more than the highest level order of the components the component has edges to.
+     */
+    public int getLevelOrder(int component) {
+        if (levelOrders == null) {
+            calculateLevelOrders();
+        }
+        return levelOrders[component];
+    }
+
+    /**
+     * @return the size of the component plus the highest adjusted level order of the components the component has
+     * edges to.
+     */
+    public int getAdjustedLevelOrder(int component) {
+        if (adjustedLevelOrders == null) {
+            calculateLevelOrders();
+        }
+        return adjustedLevelOrders[component];
+    }
+
+    /**
+     * @return the number of nodes reachable from the nodes of the component, including the nodes of the component
+     * itself.
+     */
+    public int getReachableCount(int component) {
+        if (reachableCounts == null) {
+            reachableCounts = calculateClosureSizes(false, null);
+        }
+        return reachableCounts[component];
+    }
+
+    /**
+     * @return the number of nodes from which the nodes of the component can be reached, including the nodes of the
+     * component itself.
+     */
+    public int getReachingCount(int component) {
+        if (reachingCounts == null) {
+            reachingCounts = calculateClosureSizes(true, null);
+        }
+        return reachingCounts[component];
+    }
+
+    /**
+     * @return for every component, the number of nodes accepted by the filter from which the nodes of the component
+     * can be reached, including the accepted nodes of the component itself.
+     */
+    public int[] calculateReachingCounts(IntPredicate filter) {
+        return calculateClosureSizes(true, filter);
+    }
+
+    private void calculateLevelOrders() {
+        final int componentCount = components.getComponentCount();
+        levelOrders = new int[componentCount];
+        adjustedLevelOrders = new int[componentCount];
+        for (int component = 0; component < componentCount; component++) {
+            int levelOrder = 0;
+            int adjustedLevelOrder = 0;
+            for (int i = graph.edgesStart(component), end = graph.edgesEnd(component); i < end; i++) {
+                final int target = graph.getTarget(i);
+                levelOrder = Math.max(levelOrder, levelOrders[target]);
+                adjustedLevelOrder = Math.max(adjustedLevelOrder, adjustedLevelOrders[target]);
+            }
+            levelOrders[component] = levelOrder + 1;
+            adjustedLevelOrders[component] = adjustedLevelOrder + components.getComponentSize(component);
+        }
+    }
+
+    /**
+     * Propagates reachability bitsets over the condensation, 64 nodes at a time. Nodes are taken in the order of their
+     * components, so every block covers a small range of components, and only the components on one side of that
+     * range need to be visited: nodes reach only components with an id lower than or equal to their own. Only the nodes
+     * accepted by the filter are counted, or all nodes when the filter is null.
+     */
+    private int[] calculateClosureSizes(boolean reverse, IntPredicate filter) {
+        final int componentCount = components.getComponentCount();
+        final int[] counts = new int[componentCount];
+        final long[] bits = new long[componentCount];
+        final int nodeCount = componentCount == 0 ? 0 : components.membersEnd(componentCount - 1);
+        for (int blockStart = 0; blockStart < nodeCount; blockStart += 64) {
+            final int blockEnd = Math.min(blockStart + 64, nodeCount);
+            final int firstComponent = components.getComponentId(components.getMember(blockStart));
+            final int lastComponent = components.getComponentId(components.getMember(blockEnd - 1));
+            final long counted = countedBits(blockStart, blockEnd, filter);
+            if (reverse) {
+                // the block nodes that can reach a component, which are those reaching a component with an edge to it
+                for (int component = lastComponent; component >= 0; component--) {
+                    long word = ownBits(component, blockStart, blockEnd, firstComponent);
+                    for (int i = graph.reverseEdgesStart(component), end = graph.reverseEdgesEnd(component);
+                         i < end; i++) {
+                        final int source = graph.getSource(i);
+                        if (source <= lastComponent) {
+                            word |= bits[source];
+                        }
+                    }
+                    bits[component] = word;
+                    counts[component] += Long.bitCount(word & counted);
+                }
+            } else {
+                // the block nodes reachable from a component
+                for (int component = firstComponent; component < componentCount; component++) {
+                    long word = ownBits(component, blockStart, blockEnd, firstComponent);
+                    for (int i = graph.edgesStart(component), end = graph.edgesEnd(component); i < end; i++) {
+                        final int target = graph.getTarget(i);
+                        if (target >= firstComponent) {
+                            word |= bits[target];
+                        }
+                    }
+                    bits[component] = word;
+                    counts[component] += Long.bitCount(word & counted);
+                }
+            }
+        }
+        return counts;
+    }
+
+    private long countedBits(int blockStart, int blockEnd, IntPredicate filter) {
+        if (filter == null) {
+            return -1L;
+        }
+        long bits = 0L;
+        for (int position = blockStart; position < blockEnd; position++) {
+            if (filter.test(components.getMember(position))) {
+                bits |= 1L << (position - blockStart);
+            }
+        }
+        return bits;
+    }
+
+    private long ownBits(int component, int blockStart, int blockEnd, int firstComponent) {
+        if (component < firstComponent) {
+            return 0L;
+        }
+        final int start = Math.max(components.membersStart(component), blockStart);
+        final int end = Math.min(components.membersEnd(component), blockEnd);
+        if (start >= end) {
+            return 0L;
+        }
+        final long mask = end - start == 64 ? -1L : (1L << (end - start)) - 1;
+        return mask << (start - blockStart);
+    }
+}
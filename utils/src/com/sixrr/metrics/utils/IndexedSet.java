@@ -0,0 +1,67 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.utils;
+
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns a dense int id to every element added, starting at 0, so data about the elements can be stored in
+ * primitive arrays indexed by id.
+ */
+public class IndexedSet<T> {
+
+    // ids are stored incremented by one, because the map returns 0 for absent keys
+    private final TObjectIntHashMap<T> ids = new TObjectIntHashMap<>();
+    private final List<T> elements = new ArrayList<>();
+
+    /**
+     * @return the id of the element, which is newly assigned if the element was not yet present.
+     */
+    public int add(@NotNull T element) {
+        final int id = indexOf(element);
+        if (id >= 0) {
+            return id;
+        }
+        final int newId = elements.size();
+        elements.add(element);
+        ids.put(element, newId + 1);
+        return newId;
+    }
+
+    /**
+     * @return the id of the element, or -1 if the element is not present.
+     */
+    public int indexOf(Object element) {
+        if (element == null) {
+            return -1;
+        }
+        //noinspection unchecked
+        return ids.get((T) element) - 1;
+    }
+
+    public T get(int id) {
+        return elements.get(id);
+    }
+
+    public int size() {
+        return elements.size();
+    }
+}
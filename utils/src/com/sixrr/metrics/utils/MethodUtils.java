@@ -20,10 +20,7 @@ import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiMethod;
 import com.intellij.psi.PsiModifier;
 import com.intellij.psi.PsiSubstitutor;
-import com.intellij.psi.search.searches.SuperMethodsSearch;
-import com.intellij.psi.util.MethodSignatureBackedByPsiMethod;
 import com.intellij.psi.util.PsiFormatUtil;
-import com.intellij.util.Query;
 import org.jetbrains.annotations.NotNull;
 
 import static com.intellij.psi.util.PsiFormatUtilBase.*;
@@ -37,13 +34,6 @@ public final class MethodUtils {
                 !method.hasModifierProperty(PsiModifier.STATIC) && !method.hasModifierProperty(PsiModifier.PRIVATE);
     }
 
-    public static boolean hasConcreteSuperMethod(PsiMethod method) {
-        final Query<MethodSignatureBackedByPsiMethod> search = SuperMethodsSearch.search(method, null, true, false);
-        return !search.forEach(superMethod -> {
-            return isAbstract(superMethod.getMethod());
-        });
-    }
-
     public static boolean isAbstract(@NotNull PsiMethod method) {
         if (method.hasModifierProperty(PsiModifier.STATIC) || method.hasModifierProperty(PsiModifier.DEFAULT)) {
             return false;
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2005-2022 Sixth and Red River Software, Bas Leijdekkers
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.sixrr.metrics.utils;
+
+import java.util.Arrays;
+
+/**
+ * The strongly connected components of a {@link CompactGraph} whose sources and targets are the same nodes,
+ * computed with a non-recursive version of Tarjan's algorithm. Components are numbered in reverse topological
+ * order: when there is an edge from a node in component a to a node in a different component b, then b &lt; a.
+ */
+public class StronglyConnectedComponents {
+
+    private final int[] componentIds;
+    private final int[] memberOffsets;
+    private final int[] members;
+
+    private StronglyConnectedComponents(int[] componentIds, int[] memberOffsets, int[] members) {
+        this.componentIds = componentIds;
+        this.memberOffsets = memberOffsets;
+        this.members = members;
+    }
+
+    public static StronglyConnectedComponents compute(CompactGraph graph) {
+        final int nodeCount = graph.getSourceCount();
+        assert nodeCount == graph.getTargetCount();
+        final int[] index = new int[nodeCount];
+        Arrays.fill(index, -1);
+        final int[] lowLink = new int[nodeCount];
+        final boolean[] onStack = new boolean[nodeCount];
+        final int[] stack = new int[nodeCount];
+        final int[] callStack = new int[nodeCount];
+        final int[] nextEdge = new int[nodeCount];
+        final int[] componentIds = new int[nodeCount];
+        final int[] memberOffsets = new int[nodeCount + 1];
+        final int[] members = new int[nodeCount];
+        int stackSize = 0;
+        int counter = 0;
+        int componentCount = 0;
+        int memberCount = 0;
+        for (int root = 0; root < nodeCount; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            int depth = 0;
+            callStack[0] = root;
+            index[root] = lowLink[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root] = true;
+            nextEdge[root] = graph.edgesStart(root);
+            while (depth >= 0) {
+                final int node = callStack[depth];
+                if (nextEdge[node] < graph.edgesEnd(node)) {
+                    final int target = graph.getTarget(nextEdge[node]++);
+                    if (index[target] < 0) {
+                        index[target] = lowLink[target] = counter++;
+                        stack[stackSize++] = target;
+                        onStack[target] = true;
+                        nextEdge[target] = graph.edgesStart(target);
+                        callStack[++depth] = target;
+                    } else if (onStack[target]) {
+                        lowLink[node] = Math.min(lowLink[node], index[target]);
+                    }
+                    continue;
+                }
+                if (lowLink[node] == index[node]) {
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        componentIds[member] = componentCount;
+                        members[memberCount++] = member;
+                    } while (member != node);
+                    componentCount++;
+                    memberOffsets[componentCount] = memberCount;
+                }
+                depth--;
+                if (depth >= 0) {
+                    final int caller = callStack[depth];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                }
+            }
+        }
+        return new StronglyConnectedComponents(componentIds, Arrays.copyOf(memberOffsets, componentCount + 1), members);
+    }
+
+    public int getComponentCount() {
+        return memberOffsets.length - 1;
+    }
+
+    public int getComponentId(int node) {
+        return componentIds[node];
+    }
+
+    public int getComponentSize(int component) {
+        return memberOffsets[component + 1] - memberOffsets[component];
+    }
+
+    /**
+     * The members of a component are at the positions {@code [membersStart(component), membersEnd(component))}.
+     */
+    public int membersStart(int component) {
+        return memberOffsets[component];
+    }
+
+    public int membersEnd(int component) {
+        return memberOffsets[component + 1];
+    }
+
+    public int getMember(int position) {
+        return members[position];
+    }
+}